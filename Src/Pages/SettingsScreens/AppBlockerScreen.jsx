@@ -24,6 +24,7 @@ import {useAuth} from '../../contexts/AuthContext';
 // Global cache for apps data
 let appsCache = null;
 const CACHE_EXPIRATION = 5 * 60 * 1000;
+const SEARCH_RESULT_LIMIT = 50;
 
 export const ScheduleType = {
   LOCK: 'lock',
@@ -300,12 +301,40 @@ const AppBlockerScreen = () => {
   useEffect(() => {
     if (searchQuery.trim() === '') {
       setFilteredApps(apps);
-    } else {
-      const filtered = allSortedAppsRef.current.filter(app =>
+      return;
+    }
+
+    const filterInJs = () =>
+      allSortedAppsRef.current.filter(app =>
         app.name.toLowerCase().includes(searchQuery.toLowerCase()),
       );
-      setFilteredApps(filtered);
+
+    if (!InstalledApps.searchApps) {
+      setFilteredApps(filterInJs());
+      return;
     }
+
+    // Native index returns only package IDs and labels, ranked by match quality and usage
+    let cancelled = false;
+    InstalledApps.searchApps(searchQuery, SEARCH_RESULT_LIMIT)
+      .then(results => {
+        if (cancelled) return;
+        const appsByPackage = new Map(
+          allSortedAppsRef.current.map(app => [app.packageName, app]),
+        );
+        const ranked = results
+          .map(result => appsByPackage.get(result.packageName))
+          .filter(Boolean);
+        setFilteredApps(ranked);
+      })
+      .catch(error => {
+        console.warn('Native app search failed, using JS filter:', error);
+        if (!cancelled) setFilteredApps(filterInJs());
+      });
+
+    return () => {
+      cancelled = true;
+    };
   }, [searchQuery, apps]);
 
   // ✅ NEW: Get system usage stats - SINGLE SOURCE OF TRUTH
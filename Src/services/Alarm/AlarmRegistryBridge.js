@@ -0,0 +1,106 @@
+import {NativeModules, Platform} from 'react-native';
+
+const {AlarmRegistryModule} = NativeModules;
+
+/**
+ * Alarm Registry Bridge - every alarm set by the native layer
+ * Task, custom, voice command, morning routine, task confirmation, block time,
+ * challenge, night mode and date reminder alarms, each as
+ * { type, id, requestCode, nextFireAt, recurrence, payloadRef }
+ */
+const AlarmRegistryBridge = {
+  TYPES: {
+    TASK: 'task',
+    CUSTOM: 'custom',
+    VOICE_COMMAND: 'voice_command',
+    MORNING_ROUTINE: 'morning_routine',
+    TASK_CONFIRMATION: 'task_confirmation',
+    BLOCK_TIME: 'block_time',
+    CHALLENGE: 'challenge',
+    NIGHT_MODE: 'night_mode',
+    DATE_REMINDER: 'date_reminder',
+  },
+
+  /**
+   * All scheduled alarms, soonest first, or [] when the native module is not available
+   */
+  getScheduledAlarms: async function () {
+    try {
+      if (Platform.OS !== 'android' || !AlarmRegistryModule) {
+        return [];
+      }
+
+      return await AlarmRegistryModule.getScheduledAlarms();
+    } catch (error) {
+      console.error('Error getting scheduled alarms:', error);
+      return [];
+    }
+  },
+
+  /**
+   * Alarms due in [fromMs, toMs), soonest first
+   */
+  getAlarmsBetween: async function (fromMs, toMs) {
+    try {
+      if (Platform.OS !== 'android' || !AlarmRegistryModule) {
+        return [];
+      }
+
+      return await AlarmRegistryModule.getAlarmsBetween(fromMs, toMs);
+    } catch (error) {
+      console.error('Error querying alarms:', error);
+      return [];
+    }
+  },
+
+  getAlarmsByType: async function (type) {
+    try {
+      if (Platform.OS !== 'android' || !AlarmRegistryModule) {
+        return [];
+      }
+
+      return await AlarmRegistryModule.getAlarmsByType(type);
+    } catch (error) {
+      console.error('Error getting alarms by type:', error);
+      return [];
+    }
+  },
+
+  /**
+   * { osAlarms, queuedAlarms, nextWakeupAt, wakeups, dispatched, coalesced, lastWakeupAt }
+   * osAlarms counts the alarms set with AlarmManager right now: the single wakeup for the
+   * queued block time, challenge and date reminder alarms plus every alarm set directly.
+   * Null when the native module is not available
+   */
+  getAlarmStats: async function () {
+    try {
+      if (Platform.OS !== 'android' || !AlarmRegistryModule) {
+        return null;
+      }
+
+      return await AlarmRegistryModule.getAlarmStats();
+    } catch (error) {
+      console.error('Error getting alarm stats:', error);
+      return null;
+    }
+  },
+
+  /**
+   * Cancel every alarm of one type (see TYPES). Returns how many were cancelled,
+   * or 0 when the native module is not available
+   */
+  cancelAlarmsByType: async function (type) {
+    try {
+      if (Platform.OS !== 'android' || !AlarmRegistryModule) {
+        return 0;
+      }
+
+      return await AlarmRegistryModule.cancelAlarmsByType(type);
+    } catch (error) {
+      console.error('Error cancelling alarms by type:', error);
+      return 0;
+    }
+  },
+};
+
+export default AlarmRegistryBridge;
@@ -153,25 +153,10 @@ class BlockTimeScheduler {
 
       console.log(`📋 Found ${tasks.length} tasks requiring alarms`);
 
-      let scheduledCount = 0;
-      const results = [];
-
-      for (const task of tasks) {
-        try {
-          const result = await this.scheduleAlarmForTask(task, dateString);
-          results.push(result);
-
-          if (result.success) {
-            scheduledCount++;
-          }
-        } catch (error) {
-          console.error(
-            `❌ Error scheduling alarm for task ${task.id}:`,
-            error,
-          );
-          results.push({success: false, taskId: task.id, error: error.message});
-        }
-      }
+      const {scheduled: scheduledCount, results} =
+        await this.scheduleAlarmsForTasks(
+          tasks.map(task => ({task, dateString})),
+        );
 
       console.log('========================================');
       console.log(`✅ Scheduled ${scheduledCount}/${tasks.length} alarms`);
@@ -217,26 +202,13 @@ class BlockTimeScheduler {
 
       console.log(`📋 Found ${upcomingAlarms.length} total alarms to schedule`);
 
-      let scheduledCount = 0;
-      const results = [];
-
-      for (const alarm of upcomingAlarms) {
-        try {
-          const dateString = this.formatDateForDB(new Date(alarm.date));
-          const result = await this.scheduleAlarmForTask(
-            alarm.task,
-            dateString,
-          );
-          results.push(result);
-
-          if (result.success) {
-            scheduledCount++;
-          }
-        } catch (error) {
-          console.error(`❌ Error scheduling alarm:`, error);
-          results.push({success: false, error: error.message});
-        }
-      }
+      const {scheduled: scheduledCount, results} =
+        await this.scheduleAlarmsForTasks(
+          upcomingAlarms.map(alarm => ({
+            task: alarm.task,
+            dateString: this.formatDateForDB(new Date(alarm.date)),
+          })),
+        );
 
       console.log('========================================');
       console.log(
@@ -257,112 +229,185 @@ class BlockTimeScheduler {
   }
 
   /**
-   * Schedule alarm for a specific task
+   * Schedule alarms for many tasks with one native call
+   * entries: [{task, dateString}]; results[i] belongs to entries[i]
    */
-  async scheduleAlarmForTask(task, dateString) {
-    try {
-      if (Platform.OS !== 'android' || !BlockTimeSchedulerModule) {
-        return {success: false, reason: 'Not Android'};
+  async scheduleAlarmsForTasks(entries) {
+    const items = [];
+    // Index in entries of each item sent to native
+    const positions = [];
+    const results = new Array(entries.length);
+
+    entries.forEach(({task, dateString}, index) => {
+      const item = this.buildAlarmItem(task, dateString);
+      if (item) {
+        items.push(item);
+        positions.push(index);
+      } else {
+        results[index] = {
+          success: false,
+          taskId: task.id,
+          dateString,
+          reason: 'No start time',
+        };
       }
+    });
 
-      console.log('⏰ Scheduling alarm for task:', task.title);
-      console.log('   Date:', dateString);
+    if (items.length === 0) {
+      return {scheduled: 0, results};
+    }
 
-      // ✅ FIX: Try multiple ways to get start time
-      let startTime = null;
+    let batch;
+    try {
+      batch = await BlockTimeSchedulerModule.scheduleBlockTimeAlarms(items);
+    } catch (error) {
+      // e.g. no exact alarm permission: every item failed, the valid ones included
+      console.error('❌ Native batch rejected:', error.message);
+      batch = {
+        scheduled: 0,
+        durationMs: 0,
+        results: items.map(item => ({
+          success: false,
+          taskId: item.taskId,
+          dateString: item.dateString,
+          error: error.code || error.message,
+        })),
+      };
+    }
 
-      // Method 1: Check root level first (for PlanYourDay tasks)
-      if (task.start_time) {
-        startTime = task.start_time;
-        console.log('   ✅ Found start_time at root level:', startTime);
+    console.log(
+      `⚡ Native batch scheduled ${batch.scheduled}/${items.length} in ${batch.durationMs}ms`,
+    );
+    batch.results.forEach((result, i) => {
+      if (!result.success) {
+        console.warn('⚠️ Not scheduled:', result.taskId, result.error);
       }
+      results[positions[i]] = result;
+    });
 
-      // Method 2: Parse from block_time_data if not found
-      if (!startTime && task.block_time_data) {
-        try {
-          // Handle both string and object formats
-          const blockData =
-            typeof task.block_time_data === 'string'
-              ? JSON.parse(task.block_time_data)
-              : task.block_time_data;
-
-          startTime = blockData.start_time;
-          console.log('   ✅ Found start_time in block_time_data:', startTime);
-        } catch (parseError) {
-          console.error('   ❌ Failed to parse block_time_data:', parseError);
-        }
+    return {scheduled: batch.scheduled, results};
+  }
+
+  /**
+   * Arguments of the native schedule call for a task, or null without a start time
+   */
+  buildAlarmItem(task, dateString) {
+    // ✅ FIX: Try multiple ways to get start time
+    let startTime = null;
+
+    // Method 1: Check root level first (for PlanYourDay tasks)
+    if (task.start_time) {
+      startTime = task.start_time;
+      console.log('   ✅ Found start_time at root level:', startTime);
+    }
+
+    // Method 2: Parse from block_time_data if not found
+    if (!startTime && task.block_time_data) {
+      try {
+        // Handle both string and object formats
+        const blockData =
+          typeof task.block_time_data === 'string'
+            ? JSON.parse(task.block_time_data)
+            : task.block_time_data;
+
+        startTime = blockData.start_time;
+        console.log('   ✅ Found start_time in block_time_data:', startTime);
+      } catch (parseError) {
+        console.error('   ❌ Failed to parse block_time_data:', parseError);
       }
+    }
 
-      // Method 3: Fallback to blockTimeService (if available)
-      if (!startTime && blockTimeService.getBlockTimeStartTime) {
-        startTime = blockTimeService.getBlockTimeStartTime(
-          task.block_time_data,
+    // Method 3: Fallback to blockTimeService (if available)
+    if (!startTime && blockTimeService.getBlockTimeStartTime) {
+      startTime = blockTimeService.getBlockTimeStartTime(
+        task.block_time_data,
+      );
+      if (startTime) {
+        console.log(
+          '   ✅ Found start_time via blockTimeService:',
+          startTime,
         );
-        if (startTime) {
-          console.log(
-            '   ✅ Found start_time via blockTimeService:',
-            startTime,
-          );
-        }
       }
+    }
 
-      if (!startTime) {
-        console.warn('⚠️ No start time found for task:', task.id);
-        console.log('   Task data:', JSON.stringify(task, null, 2));
-        return {success: false, reason: 'No start time'};
+    if (!startTime) {
+      console.warn('⚠️ No start time found for task:', task.id);
+      console.log('   Task data:', JSON.stringify(task, null, 2));
+      return null;
+    }
+
+    console.log('   Start time:', startTime);
+
+    // ✅ CRITICAL FIX: Prepare task data with ALL properties including Pomodoro settings
+    const taskDataJson = JSON.stringify({
+      id: task.id,
+      title: task.title,
+      description: task.description || '',
+      category: task.category || '',
+      evaluation_type: task.evaluation_type,
+      block_time_data: task.block_time_data,
+      frequency_type: task.frequency_type,
+      selected_weekdays: task.selected_weekdays,
+      selected_month_dates: task.selected_month_dates,
+      selected_year_dates: task.selected_year_dates,
+      start_date: task.start_date,
+      every_days: task.every_days,
+      activity_days: task.activity_days,
+      rest_days: task.rest_days,
+      source: task.source || 'tasks',
+      // ✅ ADD: Pomodoro settings (critical for alarm restoration)
+      focus_duration: task.focus_duration,
+      short_break_duration: task.short_break_duration,
+      long_break_duration: task.long_break_duration,
+      focus_sessions_per_round: task.focus_sessions_per_round,
+      auto_start_short_breaks: task.auto_start_short_breaks,
+      auto_start_focus_sessions: task.auto_start_focus_sessions,
+      pomodoro_duration: task.pomodoro_duration,
+      // ✅ ADD: Duration data
+      duration_data: task.duration_data,
+    });
+
+    return {
+      taskId: task.id.toString(),
+      taskTitle: task.title,
+      taskDescription: task.description || '',
+      evaluationType: task.evaluation_type,
+      startTime,
+      category: task.category || '',
+      source: task.source || 'tasks',
+      taskDataJson,
+      dateString,
+    };
+  }
+
+  /**
+   * Schedule alarm for a specific task
+   */
+  async scheduleAlarmForTask(task, dateString) {
+    try {
+      if (Platform.OS !== 'android' || !BlockTimeSchedulerModule) {
+        return {success: false, reason: 'Not Android'};
       }
 
-      console.log('   Start time:', startTime);
-
-      // ✅ CRITICAL FIX: Prepare task data with ALL properties including Pomodoro settings
-      const taskDataJson = JSON.stringify({
-        id: task.id,
-        title: task.title,
-        description: task.description || '',
-        category: task.category || '',
-        evaluation_type: task.evaluation_type,
-        block_time_data: task.block_time_data,
-        frequency_type: task.frequency_type,
-        selected_weekdays: task.selected_weekdays,
-        selected_month_dates: task.selected_month_dates,
-        selected_year_dates: task.selected_year_dates,
-        start_date: task.start_date,
-        every_days: task.every_days,
-        activity_days: task.activity_days,
-        rest_days: task.rest_days,
-        source: task.source || 'tasks',
-        // ✅ ADD: Pomodoro settings (critical for alarm restoration)
-        focus_duration: task.focus_duration,
-        short_break_duration: task.short_break_duration,
-        long_break_duration: task.long_break_duration,
-        focus_sessions_per_round: task.focus_sessions_per_round,
-        auto_start_short_breaks: task.auto_start_short_breaks,
-        auto_start_focus_sessions: task.auto_start_focus_sessions,
-        pomodoro_duration: task.pomodoro_duration,
-        // ✅ ADD: Duration data
-        duration_data: task.duration_data,
-      });
+      console.log('⏰ Scheduling alarm for task:', task.title);
+      console.log('   Date:', dateString);
 
-      console.log('📦 Task Data JSON with Pomodoro settings:');
-      console.log('   Length:', taskDataJson.length);
-      console.log('   Pomodoro included:', {
-        focus_duration: task.focus_duration,
-        short_break_duration: task.short_break_duration,
-        long_break_duration: task.long_break_duration,
-        focus_sessions_per_round: task.focus_sessions_per_round,
-      });
+      const item = this.buildAlarmItem(task, dateString);
+      if (!item) {
+        return {success: false, reason: 'No start time'};
+      }
 
       // Schedule alarm via native module
       const result = await BlockTimeSchedulerModule.scheduleBlockTimeAlarm(
-        task.id.toString(),
-        task.title,
-        task.description || '',
-        task.evaluation_type,
-        startTime,
-        task.category || '',
-        task.source || 'tasks',
-        taskDataJson,
-        dateString,
+        item.taskId,
+        item.taskTitle,
+        item.taskDescription,
+        item.evaluationType,
+        item.startTime,
+        item.category,
+        item.source,
+        item.taskDataJson,
+        item.dateString,
       );
 
       if (result.success) {
@@ -413,6 +458,34 @@ class BlockTimeScheduler {
     }
   }
 
+  /**
+   * Cancel many alarms with one native call
+   * alarms: [{taskId, dateString}]
+   */
+  async cancelAlarms(alarms) {
+    try {
+      if (Platform.OS !== 'android' || !BlockTimeSchedulerModule) {
+        return {success: false};
+      }
+
+      const result = await BlockTimeSchedulerModule.cancelBlockTimeAlarms(
+        alarms.map(({taskId, dateString}) => ({
+          taskId: taskId.toString(),
+          dateString,
+        })),
+      );
+
+      console.log(
+        `✅ Cancelled ${result.cancelledCount}/${alarms.length} alarms`,
+      );
+
+      return result;
+    } catch (error) {
+      console.error('❌ [BlockTimeScheduler] Cancel alarms error:', error);
+      return {success: false, error: error.message};
+    }
+  }
+
   /**
    * Cancel all alarms for a specific task
    */
@@ -484,7 +557,7 @@ class BlockTimeScheduler {
       }
 
       // Schedule alarms for next 7 days
-      let scheduledCount = 0;
+      const entries = [];
       const today = new Date();
 
       for (let i = 0; i < 7; i++) {
@@ -500,13 +573,13 @@ class BlockTimeScheduler {
         const taskExists = tasks.some(t => t.id === taskId);
 
         if (taskExists) {
-          const result = await this.scheduleAlarmForTask(task, dateString);
-          if (result.success) {
-            scheduledCount++;
-          }
+          entries.push({task, dateString});
         }
       }
 
+      const {scheduled: scheduledCount} =
+        await this.scheduleAlarmsForTasks(entries);
+
       console.log(`✅ Rescheduled ${scheduledCount} alarms for task`);
 
       return {success: true, scheduled: scheduledCount};
@@ -0,0 +1,100 @@
+import {NativeModules, Platform} from 'react-native';
+
+const {NetworkMetricsModule} = NativeModules;
+
+/**
+ * Network Metrics Bridge - native network health
+ * Per-endpoint latency/error metrics, circuit breaker states and
+ * single-flight deduplication counts recorded by the Android layer
+ */
+const NetworkMetricsBridge = {
+  /**
+   * Returns { endpoints: [...], circuitBreakers: {host: state}, singleFlight: {...} }
+   * or null when the native module is not available
+   */
+  getNetworkMetrics: async function () {
+    try {
+      if (Platform.OS !== 'android' || !NetworkMetricsModule) {
+        console.warn('NetworkMetricsModule not available');
+        return null;
+      }
+
+      return await NetworkMetricsModule.getNetworkMetrics();
+    } catch (error) {
+      console.error('Error getting network metrics:', error);
+      return null;
+    }
+  },
+
+  /**
+   * Clear the per-endpoint metrics (breaker states are kept)
+   */
+  resetNetworkMetrics: async function () {
+    try {
+      if (Platform.OS !== 'android' || !NetworkMetricsModule) {
+        return false;
+      }
+
+      return await NetworkMetricsModule.resetNetworkMetrics();
+    } catch (error) {
+      console.error('Error resetting network metrics:', error);
+      return false;
+    }
+  },
+
+  /**
+   * Returns { sizeBytes, fileCount, budgetBytes, lastCleanupAt, lastEvictedFiles,
+   * lastEvictedBytes, ttsCacheHits, ttsCacheMisses, ttsCharactersSynthesized,
+   * pinnedPhraseBytes } for the native audio/media cache or null when the native module
+   * is not available
+   */
+  getMediaCacheStats: async function () {
+    try {
+      if (Platform.OS !== 'android' || !NetworkMetricsModule) {
+        return null;
+      }
+
+      return await NetworkMetricsModule.getMediaCacheStats();
+    } catch (error) {
+      console.error('Error getting media cache stats:', error);
+      return null;
+    }
+  },
+
+  /**
+   * Returns { counts: {cached, streaming, buffered, combined, offline, none},
+   * recent: [{alarmId, tier, ttfaMs, at}] } - which speech tier served each alarm,
+   * most recent first - or null when the native module is not available
+   */
+  getSpeechTiers: async function () {
+    try {
+      if (Platform.OS !== 'android' || !NetworkMetricsModule) {
+        return null;
+      }
+
+      return await NetworkMetricsModule.getSpeechTiers();
+    } catch (error) {
+      console.error('Error getting speech tiers:', error);
+      return null;
+    }
+  },
+
+  /**
+   * Change the media cache budget (bytes, at least 10 MB) and trim to it now.
+   * Returns { sizeBytes, budgetBytes, evictedFiles, evictedBytes } or null
+   */
+  setMediaCacheBudget: async function (bytes) {
+    try {
+      if (Platform.OS !== 'android' || !NetworkMetricsModule) {
+        return null;
+      }
+
+      return await NetworkMetricsModule.setMediaCacheBudget(bytes);
+    } catch (error) {
+      console.error('Error setting media cache budget:', error);
+      return null;
+    }
+  },
+};
+
+export default NetworkMetricsBridge;
@@ -52,6 +52,7 @@ export class SessionBatchUploader {
         const formattedDuration = this.formatDuration(durationInSeconds);
         
         return {
+          id: session.id, // Local UUID, so a retried batch updates the same rows
           user_id: session.user_id,
           session_start: session.session_start, // Already in IST format
           session_end: session.session_end, // Already in IST format
@@ -69,7 +70,7 @@ export class SessionBatchUploader {
         
         const { data, error } = await supabase
           .from('user_activity')
-          .insert(batch);
+          .upsert(batch, { onConflict: 'id' });
 
         if (error) {
           console.error('Error uploading batch:', error);
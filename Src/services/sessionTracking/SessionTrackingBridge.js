@@ -0,0 +1,157 @@
+// Src/services/sessionTracking/SessionTrackingBridge.js
+import {NativeModules, Platform} from 'react-native';
+import AsyncStorage from '@react-native-async-storage/async-storage';
+import NetInfo from '@react-native-community/netinfo';
+import {SessionStorageManager} from './SessionStorageManager';
+import {SessionBatchUploader} from './SessionBatchUploader';
+
+const {SessionTrackingModule} = NativeModules;
+
+// Keys used by the old AsyncStorage-based tracker
+const LEGACY_KEYS = {
+  PENDING_SESSIONS: 'pending_sessions',
+  CURRENT_SESSION: 'current_session',
+  LAST_BATCH_SENT: 'last_batch_sent',
+};
+
+const isAvailable = () => Platform.OS === 'android' && !!SessionTrackingModule;
+
+// Without the native module, sessions stay in AsyncStorage and are uploaded
+// from JS while the app is open, as before
+const uploadIfDue = async () => {
+  try {
+    const netInfo = await NetInfo.fetch();
+    if (netInfo.isConnected && (await SessionStorageManager.shouldSendBatch())) {
+      const result = await SessionBatchUploader.uploadPendingSessions();
+      if (!result.success) {
+        console.log('[SESSION] Upload failed:', result.reason);
+      }
+    }
+  } catch (error) {
+    console.error('Error uploading pending sessions:', error);
+  }
+};
+
+/**
+ * Session Tracking Bridge - app usage sessions
+ * On Android sessions are logged natively and uploaded in batches by a
+ * background job, so JS only marks when a session starts and ends. Other
+ * platforms fall back to the AsyncStorage tracker.
+ */
+const SessionTrackingBridge = {
+  startSession: async function (userId) {
+    try {
+      if (!isAvailable()) {
+        await SessionStorageManager.startSession(userId);
+        uploadIfDue();
+        return true;
+      }
+      return await SessionTrackingModule.startSession(userId);
+    } catch (error) {
+      console.error('Error starting session:', error);
+      return false;
+    }
+  },
+
+  /**
+   * Returns the completed session, or null if it was too short to keep
+   */
+  endSession: async function () {
+    try {
+      if (!isAvailable()) {
+        return (await SessionStorageManager.endSession()) || null;
+      }
+      return await SessionTrackingModule.endSession();
+    } catch (error) {
+      console.error('Error ending session:', error);
+      return null;
+    }
+  },
+
+  /**
+   * Upload pending sessions as soon as there is a network connection
+   */
+  uploadNow: async function () {
+    try {
+      if (!isAvailable()) {
+        return await SessionBatchUploader.forceUploadPendingSessions();
+      }
+      const pending = await SessionTrackingModule.uploadNow();
+      return {success: true, scheduledSessions: pending};
+    } catch (error) {
+      console.error('Error scheduling session upload:', error);
+      return {success: false, error: error.message};
+    }
+  },
+
+  getSessionStats: async function () {
+    try {
+      if (!isAvailable()) {
+        return await SessionStorageManager.getSessionStats();
+      }
+      const stats = await SessionTrackingModule.getSessionStats();
+      return {
+        ...stats,
+        lastBatchSent: stats.lastBatchSent ? new Date(stats.lastBatchSent) : null,
+      };
+    } catch (error) {
+      console.error('Error getting session stats:', error);
+      return null;
+    }
+  },
+
+  clearAllSessionData: async function () {
+    try {
+      if (!isAvailable()) {
+        await SessionStorageManager.clearAllSessionData();
+        return true;
+      }
+      return await SessionTrackingModule.clearAllSessionData();
+    } catch (error) {
+      console.error('Error clearing session data:', error);
+      return false;
+    }
+  },
+
+  testConnection: async function () {
+    try {
+      if (!isAvailable()) {
+        return await SessionBatchUploader.testConnection();
+      }
+      const connected = await SessionTrackingModule.testConnection();
+      return connected
+        ? {success: true, message: 'Connection to Supabase successful'}
+        : {success: false, error: 'Supabase not reachable'};
+    } catch (error) {
+      return {success: false, error: error.message};
+    }
+  },
+
+  /**
+   * Hand sessions still queued in AsyncStorage by the old tracker to the native log.
+   * Without the native module the fallback still uses those keys, so they stay.
+   */
+  migrateLegacySessions: async function () {
+    try {
+      if (!isAvailable()) {
+        return 0;
+      }
+      const pendingStr = await AsyncStorage.getItem(LEGACY_KEYS.PENDING_SESSIONS);
+      const pending = pendingStr ? JSON.parse(pendingStr) : [];
+      const imported =
+        pending.length > 0
+          ? await SessionTrackingModule.importPendingSessions(pending)
+          : 0;
+      await AsyncStorage.multiRemove(Object.values(LEGACY_KEYS));
+      if (imported > 0) {
+        console.log(`[SESSION] Migrated ${imported} pending sessions to native storage`);
+      }
+      return imported;
+    } catch (error) {
+      console.error('Error migrating legacy sessions:', error);
+      return 0;
+    }
+  },
+};
+
+export default SessionTrackingBridge;
@@ -48,7 +48,7 @@ public class AlarmActivity extends Activity {
     private boolean useElevenLabs;
     
     // ABSOLUTE singleton audio control
-    private ElevenLabsNativeServiceSingleton audioSingleton;
+    private AlarmSpeechController speechController;
     private boolean hasAttemptedAudio = false;
     
     // Control state
@@ -63,7 +63,7 @@ public class AlarmActivity extends Activity {
         Log.d(TAG, "🚀 AlarmActivity onCreate - ABSOLUTE SINGLE AUDIO MODE");
 
         // STEP 1: Get ABSOLUTE singleton audio controller
-        audioSingleton = ElevenLabsNativeServiceSingleton.getInstance();
+        speechController = AlarmSpeechController.getInstance();
         
         // STEP 2: IMMEDIATELY force screen activation
         forceScreenActivationMax();
@@ -91,7 +91,7 @@ public class AlarmActivity extends Activity {
         Log.d(TAG, "Task: " + taskTitleStr);
         Log.d(TAG, "Device locked: " + isDeviceLocked);
         Log.d(TAG, "ElevenLabs enabled: " + useElevenLabs);
-        Log.d(TAG, "Audio Status: " + audioSingleton.getStatus());
+        Log.d(TAG, "Audio Status: " + speechController.getStatus());
         
         // STEP 7: Initialize UI
         initializeViews();
@@ -122,26 +122,26 @@ public class AlarmActivity extends Activity {
         hasAttemptedAudio = true;
         
         Log.d(TAG, "🎵 Requesting ABSOLUTE SINGLE audio for: " + alarmId);
-        Log.d(TAG, "Current audio status: " + audioSingleton.getStatus());
+        Log.d(TAG, "Current audio status: " + speechController.getStatus());
         
         // Always start vibration first
         startAlarmVibration();
         
         // Request ABSOLUTE single audio - this CANNOT be bypassed
-        boolean audioStarted = audioSingleton.playEnhancedAlarmSpeech(
+        boolean audioStarted = speechController.requestPlayback(
             alarmId,
             taskTitleStr,
             extractTimeFromMessage(ttsMessage),
             userName,
             this,
             "ACTIVITY_" + launchedFrom
-        );
+        ) != null;
         
         if (audioStarted) {
             Log.d(TAG, "✅ ABSOLUTE SINGLE audio started successfully");
         } else {
             Log.d(TAG, "🔇 ABSOLUTE audio BLOCKED - another instance is active");
-            Log.d(TAG, "Current status: " + audioSingleton.getStatus());
+            Log.d(TAG, "Current status: " + speechController.getStatus());
         }
     }
 
@@ -267,31 +267,7 @@ public class AlarmActivity extends Activity {
     }
 
     private String extractTimeFromMessage(String message) {
-        if (message == null || message.isEmpty()) {
-            return "12:00";
-        }
-        
-        try {
-            if (message.contains(" at ")) {
-                String[] parts = message.split(" at ");
-                if (parts.length > 1) {
-                    String timePart = parts[1].split(" ")[0];
-                    if (timePart.contains(":")) {
-                        return timePart;
-                    }
-                }
-            }
-            
-            java.util.regex.Pattern timePattern = java.util.regex.Pattern.compile("\\b(\\d{1,2}):(\\d{2})\\b");
-            java.util.regex.Matcher matcher = timePattern.matcher(message);
-            if (matcher.find()) {
-                return matcher.group();
-            }
-        } catch (Exception e) {
-            Log.e(TAG, "Error extracting time from message: " + e.getMessage());
-        }
-        
-        return "12:00";
+        return AlarmSpeechPrerenderer.scheduleTimeFromMessage(message);
     }
 
     private void initializeViews() {
@@ -359,16 +335,16 @@ public class AlarmActivity extends Activity {
             return;
         }
         
-        Log.d(TAG, "Current audio status: " + audioSingleton.getStatus());
+        Log.d(TAG, "Current audio status: " + speechController.getStatus());
         
         // Request absolute repeat audio
-        boolean repeatStarted = audioSingleton.playHindiQuoteOnly(alarmId, "MANUAL_REPEAT", this);
+        boolean repeatStarted = speechController.requestRepeat(alarmId, this, "MANUAL_REPEAT") != null;
         
         if (repeatStarted) {
             Log.d(TAG, "✅ ABSOLUTE repeat audio started");
         } else {
             Log.w(TAG, "🔇 Repeat audio blocked");
-            Log.d(TAG, "Status: " + audioSingleton.getStatus());
+            Log.d(TAG, "Status: " + speechController.getStatus());
         }
     }
 
@@ -541,8 +517,8 @@ public class AlarmActivity extends Activity {
         }
         
         // Stop ABSOLUTE single audio instance
-        if (audioSingleton != null && alarmId != null) {
-            audioSingleton.stopAudio(alarmId, "ACTIVITY_STOP");
+        if (speechController != null && alarmId != null) {
+            speechController.stop(alarmId, "ACTIVITY_STOP");
             Log.d(TAG, "Absolute single audio instance stopped");
         }
 
@@ -578,8 +554,8 @@ public class AlarmActivity extends Activity {
             Log.d(TAG, "New alarm ID: " + newAlarmId + " (current: " + alarmId + ")");
             
             // Stop current audio
-            if (audioSingleton != null && alarmId != null) {
-                audioSingleton.stopAudio(alarmId, "NEW_INTENT");
+            if (speechController != null && alarmId != null) {
+                speechController.stop(alarmId, "NEW_INTENT");
             }
             
             // Update to new alarm
@@ -591,8 +567,8 @@ public class AlarmActivity extends Activity {
             }
         } else {
             Log.d(TAG, "Same alarm ID in new intent");
-            if (audioSingleton != null) {
-                Log.d(TAG, "Current audio status: " + audioSingleton.getStatus());
+            if (speechController != null) {
+                Log.d(TAG, "Current audio status: " + speechController.getStatus());
             }
         }
     }
@@ -608,8 +584,8 @@ public class AlarmActivity extends Activity {
             getWindow().addFlags(WindowManager.LayoutParams.FLAG_KEEP_SCREEN_ON);
         }
         
-        if (audioSingleton != null) {
-            Log.d(TAG, "Audio status on resume: " + audioSingleton.getStatus());
+        if (speechController != null) {
+            Log.d(TAG, "Audio status on resume: " + speechController.getStatus());
         }
     }
 
@@ -627,8 +603,8 @@ public class AlarmActivity extends Activity {
         Log.d(TAG, "AlarmActivity destroying - cleaning up absolute audio");
         
         // Stop absolute single audio
-        if (audioSingleton != null && alarmId != null) {
-            audioSingleton.stopAudio(alarmId, "ACTIVITY_DESTROY");
+        if (speechController != null && alarmId != null) {
+            speechController.stop(alarmId, "ACTIVITY_DESTROY");
         }
         
         stopAlarmSoundAndVibration();
@@ -0,0 +1,360 @@
+package com.wingsfly;
+
+import android.app.job.JobInfo;
+import android.app.job.JobScheduler;
+import android.content.ComponentName;
+import android.content.Context;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.PersistableBundle;
+import android.util.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Keeps everything an alarm needs at fire time on disk: morning routine commands, the
+ * intention text and audio, and the date reminder images.
+ *
+ * Content is fetched when an alarm is scheduled and refreshed again shortly before it
+ * fires (AlarmContentRefreshJobService). At fire time the alarm UI reads
+ * SupabaseResponseCache and getLocalMedia() and never waits on the network. Media is
+ * keyed by URL; MediaDownloader resumes interrupted downloads and revalidates stored files.
+ */
+public class AlarmContentPrefetcher {
+
+    private static final String TAG = "AlarmContentPrefetch";
+
+    public static final int KIND_MORNING_ROUTINE = 0;
+    public static final int KIND_TASK_INTENTION = 1;
+    public static final int KIND_DATE_REMINDER = 2;
+
+    public static final String MEDIA_INTENTION = "intention";
+    public static final String MEDIA_REMINDER = "reminder";
+
+    // One pending refresh job per alarm kind
+    private static final int JOB_ID_BASE = 47100;
+    static final String EXTRA_KIND = "kind";
+    static final String EXTRA_FIRE_TIME = "fireTime";
+
+    // The refresh pass runs in the window [fire - 15 min, fire - 1 min]
+    private static final long REFRESH_LEAD_MS = 15 * 60 * 1000L;
+    private static final long REFRESH_DEADLINE_MS = 60 * 1000L;
+
+    static final String MEDIA_DIR = "alarm_content";
+
+    private static Handler prefetchHandler;
+
+    // URLs with a prefetch queued or running, so repeated reads don't queue it again
+    private static final Set<String> pendingMedia = new HashSet<>();
+
+    /**
+     * Prefetch the alarm's content now and schedule a refresh pass just before it fires
+     */
+    public static void onAlarmScheduled(Context context, final int kind, long fireTime) {
+        final Context appContext = context.getApplicationContext();
+        getPrefetchHandler().post(new Runnable() {
+            @Override
+            public void run() {
+                prefetch(appContext, kind);
+            }
+        });
+        scheduleRefresh(appContext, kind, fireTime);
+    }
+
+    /**
+     * Fetch and persist the content for one alarm kind. Blocking; returns true if all of it
+     * is now available locally.
+     */
+    public static boolean prefetch(Context context, int kind) {
+        long start = System.currentTimeMillis();
+        boolean complete;
+        try {
+            switch (kind) {
+                case KIND_MORNING_ROUTINE:
+                    complete = prefetchMorningRoutine(context);
+                    break;
+                case KIND_TASK_INTENTION:
+                    complete = prefetchIntention(context);
+                    break;
+                case KIND_DATE_REMINDER:
+                    complete = prefetchDateReminder(context);
+                    break;
+                default:
+                    Log.w(TAG, "Unknown alarm kind: " + kind);
+                    return false;
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "❌ Prefetch failed for kind " + kind, e);
+            complete = false;
+        }
+        Log.d(TAG, (complete ? "✅" : "⚠️") + " Prefetch for kind " + kind + " finished in "
+                + (System.currentTimeMillis() - start) + "ms, complete=" + complete);
+        return complete;
+    }
+
+    private static boolean prefetchMorningRoutine(Context context) {
+        List<MorningRoutineDatabase.VoiceCommand> commands = MorningRoutineDatabase.fetchVoiceCommands(context, true);
+        return !commands.isEmpty();
+    }
+
+    private static boolean prefetchIntention(Context context) {
+        IntentionDatabase.IntentionData data = IntentionDatabase.fetchIntentionData(context, true);
+        if (data == null) {
+            return false;
+        }
+        Set<String> keep = new HashSet<>();
+        String audioUrl = IntentionDatabase.getAudioFileUrl(data);
+        boolean complete = true;
+        if (audioUrl != null && !audioUrl.isEmpty()) {
+            File audio = refreshMedia(context, MEDIA_INTENTION, audioUrl);
+            complete = audio != null;
+            keep.add(mediaFile(context, MEDIA_INTENTION, audioUrl).getName());
+        }
+        pruneMedia(context, MEDIA_INTENTION, keep);
+        return complete;
+    }
+
+    private static boolean prefetchDateReminder(Context context) {
+        DateReminderDatabase.Settings settings = DateReminderDatabase.fetchSettings(context, true);
+        if (settings == null) {
+            return false;
+        }
+        DateReminderScheduler.saveSettings(context, settings);
+
+        Set<String> keep = new HashSet<>();
+        boolean complete = true;
+        for (String url : new String[]{settings.morningImageUrl, settings.eveningImageUrl}) {
+            if (url == null || url.isEmpty()) {
+                continue;
+            }
+            complete &= refreshMedia(context, MEDIA_REMINDER, url) != null;
+            keep.add(mediaFile(context, MEDIA_REMINDER, url).getName());
+        }
+        pruneMedia(context, MEDIA_REMINDER, keep);
+        return complete;
+    }
+
+    // ==================== MEDIA ====================
+
+    /**
+     * Local copy of a remote media file, or null if it has not been downloaded
+     */
+    public static File getLocalMedia(Context context, String group, String url) {
+        if (url == null || url.isEmpty()) {
+            return null;
+        }
+        File file = mediaFile(context, group, url);
+        if (!file.exists() || file.length() == 0) {
+            return null;
+        }
+        MediaCacheJanitor.touch(context, file);
+        return file;
+    }
+
+    /**
+     * Local copy of a remote media file, downloading it first if needed. Returns null on failure.
+     */
+    public static File getOrDownloadMedia(Context context, String group, String url) {
+        File local = getLocalMedia(context, group, url);
+        if (local != null) {
+            return local;
+        }
+        try {
+            return fetchMedia(context, group, url, false);
+        } catch (IOException e) {
+            Log.e(TAG, "❌ Error downloading media: " + url, e);
+            return null;
+        }
+    }
+
+    /**
+     * Like getOrDownloadMedia, but a stored copy is revalidated with the server first and
+     * replaced if it changed. Falls back to the stored copy when offline.
+     */
+    public static File refreshMedia(Context context, String group, String url) {
+        File local = getLocalMedia(context, group, url);
+        if (local == null) {
+            return getOrDownloadMedia(context, group, url);
+        }
+        try {
+            return fetchMedia(context, group, url, true);
+        } catch (IOException e) {
+            Log.w(TAG, "⚠️ Could not revalidate " + group + " media, keeping stored copy: " + e.getMessage());
+            return local;
+        }
+    }
+
+    /**
+     * Download a media file in the background if the URL is new: not stored yet and not
+     * already being prefetched. Cheap enough to call on every read.
+     */
+    public static void prefetchMedia(Context context, final String group, final String url) {
+        if (url == null || url.isEmpty() || getLocalMedia(context, group, url) != null) {
+            return;
+        }
+        final String key = group + "/" + url;
+        synchronized (pendingMedia) {
+            if (!pendingMedia.add(key)) {
+                return;
+            }
+        }
+        final Context appContext = context.getApplicationContext();
+        Log.d(TAG, "New " + group + " media, prefetching: " + url);
+        getPrefetchHandler().post(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    getOrDownloadMedia(appContext, group, url);
+                } finally {
+                    synchronized (pendingMedia) {
+                        pendingMedia.remove(key);
+                    }
+                }
+            }
+        });
+    }
+
+    private static File fetchMedia(final Context context, final String group, String url,
+                                   final boolean revalidate) throws IOException {
+        final File target = mediaFile(context, group, url);
+        final URL remote = new URL(url);
+        // The activity and a prefetch may ask for the same file at once
+        return SingleFlight.run("media " + target.getName(), new SingleFlight.Loader<File>() {
+            @Override
+            public File load() throws IOException {
+                if (!revalidate && target.exists() && target.length() > 0) {
+                    return target;
+                }
+                long bytes = NetworkResilience.execute("media GET " + group, remote.getHost(), true,
+                        new NetworkResilience.Call<Long>() {
+                            @Override
+                            public Long run() throws IOException {
+                                return MediaDownloader.fetch(context, remote, target, revalidate);
+                            }
+                        });
+                if (bytes > 0) {
+                    Log.d(TAG, "✅ Stored " + group + " media (" + bytes + " bytes): " + target.getName());
+                    MediaCacheJanitor.trimIfOverBudget(context);
+                }
+                return target;
+            }
+        });
+    }
+
+    private static File mediaFile(Context context, String group, String url) {
+        File dir = new File(context.getFilesDir(), MEDIA_DIR);
+        if (!dir.exists()) {
+            dir.mkdirs();
+        }
+        return new File(dir, group + "_" + sha1(url) + extensionOf(url));
+    }
+
+    /**
+     * Delete media of a group that the current settings no longer reference
+     */
+    private static void pruneMedia(Context context, String group, Set<String> keep) {
+        File[] files = new File(context.getFilesDir(), MEDIA_DIR).listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            String name = file.getName();
+            if (name.startsWith(group + "_") && !keep.contains(name) && !name.endsWith(".part")) {
+                if (file.delete()) {
+                    MediaDownloader.forget(context, name);
+                    Log.d(TAG, "Removed unused media: " + name);
+                }
+            }
+        }
+    }
+
+    private static String extensionOf(String url) {
+        String path = url;
+        int query = path.indexOf('?');
+        if (query >= 0) {
+            path = path.substring(0, query);
+        }
+        int dot = path.lastIndexOf('.');
+        int slash = path.lastIndexOf('/');
+        if (dot > slash && path.length() - dot <= 5) {
+            return path.substring(dot).toLowerCase();
+        }
+        return "";
+    }
+
+    private static String sha1(String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(value.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            return Integer.toHexString(value.hashCode());
+        }
+    }
+
+    // ==================== REFRESH JOB ====================
+
+    /**
+     * Schedule the pre-fire refresh. If a refresh is already pending for an earlier alarm of
+     * the same kind, that one is kept.
+     */
+    private static void scheduleRefresh(Context context, int kind, long fireTime) {
+        try {
+            long now = System.currentTimeMillis();
+            long deadline = fireTime - REFRESH_DEADLINE_MS - now;
+            if (deadline <= 0) {
+                // Too close to fire time, the immediate prefetch covers it
+                return;
+            }
+
+            JobScheduler scheduler = (JobScheduler) context.getSystemService(Context.JOB_SCHEDULER_SERVICE);
+            if (scheduler == null) {
+                return;
+            }
+
+            int jobId = JOB_ID_BASE + kind;
+            JobInfo pending = scheduler.getPendingJob(jobId);
+            if (pending != null) {
+                long pendingFireTime = pending.getExtras().getLong(EXTRA_FIRE_TIME, 0);
+                if (pendingFireTime > now && pendingFireTime <= fireTime) {
+                    return;
+                }
+            }
+
+            PersistableBundle extras = new PersistableBundle();
+            extras.putInt(EXTRA_KIND, kind);
+            extras.putLong(EXTRA_FIRE_TIME, fireTime);
+
+            JobInfo job = new JobInfo.Builder(jobId, new ComponentName(context, AlarmContentRefreshJobService.class))
+                    .setMinimumLatency(Math.max(fireTime - REFRESH_LEAD_MS - now, 0))
+                    .setOverrideDeadline(deadline)
+                    .setExtras(extras)
+                    .setPersisted(true)
+                    .build();
+            scheduler.schedule(job);
+            Log.d(TAG, "Refresh for kind " + kind + " scheduled before alarm at " + fireTime);
+        } catch (Exception e) {
+            Log.e(TAG, "Could not schedule content refresh", e);
+        }
+    }
+
+    private static synchronized Handler getPrefetchHandler() {
+        if (prefetchHandler == null) {
+            HandlerThread thread = new HandlerThread("AlarmContentPrefetch");
+            thread.start();
+            prefetchHandler = new Handler(thread.getLooper());
+        }
+        return prefetchHandler;
+    }
+}
@@ -0,0 +1,56 @@
+package com.wingsfly;
+
+import android.app.job.JobParameters;
+import android.app.job.JobService;
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.net.NetworkCapabilities;
+import android.util.Log;
+
+/**
+ * Refresh pass scheduled by AlarmContentPrefetcher shortly before an alarm fires.
+ * Skipped when there is no network; the copy stored at schedule time is used instead.
+ */
+public class AlarmContentRefreshJobService extends JobService {
+
+    private static final String TAG = "AlarmContentRefresh";
+
+    @Override
+    public boolean onStartJob(final JobParameters params) {
+        final int kind = params.getExtras().getInt(AlarmContentPrefetcher.EXTRA_KIND, -1);
+
+        if (!hasInternet()) {
+            Log.d(TAG, "No network, keeping prefetched content for kind " + kind);
+            return false;
+        }
+
+        new Thread(() -> {
+            Log.d(TAG, "Refreshing alarm content for kind " + kind);
+            AlarmContentPrefetcher.prefetch(getApplicationContext(), kind);
+            jobFinished(params, false);
+        }, "AlarmContentRefresh").start();
+        return true;
+    }
+
+    @Override
+    public boolean onStopJob(JobParameters params) {
+        // The alarm falls back to the copy stored at schedule time
+        return false;
+    }
+
+    private boolean hasInternet() {
+        try {
+            ConnectivityManager cm = (ConnectivityManager) getSystemService(Context.CONNECTIVITY_SERVICE);
+            if (cm == null) {
+                return false;
+            }
+            Network network = cm.getActiveNetwork();
+            NetworkCapabilities capabilities = network != null ? cm.getNetworkCapabilities(network) : null;
+            return capabilities != null && capabilities.hasCapability(NetworkCapabilities.NET_CAPABILITY_INTERNET);
+        } catch (Exception e) {
+            Log.e(TAG, "Error checking connectivity", e);
+            return false;
+        }
+    }
+}
@@ -35,7 +35,7 @@ public class AlarmForegroundService extends Service {
     private boolean useElevenLabs;
     
     // SINGLE INSTANCE audio management
-    private ElevenLabsAudioManager audioManager;
+    private AlarmSpeechController speechController;
     private boolean hasAttemptedBackupAudio = false;
     
     @Override
@@ -44,7 +44,7 @@ public class AlarmForegroundService extends Service {
         Log.d(TAG, "AlarmForegroundService created - SINGLE INSTANCE AUDIO mode");
         
         // Initialize single instance audio manager
-        audioManager = ElevenLabsAudioManager.getInstance();
+        speechController = AlarmSpeechController.getInstance();
         
         createServiceChannel();
         acquireServiceWakeLock();
@@ -86,7 +86,7 @@ public class AlarmForegroundService extends Service {
             Log.d(TAG, "Service for alarm: " + taskTitle);
             Log.d(TAG, "Aggressive mode: " + aggressiveMode);
             Log.d(TAG, "ElevenLabs enabled: " + useElevenLabs);
-            Log.d(TAG, "Current audio status: " + audioManager.getStatus());
+            Log.d(TAG, "Current audio status: " + speechController.getStatus());
             
             // Start foreground immediately
             startForeground(NOTIFICATION_ID, createServiceNotification());
@@ -136,11 +136,11 @@ public class AlarmForegroundService extends Service {
         hasAttemptedBackupAudio = true;
         
         Log.d(TAG, "Checking if backup audio is needed...");
-        Log.d(TAG, "Current audio status: " + audioManager.getStatus());
+        Log.d(TAG, "Current audio status: " + speechController.getStatus());
         
         // Check if any audio is currently playing through the single instance manager
-        boolean anyAudioPlaying = audioManager.isAudioPlaying();
-        String currentPlayingAlarm = audioManager.getCurrentPlayingAlarmId();
+        boolean anyAudioPlaying = speechController.isAudioPlaying();
+        String currentPlayingAlarm = speechController.getCurrentAlarmId();
         
         Log.d(TAG, "Audio check - Any playing: " + anyAudioPlaying + ", Current alarm: " + currentPlayingAlarm);
         
@@ -159,14 +159,14 @@ public class AlarmForegroundService extends Service {
             String scheduleTime = extractTimeFromMessage(ttsMessage);
             
             // Request single instance backup audio
-            boolean audioGranted = audioManager.requestAudioPlayback(
+            boolean audioGranted = speechController.requestPlayback(
                 alarmId,
                 taskTitle,
                 scheduleTime,
                 userName,
                 this,
                 "SERVICE_BACKUP"
-            );
+            ) != null;
             
             if (audioGranted) {
                 Log.d(TAG, "✅ SINGLE INSTANCE backup audio granted to service");
@@ -313,8 +313,8 @@ public class AlarmForegroundService extends Service {
         Log.d(TAG, "Stopping service audio and vibration");
         
         // Stop single instance audio through manager
-        if (audioManager != null && alarmId != null) {
-            audioManager.stopAudio(alarmId, "SERVICE_STOP");
+        if (speechController != null && alarmId != null) {
+            speechController.stop(alarmId, "SERVICE_STOP");
         }
         
         if (vibrator != null) {
@@ -145,8 +145,8 @@ public class AlarmModule extends ReactContextBaseJavaModule {
             
             alarmIntent.setAction("TASK_ALARM_" + alarmId);
             
-            // Use unique request code based on alarm ID
-            int requestCode = Math.abs(alarmId.hashCode());
+            int requestCode = AlarmRegistry.getInstance(reactContext).register(AlarmRegistry.TYPE_TASK,
+                alarmId, alarmTime, null, taskId, alarmIntent, Math.abs(alarmId.hashCode()));
             PendingIntent pendingIntent = PendingIntent.getBroadcast(
                 reactContext, 
                 requestCode, 
@@ -185,10 +185,17 @@ public class AlarmModule extends ReactContextBaseJavaModule {
                       ", Screen Activation: AUTOMATIC (no tap required)" +
                       ", Type: VOICE_ONLY (no alarm sound)");
                 
+                if (useElevenLabs) {
+                    // Synthesize the speech now so it plays instantly when the alarm fires
+                    AlarmSpeechPrerenderer.onTaskAlarmScheduled(reactContext, alarmId, taskTitle,
+                        AlarmSpeechPrerenderer.scheduleTimeFromMessage(ttsMessage), userName, alarmTime);
+                }
+                
                 promise.resolve(alarmId);
                 
             } catch (SecurityException e) {
                 Log.e(TAG, "Security exception scheduling ElevenLabs alarm - may need exact alarm permission", e);
+                AlarmRegistry.getInstance(reactContext).remove(AlarmRegistry.TYPE_TASK, alarmId, requestCode);
                 promise.reject("SECURITY_ERROR", "Permission required for exact alarms");
             }
             
@@ -213,7 +220,8 @@ public class AlarmModule extends ReactContextBaseJavaModule {
             Intent alarmIntent = new Intent(reactContext, AlarmReceiver.class);
             alarmIntent.setAction("TASK_ALARM_" + alarmId);
             
-            int requestCode = Math.abs(alarmId.hashCode());
+            int requestCode = AlarmRegistry.getInstance(reactContext).remove(AlarmRegistry.TYPE_TASK,
+                alarmId, Math.abs(alarmId.hashCode()));
             PendingIntent pendingIntent = PendingIntent.getBroadcast(
                 reactContext, 
                 requestCode, 
@@ -224,6 +232,8 @@ public class AlarmModule extends ReactContextBaseJavaModule {
             alarmManager.cancel(pendingIntent);
             pendingIntent.cancel();
             
+            AlarmSpeechPrerenderer.remove(reactContext, alarmId);
+            
             Log.d(TAG, "ElevenLabs alarm cancelled: " + alarmId);
             promise.resolve(true);
             
@@ -341,7 +351,8 @@ public class AlarmModule extends ReactContextBaseJavaModule {
             Intent alarmIntent = new Intent(reactContext, AlarmReceiver.class);
             alarmIntent.setAction("TASK_ALARM_" + alarmId);
             
-            int requestCode = Math.abs(alarmId.hashCode());
+            int requestCode = AlarmRegistry.getInstance(reactContext).requestCodeOf(AlarmRegistry.TYPE_TASK,
+                alarmId, Math.abs(alarmId.hashCode()));
             PendingIntent pendingIntent = PendingIntent.getBroadcast(
                 reactContext, 
                 requestCode, 
@@ -424,7 +435,9 @@ public class AlarmModule extends ReactContextBaseJavaModule {
             alarmIntent.putExtra("useElevenLabs", true); // CRITICAL: Enable ElevenLabs
             alarmIntent.setAction("TASK_ALARM_" + testAlarmId);
             
-            int requestCode = Math.abs(testAlarmId.hashCode());
+            // Registered like a task alarm so cancelAlarm and the boot restore see it too
+            int requestCode = AlarmRegistry.getInstance(reactContext).register(AlarmRegistry.TYPE_TASK,
+                testAlarmId, testTime, null, "test", alarmIntent, Math.abs(testAlarmId.hashCode()));
             PendingIntent pendingIntent = PendingIntent.getBroadcast(
                 reactContext, 
                 requestCode, 
@@ -447,6 +460,7 @@ public class AlarmModule extends ReactContextBaseJavaModule {
                 Log.d(TAG, "✅ AUTOMATIC SCREEN ACTIVATION - No tap required");
                 promise.resolve(testAlarmId);
             } else {
+                AlarmRegistry.getInstance(reactContext).remove(AlarmRegistry.TYPE_TASK, testAlarmId, requestCode);
                 promise.reject("ALARM_ERROR", "AlarmManager not available");
             }
             
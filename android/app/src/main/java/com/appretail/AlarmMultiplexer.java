@@ -0,0 +1,274 @@
+package com.wingsfly;
+
+import android.app.AlarmManager;
+import android.app.PendingIntent;
+import android.content.Context;
+import android.content.Intent;
+import android.content.SharedPreferences;
+import android.os.Build;
+import android.util.Log;
+
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Sets a single OS alarm for all block time, challenge and date reminder alarms.
+ *
+ * Those subsystems used to set one exact alarm per fire, which with dozens of block time
+ * tasks meant dozens of wakeups and a large share of the exact alarm quota. Their alarms are
+ * now only recorded in AlarmRegistry, whose table ordered by next fire time is the queue:
+ * it outlives the process, and the receivers that schedule run in other processes. Only the
+ * soonest entry is handed to AlarmManager. When it fires, every entry due before the end of
+ * that minute is broadcast together, one-shot entries are dropped, daily ones move to the
+ * next day, and the wakeup is re-armed for whatever is next.
+ *
+ * Task, custom, voice command, morning routine, task confirmation and night mode alarms
+ * still set their own alarm clocks; they are few and the user sees them as alarms.
+ */
+public final class AlarmMultiplexer {
+
+    private static final String TAG = "AlarmMultiplexer";
+
+    public static final String ACTION_WAKEUP = "com.wingsfly.ALARM_MULTIPLEXER_WAKEUP";
+
+    private static final int WAKEUP_REQUEST_CODE = 47500;
+    private static final long MINUTE_MS = 60 * 1000L;
+
+    // A wakeup that comes this late (device off, clock moved) no longer dispatches the alarm
+    static final long MAX_LATENESS_MS = 10 * 60 * 1000L;
+
+    static final Set<String> MULTIPLEXED_TYPES = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+            AlarmRegistry.TYPE_BLOCK_TIME, AlarmRegistry.TYPE_CHALLENGE, AlarmRegistry.TYPE_DATE_REMINDER)));
+
+    // Block time alarms were alarm clocks, so the status bar keeps showing the next one
+    private static final Set<String> ALARM_CLOCK_TYPES = Collections.singleton(AlarmRegistry.TYPE_BLOCK_TIME);
+
+    private static final String PREFS_NAME = "AlarmMultiplexer";
+    private static final String KEY_ARMED_AT = "armed_at";
+    private static final String KEY_WAKEUPS = "wakeups";
+    private static final String KEY_DISPATCHED = "dispatched";
+    private static final String KEY_COALESCED = "coalesced";
+    private static final String KEY_LAST_WAKEUP_AT = "last_wakeup_at";
+
+    /**
+     * What is outstanding with AlarmManager and what the multiplexer has done so far
+     */
+    public static final class Stats {
+        // Alarms set with AlarmManager right now: the wakeup plus every alarm set directly
+        public final int osAlarms;
+        public final int queuedAlarms;
+        public final long nextWakeupAt;
+        public final long wakeups;
+        public final long dispatched;
+        // Alarms that fired on a wakeup shared with another alarm
+        public final long coalesced;
+        public final long lastWakeupAt;
+
+        Stats(int osAlarms, int queuedAlarms, long nextWakeupAt, long wakeups, long dispatched,
+              long coalesced, long lastWakeupAt) {
+            this.osAlarms = osAlarms;
+            this.queuedAlarms = queuedAlarms;
+            this.nextWakeupAt = nextWakeupAt;
+            this.wakeups = wakeups;
+            this.dispatched = dispatched;
+            this.coalesced = coalesced;
+            this.lastWakeupAt = lastWakeupAt;
+        }
+    }
+
+    private AlarmMultiplexer() {
+    }
+
+    // ==================== SCHEDULING ====================
+
+    /**
+     * Queue an alarm instead of setting it with AlarmManager. Takes the same arguments as
+     * AlarmRegistry.register and returns the alarm's request code, which only matters for
+     * cancelling a PendingIntent an older version set directly.
+     */
+    public static int schedule(Context context, String type, String id, long fireAt, String recurrence,
+                               String payloadRef, Intent intent, int legacyRequestCode) {
+        int requestCode = AlarmRegistry.getInstance(context).register(type, id, fireAt, recurrence, payloadRef,
+                intent, legacyRequestCode);
+        rearm(context);
+        return requestCode;
+    }
+
+    /**
+     * Drop a queued alarm, returning the request code to cancel a directly set PendingIntent with
+     */
+    public static int cancel(Context context, String type, String id, int legacyRequestCode) {
+        int requestCode = AlarmRegistry.getInstance(context).remove(type, id, legacyRequestCode);
+        rearm(context);
+        return requestCode;
+    }
+
+    /**
+     * Set the wakeup for the soonest queued alarm, or clear it when nothing is queued. Cheap
+     * when the wakeup is already right, so callers re-arm after every change.
+     */
+    public static synchronized void rearm(Context context) {
+        Context appContext = context.getApplicationContext();
+        AlarmRegistry registry = AlarmRegistry.getInstance(appContext);
+        long now = System.currentTimeMillis();
+
+        AlarmRegistry.Entry next = registry.next(MULTIPLEXED_TYPES, now - MAX_LATENESS_MS);
+        SharedPreferences prefs = prefs(appContext);
+        AlarmManager alarmManager = (AlarmManager) appContext.getSystemService(Context.ALARM_SERVICE);
+        if (alarmManager == null) {
+            Log.e(TAG, "AlarmManager not available");
+            return;
+        }
+
+        if (next == null) {
+            PendingIntent wakeup = wakeupIntent(appContext, PendingIntent.FLAG_NO_CREATE);
+            if (wakeup != null) {
+                alarmManager.cancel(wakeup);
+                wakeup.cancel();
+                Log.d(TAG, "Queue empty, wakeup cleared");
+            }
+            prefs.edit().remove(KEY_ARMED_AT).apply();
+            return;
+        }
+
+        long wakeAt = Math.max(next.nextFireAt, now);
+        if (prefs.getLong(KEY_ARMED_AT, 0) == wakeAt
+                && wakeupIntent(appContext, PendingIntent.FLAG_NO_CREATE) != null) {
+            return;
+        }
+
+        PendingIntent wakeup = wakeupIntent(appContext, PendingIntent.FLAG_UPDATE_CURRENT);
+        try {
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S && !alarmManager.canScheduleExactAlarms()) {
+                alarmManager.setAndAllowWhileIdle(AlarmManager.RTC_WAKEUP, wakeAt, wakeup);
+                Log.w(TAG, "No exact alarm permission, wakeup may be late");
+            } else if (needsAlarmClock(registry.listDue(MULTIPLEXED_TYPES, minuteEnd(wakeAt)))) {
+                alarmManager.setAlarmClock(new AlarmManager.AlarmClockInfo(wakeAt, showIntent(appContext)), wakeup);
+            } else {
+                alarmManager.setExactAndAllowWhileIdle(AlarmManager.RTC_WAKEUP, wakeAt, wakeup);
+            }
+            prefs.edit().putLong(KEY_ARMED_AT, wakeAt).apply();
+            Log.d(TAG, "Wakeup armed for " + next.type + "/" + next.id + " in " + (wakeAt - now) / 1000 + "s");
+        } catch (SecurityException e) {
+            Log.e(TAG, "Failed to arm wakeup: " + e.getMessage());
+        }
+    }
+
+    // ==================== DISPATCH ====================
+
+    /**
+     * Broadcast every alarm due before the end of the current minute and re-arm for the next.
+     * Called by AlarmMultiplexerReceiver off the main thread. Returns how many were broadcast.
+     */
+    static int dispatchDue(Context context) {
+        Context appContext = context.getApplicationContext();
+        AlarmRegistry registry = AlarmRegistry.getInstance(appContext);
+        long startedAt = System.currentTimeMillis();
+        long until = minuteEnd(startedAt);
+
+        int dispatched = 0;
+        int skipped = 0;
+        List<AlarmRegistry.Entry> due = registry.listDue(MULTIPLEXED_TYPES, until);
+        for (AlarmRegistry.Entry entry : due) {
+            // Before the broadcast: its receiver may register the same alarm again
+            advance(registry, entry, until);
+            if (entry.nextFireAt < startedAt - MAX_LATENESS_MS) {
+                Log.w(TAG, "Skipping " + entry.type + "/" + entry.id + ", "
+                        + (startedAt - entry.nextFireAt) / MINUTE_MS + " min late");
+                skipped++;
+            } else {
+                Intent intent = entry.getIntent();
+                if (intent != null) {
+                    appContext.sendBroadcast(intent);
+                    dispatched++;
+                }
+            }
+        }
+
+        SharedPreferences prefs = prefs(appContext);
+        prefs.edit()
+                .remove(KEY_ARMED_AT)
+                .putLong(KEY_WAKEUPS, prefs.getLong(KEY_WAKEUPS, 0) + 1)
+                .putLong(KEY_DISPATCHED, prefs.getLong(KEY_DISPATCHED, 0) + dispatched)
+                .putLong(KEY_COALESCED, prefs.getLong(KEY_COALESCED, 0) + (dispatched > 1 ? dispatched : 0))
+                .putLong(KEY_LAST_WAKEUP_AT, startedAt)
+                .apply();
+        rearm(appContext);
+
+        Log.d(TAG, "Wakeup dispatched " + dispatched + " alarm(s), skipped " + skipped + " in "
+                + (System.currentTimeMillis() - startedAt) + "ms");
+        return dispatched;
+    }
+
+    /**
+     * Move a fired alarm out of the due window: daily alarms to their next day, the rest out
+     * of the queue. Only touches the row if it still holds the fire time that was read, so an
+     * alarm registered again in the meantime (by its receiver, or from JS) keeps its new time.
+     */
+    private static void advance(AlarmRegistry registry, AlarmRegistry.Entry entry, long until) {
+        boolean advanced;
+        if (!AlarmRegistry.RECURRENCE_DAILY.equals(entry.recurrence)) {
+            advanced = registry.removeFired(entry);
+        } else {
+            Calendar next = Calendar.getInstance();
+            next.setTimeInMillis(entry.nextFireAt);
+            while (next.getTimeInMillis() < until) {
+                next.add(Calendar.DAY_OF_YEAR, 1);
+            }
+            advanced = registry.rescheduleFired(entry, next.getTimeInMillis());
+        }
+        if (!advanced) {
+            Log.d(TAG, entry.type + "/" + entry.id + " was registered again, keeping the new time");
+        }
+    }
+
+    // ==================== STATS ====================
+
+    public static Stats getStats(Context context) {
+        Context appContext = context.getApplicationContext();
+        AlarmRegistry registry = AlarmRegistry.getInstance(appContext);
+        SharedPreferences prefs = prefs(appContext);
+        long now = System.currentTimeMillis();
+
+        boolean armed = wakeupIntent(appContext, PendingIntent.FLAG_NO_CREATE) != null;
+        int direct = registry.countPendingExcept(MULTIPLEXED_TYPES, now);
+        int queued = registry.listDue(MULTIPLEXED_TYPES, Long.MAX_VALUE).size();
+        return new Stats(direct + (armed ? 1 : 0), queued, armed ? prefs.getLong(KEY_ARMED_AT, 0) : 0,
+                prefs.getLong(KEY_WAKEUPS, 0), prefs.getLong(KEY_DISPATCHED, 0),
+                prefs.getLong(KEY_COALESCED, 0), prefs.getLong(KEY_LAST_WAKEUP_AT, 0));
+    }
+
+    private static boolean needsAlarmClock(List<AlarmRegistry.Entry> entries) {
+        for (AlarmRegistry.Entry entry : entries) {
+            if (ALARM_CLOCK_TYPES.contains(entry.type)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long minuteEnd(long time) {
+        return (time / MINUTE_MS + 1) * MINUTE_MS;
+    }
+
+    private static PendingIntent wakeupIntent(Context context, int flags) {
+        Intent intent = new Intent(context, AlarmMultiplexerReceiver.class);
+        intent.setAction(ACTION_WAKEUP);
+        return PendingIntent.getBroadcast(context, WAKEUP_REQUEST_CODE, intent, flags | PendingIntent.FLAG_IMMUTABLE);
+    }
+
+    private static PendingIntent showIntent(Context context) {
+        Intent intent = new Intent(context, MainActivity.class);
+        intent.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK);
+        return PendingIntent.getActivity(context, WAKEUP_REQUEST_CODE, intent,
+                PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE);
+    }
+
+    private static SharedPreferences prefs(Context context) {
+        return context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+}
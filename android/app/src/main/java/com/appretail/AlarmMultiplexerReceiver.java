@@ -0,0 +1,33 @@
+package com.wingsfly;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.util.Log;
+
+/**
+ * Receives the single wakeup set by AlarmMultiplexer and broadcasts the alarms it stands for
+ */
+public class AlarmMultiplexerReceiver extends BroadcastReceiver {
+
+    private static final String TAG = "AlarmMultiplexerReceiver";
+
+    @Override
+    public void onReceive(Context context, Intent intent) {
+        if (!AlarmMultiplexer.ACTION_WAKEUP.equals(intent.getAction())) {
+            Log.w(TAG, "Unknown action: " + intent.getAction());
+            return;
+        }
+
+        final PendingResult pendingResult = goAsync();
+        new Thread(() -> {
+            try {
+                AlarmMultiplexer.dispatchDue(context);
+            } catch (Exception e) {
+                Log.e(TAG, "Error dispatching alarms: " + e.getMessage(), e);
+            } finally {
+                pendingResult.finish();
+            }
+        }).start();
+    }
+}
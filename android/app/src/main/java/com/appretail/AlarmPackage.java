@@ -16,6 +16,7 @@ public class AlarmPackage implements ReactPackage {
     public List<NativeModule> createNativeModules(ReactApplicationContext reactContext) {
         List<NativeModule> modules = new ArrayList<>();
         modules.add(new AlarmModule(reactContext));
+        modules.add(new AlarmRegistryModule(reactContext));
         return modules;
     }
 
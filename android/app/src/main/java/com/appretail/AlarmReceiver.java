@@ -40,8 +40,7 @@ public class AlarmReceiver extends BroadcastReceiver {
             Log.d(TAG, "ElevenLabs enabled: " + useElevenLabs);
             
             // Check current audio status through singleton
-            ElevenLabsNativeServiceSingleton audioSingleton = ElevenLabsNativeServiceSingleton.getInstance();
-            Log.d(TAG, "Current audio status: " + audioSingleton.getStatus());
+            Log.d(TAG, "Current audio status: " + AlarmSpeechController.getInstance().getStatus());
             
             // Fallback TTS message
             if (ttsMessage == null || ttsMessage.trim().isEmpty()) {
@@ -0,0 +1,420 @@
+package com.wingsfly;
+
+import android.app.AlarmManager;
+import android.app.PendingIntent;
+import android.content.ContentValues;
+import android.content.Context;
+import android.content.Intent;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.util.Log;
+
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Every alarm the app hands to AlarmManager, whichever subsystem scheduled it.
+ *
+ * Each alarm is one row keyed by its subsystem type and the subsystem's own id, with the
+ * next fire time, an optional recurrence, a reference to its payload (task, plan,
+ * challenge...) and the broadcast intent it fires. The row also owns the alarm's
+ * PendingIntent request code: codes are allocated from an AUTOINCREMENT sequence, so two
+ * alarms never share one the way hashCode() based codes could, and an alarm keeps its code
+ * when it is rescheduled. Alarms scheduled before the registry existed still carry their
+ * hashCode() code; it is cancelled when the alarm is first registered, and cancel paths
+ * fall back to it for alarms that were never re-registered.
+ */
+public class AlarmRegistry extends SQLiteOpenHelper {
+
+    private static final String TAG = "AlarmRegistry";
+
+    private static final String DATABASE_NAME = "wingsfly_alarms.db";
+    private static final int DATABASE_VERSION = 1;
+
+    private static final String TABLE_ALARMS = "alarms";
+
+    // Keeps allocated codes clear of the small fixed codes used for notification intents
+    private static final int REQUEST_CODE_BASE = 1 << 28;
+
+    // One-shot alarms are kept this long past their fire time for late or snoozed delivery
+    private static final long FIRED_GRACE_MS = 24 * 60 * 60 * 1000L;
+
+    public static final String TYPE_TASK = "task";
+    public static final String TYPE_CUSTOM = "custom";
+    public static final String TYPE_VOICE_COMMAND = "voice_command";
+    public static final String TYPE_MORNING_ROUTINE = "morning_routine";
+    public static final String TYPE_TASK_CONFIRMATION = "task_confirmation";
+    public static final String TYPE_BLOCK_TIME = "block_time";
+    public static final String TYPE_CHALLENGE = "challenge";
+    public static final String TYPE_NIGHT_MODE = "night_mode";
+    public static final String TYPE_DATE_REMINDER = "date_reminder";
+
+    public static final String RECURRENCE_DAILY = "daily";
+    // Followed by the subsystem's comma-separated days, e.g. "weekly:Mon,Wed"
+    public static final String RECURRENCE_WEEKLY_PREFIX = "weekly:";
+
+    private static final String[] COLUMNS = {
+            "type", "alarm_id", "code", "next_fire_at", "recurrence", "payload_ref", "intent"
+    };
+
+    private static AlarmRegistry instance;
+
+    public static class Entry {
+        public final String type;
+        public final String id;
+        public final int requestCode;
+        public final long nextFireAt;
+        // Null for one-shot alarms, otherwise the subsystem's repeat rule (e.g. "daily")
+        public final String recurrence;
+        public final String payloadRef;
+        final String intentUri;
+
+        Entry(String type, String id, int requestCode, long nextFireAt, String recurrence,
+              String payloadRef, String intentUri) {
+            this.type = type;
+            this.id = id;
+            this.requestCode = requestCode;
+            this.nextFireAt = nextFireAt;
+            this.recurrence = recurrence;
+            this.payloadRef = payloadRef;
+            this.intentUri = intentUri;
+        }
+
+        /**
+         * The broadcast the alarm fires, or null if it can't be restored
+         */
+        public Intent getIntent() {
+            try {
+                return Intent.parseUri(intentUri, Intent.URI_INTENT_SCHEME);
+            } catch (URISyntaxException e) {
+                Log.e(TAG, "Stored intent of " + type + "/" + id + " is invalid", e);
+                return null;
+            }
+        }
+    }
+
+    public static synchronized AlarmRegistry getInstance(Context context) {
+        if (instance == null) {
+            instance = new AlarmRegistry(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private final Context context;
+
+    private AlarmRegistry(Context context) {
+        super(context, DATABASE_NAME, null, DATABASE_VERSION);
+        this.context = context;
+        setWriteAheadLoggingEnabled(true);
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + TABLE_ALARMS + " (" +
+                "code INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                "type TEXT NOT NULL, " +
+                "alarm_id TEXT NOT NULL, " +
+                "next_fire_at INTEGER NOT NULL, " +
+                "recurrence TEXT, " +
+                "payload_ref TEXT, " +
+                "intent TEXT NOT NULL, " +
+                "updated_at INTEGER NOT NULL, " +
+                "UNIQUE (type, alarm_id))");
+        db.execSQL("CREATE INDEX idx_alarms_next_fire_at ON " + TABLE_ALARMS + " (next_fire_at)");
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        // No schema changes yet
+    }
+
+    // ==================== SCHEDULING ====================
+
+    /**
+     * Record an alarm that is about to be set and return the request code for its
+     * PendingIntent. Rescheduling an alarm keeps its code.
+     *
+     * @param intent            the broadcast the PendingIntent wraps, extras included
+     * @param legacyRequestCode the hashCode() code the subsystem used before the registry
+     */
+    public int register(String type, String id, long nextFireAt, String recurrence, String payloadRef,
+                        Intent intent, int legacyRequestCode) {
+        ContentValues values = new ContentValues();
+        values.put("next_fire_at", nextFireAt);
+        values.put("recurrence", recurrence);
+        values.put("payload_ref", payloadRef);
+        values.put("intent", intent.toUri(Intent.URI_INTENT_SCHEME));
+        values.put("updated_at", System.currentTimeMillis());
+
+        SQLiteDatabase db = getWritableDatabase();
+        long code;
+        boolean inserted = false;
+        db.beginTransaction();
+        try {
+            code = findCode(db, type, id);
+            if (code >= 0) {
+                db.update(TABLE_ALARMS, values, "code = ?", new String[]{String.valueOf(code)});
+            } else {
+                values.put("type", type);
+                values.put("alarm_id", id);
+                code = db.insertOrThrow(TABLE_ALARMS, null, values);
+                inserted = true;
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+
+        int requestCode = toRequestCode(code);
+        if (inserted && legacyRequestCode != requestCode) {
+            // Set before this alarm was registered; it would fire next to the new one
+            cancelPendingIntent(intent, legacyRequestCode);
+        }
+        return requestCode;
+    }
+
+    /**
+     * Run many register() or remove() calls as one transaction, e.g. a whole day of block
+     * time alarms
+     */
+    public void runInTransaction(Runnable work) {
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            work.run();
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * Request code of a registered alarm, or the legacy code if it was never registered
+     */
+    public int requestCodeOf(String type, String id, int legacyRequestCode) {
+        long code = findCode(getReadableDatabase(), type, id);
+        return code >= 0 ? toRequestCode(code) : legacyRequestCode;
+    }
+
+    /**
+     * Move a registered alarm to its next fire time, keeping everything else
+     */
+    public void reschedule(String type, String id, long nextFireAt) {
+        ContentValues values = new ContentValues();
+        values.put("next_fire_at", nextFireAt);
+        values.put("updated_at", System.currentTimeMillis());
+        getWritableDatabase().update(TABLE_ALARMS, values, "type = ? AND alarm_id = ?", new String[]{type, id});
+    }
+
+    /**
+     * Move a fired alarm to its next fire time, unless it was registered again since it was
+     * read. Returns false if the row had already changed.
+     */
+    public boolean rescheduleFired(Entry fired, long nextFireAt) {
+        ContentValues values = new ContentValues();
+        values.put("next_fire_at", nextFireAt);
+        values.put("updated_at", System.currentTimeMillis());
+        return getWritableDatabase().update(TABLE_ALARMS, values, "type = ? AND alarm_id = ? AND next_fire_at = ?",
+                new String[]{fired.type, fired.id, String.valueOf(fired.nextFireAt)}) > 0;
+    }
+
+    /**
+     * Forget a fired one-shot alarm, unless it was registered again since it was read.
+     * Returns false if the row had already changed.
+     */
+    public boolean removeFired(Entry fired) {
+        return getWritableDatabase().delete(TABLE_ALARMS, "type = ? AND alarm_id = ? AND next_fire_at = ?",
+                new String[]{fired.type, fired.id, String.valueOf(fired.nextFireAt)}) > 0;
+    }
+
+    /**
+     * Forget an alarm the caller is cancelling, returning the request code to cancel its
+     * PendingIntent with
+     */
+    public int remove(String type, String id, int legacyRequestCode) {
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            long code = findCode(db, type, id);
+            if (code >= 0) {
+                db.delete(TABLE_ALARMS, "code = ?", new String[]{String.valueOf(code)});
+            }
+            // On both paths: inside runInTransaction an unmarked nested transaction rolls
+            // back the whole batch
+            db.setTransactionSuccessful();
+            return code >= 0 ? toRequestCode(code) : legacyRequestCode;
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * Cancel one registered alarm in AlarmManager and forget it. Returns false if it was not
+     * registered.
+     */
+    public boolean cancel(String type, String id) {
+        Entry entry = get(type, id);
+        if (entry == null) {
+            return false;
+        }
+        cancelEntry(entry);
+        remove(type, id, entry.requestCode);
+        return true;
+    }
+
+    /**
+     * Cancel every registered alarm of a subsystem. Returns how many were cancelled.
+     */
+    public int cancelByType(String type) {
+        List<Entry> entries = listByType(type);
+        for (Entry entry : entries) {
+            cancelEntry(entry);
+        }
+        getWritableDatabase().delete(TABLE_ALARMS, "type = ?", new String[]{type});
+        Log.d(TAG, "Cancelled " + entries.size() + " " + type + " alarm(s)");
+        return entries.size();
+    }
+
+    /**
+     * Cancel every registered alarm of a subsystem that belongs to one payload, e.g. all
+     * days of a block time task. Returns how many were cancelled.
+     */
+    public int cancelByPayloadRef(String type, String payloadRef) {
+        List<Entry> entries = query("type = ? AND payload_ref = ?", new String[]{type, payloadRef});
+        for (Entry entry : entries) {
+            cancelEntry(entry);
+        }
+        getWritableDatabase().delete(TABLE_ALARMS, "type = ? AND payload_ref = ?", new String[]{type, payloadRef});
+        return entries.size();
+    }
+
+    // ==================== QUERIES ====================
+
+    public Entry get(String type, String id) {
+        List<Entry> entries = query("type = ? AND alarm_id = ?", new String[]{type, id});
+        return entries.isEmpty() ? null : entries.get(0);
+    }
+
+    /**
+     * All registered alarms, soonest first
+     */
+    public List<Entry> list() {
+        pruneFired();
+        return query(null, null);
+    }
+
+    public List<Entry> listByType(String type) {
+        pruneFired();
+        return query("type = ?", new String[]{type});
+    }
+
+    /**
+     * Alarms due in [fromMs, toMs), soonest first
+     */
+    public List<Entry> listBetween(long fromMs, long toMs) {
+        pruneFired();
+        return query("next_fire_at >= ? AND next_fire_at < ?",
+                new String[]{String.valueOf(fromMs), String.valueOf(toMs)});
+    }
+
+    /**
+     * Alarms of the given types due before untilMs, overdue ones included, soonest first
+     */
+    public List<Entry> listDue(Collection<String> types, long untilMs) {
+        return query(typeIn(types) + " AND next_fire_at < ?", typeArgs(types, untilMs), null);
+    }
+
+    /**
+     * The soonest alarm of the given types due at or after fromMs, or null if there is none
+     */
+    public Entry next(Collection<String> types, long fromMs) {
+        List<Entry> entries = query(typeIn(types) + " AND next_fire_at >= ?", typeArgs(types, fromMs), "1");
+        return entries.isEmpty() ? null : entries.get(0);
+    }
+
+    /**
+     * How many alarms not of the given types are still to fire after fromMs
+     */
+    public int countPendingExcept(Collection<String> types, long fromMs) {
+        try (Cursor cursor = getReadableDatabase().rawQuery("SELECT COUNT(*) FROM " + TABLE_ALARMS +
+                " WHERE NOT (" + typeIn(types) + ") AND next_fire_at >= ?", typeArgs(types, fromMs))) {
+            return cursor.moveToFirst() ? cursor.getInt(0) : 0;
+        }
+    }
+
+    private static String typeIn(Collection<String> types) {
+        StringBuilder selection = new StringBuilder("type IN (");
+        for (int i = 0; i < types.size(); i++) {
+            selection.append(i == 0 ? "?" : ", ?");
+        }
+        return selection.append(")").toString();
+    }
+
+    private static String[] typeArgs(Collection<String> types, long time) {
+        String[] args = types.toArray(new String[types.size() + 1]);
+        args[types.size()] = String.valueOf(time);
+        return args;
+    }
+
+    private List<Entry> query(String selection, String[] args) {
+        return query(selection, args, null);
+    }
+
+    private List<Entry> query(String selection, String[] args, String limit) {
+        List<Entry> entries = new ArrayList<>();
+        try (Cursor cursor = getReadableDatabase().query(TABLE_ALARMS, COLUMNS, selection, args,
+                null, null, "next_fire_at ASC", limit)) {
+            while (cursor.moveToNext()) {
+                entries.add(new Entry(cursor.getString(0), cursor.getString(1), toRequestCode(cursor.getLong(2)),
+                        cursor.getLong(3), cursor.getString(4), cursor.getString(5), cursor.getString(6)));
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * One-shot alarms fire once and are never cancelled, so drop them once they are old
+     */
+    private void pruneFired() {
+        long cutoff = System.currentTimeMillis() - FIRED_GRACE_MS;
+        int pruned = getWritableDatabase().delete(TABLE_ALARMS, "recurrence IS NULL AND next_fire_at < ?",
+                new String[]{String.valueOf(cutoff)});
+        if (pruned > 0) {
+            Log.d(TAG, "Pruned " + pruned + " fired alarm(s)");
+        }
+    }
+
+    private static long findCode(SQLiteDatabase db, String type, String id) {
+        try (Cursor cursor = db.query(TABLE_ALARMS, new String[]{"code"}, "type = ? AND alarm_id = ?",
+                new String[]{type, id}, null, null, null)) {
+            return cursor.moveToFirst() ? cursor.getLong(0) : -1;
+        }
+    }
+
+    private static int toRequestCode(long code) {
+        return REQUEST_CODE_BASE + (int) code;
+    }
+
+    private void cancelEntry(Entry entry) {
+        Intent intent = entry.getIntent();
+        if (intent != null) {
+            cancelPendingIntent(intent, entry.requestCode);
+        }
+    }
+
+    private void cancelPendingIntent(Intent intent, int requestCode) {
+        PendingIntent pendingIntent = PendingIntent.getBroadcast(context, requestCode, intent,
+                PendingIntent.FLAG_NO_CREATE | PendingIntent.FLAG_IMMUTABLE);
+        if (pendingIntent == null) {
+            return;
+        }
+        AlarmManager alarmManager = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
+        if (alarmManager != null) {
+            alarmManager.cancel(pendingIntent);
+        }
+        pendingIntent.cancel();
+    }
+}
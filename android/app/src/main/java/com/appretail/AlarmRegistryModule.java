@@ -0,0 +1,107 @@
+package com.wingsfly;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.Promise;
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.bridge.ReactContextBaseJavaModule;
+import com.facebook.react.bridge.ReactMethod;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+
+import java.util.List;
+
+/**
+ * Exposes AlarmRegistry to JS: every alarm the native layer has set, across all alarm
+ * subsystems, and cancelling a whole subsystem at once.
+ */
+public class AlarmRegistryModule extends ReactContextBaseJavaModule {
+
+    private static final String TAG = "AlarmRegistryModule";
+
+    public AlarmRegistryModule(ReactApplicationContext reactContext) {
+        super(reactContext);
+    }
+
+    @Override
+    public String getName() {
+        return "AlarmRegistryModule";
+    }
+
+    @ReactMethod
+    public void getScheduledAlarms(Promise promise) {
+        try {
+            promise.resolve(toArray(AlarmRegistry.getInstance(getReactApplicationContext()).list()));
+        } catch (Exception e) {
+            android.util.Log.e(TAG, "Error listing alarms", e);
+            promise.reject("REGISTRY_ERROR", e.getMessage());
+        }
+    }
+
+    @ReactMethod
+    public void getAlarmsBetween(double fromMs, double toMs, Promise promise) {
+        try {
+            promise.resolve(toArray(AlarmRegistry.getInstance(getReactApplicationContext())
+                    .listBetween((long) fromMs, (long) toMs)));
+        } catch (Exception e) {
+            android.util.Log.e(TAG, "Error querying alarms", e);
+            promise.reject("REGISTRY_ERROR", e.getMessage());
+        }
+    }
+
+    @ReactMethod
+    public void getAlarmsByType(String type, Promise promise) {
+        try {
+            promise.resolve(toArray(AlarmRegistry.getInstance(getReactApplicationContext()).listByType(type)));
+        } catch (Exception e) {
+            android.util.Log.e(TAG, "Error listing alarms", e);
+            promise.reject("REGISTRY_ERROR", e.getMessage());
+        }
+    }
+
+    @ReactMethod
+    public void cancelAlarmsByType(String type, Promise promise) {
+        try {
+            promise.resolve(AlarmRegistry.getInstance(getReactApplicationContext()).cancelByType(type));
+        } catch (Exception e) {
+            android.util.Log.e(TAG, "Error cancelling alarms", e);
+            promise.reject("REGISTRY_ERROR", e.getMessage());
+        }
+    }
+
+    /**
+     * How many alarms are set with AlarmManager right now and what AlarmMultiplexer has done
+     */
+    @ReactMethod
+    public void getAlarmStats(Promise promise) {
+        try {
+            AlarmMultiplexer.Stats stats = AlarmMultiplexer.getStats(getReactApplicationContext());
+            WritableMap result = Arguments.createMap();
+            result.putInt("osAlarms", stats.osAlarms);
+            result.putInt("queuedAlarms", stats.queuedAlarms);
+            result.putDouble("nextWakeupAt", stats.nextWakeupAt);
+            result.putDouble("wakeups", stats.wakeups);
+            result.putDouble("dispatched", stats.dispatched);
+            result.putDouble("coalesced", stats.coalesced);
+            result.putDouble("lastWakeupAt", stats.lastWakeupAt);
+            promise.resolve(result);
+        } catch (Exception e) {
+            android.util.Log.e(TAG, "Error getting alarm stats", e);
+            promise.reject("REGISTRY_ERROR", e.getMessage());
+        }
+    }
+
+    private static WritableArray toArray(List<AlarmRegistry.Entry> entries) {
+        WritableArray result = Arguments.createArray();
+        for (AlarmRegistry.Entry entry : entries) {
+            WritableMap alarm = Arguments.createMap();
+            alarm.putString("type", entry.type);
+            alarm.putString("id", entry.id);
+            alarm.putInt("requestCode", entry.requestCode);
+            alarm.putDouble("nextFireAt", entry.nextFireAt);
+            alarm.putString("recurrence", entry.recurrence);
+            alarm.putString("payloadRef", entry.payloadRef);
+            result.pushMap(alarm);
+        }
+        return result;
+    }
+}
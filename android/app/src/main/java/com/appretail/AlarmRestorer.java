@@ -0,0 +1,159 @@
+package com.wingsfly;
+
+import android.app.AlarmManager;
+import android.app.PendingIntent;
+import android.content.Context;
+import android.content.Intent;
+import android.os.Build;
+import android.util.Log;
+
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Sets every alarm in AlarmRegistry again after AlarmManager forgot them, on boot and when
+ * the app is updated.
+ *
+ * Works only from what is stored on the device: each registry row already holds the fire
+ * time, the recurrence and the exact intent, so nothing is fetched and no subsystem code
+ * runs. Recurring alarms that came due while the device was off move to their next
+ * occurrence; one-shot alarms missed by more than a few minutes are dropped, as AlarmManager
+ * would have done. Queued alarms only need AlarmMultiplexer's wakeup.
+ */
+public final class AlarmRestorer {
+
+    private static final String TAG = "AlarmRestorer";
+
+    private static final String[] DAY_NAMES = {"Sun", "Mon", "Tue", "Wed", "Thu", "Fri", "Sat"};
+
+    /**
+     * Outcome of one pass
+     */
+    public static final class Result {
+        public final int restored;
+        public final int expired;
+        public final int failed;
+        public final long durationMs;
+
+        Result(int restored, int expired, int failed, long durationMs) {
+            this.restored = restored;
+            this.expired = expired;
+            this.failed = failed;
+            this.durationMs = durationMs;
+        }
+    }
+
+    private AlarmRestorer() {
+    }
+
+    /**
+     * Re-arm everything in one pass. Blocking; call it off the main thread.
+     */
+    public static Result restoreAll(Context context) {
+        Context appContext = context.getApplicationContext();
+        long startedAt = System.currentTimeMillis();
+        AlarmRegistry registry = AlarmRegistry.getInstance(appContext);
+        AlarmManager alarmManager = (AlarmManager) appContext.getSystemService(Context.ALARM_SERVICE);
+
+        // Reminders of versions before the registry are only in their settings
+        if (registry.listByType(AlarmRegistry.TYPE_DATE_REMINDER).isEmpty()) {
+            DateReminderScheduler.scheduleFromCache(appContext);
+        }
+
+        int restored = 0;
+        int expired = 0;
+        int failed = 0;
+        List<AlarmRegistry.Entry> entries = registry.list();
+        for (AlarmRegistry.Entry entry : entries) {
+            long fireAt = entry.nextFireAt;
+            if (fireAt < startedAt - AlarmMultiplexer.MAX_LATENESS_MS) {
+                fireAt = entry.recurrence != null ? nextOccurrence(entry.recurrence, fireAt, startedAt) : -1;
+                if (fireAt < 0) {
+                    registry.remove(entry.type, entry.id, entry.requestCode);
+                    expired++;
+                    continue;
+                }
+                registry.reschedule(entry.type, entry.id, fireAt);
+            }
+
+            if (AlarmMultiplexer.MULTIPLEXED_TYPES.contains(entry.type)) {
+                restored++;
+                continue;
+            }
+
+            Intent intent = entry.getIntent();
+            if (intent == null || alarmManager == null) {
+                failed++;
+                continue;
+            }
+            try {
+                setAlarm(appContext, alarmManager, entry.requestCode, intent, Math.max(fireAt, startedAt));
+                restored++;
+            } catch (SecurityException e) {
+                Log.e(TAG, "Failed to restore " + entry.type + "/" + entry.id + ": " + e.getMessage());
+                failed++;
+            }
+        }
+        AlarmMultiplexer.rearm(appContext);
+
+        Result result = new Result(restored, expired, failed, System.currentTimeMillis() - startedAt);
+        Log.d(TAG, "Restored " + result.restored + " alarm(s), expired " + result.expired
+                + ", failed " + result.failed + " in " + result.durationMs + "ms");
+        return result;
+    }
+
+    private static void setAlarm(Context context, AlarmManager alarmManager, int requestCode, Intent intent,
+                                 long fireAt) {
+        PendingIntent pendingIntent = PendingIntent.getBroadcast(context, requestCode, intent,
+                PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE);
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S && !alarmManager.canScheduleExactAlarms()) {
+            alarmManager.setAndAllowWhileIdle(AlarmManager.RTC_WAKEUP, fireAt, pendingIntent);
+            return;
+        }
+        // Every subsystem that sets its own alarm uses an alarm clock
+        Intent showIntent = context.getPackageManager().getLaunchIntentForPackage(context.getPackageName());
+        PendingIntent showPendingIntent = showIntent == null ? pendingIntent : PendingIntent.getActivity(
+                context, requestCode, showIntent, PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE);
+        alarmManager.setAlarmClock(new AlarmManager.AlarmClockInfo(fireAt, showPendingIntent), pendingIntent);
+    }
+
+    /**
+     * First time after now that a recurring alarm set for fireAt repeats, or -1 if the
+     * recurrence is not understood
+     */
+    static long nextOccurrence(String recurrence, long fireAt, long now) {
+        Set<Integer> days;
+        if (AlarmRegistry.RECURRENCE_DAILY.equals(recurrence)) {
+            days = null;
+        } else if (recurrence.startsWith(AlarmRegistry.RECURRENCE_WEEKLY_PREFIX)) {
+            days = daysOf(recurrence.substring(AlarmRegistry.RECURRENCE_WEEKLY_PREFIX.length()));
+            if (days.isEmpty()) {
+                return -1;
+            }
+        } else {
+            return -1;
+        }
+
+        Calendar next = Calendar.getInstance();
+        next.setTimeInMillis(fireAt);
+        while (next.getTimeInMillis() <= now || (days != null && !days.contains(next.get(Calendar.DAY_OF_WEEK)))) {
+            next.add(Calendar.DAY_OF_YEAR, 1);
+        }
+        return next.getTimeInMillis();
+    }
+
+    private static Set<Integer> daysOf(String names) {
+        Set<Integer> days = new HashSet<>();
+        List<String> known = Arrays.asList(DAY_NAMES);
+        for (String name : names.split(",")) {
+            int index = known.indexOf(name.trim());
+            if (index >= 0) {
+                days.add(Calendar.SUNDAY + index);
+            }
+        }
+        return days;
+    }
+}
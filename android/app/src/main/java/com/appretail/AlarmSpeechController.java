@@ -0,0 +1,411 @@
+package com.wingsfly;
+
+import android.content.Context;
+import android.util.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Allows one alarm speech at a time, shared by AlarmActivity, AlarmForegroundService and
+ * AlarmReceiver.
+ *
+ * The activity runs in the main process and the service and receiver in :alarm, so each
+ * process has its own instance. Within a process the state machine below decides; across
+ * processes the playback also holds an exclusive lock on a file, which the kernel releases
+ * if the owning process dies.
+ *
+ * The state is a single immutable snapshot swapped with compare-and-set:
+ *
+ *   IDLE -> STARTING -> PLAYING -> STOPPING -> IDLE
+ *
+ * Every start gets an ownership Token naming its alarm. Stop requests only act on the
+ * current owner (or on anything when forced), and a token that has lost ownership can
+ * never move the state again, so a late stop from a dismissed alarm can't silence the
+ * next one. No call blocks: a request that finds another speech starting, playing or
+ * stopping is refused immediately instead of waiting for it.
+ */
+public final class AlarmSpeechController {
+
+    private static final String TAG = "AlarmSpeechController";
+
+    // Guards against the activity, service and receiver all starting the same alarm
+    private static final long MIN_START_INTERVAL_MS = 3000;
+    private static final long AUTO_STOP_MS = 2 * 60 * 1000L;
+    private static final String LOCK_FILE = "alarm_speech.lock";
+
+    public enum State {
+        IDLE, STARTING, PLAYING, STOPPING
+    }
+
+    /**
+     * Ownership of one playback. Handed out by a successful request.
+     */
+    public static final class Token {
+        public final String alarmId;
+        public final String source;
+        final long id;
+        volatile Playback playback;
+
+        private Token(long id, String alarmId, String source) {
+            this.id = id;
+            this.alarmId = alarmId;
+            this.source = source;
+        }
+
+        @Override
+        public String toString() {
+            return alarmId + "#" + id + " from " + source;
+        }
+    }
+
+    /**
+     * The audio being played for a token
+     */
+    interface Playback {
+        void stop();
+    }
+
+    /**
+     * Starts the actual audio. Replaceable so the state machine can be exercised without it.
+     */
+    interface PlaybackFactory {
+        /**
+         * Returns null if another process owns the alarm audio
+         */
+        Playback start(Request request);
+    }
+
+    /**
+     * What a caller asked to play
+     */
+    static final class Request {
+        final Context context;
+        final String alarmId;
+        final String taskTitle;
+        final String scheduleTime;
+        final String userName;
+        final boolean quoteOnly;
+
+        Request(Context context, String alarmId, String taskTitle, String scheduleTime,
+                String userName, boolean quoteOnly) {
+            this.context = context;
+            this.alarmId = alarmId;
+            this.taskTitle = taskTitle;
+            this.scheduleTime = scheduleTime;
+            this.userName = userName;
+            this.quoteOnly = quoteOnly;
+        }
+    }
+
+    private static final class Snapshot {
+        final State state;
+        final Token owner;
+        final long lastStartAt;
+
+        Snapshot(State state, Token owner, long lastStartAt) {
+            this.state = state;
+            this.owner = owner;
+            this.lastStartAt = lastStartAt;
+        }
+    }
+
+    private static final AlarmSpeechController instance =
+            new AlarmSpeechController(new ElevenLabsPlaybackFactory(), MIN_START_INTERVAL_MS);
+
+    private final AtomicReference<Snapshot> snapshot =
+            new AtomicReference<>(new Snapshot(State.IDLE, null, Long.MIN_VALUE / 2));
+    private final AtomicLong nextTokenId = new AtomicLong();
+    private final PlaybackFactory factory;
+    private final long minStartIntervalMs;
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "AlarmSpeechTimeout");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    AlarmSpeechController(PlaybackFactory factory, long minStartIntervalMs) {
+        this.factory = factory;
+        this.minStartIntervalMs = minStartIntervalMs;
+    }
+
+    public static AlarmSpeechController getInstance() {
+        return instance;
+    }
+
+    /**
+     * Start the full alarm speech. Returns the ownership token, or null if another speech
+     * owns the audio or one started moments ago.
+     */
+    public Token requestPlayback(String alarmId, String taskTitle, String scheduleTime,
+                                 String userName, Context context, String source) {
+        return start(new Request(context, alarmId, taskTitle, scheduleTime, userName, false), source, true);
+    }
+
+    /**
+     * Replay the quote for the alarm that owns the audio, or for any alarm if nothing plays
+     */
+    public Token requestRepeat(String alarmId, Context context, String source) {
+        Snapshot current = snapshot.get();
+        if (current.owner != null && !current.owner.alarmId.equals(alarmId)
+                && current.state != State.IDLE) {
+            Log.w(TAG, "Repeat blocked - alarm " + current.owner + " owns the audio");
+            return null;
+        }
+        if (current.owner != null && current.state != State.IDLE) {
+            stop(current.owner, "REPEAT_" + source);
+        }
+        return start(new Request(context, alarmId, null, null, "there", true), source, false);
+    }
+
+    private Token start(Request request, String source, boolean throttled) {
+        Token token = new Token(nextTokenId.incrementAndGet(), request.alarmId, source);
+        long now = System.currentTimeMillis();
+
+        Snapshot current = snapshot.get();
+        if (current.state != State.IDLE) {
+            Log.w(TAG, "Blocked " + token + " - " + current.state + " " + current.owner);
+            return null;
+        }
+        if (throttled && now - current.lastStartAt < minStartIntervalMs) {
+            Log.w(TAG, "Blocked " + token + " - last start " + (now - current.lastStartAt) + "ms ago");
+            return null;
+        }
+        if (!snapshot.compareAndSet(current, new Snapshot(State.STARTING, token, now))) {
+            Log.w(TAG, "Blocked " + token + " - lost the race to another request");
+            return null;
+        }
+
+        Playback playback;
+        try {
+            playback = factory.start(request);
+        } catch (RuntimeException e) {
+            Log.e(TAG, "Could not start speech for " + token, e);
+            release(token);
+            return null;
+        }
+        if (playback == null) {
+            Log.w(TAG, "Blocked " + token + " - another process is playing alarm speech");
+            release(token);
+            return null;
+        }
+        token.playback = playback;
+
+        while (true) {
+            Snapshot starting = snapshot.get();
+            if (starting.state == State.STARTING) {
+                if (snapshot.compareAndSet(starting, new Snapshot(State.PLAYING, token, starting.lastStartAt))) {
+                    Log.d(TAG, "Playing " + token);
+                    scheduleAutoStop(token);
+                    return token;
+                }
+            } else {
+                // A stop arrived while starting and left the teardown to us
+                Log.d(TAG, "Stopped while starting: " + token);
+                stopPlayback(token);
+                release(token);
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Stop the speech if the token still owns it
+     */
+    public boolean stop(Token token, String reason) {
+        while (true) {
+            Snapshot current = snapshot.get();
+            if (current.owner != token
+                    || (current.state != State.STARTING && current.state != State.PLAYING)) {
+                return false;
+            }
+            if (!snapshot.compareAndSet(current, new Snapshot(State.STOPPING, token, current.lastStartAt))) {
+                continue;
+            }
+            Log.d(TAG, "Stopping " + token + " - " + reason);
+            if (current.state == State.PLAYING) {
+                stopPlayback(token);
+                release(token);
+            }
+            // Otherwise the starting thread sees STOPPING and tears its playback down
+            return true;
+        }
+    }
+
+    /**
+     * Stop the speech of the alarm, if it owns the audio
+     */
+    public boolean stop(String alarmId, String source) {
+        Token owner = snapshot.get().owner;
+        if (owner == null || !owner.alarmId.equals(alarmId)) {
+            Log.d(TAG, "Stop from " + source + " ignored - " + alarmId + " does not own the audio");
+            return false;
+        }
+        return stop(owner, source);
+    }
+
+    /**
+     * Stop whatever is playing
+     */
+    public boolean forceStopAll(String source) {
+        Token owner = snapshot.get().owner;
+        return owner != null && stop(owner, "FORCE_STOP_" + source);
+    }
+
+    private void stopPlayback(Token token) {
+        Playback playback = token.playback;
+        if (playback == null) {
+            return;
+        }
+        try {
+            playback.stop();
+        } catch (RuntimeException e) {
+            Log.e(TAG, "Error stopping " + token, e);
+        }
+    }
+
+    /**
+     * Back to IDLE, if the token still owns the state
+     */
+    private void release(Token token) {
+        while (true) {
+            Snapshot current = snapshot.get();
+            if (current.owner != token || current.state == State.IDLE) {
+                return;
+            }
+            if (snapshot.compareAndSet(current, new Snapshot(State.IDLE, null, current.lastStartAt))) {
+                return;
+            }
+        }
+    }
+
+    private void scheduleAutoStop(final Token token) {
+        timer.schedule(new Runnable() {
+            @Override
+            public void run() {
+                if (stop(token, "AUTO_TIMEOUT")) {
+                    Log.d(TAG, "Auto-stopped " + token + " after 2 minutes");
+                }
+            }
+        }, AUTO_STOP_MS, TimeUnit.MILLISECONDS);
+    }
+
+    public State getState() {
+        return snapshot.get().state;
+    }
+
+    public boolean isAudioPlaying() {
+        State state = snapshot.get().state;
+        return state == State.STARTING || state == State.PLAYING;
+    }
+
+    public String getCurrentAlarmId() {
+        Token owner = snapshot.get().owner;
+        return owner != null ? owner.alarmId : null;
+    }
+
+    public String getStatus() {
+        Snapshot current = snapshot.get();
+        return String.format("State: %s, Owner: %s, LastStart: %dms ago", current.state,
+                current.owner, System.currentTimeMillis() - current.lastStartAt);
+    }
+
+    /**
+     * Exclusive lock on a file in the app's data directory, held for the whole playback
+     */
+    private static final class ProcessLock {
+        private final RandomAccessFile file;
+        private final FileLock lock;
+
+        private ProcessLock(RandomAccessFile file, FileLock lock) {
+            this.file = file;
+            this.lock = lock;
+        }
+
+        /**
+         * Returns null if another process holds the lock
+         */
+        static ProcessLock tryAcquire(Context context) {
+            RandomAccessFile file = null;
+            try {
+                file = new RandomAccessFile(new File(context.getFilesDir(), LOCK_FILE), "rw");
+                FileLock lock = file.getChannel().tryLock();
+                if (lock != null) {
+                    return new ProcessLock(file, lock);
+                }
+            } catch (IOException | OverlappingFileLockException e) {
+                Log.e(TAG, "Could not lock alarm speech: " + e.getMessage());
+            }
+            closeQuietly(file);
+            return null;
+        }
+
+        void release() {
+            try {
+                lock.release();
+            } catch (IOException e) {
+                Log.e(TAG, "Could not unlock alarm speech: " + e.getMessage());
+            }
+            closeQuietly(file);
+        }
+
+        private static void closeQuietly(RandomAccessFile file) {
+            if (file != null) {
+                try {
+                    file.close();
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+
+    /**
+     * Plays through a fresh ElevenLabsNativeService per alarm
+     */
+    private static final class ElevenLabsPlaybackFactory implements PlaybackFactory {
+        @Override
+        public Playback start(Request request) {
+            final ProcessLock processLock = ProcessLock.tryAcquire(request.context.getApplicationContext());
+            if (processLock == null) {
+                return null;
+            }
+            final ElevenLabsNativeService service;
+            try {
+                service = new ElevenLabsNativeService(request.context);
+                String userName = request.userName;
+                service.setUserProfile(userName != null && !userName.trim().isEmpty() ? userName.trim() : "there");
+                if (request.quoteOnly) {
+                    service.playHindiQuoteOnly();
+                } else {
+                    service.playEnhancedAlarmSpeech(request.alarmId, request.taskTitle, request.scheduleTime);
+                }
+            } catch (RuntimeException e) {
+                processLock.release();
+                throw e;
+            }
+            return new Playback() {
+                @Override
+                public void stop() {
+                    try {
+                        service.stopAudio();
+                        service.cleanup();
+                    } finally {
+                        processLock.release();
+                    }
+                }
+            };
+        }
+    }
+}
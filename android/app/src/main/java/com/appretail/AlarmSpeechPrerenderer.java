@@ -0,0 +1,311 @@
+package com.wingsfly;
+
+import android.app.job.JobInfo;
+import android.app.job.JobScheduler;
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Build;
+import android.util.Log;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Synthesizes alarm speech when the alarm is scheduled instead of when it fires.
+ *
+ * The text an alarm will speak is fixed at scheduling time (task title, time, user name,
+ * voice commands), so it is stored per alarm ID and rendered into TtsAudioCache by
+ * AlarmSpeechRenderJobService once a network is available. At fire time the alarm looks
+ * up its stored speech and plays the cached audio immediately, or synthesizes the same
+ * text live if rendering has not happened yet.
+ */
+public class AlarmSpeechPrerenderer {
+
+    private static final String TAG = "AlarmSpeechPrerender";
+
+    private static final int JOB_ID = 47300;
+    private static final long RETRY_BACKOFF_MS = 30 * 1000L;
+
+    private static final String PREFS_NAME = "AlarmSpeech";
+
+    private static final String TYPE_TASK = "task";
+    private static final String TYPE_VOICE_COMMAND = "voice_command";
+
+    // Records are kept a day past their fire time for late or snoozed alarms
+    private static final long EXPIRY_GRACE_MS = 24 * 60 * 60 * 1000L;
+
+    private static final Pattern TIME_PATTERN = Pattern.compile("\\b(\\d{1,2}):(\\d{2})\\b");
+
+    // Bumped after every stored record, so a render run can tell whether it missed any
+    private static final AtomicLong generation = new AtomicLong();
+
+    /**
+     * Speech of a task alarm: the English announcement followed by the Hindi quote, split
+     * into the phrases that are synthesized and played one after another
+     */
+    public static class TaskSpeech {
+        public final String englishMessage;
+        public final String quote;
+        final List<PhraseSegmenter.Phrase> quotePhrases;
+
+        TaskSpeech(String englishMessage, String quote, List<PhraseSegmenter.Phrase> quotePhrases) {
+            this.englishMessage = englishMessage;
+            this.quote = quote;
+            this.quotePhrases = quotePhrases;
+        }
+    }
+
+    /**
+     * Store and pre-render the speech of a task alarm scheduled by AlarmModule
+     */
+    public static void onTaskAlarmScheduled(Context context, String alarmId, String taskTitle,
+                                            String scheduleTime, String userName, long fireTime) {
+        String name = userName != null && !userName.trim().isEmpty()
+                ? userName.trim()
+                : UserDataModule.getStoredUserName(context);
+        if (name == null || name.trim().isEmpty()) {
+            name = "there";
+        }
+
+        try {
+            JSONObject record = new JSONObject();
+            record.put("type", TYPE_TASK);
+            record.put("fireTime", fireTime);
+            record.put("english", ElevenLabsNativeService.buildEnglishMessage(name, taskTitle, scheduleTime));
+            // The quote is picked now so the rendered audio matches what plays at fire time
+            List<PhraseSegmenter.Phrase> quote = ElevenLabsNativeService.buildRandomQuote(name, taskTitle, scheduleTime);
+            record.put("quote", PhraseSegmenter.join(quote));
+            record.put("quotePhrases", PhraseSegmenter.toJson(quote));
+            store(context, alarmId, record);
+        } catch (JSONException e) {
+            Log.e(TAG, "Could not store speech for alarm " + alarmId, e);
+        }
+    }
+
+    /**
+     * Store and pre-render the text commands of a voice command alarm
+     */
+    public static void onVoiceCommandAlarmScheduled(Context context, String alarmId, String commandsJson,
+                                                    long fireTime) {
+        try {
+            JSONArray texts = new JSONArray();
+            if (commandsJson != null && !commandsJson.isEmpty()) {
+                JSONArray commands = new JSONArray(commandsJson);
+                for (int i = 0; i < commands.length(); i++) {
+                    JSONObject command = commands.getJSONObject(i);
+                    // Commands with an uploaded recording are played as is
+                    if (command.isNull("audio_file_path") && !command.optString("text", "").isEmpty()) {
+                        texts.put(command.getString("text"));
+                    }
+                }
+            }
+            if (texts.length() == 0) {
+                remove(context, alarmId);
+                return;
+            }
+
+            JSONObject record = new JSONObject();
+            record.put("type", TYPE_VOICE_COMMAND);
+            record.put("fireTime", fireTime);
+            record.put("texts", texts);
+            store(context, alarmId, record);
+        } catch (JSONException e) {
+            Log.e(TAG, "Could not store commands for alarm " + alarmId, e);
+        }
+    }
+
+    /**
+     * Speech stored for a task alarm, or null if none was stored at scheduling time
+     */
+    public static TaskSpeech getTaskSpeech(Context context, String alarmId) {
+        JSONObject record = load(context, alarmId);
+        if (record == null || !TYPE_TASK.equals(record.optString("type"))) {
+            return null;
+        }
+        return new TaskSpeech(record.optString("english"), record.optString("quote"), quotePhrasesOf(record));
+    }
+
+    /**
+     * Records stored before the quote was split have the whole quote as one phrase
+     */
+    private static List<PhraseSegmenter.Phrase> quotePhrasesOf(JSONObject record) {
+        List<PhraseSegmenter.Phrase> phrases = PhraseSegmenter.fromJson(record.optJSONArray("quotePhrases"));
+        if (phrases.isEmpty()) {
+            return Collections.singletonList(new PhraseSegmenter.Phrase(record.optString("quote"), true));
+        }
+        return phrases;
+    }
+
+    public static void remove(Context context, String alarmId) {
+        if (alarmId != null) {
+            getPrefs(context).edit().remove(alarmId).apply();
+        }
+    }
+
+    /**
+     * Time of day for the speech, taken from the TTS message the same way AlarmActivity does
+     */
+    public static String scheduleTimeFromMessage(String message) {
+        if (message == null || message.isEmpty()) {
+            return "12:00";
+        }
+
+        if (message.contains(" at ")) {
+            String[] parts = message.split(" at ");
+            if (parts.length > 1) {
+                String timePart = parts[1].split(" ")[0];
+                if (timePart.contains(":")) {
+                    return timePart;
+                }
+            }
+        }
+
+        Matcher matcher = TIME_PATTERN.matcher(message);
+        if (matcher.find()) {
+            return matcher.group();
+        }
+        return "12:00";
+    }
+
+    /**
+     * Render every stored clip that is not cached yet. Blocking; returns true if all of them
+     * are now on disk.
+     */
+    static boolean renderPending(Context context, RenderControl control) {
+        long now = System.currentTimeMillis();
+        SharedPreferences prefs = getPrefs(context);
+        SharedPreferences.Editor expired = prefs.edit();
+        int rendered = 0;
+        boolean complete = true;
+
+        for (Map.Entry<String, ?> entry : prefs.getAll().entrySet()) {
+            if (control.isStopped()) {
+                complete = false;
+                break;
+            }
+            JSONObject record = parse(entry.getValue());
+            if (record == null || record.optLong("fireTime", 0) + EXPIRY_GRACE_MS < now) {
+                expired.remove(entry.getKey());
+                continue;
+            }
+
+            try {
+                for (Clip clip : clipsFor(record)) {
+                    if (TtsAudioCache.get(context, clip.request) == null) {
+                        TtsAudioCache.getOrSynthesize(context, clip.request, clip.pinned);
+                        rendered++;
+                    }
+                }
+            } catch (IOException | JSONException e) {
+                Log.w(TAG, "Rendering speech for alarm " + entry.getKey() + " failed: " + e.getMessage());
+                complete = false;
+            }
+        }
+        expired.apply();
+
+        Log.d(TAG, "Rendered " + rendered + " clip(s), complete=" + complete);
+        return complete;
+    }
+
+    /**
+     * Changes whenever a record is stored. Read it before renderPending and compare after.
+     */
+    static long getGeneration() {
+        return generation.get();
+    }
+
+    interface RenderControl {
+        boolean isStopped();
+    }
+
+    /**
+     * One clip to render; the static phrases of the quote are pinned in the cache
+     */
+    private static final class Clip {
+        final ElevenLabsClient.Request request;
+        final boolean pinned;
+
+        Clip(ElevenLabsClient.Request request, boolean pinned) {
+            this.request = request;
+            this.pinned = pinned;
+        }
+    }
+
+    private static List<Clip> clipsFor(JSONObject record) throws JSONException {
+        List<Clip> clips = new ArrayList<>();
+        if (TYPE_TASK.equals(record.optString("type"))) {
+            clips.add(new Clip(ElevenLabsNativeService.buildRequest(record.getString("english"), false), false));
+            for (PhraseSegmenter.Phrase phrase : quotePhrasesOf(record)) {
+                clips.add(new Clip(ElevenLabsNativeService.buildRequest(phrase.text, true), !phrase.dynamic));
+            }
+        } else if (TYPE_VOICE_COMMAND.equals(record.optString("type"))) {
+            JSONArray texts = record.getJSONArray("texts");
+            for (int i = 0; i < texts.length(); i++) {
+                clips.add(new Clip(VoiceCommandTTSService.buildRequest(texts.getString(i)), false));
+            }
+        }
+        return clips;
+    }
+
+    private static void store(Context context, String alarmId, JSONObject record) {
+        getPrefs(context).edit().putString(alarmId, record.toString()).apply();
+        generation.incrementAndGet();
+        Log.d(TAG, "Stored speech for alarm " + alarmId);
+        scheduleRender(context);
+    }
+
+    private static JSONObject load(Context context, String alarmId) {
+        return alarmId != null ? parse(getPrefs(context).getAll().get(alarmId)) : null;
+    }
+
+    private static JSONObject parse(Object value) {
+        if (!(value instanceof String)) {
+            return null;
+        }
+        try {
+            return new JSONObject((String) value);
+        } catch (JSONException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Run the render job once there is a network. A pending job already covers new records;
+     * a running one reschedules itself if records arrived after it started.
+     */
+    static void scheduleRender(Context context) {
+        try {
+            JobScheduler scheduler = (JobScheduler) context.getSystemService(Context.JOB_SCHEDULER_SERVICE);
+            if (scheduler == null || scheduler.getPendingJob(JOB_ID) != null) {
+                return;
+            }
+
+            JobInfo.Builder builder = new JobInfo.Builder(JOB_ID,
+                    new ComponentName(context, AlarmSpeechRenderJobService.class))
+                    .setRequiredNetworkType(JobInfo.NETWORK_TYPE_ANY)
+                    .setBackoffCriteria(RETRY_BACKOFF_MS, JobInfo.BACKOFF_POLICY_EXPONENTIAL)
+                    .setPersisted(true);
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+                builder.setRequiresBatteryNotLow(true);
+            }
+            scheduler.schedule(builder.build());
+        } catch (Exception e) {
+            Log.e(TAG, "Could not schedule speech rendering", e);
+        }
+    }
+
+    private static SharedPreferences getPrefs(Context context) {
+        return context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+}
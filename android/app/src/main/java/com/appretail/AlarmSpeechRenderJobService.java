@@ -0,0 +1,41 @@
+package com.wingsfly;
+
+import android.app.job.JobParameters;
+import android.app.job.JobService;
+import android.util.Log;
+
+/**
+ * Renders the alarm speech stored by AlarmSpeechPrerenderer into TtsAudioCache.
+ * Retried with backoff if a clip could not be synthesized.
+ */
+public class AlarmSpeechRenderJobService extends JobService {
+
+    private static final String TAG = "AlarmSpeechRenderJob";
+
+    private volatile boolean stopped;
+
+    @Override
+    public boolean onStartJob(final JobParameters params) {
+        stopped = false;
+        new Thread(() -> {
+            long generation = AlarmSpeechPrerenderer.getGeneration();
+            boolean complete = AlarmSpeechPrerenderer.renderPending(getApplicationContext(), () -> stopped);
+            if (!stopped) {
+                jobFinished(params, !complete);
+                // Records stored while this run was going found the job pending and did not schedule one
+                if (complete && AlarmSpeechPrerenderer.getGeneration() != generation) {
+                    AlarmSpeechPrerenderer.scheduleRender(getApplicationContext());
+                }
+            }
+        }, "AlarmSpeechRender").start();
+        return true;
+    }
+
+    @Override
+    public boolean onStopJob(JobParameters params) {
+        // Clips rendered so far stay cached; the rest is picked up on the retry
+        Log.d(TAG, "Speech rendering stopped by the system");
+        stopped = true;
+        return true;
+    }
+}
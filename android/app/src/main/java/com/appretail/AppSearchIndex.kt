@@ -0,0 +1,177 @@
+package com.wingsfly
+
+import java.text.Normalizer
+import kotlin.math.ln
+
+// Search index over the installed-app catalog (labels + package names only, no icons)
+class AppSearchIndex(apps: List<App>) {
+
+    data class App(
+        val packageName: String,
+        val label: String,
+        val usageMinutes: Long = 0L
+    )
+
+    data class Result(
+        val packageName: String,
+        val label: String,
+        val score: Double
+    )
+
+    private class TrieNode {
+        val children = HashMap<Char, TrieNode>(4)
+        // Apps that have at least one token starting with the prefix ending at this node
+        val apps = ArrayList<Int>(2)
+    }
+
+    private val entries: Array<App> = apps.toTypedArray()
+    private val normalizedLabels = Array(entries.size) { normalize(entries[it].label) }
+    private val normalizedPackages = Array(entries.size) { normalize(entries[it].packageName) }
+    private val usageWeights = DoubleArray(entries.size) { ln(1.0 + entries[it].usageMinutes.coerceAtLeast(0L)) }
+    private val root = TrieNode()
+    private val trigrams = HashMap<String, IntArray>()
+
+    val size: Int get() = entries.size
+
+    init {
+        val trigramPostings = HashMap<String, MutableList<Int>>()
+        for (i in entries.indices) {
+            val tokens = tokenize(normalizedLabels[i]) + tokenize(normalizedPackages[i])
+            for (token in tokens.distinct()) {
+                insertToken(token, i)
+            }
+            val grams = HashSet<String>()
+            collectTrigrams(normalizedLabels[i], grams)
+            collectTrigrams(normalizedPackages[i], grams)
+            for (gram in grams) {
+                trigramPostings.getOrPut(gram) { ArrayList(2) }.add(i)
+            }
+        }
+        for ((gram, postings) in trigramPostings) {
+            trigrams[gram] = postings.toIntArray()
+        }
+    }
+
+    fun search(query: String, limit: Int): List<Result> {
+        if (limit <= 0 || entries.isEmpty()) return emptyList()
+        val normalizedQuery = normalize(query)
+        val scores = DoubleArray(entries.size)
+
+        if (normalizedQuery.isEmpty()) {
+            for (i in entries.indices) scores[i] = usageWeights[i] + 0.001
+            return collect(scores, limit)
+        }
+
+        // Prefix matches: every query token must prefix some token of the app
+        val queryTokens = tokenize(normalizedQuery)
+        var prefixMatches: Set<Int>? = null
+        for (token in queryTokens) {
+            val matches = findPrefix(token)?.apps?.toHashSet() ?: emptySet()
+            prefixMatches = prefixMatches?.intersect(matches) ?: matches
+            if (prefixMatches.isEmpty()) break
+        }
+        prefixMatches?.forEach { i ->
+            var score = PREFIX_SCORE
+            if (normalizedLabels[i].startsWith(normalizedQuery)) score += LABEL_START_BONUS
+            if (normalizedLabels[i] == normalizedQuery) score += EXACT_BONUS
+            scores[i] = score
+        }
+
+        // Fuzzy matches on trigram overlap, catches typos and infix matches
+        val queryGrams = HashSet<String>()
+        collectTrigrams(normalizedQuery, queryGrams)
+        if (queryGrams.isNotEmpty()) {
+            val overlap = IntArray(entries.size)
+            for (gram in queryGrams) {
+                trigrams[gram]?.forEach { overlap[it]++ }
+            }
+            for (i in entries.indices) {
+                if (overlap[i] == 0) continue
+                val similarity = overlap[i].toDouble() / queryGrams.size
+                if (similarity >= MIN_TRIGRAM_SIMILARITY) {
+                    scores[i] = maxOf(scores[i], similarity * FUZZY_SCORE)
+                }
+            }
+        } else {
+            // Queries shorter than a trigram fall back to a substring check
+            for (i in entries.indices) {
+                if (scores[i] == 0.0 && normalizedLabels[i].contains(normalizedQuery)) {
+                    scores[i] = FUZZY_SCORE
+                }
+            }
+        }
+
+        for (i in entries.indices) {
+            if (scores[i] > 0.0) scores[i] += usageWeights[i] * USAGE_FACTOR
+        }
+        return collect(scores, limit)
+    }
+
+    private fun collect(scores: DoubleArray, limit: Int): List<Result> {
+        val matched = ArrayList<Int>()
+        for (i in scores.indices) {
+            if (scores[i] > 0.0) matched.add(i)
+        }
+        matched.sortWith(compareByDescending<Int> { scores[it] }.thenBy { normalizedLabels[it] })
+        val count = minOf(limit, matched.size)
+        val results = ArrayList<Result>(count)
+        for (k in 0 until count) {
+            val i = matched[k]
+            results.add(Result(entries[i].packageName, entries[i].label, scores[i]))
+        }
+        return results
+    }
+
+    private fun insertToken(token: String, appIndex: Int) {
+        var node = root
+        for (c in token) {
+            node = node.children.getOrPut(c) { TrieNode() }
+            if (node.apps.isEmpty() || node.apps[node.apps.size - 1] != appIndex) {
+                node.apps.add(appIndex)
+            }
+        }
+    }
+
+    private fun findPrefix(prefix: String): TrieNode? {
+        var node = root
+        for (c in prefix) {
+            node = node.children[c] ?: return null
+        }
+        return node
+    }
+
+    companion object {
+        private const val PREFIX_SCORE = 10.0
+        private const val LABEL_START_BONUS = 5.0
+        private const val EXACT_BONUS = 5.0
+        private const val FUZZY_SCORE = 6.0
+        private const val USAGE_FACTOR = 0.5
+        private const val MIN_TRIGRAM_SIMILARITY = 0.34
+
+        private val DIACRITICS = Regex("\\p{InCombiningDiacriticalMarks}+")
+        private val SEPARATORS = Regex("[^a-z0-9]+")
+
+        // Lowercase, strip accents and collapse everything that is not a letter/digit to one space
+        fun normalize(text: String): String {
+            val decomposed = Normalizer.normalize(text, Normalizer.Form.NFD)
+            return decomposed.replace(DIACRITICS, "")
+                .lowercase()
+                .replace(SEPARATORS, " ")
+                .trim()
+        }
+
+        private fun tokenize(normalized: String): List<String> {
+            if (normalized.isEmpty()) return emptyList()
+            // The collapsed form lets "you tube" match "youtube" and vice versa
+            return normalized.split(' ') + normalized.replace(" ", "")
+        }
+
+        private fun collectTrigrams(normalized: String, out: MutableSet<String>) {
+            val compact = normalized.replace(" ", "")
+            if (compact.length < 3) return
+            for (i in 0..compact.length - 3) {
+                out.add(compact.substring(i, i + 3))
+            }
+        }
+    }
+}
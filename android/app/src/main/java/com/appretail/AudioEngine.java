@@ -0,0 +1,858 @@
+package com.wingsfly;
+
+import android.content.Context;
+import android.media.AudioAttributes;
+import android.media.AudioFocusRequest;
+import android.media.AudioManager;
+import android.media.MediaDataSource;
+import android.media.MediaPlayer;
+import android.net.Uri;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Single playback engine for alarm tones, speech and lock-screen media.
+ *
+ * Clients open a Session with an owner and a priority and enqueue clips on it. One session
+ * is audible at a time: opening a session takes over from an equal or lower priority one
+ * (media is suspended and resumed afterwards, anything else is closed), and a lower
+ * priority session waits until the higher one closes. Opening a session again for the
+ * same owner replaces the old one. The engine holds system audio focus and the raised
+ * alarm volume on behalf of whichever session is audible, and puts the volume back when
+ * no alarm is playing.
+ *
+ * Players come from a small pool. The next clip of a session is prepared while the current
+ * one plays and chained with setNextMediaPlayer when there is no pause between them, so a
+ * tone, message and quote run back to back without allocating or preparing in between.
+ *
+ * Players are only touched on the main thread; the public methods can be called from any
+ * thread.
+ */
+public final class AudioEngine {
+
+    private static final String TAG = "AudioEngine";
+
+    public static final int PRIORITY_MEDIA = 1;
+    public static final int PRIORITY_ALARM = 2;
+
+    private static final int POOL_SIZE = 3;
+    private static final long POOL_IDLE_RELEASE_MS = 30 * 1000L;
+    private static final float DUCK_VOLUME = 0.2f;
+
+    private static volatile AudioEngine instance;
+    private static final Object INSTANCE_LOCK = new Object();
+
+    private final Context context;
+    private final AudioManager audioManager;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Object poolToken = new Object();
+
+    // Arbitration state, guarded by this
+    private Session active;
+    private final List<Session> waiting = new ArrayList<>();
+
+    // Main thread only
+    private final ArrayDeque<MediaPlayer> idlePlayers = new ArrayDeque<>();
+    private int focusPriority;
+    private AudioFocusRequest focusRequest;
+    private boolean focusLost;
+    private boolean ducked;
+    private int savedAlarmVolume = -1;
+
+    /**
+     * Sets the data source of a pooled player
+     */
+    public interface Source {
+        void bind(MediaPlayer player, Context context) throws IOException;
+    }
+
+    /**
+     * Notified on the main thread about session state the owner didn't cause itself
+     */
+    public abstract static class SessionListener {
+        public void onSuspended() {
+        }
+
+        public void onResumed() {
+        }
+
+        /**
+         * The session was closed because another owner took over
+         */
+        public void onInterrupted() {
+        }
+    }
+
+    /**
+     * One piece of audio in a session queue
+     */
+    public static final class Clip {
+        final String description;
+        final Source source;
+        boolean looping;
+        float volume = 1f;
+        long pauseBeforeMs;
+        Clip fallback;
+        Runnable onStarted;
+        Runnable onFinished;
+
+        private volatile boolean started;
+        private volatile boolean failed;
+
+        private Clip(String description, Source source) {
+            this.description = description;
+            this.source = source;
+        }
+
+        public static Clip file(final String path, String description) {
+            return new Clip(description, new Source() {
+                @Override
+                public void bind(MediaPlayer player, Context context) throws IOException {
+                    player.setDataSource(path);
+                }
+            });
+        }
+
+        public static Clip uri(final Uri uri, String description) {
+            return new Clip(description, new Source() {
+                @Override
+                public void bind(MediaPlayer player, Context context) throws IOException {
+                    player.setDataSource(context, uri);
+                }
+            });
+        }
+
+        public static Clip stream(final MediaDataSource dataSource, String description) {
+            return new Clip(description, new Source() {
+                @Override
+                public void bind(MediaPlayer player, Context context) {
+                    player.setDataSource(dataSource);
+                }
+            });
+        }
+
+        /**
+         * Loop until the session is closed. Clips queued behind a looping clip never play.
+         */
+        public Clip looping(boolean looping) {
+            this.looping = looping;
+            return this;
+        }
+
+        public Clip volume(float volume) {
+            this.volume = volume;
+            return this;
+        }
+
+        /**
+         * Silence between the previous clip and this one. Zero plays them gaplessly.
+         */
+        public Clip pauseBefore(long pauseMs) {
+            this.pauseBeforeMs = pauseMs;
+            return this;
+        }
+
+        /**
+         * Played in place of this clip if it fails before it starts
+         */
+        public Clip fallback(Clip fallback) {
+            this.fallback = fallback;
+            return this;
+        }
+
+        public Clip onStarted(Runnable callback) {
+            this.onStarted = callback;
+            return this;
+        }
+
+        /**
+         * Called when the clip completes or fails, but not when its session is closed
+         */
+        public Clip onFinished(Runnable callback) {
+            this.onFinished = callback;
+            return this;
+        }
+
+        public boolean hasStarted() {
+            return started;
+        }
+
+        public boolean hasFailed() {
+            return failed;
+        }
+    }
+
+    private AudioEngine(Context context) {
+        this.context = context.getApplicationContext();
+        this.audioManager = (AudioManager) this.context.getSystemService(Context.AUDIO_SERVICE);
+    }
+
+    public static AudioEngine getInstance(Context context) {
+        if (instance == null) {
+            synchronized (INSTANCE_LOCK) {
+                if (instance == null) {
+                    instance = new AudioEngine(context);
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Open a session for the owner, closing the owner's previous one
+     */
+    public Session openSession(String owner, int priority) {
+        final Session session = new Session(owner, priority);
+        final List<Session> replaced = new ArrayList<>();
+        final Session suspended;
+
+        synchronized (this) {
+            for (Iterator<Session> it = waiting.iterator(); it.hasNext(); ) {
+                Session other = it.next();
+                if (other.owner.equals(owner)) {
+                    it.remove();
+                    replaced.add(other);
+                }
+            }
+
+            Session previous = active;
+            if (previous != null && previous.owner.equals(owner)) {
+                replaced.add(previous);
+                previous = null;
+                active = null;
+            }
+
+            if (previous == null) {
+                active = session;
+                suspended = null;
+            } else if (priority < previous.priority) {
+                // Starts once the higher priority audio is done
+                addWaiting(session);
+                suspended = null;
+            } else if (priority > previous.priority && previous.priority == PRIORITY_MEDIA) {
+                addWaiting(previous);
+                active = session;
+                suspended = previous;
+            } else {
+                previous.interrupted = true;
+                replaced.add(previous);
+                active = session;
+                suspended = null;
+            }
+            for (Session old : replaced) {
+                old.closed = true;
+            }
+        }
+
+        Log.d(TAG, "Opened session " + owner + " (priority " + priority + ")");
+        post(new Runnable() {
+            @Override
+            public void run() {
+                mainHandler.removeCallbacksAndMessages(poolToken);
+                for (Session old : replaced) {
+                    old.release();
+                }
+                if (suspended != null) {
+                    suspended.applyPlayState();
+                    suspended.notifySuspended();
+                }
+                updateFocus();
+                session.applyPlayState();
+            }
+        });
+        return session;
+    }
+
+    /**
+     * Owner, priority and queue of the audible session, for debugging
+     */
+    public synchronized String getStatus() {
+        return String.format("Active: %s, Waiting: %d, Focus priority: %d",
+                active != null ? active.owner + " (priority " + active.priority + ")" : "none",
+                waiting.size(), focusPriority);
+    }
+
+    private void addWaiting(Session session) {
+        int index = 0;
+        while (index < waiting.size() && waiting.get(index).priority >= session.priority) {
+            index++;
+        }
+        waiting.add(index, session);
+    }
+
+    private void closeSession(final Session session) {
+        final Session resumed;
+        synchronized (this) {
+            if (session.closed) {
+                return;
+            }
+            session.closed = true;
+            waiting.remove(session);
+            if (active == session) {
+                active = waiting.isEmpty() ? null : waiting.remove(0);
+                resumed = active;
+            } else {
+                resumed = null;
+            }
+        }
+
+        Log.d(TAG, "Closed session " + session.owner);
+        post(new Runnable() {
+            @Override
+            public void run() {
+                session.release();
+                updateFocus();
+                if (resumed != null) {
+                    resumed.applyPlayState();
+                    resumed.notifyResumed();
+                }
+            }
+        });
+    }
+
+    private synchronized boolean isActive(Session session) {
+        return active == session && !session.closed;
+    }
+
+    /**
+     * Posted even on the main thread so clip callbacks never re-enter a session mid-update
+     */
+    private void post(Runnable runnable) {
+        mainHandler.post(runnable);
+    }
+
+    // ---- Focus and volume (main thread) ----
+
+    private void updateFocus() {
+        Session top;
+        synchronized (this) {
+            top = active;
+        }
+
+        if (top == null) {
+            abandonFocus();
+            restoreAlarmVolume();
+            mainHandler.postAtTime(new Runnable() {
+                @Override
+                public void run() {
+                    trimPool();
+                }
+            }, poolToken, SystemClock.uptimeMillis() + POOL_IDLE_RELEASE_MS);
+            return;
+        }
+
+        if (top.priority >= PRIORITY_ALARM) {
+            raiseAlarmVolume();
+        } else {
+            restoreAlarmVolume();
+        }
+
+        if (focusPriority != top.priority) {
+            abandonFocus();
+            requestFocus(top.priority);
+        }
+    }
+
+    private void requestFocus(int priority) {
+        if (audioManager == null) {
+            return;
+        }
+        boolean alarm = priority >= PRIORITY_ALARM;
+        int gain = alarm ? AudioManager.AUDIOFOCUS_GAIN_TRANSIENT : AudioManager.AUDIOFOCUS_GAIN;
+        int result;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            focusRequest = new AudioFocusRequest.Builder(gain)
+                    .setAudioAttributes(new AudioAttributes.Builder()
+                            .setUsage(alarm ? AudioAttributes.USAGE_ALARM : AudioAttributes.USAGE_MEDIA)
+                            .setContentType(alarm ? AudioAttributes.CONTENT_TYPE_SONIFICATION
+                                    : AudioAttributes.CONTENT_TYPE_MUSIC)
+                            .build())
+                    .setOnAudioFocusChangeListener(focusListener, mainHandler)
+                    .build();
+            result = audioManager.requestAudioFocus(focusRequest);
+        } else {
+            result = audioManager.requestAudioFocus(focusListener,
+                    alarm ? AudioManager.STREAM_ALARM : AudioManager.STREAM_MUSIC, gain);
+        }
+        focusPriority = priority;
+        focusLost = false;
+        ducked = false;
+        Log.d(TAG, "Audio focus requested for priority " + priority + ", result " + result);
+    }
+
+    private void abandonFocus() {
+        if (focusPriority == 0 || audioManager == null) {
+            return;
+        }
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            if (focusRequest != null) {
+                audioManager.abandonAudioFocusRequest(focusRequest);
+                focusRequest = null;
+            }
+        } else {
+            audioManager.abandonAudioFocus(focusListener);
+        }
+        focusPriority = 0;
+    }
+
+    private final AudioManager.OnAudioFocusChangeListener focusListener =
+            new AudioManager.OnAudioFocusChangeListener() {
+                @Override
+                public void onAudioFocusChange(int change) {
+                    // Alarms keep sounding through calls and other apps; only media yields
+                    focusLost = change == AudioManager.AUDIOFOCUS_LOSS
+                            || change == AudioManager.AUDIOFOCUS_LOSS_TRANSIENT;
+                    ducked = change == AudioManager.AUDIOFOCUS_LOSS_TRANSIENT_CAN_DUCK;
+                    Log.d(TAG, "Audio focus changed: " + change);
+                    Session top;
+                    synchronized (AudioEngine.this) {
+                        top = active;
+                    }
+                    if (top != null) {
+                        top.applyPlayState();
+                    }
+                }
+            };
+
+    private void raiseAlarmVolume() {
+        if (savedAlarmVolume >= 0 || audioManager == null) {
+            return;
+        }
+        try {
+            savedAlarmVolume = audioManager.getStreamVolume(AudioManager.STREAM_ALARM);
+            audioManager.setStreamVolume(AudioManager.STREAM_ALARM,
+                    audioManager.getStreamMaxVolume(AudioManager.STREAM_ALARM), 0);
+        } catch (SecurityException e) {
+            // Do Not Disturb can forbid volume changes
+            Log.w(TAG, "Could not raise alarm volume: " + e.getMessage());
+        }
+    }
+
+    private void restoreAlarmVolume() {
+        if (savedAlarmVolume < 0 || audioManager == null) {
+            return;
+        }
+        try {
+            audioManager.setStreamVolume(AudioManager.STREAM_ALARM, savedAlarmVolume, 0);
+        } catch (SecurityException e) {
+            Log.w(TAG, "Could not restore alarm volume: " + e.getMessage());
+        }
+        savedAlarmVolume = -1;
+    }
+
+    // ---- Player pool (main thread) ----
+
+    private MediaPlayer acquirePlayer() {
+        MediaPlayer player = idlePlayers.poll();
+        return player != null ? player : new MediaPlayer();
+    }
+
+    private void recyclePlayer(MediaPlayer player) {
+        player.setOnPreparedListener(null);
+        player.setOnCompletionListener(null);
+        player.setOnErrorListener(null);
+        try {
+            player.reset();
+        } catch (IllegalStateException e) {
+            player.release();
+            return;
+        }
+        if (idlePlayers.size() < POOL_SIZE) {
+            idlePlayers.add(player);
+        } else {
+            player.release();
+        }
+    }
+
+    private void trimPool() {
+        MediaPlayer player;
+        while ((player = idlePlayers.poll()) != null) {
+            player.release();
+        }
+        Log.d(TAG, "Released idle players");
+    }
+
+    private static AudioAttributes attributesFor(int priority, Clip clip) {
+        if (priority >= PRIORITY_ALARM) {
+            return new AudioAttributes.Builder()
+                    .setUsage(AudioAttributes.USAGE_ALARM)
+                    .setContentType(clip.looping ? AudioAttributes.CONTENT_TYPE_SONIFICATION
+                            : AudioAttributes.CONTENT_TYPE_SPEECH)
+                    .build();
+        }
+        return new AudioAttributes.Builder()
+                .setUsage(AudioAttributes.USAGE_MEDIA)
+                .setContentType(AudioAttributes.CONTENT_TYPE_MUSIC)
+                .build();
+    }
+
+    private static void invoke(Runnable callback) {
+        if (callback == null) {
+            return;
+        }
+        try {
+            callback.run();
+        } catch (Exception e) {
+            Log.e(TAG, "Clip callback failed", e);
+        }
+    }
+
+    /**
+     * A clip loaded into a pooled player
+     */
+    private static final class Slot {
+        final Clip clip;
+        final MediaPlayer player;
+        boolean prepared;
+        boolean due;
+        boolean chained;
+
+        Slot(Clip clip, MediaPlayer player) {
+            this.clip = clip;
+            this.player = player;
+        }
+    }
+
+    /**
+     * A queue of clips played on behalf of one owner
+     */
+    public final class Session {
+
+        final String owner;
+        final int priority;
+
+        // Guarded by the engine
+        private boolean closed;
+        private boolean interrupted;
+
+        // Main thread only
+        private final ArrayDeque<Clip> queue = new ArrayDeque<>();
+        private Slot current;
+        private Slot next;
+        private boolean closeWhenDone;
+        private boolean pausedByOwner;
+        private SessionListener listener;
+
+        private Session(String owner, int priority) {
+            this.owner = owner;
+            this.priority = priority;
+        }
+
+        public void enqueue(final Clip clip) {
+            post(new Runnable() {
+                @Override
+                public void run() {
+                    if (!isClosed()) {
+                        queue.add(clip);
+                        pump();
+                    }
+                }
+            });
+        }
+
+        /**
+         * Close the session once everything queued so far has played
+         */
+        public void closeWhenDone() {
+            post(new Runnable() {
+                @Override
+                public void run() {
+                    closeWhenDone = true;
+                    if (current == null && queue.isEmpty()) {
+                        close();
+                    }
+                }
+            });
+        }
+
+        public void close() {
+            closeSession(this);
+        }
+
+        public void pause() {
+            setPausedByOwner(true);
+        }
+
+        public void resume() {
+            setPausedByOwner(false);
+        }
+
+        public void setListener(final SessionListener listener) {
+            post(new Runnable() {
+                @Override
+                public void run() {
+                    Session.this.listener = listener;
+                }
+            });
+        }
+
+        public boolean isClosed() {
+            synchronized (AudioEngine.this) {
+                return closed;
+            }
+        }
+
+        private void setPausedByOwner(final boolean paused) {
+            post(new Runnable() {
+                @Override
+                public void run() {
+                    pausedByOwner = paused;
+                    applyPlayState();
+                }
+            });
+        }
+
+        private boolean canPlay() {
+            if (pausedByOwner || !isActive(this)) {
+                return false;
+            }
+            return priority >= PRIORITY_ALARM || !focusLost;
+        }
+
+        private void pump() {
+            if (isClosed()) {
+                return;
+            }
+            if (current == null) {
+                if (next != null) {
+                    current = next;
+                    next = null;
+                } else {
+                    current = loadNext();
+                }
+                if (current == null) {
+                    if (closeWhenDone) {
+                        close();
+                    }
+                    return;
+                }
+                scheduleStart(current);
+            }
+            if (next == null && !current.clip.looping) {
+                next = loadNext();
+            }
+            chainIfReady();
+        }
+
+        private Slot loadNext() {
+            Clip clip;
+            while ((clip = queue.poll()) != null) {
+                Slot slot = load(clip);
+                if (slot != null) {
+                    return slot;
+                }
+            }
+            return null;
+        }
+
+        private Slot load(Clip clip) {
+            while (clip != null) {
+                final MediaPlayer player = acquirePlayer();
+                final Slot slot = new Slot(clip, player);
+                try {
+                    player.setAudioAttributes(attributesFor(priority, clip));
+                    clip.source.bind(player, context);
+                    player.setLooping(clip.looping);
+                    applyVolume(slot);
+                    player.setOnPreparedListener(new MediaPlayer.OnPreparedListener() {
+                        @Override
+                        public void onPrepared(MediaPlayer mp) {
+                            onSlotPrepared(slot);
+                        }
+                    });
+                    player.setOnCompletionListener(new MediaPlayer.OnCompletionListener() {
+                        @Override
+                        public void onCompletion(MediaPlayer mp) {
+                            onSlotCompleted(slot);
+                        }
+                    });
+                    player.setOnErrorListener(new MediaPlayer.OnErrorListener() {
+                        @Override
+                        public boolean onError(MediaPlayer mp, int what, int extra) {
+                            Log.e(TAG, "Playback error " + what + "/" + extra + ": " + slot.clip.description);
+                            onSlotFailed(slot);
+                            return true;
+                        }
+                    });
+                    player.prepareAsync();
+                    return slot;
+                } catch (IOException | RuntimeException e) {
+                    Log.e(TAG, "Could not load " + clip.description + ": " + e.getMessage());
+                    recyclePlayer(player);
+                    clip.failed = true;
+                    Clip fallback = clip.fallback;
+                    invoke(clip.onFinished);
+                    clip = fallback;
+                }
+            }
+            return null;
+        }
+
+        private void scheduleStart(final Slot slot) {
+            if (slot.clip.pauseBeforeMs <= 0) {
+                slot.due = true;
+                startIfReady(slot);
+                return;
+            }
+            mainHandler.postAtTime(new Runnable() {
+                @Override
+                public void run() {
+                    slot.due = true;
+                    startIfReady(slot);
+                }
+            }, this, SystemClock.uptimeMillis() + slot.clip.pauseBeforeMs);
+        }
+
+        private void startIfReady(Slot slot) {
+            if (slot != current || !slot.prepared || !slot.due || slot.clip.started || !canPlay()) {
+                return;
+            }
+            slot.player.start();
+            markStarted(slot);
+            chainIfReady();
+        }
+
+        private void markStarted(Slot slot) {
+            slot.clip.started = true;
+            Log.d(TAG, "▶️ " + owner + ": " + slot.clip.description);
+            invoke(slot.clip.onStarted);
+        }
+
+        private void chainIfReady() {
+            if (current == null || next == null || !current.clip.started || !next.prepared
+                    || next.chained || next.clip.pauseBeforeMs > 0) {
+                return;
+            }
+            try {
+                current.player.setNextMediaPlayer(next.player);
+                next.chained = true;
+                next.due = true;
+            } catch (IllegalStateException | IllegalArgumentException e) {
+                Log.w(TAG, "Could not chain " + next.clip.description + ": " + e.getMessage());
+            }
+        }
+
+        private void onSlotPrepared(Slot slot) {
+            slot.prepared = true;
+            if (slot == current) {
+                startIfReady(slot);
+            } else {
+                chainIfReady();
+            }
+        }
+
+        private void onSlotCompleted(Slot slot) {
+            if (slot != current) {
+                return;
+            }
+            current = null;
+            if (next != null && next.chained) {
+                // Already started by the framework the moment this one ended
+                current = next;
+                next = null;
+                markStarted(current);
+            }
+            recyclePlayer(slot.player);
+            invoke(slot.clip.onFinished);
+            pump();
+        }
+
+        private void onSlotFailed(Slot slot) {
+            slot.clip.failed = true;
+            Clip fallback = slot.clip.started ? null : slot.clip.fallback;
+            if (slot == current) {
+                current = null;
+                if (next != null) {
+                    next.chained = false;
+                }
+                if (fallback != null) {
+                    current = load(fallback);
+                    if (current != null) {
+                        scheduleStart(current);
+                    }
+                }
+            } else if (slot == next) {
+                next = fallback != null ? load(fallback) : null;
+            } else {
+                return;
+            }
+            recyclePlayer(slot.player);
+            invoke(slot.clip.onFinished);
+            pump();
+        }
+
+        /**
+         * Start or pause the current clip to match the arbiter and the owner
+         */
+        private void applyPlayState() {
+            if (current == null) {
+                pump();
+                return;
+            }
+            if (canPlay()) {
+                applyVolume(current);
+                if (current.clip.started) {
+                    if (!current.player.isPlaying()) {
+                        current.player.start();
+                    }
+                } else {
+                    startIfReady(current);
+                }
+            } else if (current.clip.started && current.player.isPlaying()) {
+                current.player.pause();
+            }
+        }
+
+        private void applyVolume(Slot slot) {
+            float volume = slot.clip.volume;
+            if (ducked && priority < PRIORITY_ALARM) {
+                volume *= DUCK_VOLUME;
+            }
+            slot.player.setVolume(volume, volume);
+        }
+
+        private void notifySuspended() {
+            if (listener != null) {
+                listener.onSuspended();
+            }
+        }
+
+        private void notifyResumed() {
+            if (listener != null) {
+                listener.onResumed();
+            }
+        }
+
+        /**
+         * Stop and return the players; clips still queued are dropped
+         */
+        private void release() {
+            mainHandler.removeCallbacksAndMessages(this);
+            if (current != null) {
+                recyclePlayer(current.player);
+                current = null;
+            }
+            if (next != null) {
+                recyclePlayer(next.player);
+                next = null;
+            }
+            queue.clear();
+            boolean wasInterrupted;
+            synchronized (AudioEngine.this) {
+                wasInterrupted = interrupted;
+            }
+            if (wasInterrupted && listener != null) {
+                listener.onInterrupted();
+            }
+        }
+    }
+}
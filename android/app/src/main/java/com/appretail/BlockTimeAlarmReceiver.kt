@@ -73,11 +73,6 @@ class BlockTimeAlarmReceiver : BroadcastReceiver() {
                     }
                 }.start()
             }
-            Intent.ACTION_BOOT_COMPLETED,
-            Intent.ACTION_LOCKED_BOOT_COMPLETED,
-            "android.intent.action.QUICKBOOT_POWERON" -> {
-                handleBootCompleted(context)
-            }
             else -> {
                 Log.e(TAG, "⚠️ Unknown action: $action")
             }
@@ -313,16 +308,4 @@ class BlockTimeAlarmReceiver : BroadcastReceiver() {
             Log.e(TAG, "❌ Notification failed: ${e.message}")
         }
     }
-
-    private fun handleBootCompleted(context: Context) {
-        try {
-            Log.d(TAG, "📱 Device rebooted - sending reschedule broadcast")
-            
-            val rescheduleIntent = Intent("com.wingsfly.RESCHEDULE_BLOCK_TIME_ALARMS")
-            context.sendBroadcast(rescheduleIntent)
-            
-        } catch (e: Exception) {
-            Log.e(TAG, "❌ Boot handler error: ${e.message}", e)
-        }
-    }
 }
\ No newline at end of file
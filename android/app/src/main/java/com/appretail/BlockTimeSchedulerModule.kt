@@ -9,15 +9,217 @@ import android.provider.Settings
 import android.util.Log
 import com.facebook.react.bridge.*
 import com.facebook.react.modules.core.DeviceEventManagerModule
-import org.json.JSONObject
 import java.util.*
+import java.util.concurrent.Executors
 
 class BlockTimeSchedulerModule(reactContext: ReactApplicationContext) : ReactContextBaseJavaModule(reactContext) {
 
+    /**
+     * One alarm of scheduleBlockTimeAlarms, with the arguments of scheduleBlockTimeAlarm
+     */
+    data class BatchItem(
+        val taskId: String,
+        val taskTitle: String,
+        val taskDescription: String,
+        val evaluationType: String,
+        val startTime: String,
+        val category: String,
+        val source: String,
+        val taskDataJson: String,
+        val dateString: String
+    )
+
+    data class BatchResult(
+        val taskId: String,
+        val dateString: String,
+        val success: Boolean,
+        val requestCode: Int = 0,
+        val triggerTime: Long = 0,
+        val error: String? = null
+    )
+
     companion object {
         private const val TAG = "BlockTimeSchedulerModule"
         const val ACTION_BLOCK_TIME_ALARM = "com.wingsfly.BLOCK_TIME_ALARM"
         private const val BASE_REQUEST_CODE = 9000
+
+        // Batches run one at a time, so a cancel never interleaves with the schedule before it
+        private val batchExecutor = Executors.newSingleThreadExecutor()
+
+        /**
+         * Validate and queue a batch of alarms in one registry transaction with a single
+         * re-arm of the multiplexer. Items that fail validation are reported and skipped.
+         */
+        @JvmStatic
+        fun scheduleBatch(context: Context, items: List<BatchItem>): List<BatchResult> {
+            val now = System.currentTimeMillis()
+            val registry = AlarmRegistry.getInstance(context)
+            val results = ArrayList<BatchResult>(items.size)
+
+            registry.runInTransaction {
+                for (item in items) {
+                    val triggerTime = parseDateTime(item.dateString, item.startTime)
+                    results.add(when {
+                        item.taskId.isEmpty() -> BatchResult(item.taskId, item.dateString, false, error = "INVALID_DATA")
+                        triggerTime == null -> BatchResult(item.taskId, item.dateString, false, error = "INVALID_TIME")
+                        triggerTime <= now -> BatchResult(item.taskId, item.dateString, false, error = "TIME_IN_PAST")
+                        else -> {
+                            val requestCode = registry.register(
+                                AlarmRegistry.TYPE_BLOCK_TIME,
+                                alarmIdOf(item.taskId, item.dateString),
+                                triggerTime,
+                                null,
+                                item.taskId,
+                                alarmIntent(context, item),
+                                generateRequestCode(item.taskId, item.dateString)
+                            )
+                            BatchResult(item.taskId, item.dateString, true, requestCode, triggerTime)
+                        }
+                    })
+                }
+            }
+            AlarmMultiplexer.rearm(context)
+            return results
+        }
+
+        /**
+         * Validate and queue one alarm; the work behind scheduleBlockTimeAlarm once the
+         * permission check has passed
+         */
+        @JvmStatic
+        fun scheduleOne(context: Context, item: BatchItem): BatchResult {
+            val triggerTime = parseDateTime(item.dateString, item.startTime)
+                ?: return BatchResult(item.taskId, item.dateString, false, error = "INVALID_TIME")
+            if (triggerTime <= System.currentTimeMillis()) {
+                return BatchResult(item.taskId, item.dateString, false, triggerTime = triggerTime, error = "TIME_IN_PAST")
+            }
+
+            // Queued with the other block time alarms; AlarmMultiplexer sets one wakeup for all of them
+            val requestCode = AlarmMultiplexer.schedule(
+                context,
+                AlarmRegistry.TYPE_BLOCK_TIME,
+                alarmIdOf(item.taskId, item.dateString),
+                triggerTime,
+                null,
+                item.taskId,
+                alarmIntent(context, item),
+                generateRequestCode(item.taskId, item.dateString)
+            )
+            return BatchResult(item.taskId, item.dateString, true, requestCode, triggerTime)
+        }
+
+        /**
+         * Cancel a batch of alarms by task and date, with a single re-arm of the multiplexer.
+         * An alarm that was not scheduled is reported with success false.
+         */
+        @JvmStatic
+        fun cancelBatch(context: Context, alarms: List<Pair<String, String>>): List<BatchResult> {
+            val registry = AlarmRegistry.getInstance(context)
+            val results = ArrayList<BatchResult>(alarms.size)
+
+            registry.runInTransaction {
+                for ((taskId, dateString) in alarms) {
+                    val requestCode = registry.remove(AlarmRegistry.TYPE_BLOCK_TIME, alarmIdOf(taskId, dateString), -1)
+                    results.add(BatchResult(taskId, dateString, requestCode != -1, maxOf(requestCode, 0)))
+                }
+            }
+
+            // Alarms set directly by older versions still hold a PendingIntent under the hashed code
+            val alarmManager = context.getSystemService(Context.ALARM_SERVICE) as AlarmManager
+            val intent = Intent(context, BlockTimeAlarmReceiver::class.java).apply {
+                action = ACTION_BLOCK_TIME_ALARM
+            }
+            for ((taskId, dateString) in alarms) {
+                PendingIntent.getBroadcast(
+                    context,
+                    generateRequestCode(taskId, dateString),
+                    intent,
+                    PendingIntent.FLAG_NO_CREATE or PendingIntent.FLAG_IMMUTABLE
+                )?.let {
+                    alarmManager.cancel(it)
+                    it.cancel()
+                }
+            }
+            AlarmMultiplexer.rearm(context)
+            return results
+        }
+
+        private fun alarmIntent(context: Context, item: BatchItem): Intent {
+            return Intent(context, BlockTimeAlarmReceiver::class.java).apply {
+                action = ACTION_BLOCK_TIME_ALARM
+                putExtra("task_id", item.taskId)
+                putExtra("task_title", item.taskTitle)
+                putExtra("task_description", item.taskDescription)
+                putExtra("evaluation_type", item.evaluationType)
+                putExtra("start_time", item.startTime)
+                putExtra("category", item.category)
+                putExtra("source", item.source)
+                putExtra("task_data", item.taskDataJson)
+                putExtra("date_string", item.dateString)
+            }
+        }
+
+        private fun parseDateTime(dateString: String, timeString: String): Long? {
+            try {
+                val dateParts = dateString.split("-")
+                if (dateParts.size != 3) return null
+
+                val year = dateParts[0].toInt()
+                val month = dateParts[1].toInt() - 1
+                val day = dateParts[2].toInt()
+
+                var hour: Int
+                var minute: Int
+
+                if (timeString.contains("AM") || timeString.contains("PM")) {
+                    val isPM = timeString.contains("PM")
+                    val cleanTime = timeString.replace("AM", "").replace("PM", "").trim()
+                    val timeParts = cleanTime.split(":")
+                
+                    hour = timeParts[0].toInt()
+                    minute = timeParts[1].toInt()
+
+                    if (isPM && hour != 12) {
+                        hour += 12
+                    } else if (!isPM && hour == 12) {
+                        hour = 0
+                    }
+                } else {
+                    val timeParts = timeString.split(":")
+                    hour = timeParts[0].toInt()
+                    minute = timeParts[1].toInt()
+                }
+
+                // Strict, so "25:99" or "2026-13-45" fail instead of rolling into another day
+                val calendar = Calendar.getInstance().apply {
+                    isLenient = false
+                    set(Calendar.YEAR, year)
+                    set(Calendar.MONTH, month)
+                    set(Calendar.DAY_OF_MONTH, day)
+                    set(Calendar.HOUR_OF_DAY, hour)
+                    set(Calendar.MINUTE, minute)
+                    set(Calendar.SECOND, 0)
+                    set(Calendar.MILLISECOND, 0)
+                }
+
+                return calendar.timeInMillis
+
+            } catch (e: Exception) {
+                Log.e(TAG, "Error parsing date/time: ${e.message}", e)
+                return null
+            }
+        }
+
+        private fun alarmIdOf(taskId: String, dateString: String): String {
+            return "$taskId-$dateString"
+        }
+
+        // Request code used before AlarmRegistry; only needed for alarms set by older versions
+        private fun generateRequestCode(taskId: String, dateString: String): Int {
+            val combined = "$taskId-$dateString"
+            val hash = combined.hashCode()
+            return BASE_REQUEST_CODE + (Math.abs(hash) % 90000)
+        }
     }
 
     override fun getName(): String {
@@ -50,34 +252,7 @@ class BlockTimeSchedulerModule(reactContext: ReactApplicationContext) : ReactCon
             Log.d(TAG, "Start Time: $startTime")
             Log.d(TAG, "Date: $dateString")
             Log.d(TAG, "Source: $source")
-
-            Log.d(TAG, "")
-            Log.d(TAG, "INCOMING TASK DATA JSON:")
-            Log.d(TAG, "   Length: ${taskDataJson.length} characters")
-            Log.d(TAG, "   Content: $taskDataJson")
-            Log.d(TAG, "")
-
-            try {
-                val taskDataObject = JSONObject(taskDataJson)
-                Log.d(TAG, "VERIFYING POMODORO SETTINGS IN JSON:")
-                Log.d(TAG, "   focus_duration: ${taskDataObject.optInt("focus_duration", -1)}")
-                Log.d(TAG, "   short_break_duration: ${taskDataObject.optInt("short_break_duration", -1)}")
-                Log.d(TAG, "   long_break_duration: ${taskDataObject.optInt("long_break_duration", -1)}")
-                Log.d(TAG, "   focus_sessions_per_round: ${taskDataObject.optInt("focus_sessions_per_round", -1)}")
-                Log.d(TAG, "   auto_start_short_breaks: ${taskDataObject.optBoolean("auto_start_short_breaks", false)}")
-                Log.d(TAG, "   auto_start_focus_sessions: ${taskDataObject.optBoolean("auto_start_focus_sessions", false)}")
-                Log.d(TAG, "   pomodoro_duration: ${taskDataObject.optInt("pomodoro_duration", -1)}")
-                
-                if (taskDataObject.has("duration_data")) {
-                    val durationData = taskDataObject.getJSONObject("duration_data")
-                    Log.d(TAG, "   duration_data.totalMinutes: ${durationData.optInt("totalMinutes", -1)}")
-                    Log.d(TAG, "   duration_data.hours: ${durationData.optInt("hours", -1)}")
-                    Log.d(TAG, "   duration_data.minutes: ${durationData.optInt("minutes", -1)}")
-                }
-                Log.d(TAG, "")
-            } catch (e: Exception) {
-                Log.e(TAG, "Could not parse task data JSON for verification: ${e.message}")
-            }
+            Log.d(TAG, "Task data: ${taskDataJson.length} chars")
 
             if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) {
                 if (!alarmManager.canScheduleExactAlarms()) {
@@ -87,35 +262,26 @@ class BlockTimeSchedulerModule(reactContext: ReactApplicationContext) : ReactCon
                 }
             }
 
-            val triggerTimeMillis = parseDateTime(dateString, startTime)
-            if (triggerTimeMillis == null) {
-                Log.e(TAG, "Failed to parse date/time")
-                promise.reject("INVALID_TIME", "Invalid date or time format")
-                return
-            }
-
+            val scheduled = scheduleOne(
+                context,
+                BatchItem(taskId, taskTitle, taskDescription, evaluationType, startTime, category, source,
+                    taskDataJson, dateString)
+            )
             val now = System.currentTimeMillis()
-            if (triggerTimeMillis <= now) {
-                Log.e(TAG, "Time is in the past: $triggerTimeMillis vs now: $now")
-                promise.reject("TIME_IN_PAST", "Alarm time is in the past")
-                return
-            }
-
-            val requestCode = generateRequestCode(taskId, dateString)
-
-            val intent = Intent(context, BlockTimeAlarmReceiver::class.java).apply {
-                action = ACTION_BLOCK_TIME_ALARM
-                putExtra("task_id", taskId)
-                putExtra("task_title", taskTitle)
-                putExtra("task_description", taskDescription)
-                putExtra("evaluation_type", evaluationType)
-                putExtra("start_time", startTime)
-                putExtra("category", category)
-                putExtra("source", source)
-                putExtra("task_data", taskDataJson)
-                putExtra("date_string", dateString)
-                putExtra("request_code", requestCode)
+            val triggerTimeMillis = scheduled.triggerTime
+            when (scheduled.error) {
+                "INVALID_TIME" -> {
+                    Log.e(TAG, "Failed to parse date/time")
+                    promise.reject("INVALID_TIME", "Invalid date or time format")
+                    return
+                }
+                "TIME_IN_PAST" -> {
+                    Log.e(TAG, "Time is in the past: $triggerTimeMillis vs now: $now")
+                    promise.reject("TIME_IN_PAST", "Alarm time is in the past")
+                    return
+                }
             }
+            val requestCode = scheduled.requestCode
 
             Log.d(TAG, "")
             Log.d(TAG, "INTENT EXTRAS BEING SET:")
@@ -126,86 +292,23 @@ class BlockTimeSchedulerModule(reactContext: ReactApplicationContext) : ReactCon
             Log.d(TAG, "   task_data contains complete Pomodoro settings")
             Log.d(TAG, "")
 
-            val pendingIntent = PendingIntent.getBroadcast(
-                context,
-                requestCode,
-                intent,
-                PendingIntent.FLAG_UPDATE_CURRENT or
-                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
-                    PendingIntent.FLAG_IMMUTABLE
-                } else {
-                    0
-                }
-            )
-
-            try {
-                // ✅ CRITICAL FIX: Use setAlarmClock() for MOST ACCURATE delivery
-                // This ensures exact triggering even in Doze mode and shows alarm icon in status bar
-                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
-                    // Create an intent to show when user taps alarm icon (optional)
-                    val showIntent = Intent(context, MainActivity::class.java).apply {
-                        addFlags(Intent.FLAG_ACTIVITY_NEW_TASK)
-                    }
-                    val showPendingIntent = PendingIntent.getActivity(
-                        context,
-                        requestCode + 100000, // Different code to avoid conflicts
-                        showIntent,
-                        PendingIntent.FLAG_UPDATE_CURRENT or
-                        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
-                            PendingIntent.FLAG_IMMUTABLE
-                        } else {
-                            0
-                        }
-                    )
-                    
-                    val alarmClockInfo = AlarmManager.AlarmClockInfo(
-                        triggerTimeMillis,
-                        showPendingIntent // Shows when user taps alarm icon in status bar
-                    )
-                    
-                    alarmManager.setAlarmClock(alarmClockInfo, pendingIntent)
-                    Log.d(TAG, "✅ Using setAlarmClock() - MOST ACCURATE (shows in system UI)")
-                    
-                } else if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
-                    // Fallback for API 23-20
-                    alarmManager.setExactAndAllowWhileIdle(
-                        AlarmManager.RTC_WAKEUP,
-                        triggerTimeMillis,
-                        pendingIntent
-                    )
-                    Log.d(TAG, "✅ Using setExactAndAllowWhileIdle() - API < 21")
-                } else {
-                    // Fallback for older versions
-                    alarmManager.setExact(
-                        AlarmManager.RTC_WAKEUP,
-                        triggerTimeMillis,
-                        pendingIntent
-                    )
-                    Log.d(TAG, "✅ Using setExact() - API < 23")
-                }
-
-                val scheduledDate = Date(triggerTimeMillis)
-                Log.d(TAG, "Alarm scheduled successfully!")
-                Log.d(TAG, "   Request Code: $requestCode")
-                Log.d(TAG, "   Trigger Time: $scheduledDate")
-                Log.d(TAG, "   Time until trigger: ${(triggerTimeMillis - now) / 1000 / 60} minutes")
-                Log.d(TAG, "   Method: setAlarmClock() - guaranteed accurate delivery")
-                Log.d(TAG, "========================================")
-
-                val result = Arguments.createMap().apply {
-                    putBoolean("success", true)
-                    putInt("requestCode", requestCode)
-                    putDouble("triggerTime", triggerTimeMillis.toDouble())
-                    putString("scheduledFor", scheduledDate.toString())
-                }
-
-                promise.resolve(result)
+            val scheduledDate = Date(triggerTimeMillis)
+            Log.d(TAG, "Alarm scheduled successfully!")
+            Log.d(TAG, "   Request Code: $requestCode")
+            Log.d(TAG, "   Trigger Time: $scheduledDate")
+            Log.d(TAG, "   Time until trigger: ${(triggerTimeMillis - now) / 1000 / 60} minutes")
+            Log.d(TAG, "   Method: AlarmMultiplexer wakeup")
+            Log.d(TAG, "========================================")
 
-            } catch (e: SecurityException) {
-                Log.e(TAG, "Security exception: ${e.message}")
-                promise.reject("SECURITY_ERROR", "Failed to schedule alarm: ${e.message}")
+            val result = Arguments.createMap().apply {
+                putBoolean("success", true)
+                putInt("requestCode", requestCode)
+                putDouble("triggerTime", triggerTimeMillis.toDouble())
+                putString("scheduledFor", scheduledDate.toString())
             }
 
+            promise.resolve(result)
+
         } catch (e: Exception) {
             Log.e(TAG, "Error scheduling alarm: ${e.message}", e)
             promise.reject("SCHEDULE_ERROR", "Failed to schedule alarm: ${e.message}")
@@ -221,7 +324,12 @@ class BlockTimeSchedulerModule(reactContext: ReactApplicationContext) : ReactCon
         try {
             val context = reactApplicationContext
             val alarmManager = context.getSystemService(Context.ALARM_SERVICE) as AlarmManager
-            val requestCode = generateRequestCode(taskId, dateString)
+            val requestCode = AlarmMultiplexer.cancel(
+                context,
+                AlarmRegistry.TYPE_BLOCK_TIME,
+                alarmIdOf(taskId, dateString),
+                generateRequestCode(taskId, dateString)
+            )
 
             Log.d(TAG, "Cancelling block time alarm")
             Log.d(TAG, "   Task ID: $taskId")
@@ -262,6 +370,90 @@ class BlockTimeSchedulerModule(reactContext: ReactApplicationContext) : ReactCon
         }
     }
 
+    /**
+     * Schedule a whole plan in one call. Each element has the arguments of
+     * scheduleBlockTimeAlarm (taskId, taskTitle, ..., dateString); resolves with one result
+     * per element, in order.
+     */
+    @ReactMethod
+    fun scheduleBlockTimeAlarms(alarms: ReadableArray, promise: Promise) {
+        val context = reactApplicationContext
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) {
+            val alarmManager = context.getSystemService(Context.ALARM_SERVICE) as AlarmManager
+            if (!alarmManager.canScheduleExactAlarms()) {
+                Log.e(TAG, "No permission for exact alarms")
+                promise.reject("PERMISSION_DENIED", "Exact alarm permission not granted")
+                return
+            }
+        }
+
+        val items = (0 until alarms.size()).map { index ->
+            val alarm = alarms.getMap(index)
+            BatchItem(
+                alarm.stringOrEmpty("taskId"),
+                alarm.stringOrEmpty("taskTitle"),
+                alarm.stringOrEmpty("taskDescription"),
+                alarm.stringOrEmpty("evaluationType"),
+                alarm.stringOrEmpty("startTime"),
+                alarm.stringOrEmpty("category"),
+                alarm.stringOrEmpty("source"),
+                alarm.stringOrEmpty("taskDataJson"),
+                alarm.stringOrEmpty("dateString")
+            )
+        }
+
+        batchExecutor.execute {
+            try {
+                val startedAt = System.currentTimeMillis()
+                val results = scheduleBatch(context, items)
+                val scheduled = results.count { it.success }
+                val durationMs = System.currentTimeMillis() - startedAt
+                Log.d(TAG, "Scheduled $scheduled/${results.size} block time alarms in ${durationMs}ms")
+
+                promise.resolve(Arguments.createMap().apply {
+                    putBoolean("success", true)
+                    putInt("scheduled", scheduled)
+                    putInt("failed", results.size - scheduled)
+                    putDouble("durationMs", durationMs.toDouble())
+                    putArray("results", toWritableArray(results))
+                })
+            } catch (e: Exception) {
+                Log.e(TAG, "Error scheduling alarms: ${e.message}", e)
+                promise.reject("SCHEDULE_ERROR", "Failed to schedule alarms: ${e.message}")
+            }
+        }
+    }
+
+    /**
+     * Cancel many alarms in one call. Each element is { taskId, dateString }; resolves with
+     * one result per element, in order.
+     */
+    @ReactMethod
+    fun cancelBlockTimeAlarms(alarms: ReadableArray, promise: Promise) {
+        val context = reactApplicationContext
+        val keys = (0 until alarms.size()).map { index ->
+            val alarm = alarms.getMap(index)
+            Pair(alarm.stringOrEmpty("taskId"), alarm.stringOrEmpty("dateString"))
+        }
+
+        batchExecutor.execute {
+            try {
+                val results = cancelBatch(context, keys)
+                val cancelled = results.count { it.success }
+                Log.d(TAG, "Cancelled $cancelled/${results.size} block time alarms")
+
+                promise.resolve(Arguments.createMap().apply {
+                    putBoolean("success", true)
+                    putInt("cancelledCount", cancelled)
+                    putArray("results", toWritableArray(results))
+                })
+            } catch (e: Exception) {
+                Log.e(TAG, "Error cancelling alarms: ${e.message}", e)
+                promise.reject("CANCEL_ERROR", "Failed to cancel alarms: ${e.message}")
+            }
+        }
+    }
+
     @ReactMethod
     fun cancelAllAlarmsForTask(
         taskId: String,
@@ -273,7 +465,11 @@ class BlockTimeSchedulerModule(reactContext: ReactApplicationContext) : ReactCon
 
             Log.d(TAG, "Cancelling all alarms for task: $taskId")
 
-            var cancelledCount = 0
+            var cancelledCount = AlarmRegistry.getInstance(context)
+                .cancelByPayloadRef(AlarmRegistry.TYPE_BLOCK_TIME, taskId)
+            AlarmMultiplexer.rearm(context)
+
+            // Alarms set before the registry only have their hashed codes
             val calendar = Calendar.getInstance()
 
             for (i in 0 until 30) {
@@ -410,61 +606,30 @@ class BlockTimeSchedulerModule(reactContext: ReactApplicationContext) : ReactCon
         }
     }
 
-    private fun parseDateTime(dateString: String, timeString: String): Long? {
-        try {
-            val dateParts = dateString.split("-")
-            if (dateParts.size != 3) return null
-
-            val year = dateParts[0].toInt()
-            val month = dateParts[1].toInt() - 1
-            val day = dateParts[2].toInt()
-
-            var hour: Int
-            var minute: Int
-
-            if (timeString.contains("AM") || timeString.contains("PM")) {
-                val isPM = timeString.contains("PM")
-                val cleanTime = timeString.replace("AM", "").replace("PM", "").trim()
-                val timeParts = cleanTime.split(":")
-                
-                hour = timeParts[0].toInt()
-                minute = timeParts[1].toInt()
-
-                if (isPM && hour != 12) {
-                    hour += 12
-                } else if (!isPM && hour == 12) {
-                    hour = 0
-                }
-            } else {
-                val timeParts = timeString.split(":")
-                hour = timeParts[0].toInt()
-                minute = timeParts[1].toInt()
-            }
+    private fun ReadableMap?.stringOrEmpty(key: String): String {
+        return if (this != null && hasKey(key) && !isNull(key)) getString(key) ?: "" else ""
+    }
 
-            val calendar = Calendar.getInstance().apply {
-                set(Calendar.YEAR, year)
-                set(Calendar.MONTH, month)
-                set(Calendar.DAY_OF_MONTH, day)
-                set(Calendar.HOUR_OF_DAY, hour)
-                set(Calendar.MINUTE, minute)
-                set(Calendar.SECOND, 0)
-                set(Calendar.MILLISECOND, 0)
+    private fun toWritableArray(results: List<BatchResult>): WritableArray {
+        return Arguments.createArray().apply {
+            for (result in results) {
+                pushMap(Arguments.createMap().apply {
+                    putString("taskId", result.taskId)
+                    putString("dateString", result.dateString)
+                    putBoolean("success", result.success)
+                    if (result.success) {
+                        putInt("requestCode", result.requestCode)
+                        if (result.triggerTime > 0) {
+                            putDouble("triggerTime", result.triggerTime.toDouble())
+                        }
+                    } else if (result.error != null) {
+                        putString("error", result.error)
+                    }
+                })
             }
-
-            return calendar.timeInMillis
-
-        } catch (e: Exception) {
-            Log.e(TAG, "Error parsing date/time: ${e.message}", e)
-            return null
         }
     }
 
-    private fun generateRequestCode(taskId: String, dateString: String): Int {
-        val combined = "$taskId-$dateString"
-        val hash = combined.hashCode()
-        return BASE_REQUEST_CODE + (Math.abs(hash) % 90000)
-    }
-
     private fun sendEvent(eventName: String, params: WritableMap?) {
         try {
             reactApplicationContext
@@ -7,35 +7,52 @@ import android.os.Build
 import android.util.Log
 
 class BootReceiver : BroadcastReceiver() {
-    
+
     companion object {
         private const val TAG = "BootReceiver"
     }
-    
+
     override fun onReceive(context: Context, intent: Intent) {
-        if (intent.action == Intent.ACTION_BOOT_COMPLETED) {
-            Log.d(TAG, "Device booted - starting services and scheduling reminders")
-            
-            // Start AppLockService
-            try {
-                val serviceIntent = Intent(context, AppLockService::class.java)
-                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
-                    context.startForegroundService(serviceIntent)
-                } else {
-                    context.startService(serviceIntent)
-                }
-                Log.d(TAG, "AppLockService started after boot")
-            } catch (e: Exception) {
-                Log.e(TAG, "Error starting AppLockService: ${e.message}", e)
+        when (intent.action) {
+            Intent.ACTION_BOOT_COMPLETED,
+            "android.intent.action.QUICKBOOT_POWERON",
+            Intent.ACTION_MY_PACKAGE_REPLACED -> {
+                Log.d(TAG, "${intent.action} - starting services and restoring alarms")
+
+                startAppLockService(context)
+
+                // Every alarm subsystem is restored from AlarmRegistry in one pass, off the main thread
+                val pendingResult = goAsync()
+                Thread {
+                    try {
+                        val result = AlarmRestorer.restoreAll(context)
+                        Log.d(TAG, "Restored ${result.restored} alarm(s) in ${result.durationMs}ms " +
+                            "(${result.expired} expired, ${result.failed} failed)")
+                    } catch (e: Exception) {
+                        Log.e(TAG, "Error restoring alarms: ${e.message}", e)
+                    } finally {
+                        pendingResult.finish()
+                    }
+                }.start()
             }
-            
-            // ✅ NEW: Schedule date reminders after boot
-            try {
-                DateReminderScheduler.scheduleDailyReminders(context)
-                Log.d(TAG, "Date reminders scheduled after boot")
-            } catch (e: Exception) {
-                Log.e(TAG, "Error scheduling date reminders: ${e.message}", e)
+            Intent.ACTION_LOCKED_BOOT_COMPLETED -> {
+                // AlarmRegistry lives in credential encrypted storage; alarms are restored on unlock
+                Log.d(TAG, "Locked boot - waiting for BOOT_COMPLETED to restore alarms")
+            }
+        }
+    }
+
+    private fun startAppLockService(context: Context) {
+        try {
+            val serviceIntent = Intent(context, AppLockService::class.java)
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+                context.startForegroundService(serviceIntent)
+            } else {
+                context.startService(serviceIntent)
             }
+            Log.d(TAG, "AppLockService started")
+        } catch (e: Exception) {
+            Log.e(TAG, "Error starting AppLockService: ${e.message}", e)
         }
     }
-}
\ No newline at end of file
+}
@@ -4,7 +4,6 @@ import android.app.AlarmManager
 import android.app.PendingIntent
 import android.content.Context
 import android.content.Intent
-import android.os.Build
 import android.util.Log
 import com.facebook.react.bridge.Promise
 import com.facebook.react.bridge.ReactApplicationContext
@@ -78,10 +77,8 @@ class ChallengeNativeScheduler(reactContext: ReactApplicationContext) :
             Log.d(TAG, "========================================")
             
             // Schedule both slots
-            val alarmManager = reactApplicationContext.getSystemService(Context.ALARM_SERVICE) as AlarmManager
-            
-            scheduleSlot(alarmManager, challengeId, challengeName, videoPath, category, slot1Time, slot1EndTime, 1)
-            scheduleSlot(alarmManager, challengeId, challengeName, videoPath, category, slot2Time, slot2EndTime, 2)
+            scheduleSlot(challengeId, challengeName, videoPath, category, slot1Time, slot1EndTime, 1)
+            scheduleSlot(challengeId, challengeName, videoPath, category, slot2Time, slot2EndTime, 2)
             
             promise.resolve(true)
             
@@ -95,7 +92,6 @@ class ChallengeNativeScheduler(reactContext: ReactApplicationContext) :
      * Schedule a single time slot with end time
      */
     private fun scheduleSlot(
-        alarmManager: AlarmManager,
         challengeId: String,
         challengeName: String,
         videoPath: String,
@@ -124,31 +120,18 @@ class ChallengeNativeScheduler(reactContext: ReactApplicationContext) :
                 putExtra("end_time", endTimeString) // Pass end time to receiver
             }
             
-            // Create unique request code
-            val requestCode = (challengeId + "_slot$slotNumber").hashCode()
-            
-            val pendingIntent = PendingIntent.getBroadcast(
+            // Queued with the other challenge slots; AlarmMultiplexer sets one wakeup for all of them
+            AlarmMultiplexer.schedule(
                 reactApplicationContext,
-                requestCode,
+                AlarmRegistry.TYPE_CHALLENGE,
+                slotIdOf(challengeId, slotNumber),
+                calendar.timeInMillis,
+                null,
+                challengeId,
                 intent,
-                PendingIntent.FLAG_UPDATE_CURRENT or PendingIntent.FLAG_IMMUTABLE
+                (challengeId + "_slot$slotNumber").hashCode()
             )
             
-            // Schedule exact alarm
-            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
-                alarmManager.setExactAndAllowWhileIdle(
-                    AlarmManager.RTC_WAKEUP,
-                    calendar.timeInMillis,
-                    pendingIntent
-                )
-            } else {
-                alarmManager.setExact(
-                    AlarmManager.RTC_WAKEUP,
-                    calendar.timeInMillis,
-                    pendingIntent
-                )
-            }
-            
             Log.d(TAG, "✅ Scheduled slot $slotNumber at ${calendar.time}, ends at $endTimeString")
             
         } catch (e: Exception) {
@@ -170,7 +153,12 @@ class ChallengeNativeScheduler(reactContext: ReactApplicationContext) :
                     action = "com.wingsfly.CHALLENGE_TRIGGER_$challengeId"
                 }
                 
-                val requestCode = (challengeId + "_slot$slotNumber").hashCode()
+                val requestCode = AlarmMultiplexer.cancel(
+                    reactApplicationContext,
+                    AlarmRegistry.TYPE_CHALLENGE,
+                    slotIdOf(challengeId, slotNumber),
+                    (challengeId + "_slot$slotNumber").hashCode()
+                )
                 
                 val pendingIntent = PendingIntent.getBroadcast(
                     reactApplicationContext,
@@ -192,6 +180,10 @@ class ChallengeNativeScheduler(reactContext: ReactApplicationContext) :
         }
     }
     
+    private fun slotIdOf(challengeId: String, slotNumber: Int): String {
+        return "${challengeId}_slot$slotNumber"
+    }
+    
     /**
      * Parse time string to Calendar
      * Format: "10:30 AM" or "2:45 PM"
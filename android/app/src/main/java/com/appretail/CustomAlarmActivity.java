@@ -7,9 +7,6 @@ import android.app.NotificationManager;
 import android.app.PendingIntent;
 import android.content.Context;
 import android.content.Intent;
-import android.media.AudioAttributes;
-import android.media.AudioManager;
-import android.media.MediaPlayer;
 import android.media.RingtoneManager;
 import android.net.Uri;
 import android.os.Build;
@@ -35,8 +32,7 @@ public class CustomAlarmActivity extends Activity {
     private static final int SNOOZE_MINUTES = 5;
     
     private Vibrator vibrator;
-    private MediaPlayer mediaPlayer;
-    private AudioManager audioManager;
+    private AudioEngine.Session alarmSound;
     private Handler timeHandler;
     private Runnable timeRunnable;
     private PowerManager.WakeLock wakeLock;
@@ -334,162 +330,56 @@ public class CustomAlarmActivity extends Activity {
         Log.d(TAG, "  - Tone type: " + toneType);
         Log.d(TAG, "  - Custom tone URI: " + (customToneUri != null ? customToneUri : "NULL"));
         
-        try {
-            audioManager = (AudioManager) getSystemService(Context.AUDIO_SERVICE);
-            
-            // Set alarm volume to maximum
-            if (audioManager != null) {
-                int maxVolume = audioManager.getStreamMaxVolume(AudioManager.STREAM_ALARM);
-                int currentVolume = audioManager.getStreamVolume(AudioManager.STREAM_ALARM);
-                audioManager.setStreamVolume(AudioManager.STREAM_ALARM, maxVolume, 0);
-                Log.d(TAG, "  - Alarm volume set to max: " + maxVolume + " (was: " + currentVolume + ")");
-            } else {
-                Log.w(TAG, "  - AudioManager is null");
-            }
-            
-            Uri alarmUri = null;
-            boolean useCustom = false;
-            
-            // Check if we should use custom tone
-            if ("custom".equals(toneType) && customToneUri != null && !customToneUri.isEmpty()) {
-                try {
-                    alarmUri = Uri.parse(customToneUri);
-                    useCustom = true;
-                    Log.d(TAG, "  - Will attempt to use custom tone: " + customToneUri);
-                } catch (Exception e) {
-                    Log.w(TAG, "  - Error parsing custom tone URI, falling back to default", e);
-                    alarmUri = null;
-                    useCustom = false;
-                }
-            }
-            
-            // Create MediaPlayer
-            mediaPlayer = new MediaPlayer();
-            Log.d(TAG, "  - MediaPlayer created");
-            
-            // Set audio attributes first
-            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
-                AudioAttributes attributes = new AudioAttributes.Builder()
-                    .setUsage(AudioAttributes.USAGE_ALARM)
-                    .setContentType(AudioAttributes.CONTENT_TYPE_SONIFICATION)
-                    .build();
-                mediaPlayer.setAudioAttributes(attributes);
-                Log.d(TAG, "  - Audio attributes set (USAGE_ALARM)");
-            } else {
-                mediaPlayer.setAudioStreamType(AudioManager.STREAM_ALARM);
-                Log.d(TAG, "  - Audio stream type set (STREAM_ALARM - legacy)");
-            }
-            
-            boolean customToneWorked = false;
-            
-            // Try custom tone first if specified
-            if (useCustom && alarmUri != null) {
-                try {
-                    Log.d(TAG, "  - Attempting to load custom tone...");
-                    mediaPlayer.setDataSource(this, alarmUri);
-                    mediaPlayer.setLooping(true);
-                    mediaPlayer.prepare();
-                    mediaPlayer.start();
-                    
-                    customToneWorked = true;
-                    Log.d(TAG, "  - SUCCESS: Custom tone is now playing!");
-                    
-                } catch (Exception e) {
-                    Log.w(TAG, "  - Custom tone failed to play, will use default", e);
-                    e.printStackTrace();
-                    
-                    // Reset MediaPlayer for fallback
-                    try {
-                        mediaPlayer.reset();
-                        Log.d(TAG, "  - MediaPlayer reset for fallback");
-                    } catch (Exception resetException) {
-                        Log.w(TAG, "  - Error resetting MediaPlayer, creating new instance", resetException);
-                        mediaPlayer = new MediaPlayer();
-                        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
-                            AudioAttributes attributes = new AudioAttributes.Builder()
-                                .setUsage(AudioAttributes.USAGE_ALARM)
-                                .setContentType(AudioAttributes.CONTENT_TYPE_SONIFICATION)
-                                .build();
-                            mediaPlayer.setAudioAttributes(attributes);
-                        } else {
-                            mediaPlayer.setAudioStreamType(AudioManager.STREAM_ALARM);
-                        }
-                    }
-                }
-            }
-            
-            // Use default tone if custom didn't work
-            if (!customToneWorked) {
-                Log.d(TAG, "  - Loading default alarm tone...");
-                
-                Uri defaultUri = RingtoneManager.getDefaultUri(RingtoneManager.TYPE_ALARM);
-                Log.d(TAG, "  - Default ALARM URI: " + (defaultUri != null ? defaultUri.toString() : "NULL"));
-                
-                if (defaultUri == null) {
-                    defaultUri = RingtoneManager.getDefaultUri(RingtoneManager.TYPE_NOTIFICATION);
-                    Log.d(TAG, "  - Fallback to NOTIFICATION URI: " + (defaultUri != null ? defaultUri.toString() : "NULL"));
-                }
-                if (defaultUri == null) {
-                    defaultUri = RingtoneManager.getDefaultUri(RingtoneManager.TYPE_RINGTONE);
-                    Log.d(TAG, "  - Fallback to RINGTONE URI: " + (defaultUri != null ? defaultUri.toString() : "NULL"));
-                }
-                
-                if (defaultUri != null) {
-                    try {
-                        mediaPlayer.setDataSource(this, defaultUri);
-                        mediaPlayer.setLooping(true);
-                        mediaPlayer.prepare();
-                        mediaPlayer.start();
-                        Log.d(TAG, "  - SUCCESS: Default alarm tone is now playing");
-                    } catch (Exception e) {
-                        Log.e(TAG, "  - Failed to start default alarm tone", e);
-                        e.printStackTrace();
-                        tryEmergencyFallbackSound();
-                    }
-                } else {
-                    Log.e(TAG, "  - No default alarm tones available!");
-                    tryEmergencyFallbackSound();
-                }
+        // The engine raises the alarm volume while the tone plays and restores it afterwards
+        AudioEngine.Clip tone = defaultToneClip();
+        
+        // Check if we should use custom tone
+        if ("custom".equals(toneType) && customToneUri != null && !customToneUri.isEmpty()) {
+            try {
+                tone = toneClip(Uri.parse(customToneUri), "Custom tone").fallback(tone);
+                Log.d(TAG, "  - Will attempt to use custom tone: " + customToneUri);
+            } catch (Exception e) {
+                Log.w(TAG, "  - Error parsing custom tone URI, falling back to default", e);
             }
-            
-        } catch (Exception e) {
-            Log.e(TAG, "  - CRITICAL error in startAlarmSound", e);
-            e.printStackTrace();
-            tryEmergencyFallbackSound();
         }
+        
+        if (tone == null) {
+            Log.e(TAG, "  - No alarm tones available!");
+            return;
+        }
+        
+        alarmSound = AudioEngine.getInstance(this).openSession(TAG, AudioEngine.PRIORITY_ALARM);
+        alarmSound.enqueue(tone);
     }
     
-    private void tryEmergencyFallbackSound() {
-        Log.w(TAG, "Attempting emergency fallback sound...");
-        
-        try {
-            Uri emergencyUri = RingtoneManager.getActualDefaultRingtoneUri(
-                this, RingtoneManager.TYPE_NOTIFICATION);
-            
-            if (emergencyUri == null) {
-                emergencyUri = android.provider.Settings.System.DEFAULT_NOTIFICATION_URI;
-            }
-            
-            Log.d(TAG, "  - Emergency URI: " + (emergencyUri != null ? emergencyUri.toString() : "NULL"));
-            
-            if (emergencyUri != null && mediaPlayer != null) {
-                try {
-                    mediaPlayer.reset();
-                    mediaPlayer.setDataSource(this, emergencyUri);
-                    mediaPlayer.setLooping(true);
-                    mediaPlayer.prepare();
-                    mediaPlayer.start();
-                    Log.d(TAG, "  - Emergency fallback sound started");
-                } catch (Exception e) {
-                    Log.e(TAG, "  - Emergency fallback sound failed", e);
-                }
-            } else {
-                Log.e(TAG, "  - No emergency fallback sound available");
+    /**
+     * Default alarm tone, falling back to the notification and ringtone sounds and finally
+     * the emergency notification sound if a tone fails to play
+     */
+    private AudioEngine.Clip defaultToneClip() {
+        Uri emergencyUri = RingtoneManager.getActualDefaultRingtoneUri(this, RingtoneManager.TYPE_NOTIFICATION);
+        if (emergencyUri == null) {
+            emergencyUri = android.provider.Settings.System.DEFAULT_NOTIFICATION_URI;
+        }
+        Log.d(TAG, "  - Emergency URI: " + (emergencyUri != null ? emergencyUri.toString() : "NULL"));
+        
+        AudioEngine.Clip chain = emergencyUri != null ? toneClip(emergencyUri, "Emergency fallback sound") : null;
+        int[] types = {RingtoneManager.TYPE_RINGTONE, RingtoneManager.TYPE_NOTIFICATION, RingtoneManager.TYPE_ALARM};
+        String[] names = {"RINGTONE", "NOTIFICATION", "ALARM"};
+        for (int i = 0; i < types.length; i++) {
+            Uri uri = RingtoneManager.getDefaultUri(types[i]);
+            Log.d(TAG, "  - Default " + names[i] + " URI: " + (uri != null ? uri.toString() : "NULL"));
+            if (uri != null) {
+                chain = toneClip(uri, "Default " + names[i].toLowerCase(Locale.US) + " tone").fallback(chain);
             }
-            
-        } catch (Exception e) {
-            Log.e(TAG, "  - Error in emergency fallback", e);
         }
+        return chain;
+    }
+    
+    private AudioEngine.Clip toneClip(Uri uri, final String description) {
+        return AudioEngine.Clip.uri(uri, description)
+            .looping(true)
+            .onStarted(() -> Log.d(TAG, "  - SUCCESS: " + description + " is now playing"));
     }
     
     private void startTimeUpdates() {
@@ -769,19 +659,11 @@ public class CustomAlarmActivity extends Activity {
             vibrator = null;
         }
         
-        // Stop media player
-        if (mediaPlayer != null) {
-            try {
-                if (mediaPlayer.isPlaying()) {
-                    mediaPlayer.stop();
-                    Log.d(TAG, "  - MediaPlayer stopped");
-                }
-                mediaPlayer.release();
-                mediaPlayer = null;
-                Log.d(TAG, "  - MediaPlayer released");
-            } catch (Exception e) {
-                Log.e(TAG, "  - Error stopping media player", e);
-            }
+        // Stop alarm sound
+        if (alarmSound != null) {
+            alarmSound.close();
+            alarmSound = null;
+            Log.d(TAG, "  - Alarm sound stopped");
         }
         
         // Stop time updates
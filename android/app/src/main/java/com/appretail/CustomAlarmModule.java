@@ -163,7 +163,9 @@ public class CustomAlarmModule extends ReactContextBaseJavaModule {
             alarmIntent.setAction("CUSTOM_ALARM_" + alarmId);
             
             Log.d(TAG, "Creating PendingIntent...");
-            int requestCode = Math.abs(alarmId.hashCode());
+            int requestCode = AlarmRegistry.getInstance(reactContext).register(AlarmRegistry.TYPE_CUSTOM,
+                alarmId, nextAlarmTime, days.isEmpty() ? null : AlarmRegistry.RECURRENCE_WEEKLY_PREFIX + days,
+                null, alarmIntent, Math.abs(alarmId.hashCode()));
             Log.d(TAG, "  - Request code: " + requestCode);
             
             PendingIntent pendingIntent = PendingIntent.getBroadcast(
@@ -217,6 +219,7 @@ public class CustomAlarmModule extends ReactContextBaseJavaModule {
             } catch (SecurityException e) {
                 Log.e(TAG, "SECURITY EXCEPTION scheduling alarm", e);
                 e.printStackTrace();
+                AlarmRegistry.getInstance(reactContext).remove(AlarmRegistry.TYPE_CUSTOM, alarmId, requestCode);
                 promise.reject("SECURITY_ERROR", "Permission required for exact alarms");
             } catch (Exception e) {
                 Log.e(TAG, "EXCEPTION scheduling alarm", e);
@@ -253,7 +256,8 @@ public class CustomAlarmModule extends ReactContextBaseJavaModule {
             Intent alarmIntent = new Intent(reactContext, CustomAlarmReceiver.class);
             alarmIntent.setAction("CUSTOM_ALARM_" + alarmId);
             
-            int requestCode = Math.abs(alarmId.hashCode());
+            int requestCode = AlarmRegistry.getInstance(reactContext).remove(AlarmRegistry.TYPE_CUSTOM,
+                alarmId, Math.abs(alarmId.hashCode()));
             Log.d(TAG, "  - Request code: " + requestCode);
             
             PendingIntent pendingIntent = PendingIntent.getBroadcast(
@@ -335,7 +335,9 @@ private void showFullScreenNotification(Context context, Intent fullScreenIntent
                     
                     nextAlarmIntent.setAction("CUSTOM_ALARM_" + alarmId);
                     
-                    int requestCode = Math.abs(alarmId.hashCode());
+                    int requestCode = AlarmRegistry.getInstance(context).register(AlarmRegistry.TYPE_CUSTOM,
+                        alarmId, nextAlarmTime, AlarmRegistry.RECURRENCE_WEEKLY_PREFIX + days, null,
+                        nextAlarmIntent, Math.abs(alarmId.hashCode()));
                     android.app.PendingIntent pendingIntent = android.app.PendingIntent.getBroadcast(
                         context,
                         requestCode,
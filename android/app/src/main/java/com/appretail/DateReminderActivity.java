@@ -15,9 +15,7 @@ import android.view.WindowManager;
 import android.widget.ImageView;
 import android.widget.TextView;
 
-import java.io.InputStream;
-import java.net.HttpURLConnection;
-import java.net.URL;
+import java.io.File;
 import java.text.SimpleDateFormat;
 import java.util.Calendar;
 import java.util.Date;
@@ -142,15 +140,13 @@ public class DateReminderActivity extends Activity {
                 Log.d(TAG, "Image URL: " + imageUrl);
                 
                 if (imageUrl != null && !imageUrl.isEmpty()) {
-                    // Download image from URL
-                    URL url = new URL(imageUrl);
-                    HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-                    connection.setDoInput(true);
-                    connection.connect();
-                    
-                    InputStream inputStream = connection.getInputStream();
-                    Bitmap bitmap = BitmapFactory.decodeStream(inputStream);
-                    inputStream.close();
+                    // Prefetched when the reminder was scheduled; downloaded now only if missing
+                    File imageFile = AlarmContentPrefetcher.getOrDownloadMedia(
+                            this, AlarmContentPrefetcher.MEDIA_REMINDER, imageUrl);
+                    Bitmap bitmap = imageFile != null ? BitmapFactory.decodeFile(imageFile.getAbsolutePath()) : null;
+                    if (bitmap == null) {
+                        throw new IllegalStateException("Image not available: " + imageUrl);
+                    }
                     
                     // Update UI on main thread
                     runOnUiThread(() -> {
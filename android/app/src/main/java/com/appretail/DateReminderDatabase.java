@@ -1,23 +1,16 @@
 package com.wingsfly;
 
+import android.content.Context;
+import android.util.JsonReader;
 import android.util.Log;
 
-import org.json.JSONArray;
-import org.json.JSONObject;
-
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
-import java.net.HttpURLConnection;
-import java.net.URL;
+import java.io.IOException;
+import java.util.List;
 
 public class DateReminderDatabase {
     
     private static final String TAG = "DateReminderDB";
     
-    // ✅ Supabase credentials from BuildConfig
-    private static final String SUPABASE_URL = BuildConfig.SUPABASE_URL;
-    private static final String SUPABASE_API_KEY = BuildConfig.SUPABASE_ANON_KEY;
-    
     public static class Settings {
         public boolean autoClose;
         public String morningTime; // Format: "HH:mm"
@@ -46,6 +39,54 @@ public class DateReminderDatabase {
         }
     }
     
+    private static final String TABLE = "date_reminder_settings";
+    
+    static final SupabaseRestClient.RowMapper<Settings> SETTINGS_MAPPER = DateReminderDatabase::readSettings;
+    
+    /**
+     * Decode one date_reminder_settings row straight from the response stream
+     */
+    static Settings readSettings(JsonReader reader) throws IOException {
+        Boolean autoClose = null;
+        String morningTime = null;
+        String eveningTime = null;
+        String morningImageUrl = null;
+        String eveningImageUrl = null;
+        
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "auto_close_after_30s":
+                    autoClose = SupabaseRestClient.nextBooleanOrDefault(reader, false);
+                    break;
+                case "morning_time": morningTime = SupabaseRestClient.nextStringOrNull(reader); break;
+                case "evening_time": eveningTime = SupabaseRestClient.nextStringOrNull(reader); break;
+                case "morning_image_url": morningImageUrl = SupabaseRestClient.nextStringOrNull(reader); break;
+                case "evening_image_url": eveningImageUrl = SupabaseRestClient.nextStringOrNull(reader); break;
+                default: reader.skipValue();
+            }
+        }
+        reader.endObject();
+        
+        if (autoClose == null) {
+            throw new IOException("Missing required column: auto_close_after_30s");
+        }
+        return new Settings(
+                autoClose,
+                toHourMinute(SupabaseRestClient.requireField(morningTime, "morning_time")),
+                toHourMinute(SupabaseRestClient.requireField(eveningTime, "evening_time")),
+                morningImageUrl,
+                eveningImageUrl);
+    }
+    
+    // HH:mm:ss -> HH:mm
+    private static String toHourMinute(String time) throws IOException {
+        if (time.length() < 5) {
+            throw new IOException("Invalid time value: " + time);
+        }
+        return time.substring(0, 5);
+    }
+    
     /**
      * Fetch date reminder settings from Supabase
      * Returns the most recent settings entry
@@ -57,81 +98,20 @@ public class DateReminderDatabase {
             Log.d(TAG, "========================================");
             Log.d(TAG, "Fetching date reminder settings from Supabase...");
             
-            // Build URL - get the most recent settings
-            String urlString = SUPABASE_URL + "/rest/v1/date_reminder_settings" +
-                    "?select=*" +
-                    "&order=created_at.desc" +
-                    "&limit=1";
-            
-            URL url = new URL(urlString);
-            HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-            
-            // Set headers
-            connection.setRequestMethod("GET");
-            connection.setRequestProperty("apikey", SUPABASE_API_KEY);
-            connection.setRequestProperty("Authorization", "Bearer " + SUPABASE_API_KEY);
-            connection.setRequestProperty("Content-Type", "application/json");
-            connection.setConnectTimeout(10000);
-            connection.setReadTimeout(10000);
+            // Get the most recent settings
+            settings = SupabaseRestClient.getInstance().selectFirst(latestQuery(), SETTINGS_MAPPER);
             
-            int responseCode = connection.getResponseCode();
-            Log.d(TAG, "Response code: " + responseCode);
-            
-            if (responseCode == HttpURLConnection.HTTP_OK) {
-                BufferedReader reader = new BufferedReader(
-                        new InputStreamReader(connection.getInputStream()));
-                StringBuilder response = new StringBuilder();
-                String line;
-                
-                while ((line = reader.readLine()) != null) {
-                    response.append(line);
-                }
-                reader.close();
-                
-                // Parse JSON response
-                JSONArray jsonArray = new JSONArray(response.toString());
-                
-                if (jsonArray.length() > 0) {
-                    JSONObject settingsObj = jsonArray.getJSONObject(0);
-                    
-                    boolean autoClose = settingsObj.getBoolean("auto_close_after_30s");
-                    String morningTime = settingsObj.getString("morning_time").substring(0, 5); // HH:mm:ss -> HH:mm
-                    String eveningTime = settingsObj.getString("evening_time").substring(0, 5);
-                    String morningImageUrl = settingsObj.optString("morning_image_url", null);
-                    String eveningImageUrl = settingsObj.optString("evening_image_url", null);
-                    
-                    settings = new Settings(autoClose, morningTime, eveningTime, 
-                                          morningImageUrl, eveningImageUrl);
-                    
-                    Log.d(TAG, "✅ Settings fetched successfully:");
-                    Log.d(TAG, "  Auto Close: " + autoClose);
-                    Log.d(TAG, "  Morning: " + morningTime);
-                    Log.d(TAG, "  Evening: " + eveningTime);
-                    Log.d(TAG, "  Morning Image: " + (morningImageUrl != null ? "Yes" : "No"));
-                    Log.d(TAG, "  Evening Image: " + (eveningImageUrl != null ? "Yes" : "No"));
-                    
-                } else {
-                    Log.w(TAG, "⚠️ No settings found in database");
-                }
-                
+            if (settings != null) {
+                Log.d(TAG, "✅ Settings fetched successfully:");
+                Log.d(TAG, "  Auto Close: " + settings.autoClose);
+                Log.d(TAG, "  Morning: " + settings.morningTime);
+                Log.d(TAG, "  Evening: " + settings.eveningTime);
+                Log.d(TAG, "  Morning Image: " + (settings.morningImageUrl != null ? "Yes" : "No"));
+                Log.d(TAG, "  Evening Image: " + (settings.eveningImageUrl != null ? "Yes" : "No"));
             } else {
-                Log.e(TAG, "❌ Error response code: " + responseCode);
-                
-                BufferedReader errorReader = new BufferedReader(
-                        new InputStreamReader(connection.getErrorStream()));
-                StringBuilder errorResponse = new StringBuilder();
-                String line;
-                
-                while ((line = errorReader.readLine()) != null) {
-                    errorResponse.append(line);
-                }
-                errorReader.close();
-                
-                Log.e(TAG, "Error response: " + errorResponse.toString());
+                Log.w(TAG, "⚠️ No settings found in database");
             }
             
-            connection.disconnect();
-            
         } catch (Exception e) {
             Log.e(TAG, "❌ Exception fetching settings: " + e.getMessage(), e);
         }
@@ -141,30 +121,33 @@ public class DateReminderDatabase {
     }
     
     /**
-     * Test connection to Supabase
+     * Cached variant: returns the stored settings immediately and revalidates in the
+     * background once they are older than the table TTL. forceRefresh goes to the
+     * network first and falls back to the cached copy.
      */
-    public static boolean testConnection() {
+    public static Settings fetchSettings(Context context, boolean forceRefresh) {
         try {
-            String urlString = SUPABASE_URL + "/rest/v1/";
-            URL url = new URL(urlString);
-            HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-            
-            connection.setRequestMethod("GET");
-            connection.setRequestProperty("apikey", SUPABASE_API_KEY);
-            connection.setConnectTimeout(5000);
-            connection.setReadTimeout(5000);
-            
-            int responseCode = connection.getResponseCode();
-            connection.disconnect();
-            
-            boolean isConnected = (responseCode == HttpURLConnection.HTTP_OK);
-            Log.d(TAG, "Connection test: " + (isConnected ? "✅ Success" : "❌ Failed"));
-            
-            return isConnected;
-            
+            List<Settings> rows = SupabaseResponseCache.getRows(context, latestQuery(), SETTINGS_MAPPER, forceRefresh);
+            return rows.isEmpty() ? null : rows.get(0);
         } catch (Exception e) {
-            Log.e(TAG, "Connection test failed", e);
-            return false;
+            Log.e(TAG, "❌ Exception fetching cached settings: " + e.getMessage(), e);
+            return null;
         }
     }
-}
\ No newline at end of file
+    
+    private static SupabaseRestClient.Query latestQuery() {
+        return new SupabaseRestClient.Query(TABLE)
+                .select("*")
+                .order("created_at", false)
+                .limit(1);
+    }
+    
+    /**
+     * Test connection to Supabase
+     */
+    public static boolean testConnection() {
+        boolean isConnected = SupabaseRestClient.getInstance().ping();
+        Log.d(TAG, "Connection test: " + (isConnected ? "✅ Success" : "❌ Failed"));
+        return isConnected;
+    }
+}
@@ -206,7 +206,7 @@ public class DateReminderModule extends ReactContextBaseJavaModule {
     private boolean syncAndScheduleFromDatabase() {
         try {
             // Fetch settings from Supabase database
-            DateReminderDatabase.Settings settings = DateReminderDatabase.fetchSettings();
+            DateReminderDatabase.Settings settings = DateReminderDatabase.fetchSettings(reactContext, true);
             
             if (settings == null) {
                 Log.e(TAG, "❌ No settings found in database");
@@ -1,12 +1,9 @@
 package com.wingsfly;
 
-import android.app.AlarmManager;
-import android.app.PendingIntent;
 import android.content.BroadcastReceiver;
 import android.content.Context;
 import android.content.Intent;
 import android.content.SharedPreferences;
-import android.os.Build;
 import android.util.Log;
 
 import java.util.Calendar;
@@ -96,36 +93,15 @@ public class DateReminderReceiver extends BroadcastReceiver {
             calendar.set(Calendar.SECOND, 0);
             calendar.set(Calendar.MILLISECOND, 0);
             
-            AlarmManager alarmManager = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
-            if (alarmManager == null) {
-                Log.e(TAG, "❌ AlarmManager not available for rescheduling");
-                return;
-            }
-            
             Intent rescheduleIntent = new Intent(context, DateReminderReceiver.class);
             rescheduleIntent.setAction("DATE_REMINDER_" + requestCode);
             rescheduleIntent.putExtra("requestCode", requestCode);
             
-            PendingIntent pendingIntent = PendingIntent.getBroadcast(
-                context,
-                requestCode,
-                rescheduleIntent,
-                PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
-            );
-            
             long triggerTime = calendar.getTimeInMillis();
             
-            // CRITICAL: Use setExactAndAllowWhileIdle for rescheduling too
-            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
-                alarmManager.setExactAndAllowWhileIdle(AlarmManager.RTC_WAKEUP, triggerTime, pendingIntent);
-                Log.d(TAG, "✅ Rescheduled with setExactAndAllowWhileIdle - Works even when locked");
-            } else if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
-                alarmManager.setExact(AlarmManager.RTC_WAKEUP, triggerTime, pendingIntent);
-                Log.d(TAG, "✅ Rescheduled with setExact");
-            } else {
-                alarmManager.set(AlarmManager.RTC_WAKEUP, triggerTime, pendingIntent);
-                Log.d(TAG, "✅ Rescheduled with set");
-            }
+            // AlarmMultiplexer already moved the reminder to tomorrow; this keeps it when the
+            // reminder was broadcast some other way
+            DateReminderScheduler.register(context, requestCode, triggerTime, rescheduleIntent);
             
             Log.d(TAG, "✅ Rescheduled for tomorrow at " + hour + ":" + String.format("%02d", minute));
             
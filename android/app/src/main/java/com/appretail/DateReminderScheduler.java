@@ -5,7 +5,6 @@ import android.app.PendingIntent;
 import android.content.Context;
 import android.content.Intent;
 import android.content.SharedPreferences;
-import android.os.Build;
 import android.util.Log;
 
 import java.text.SimpleDateFormat;
@@ -37,8 +36,8 @@ public class DateReminderScheduler {
             Log.d(TAG, "========================================");
             Log.d(TAG, "Reminders enabled - syncing from database...");
             
-            // Fetch fresh settings from database
-            DateReminderDatabase.Settings settings = DateReminderDatabase.fetchSettings();
+            // Cached settings, revalidated in the background when older than the TTL
+            DateReminderDatabase.Settings settings = DateReminderDatabase.fetchSettings(context, false);
             
             if (settings == null) {
                 Log.w(TAG, "⚠️ No settings in database - using cached values");
@@ -48,14 +47,7 @@ public class DateReminderScheduler {
                 Log.d(TAG, "✅ Settings fetched from database");
                 
                 // Update SharedPreferences with fresh data
-                SharedPreferences.Editor editor = prefs.edit();
-                editor.putString("morning_time", settings.morningTime);
-                editor.putString("evening_time", settings.eveningTime);
-                editor.putBoolean("auto_close", settings.autoClose);
-                editor.putString("morning_image_uri", settings.morningImageUrl != null ? settings.morningImageUrl : "");
-                editor.putString("evening_image_uri", settings.eveningImageUrl != null ? settings.eveningImageUrl : "");
-                editor.putLong("last_sync_time", System.currentTimeMillis());
-                editor.apply();
+                saveSettings(context, settings);
                 
                 // Parse and schedule
                 String[] morningParts = settings.morningTime.split(":");
@@ -77,6 +69,30 @@ public class DateReminderScheduler {
         }
     }
     
+    /**
+     * Schedule from the stored settings only, without touching the network (boot, update)
+     */
+    public static void scheduleFromCache(Context context) {
+        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        if (prefs.getBoolean(KEY_ENABLED, false)) {
+            scheduleCachedReminders(context, prefs);
+        }
+    }
+
+    /**
+     * Store the settings the reminder activity reads at fire time
+     */
+    static void saveSettings(Context context, DateReminderDatabase.Settings settings) {
+        SharedPreferences.Editor editor = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE).edit();
+        editor.putString("morning_time", settings.morningTime);
+        editor.putString("evening_time", settings.eveningTime);
+        editor.putBoolean("auto_close", settings.autoClose);
+        editor.putString("morning_image_uri", settings.morningImageUrl != null ? settings.morningImageUrl : "");
+        editor.putString("evening_image_uri", settings.eveningImageUrl != null ? settings.eveningImageUrl : "");
+        editor.putLong("last_sync_time", System.currentTimeMillis());
+        editor.apply();
+    }
+    
     /**
      * Fallback method to schedule from cached preferences
      */
@@ -119,23 +135,10 @@ public class DateReminderScheduler {
     
     private static void scheduleReminder(Context context, int hour, int minute, int requestCode) {
         try {
-            AlarmManager alarmManager = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
-            if (alarmManager == null) {
-                Log.e(TAG, "❌ AlarmManager not available");
-                return;
-            }
-            
             Intent intent = new Intent(context, DateReminderReceiver.class);
             intent.setAction("DATE_REMINDER_" + requestCode);
             intent.putExtra("requestCode", requestCode);
             
-            PendingIntent pendingIntent = PendingIntent.getBroadcast(
-                context,
-                requestCode,
-                intent,
-                PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
-            );
-            
             Calendar calendar = Calendar.getInstance();
             calendar.set(Calendar.HOUR_OF_DAY, hour);
             calendar.set(Calendar.MINUTE, minute);
@@ -150,16 +153,11 @@ public class DateReminderScheduler {
             
             long triggerTime = calendar.getTimeInMillis();
             
-            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
-                alarmManager.setExactAndAllowWhileIdle(AlarmManager.RTC_WAKEUP, triggerTime, pendingIntent);
-                Log.d(TAG, "✅ Scheduled with setExactAndAllowWhileIdle (Android 6+)");
-            } else if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
-                alarmManager.setExact(AlarmManager.RTC_WAKEUP, triggerTime, pendingIntent);
-                Log.d(TAG, "✅ Scheduled with setExact (Android 4.4+)");
-            } else {
-                alarmManager.set(AlarmManager.RTC_WAKEUP, triggerTime, pendingIntent);
-                Log.d(TAG, "✅ Scheduled with set (Android < 4.4)");
-            }
+            register(context, requestCode, triggerTime, intent);
+            Log.d(TAG, "✅ Queued with AlarmMultiplexer");
+            
+            // Settings and images are stored locally so the reminder renders offline
+            AlarmContentPrefetcher.onAlarmScheduled(context, AlarmContentPrefetcher.KIND_DATE_REMINDER, triggerTime);
             
             SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss", java.util.Locale.getDefault());
             Log.d(TAG, "📅 Reminder set for " + hour + ":" + String.format("%02d", minute) + 
@@ -182,7 +180,7 @@ public class DateReminderScheduler {
             Intent morningIntent = new Intent(context, DateReminderReceiver.class);
             morningIntent.setAction("DATE_REMINDER_" + MORNING_REQUEST_CODE);
             PendingIntent morningPendingIntent = PendingIntent.getBroadcast(
-                context, MORNING_REQUEST_CODE, morningIntent, 
+                context, unregister(context, MORNING_REQUEST_CODE), morningIntent, 
                 PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
             );
             alarmManager.cancel(morningPendingIntent);
@@ -191,7 +189,7 @@ public class DateReminderScheduler {
             Intent eveningIntent = new Intent(context, DateReminderReceiver.class);
             eveningIntent.setAction("DATE_REMINDER_" + EVENING_REQUEST_CODE);
             PendingIntent eveningPendingIntent = PendingIntent.getBroadcast(
-                context, EVENING_REQUEST_CODE, eveningIntent, 
+                context, unregister(context, EVENING_REQUEST_CODE), eveningIntent, 
                 PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
             );
             alarmManager.cancel(eveningPendingIntent);
@@ -202,4 +200,22 @@ public class DateReminderScheduler {
             Log.e(TAG, "❌ Error cancelling reminders: " + e.getMessage(), e);
         }
     }
+    
+    /**
+     * Queue a reminder with AlarmMultiplexer, which sets the actual wakeup.
+     * The "requestCode" extra and the action keep the fixed slot number (morning 7000,
+     * evening 7001), which the receiver uses to tell the two apart.
+     */
+    static int register(Context context, int slot, long triggerTime, Intent intent) {
+        return AlarmMultiplexer.schedule(context, AlarmRegistry.TYPE_DATE_REMINDER,
+            slotIdOf(slot), triggerTime, AlarmRegistry.RECURRENCE_DAILY, null, intent, slot);
+    }
+    
+    private static int unregister(Context context, int slot) {
+        return AlarmMultiplexer.cancel(context, AlarmRegistry.TYPE_DATE_REMINDER, slotIdOf(slot), slot);
+    }
+    
+    private static String slotIdOf(int slot) {
+        return slot == MORNING_REQUEST_CODE ? "morning" : "evening";
+    }
 }
\ No newline at end of file
@@ -9,7 +9,6 @@ import android.content.SharedPreferences
 import android.graphics.Color
 import android.graphics.PixelFormat
 import android.media.AudioAttributes
-import android.media.AudioFocusRequest
 import android.media.AudioManager
 import android.media.MediaPlayer
 import android.net.Uri
@@ -74,15 +73,13 @@ class DigitalDetoxLockActivity : Activity() {
     private var isHandlingScreenEvent = false
     
     // Media playback
-    private var mediaPlayer: MediaPlayer? = null
     private var videoView: VideoView? = null
     private var mediaFileUrl: String? = null
     private var mediaType: String? = null
     private var mediaContainer: FrameLayout? = null
     
-    // Audio management
-    private var audioManager: AudioManager? = null
-    private var audioFocusRequest: AudioFocusRequest? = null
+    // Audio management; the shared engine arbitrates focus with alarms
+    private var mediaSession: AudioEngine.Session? = null
     
     // UI references
     private var overlayTimerTextView: TextView? = null
@@ -744,39 +741,13 @@ class DigitalDetoxLockActivity : Activity() {
             
             Log.d(TAG, "🎵 Setting up audio: $mediaFileUrl (isUrl: $isUrl)")
             
-            audioManager = getSystemService(Context.AUDIO_SERVICE) as AudioManager
-            requestAudioFocusForMedia()
-            
-            mediaPlayer = MediaPlayer().apply {
-                setDataSource(mediaFileUrl)
-                isLooping = true
-                
-                setAudioAttributes(
-                    AudioAttributes.Builder()
-                        .setContentType(AudioAttributes.CONTENT_TYPE_MUSIC)
-                        .setUsage(AudioAttributes.USAGE_MEDIA)
-                        .build()
-                )
-                
-                setVolume(0.7f, 0.7f)
-                
-                setOnPreparedListener { 
-                    Log.d(TAG, "✅ Audio prepared")
-                    start()
-                    Log.d(TAG, "▶️ Audio playing")
-                }
-                
-                setOnErrorListener { mp, what, extra ->
-                    Log.e(TAG, "❌ Audio error - what: $what, extra: $extra")
-                    true
-                }
-                
-                setOnCompletionListener { 
-                    if (isLockActive) start()
-                }
-                
-                prepareAsync()
-            }
+            openMediaSession().enqueue(
+                AudioEngine.Clip.file(mediaFileUrl!!, "Detox audio")
+                    .looping(true)
+                    .volume(0.7f)
+                    .onStarted { Log.d(TAG, "▶️ Audio playing") }
+                    .onFinished { Log.e(TAG, "❌ Audio error") }
+            )
         } catch (e: Exception) {
             Log.e(TAG, "❌ Audio error: ${e.message}", e)
         }
@@ -800,8 +771,16 @@ class DigitalDetoxLockActivity : Activity() {
                 Log.d(TAG, "✅ Local video file exists: ${mediaFile.length()} bytes")
             }
             
-            audioManager = getSystemService(Context.AUDIO_SERVICE) as AudioManager
-            requestAudioFocusForMedia()
+            openMediaSession().setListener(object : AudioEngine.SessionListener() {
+                // An alarm took over the audio; the video picks up again after it
+                override fun onSuspended() {
+                    videoView?.let { if (it.isPlaying) it.pause() }
+                }
+                
+                override fun onResumed() {
+                    videoView?.let { if (!it.isPlaying) it.start() }
+                }
+            })
             
             // Hide lock icon
             persistentOverlay?.findViewById<View>(R.id.lockIcon)?.visibility = View.GONE
@@ -820,6 +799,11 @@ class DigitalDetoxLockActivity : Activity() {
                 
                 visibility = View.VISIBLE
                 
+                // Focus is held by the media session instead
+                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+                    setAudioFocusRequest(AudioManager.AUDIOFOCUS_NONE)
+                }
+                
                 Log.d(TAG, "📐 Video dimensions: ${screenWidth}x${videoHeight}")
                 
                 val videoUri = if (isUrl) {
@@ -911,31 +895,11 @@ class DigitalDetoxLockActivity : Activity() {
         }
     }
     
-    private fun requestAudioFocusForMedia() {
-        try {
-            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
-                audioFocusRequest = AudioFocusRequest.Builder(AudioManager.AUDIOFOCUS_GAIN)
-                    .setAudioAttributes(
-                        AudioAttributes.Builder()
-                            .setUsage(AudioAttributes.USAGE_MEDIA)
-                            .setContentType(AudioAttributes.CONTENT_TYPE_MUSIC)
-                            .build()
-                    )
-                    .setAcceptsDelayedFocusGain(true)
-                    .build()
-                
-                audioManager?.requestAudioFocus(audioFocusRequest!!)
-            } else {
-                @Suppress("DEPRECATION")
-                audioManager?.requestAudioFocus(
-                    null,
-                    AudioManager.STREAM_MUSIC,
-                    AudioManager.AUDIOFOCUS_GAIN
-                )
-            }
-        } catch (e: Exception) {
-            Log.e(TAG, "Audio focus error: ${e.message}", e)
-        }
+    private fun openMediaSession(): AudioEngine.Session {
+        mediaSession?.close()
+        val session = AudioEngine.getInstance(this).openSession(TAG, AudioEngine.PRIORITY_MEDIA)
+        mediaSession = session
+        return session
     }
     
     private fun registerReceivers() {
@@ -1056,11 +1020,8 @@ class DigitalDetoxLockActivity : Activity() {
     
     private fun stopMediaPlayback() {
         try {
-            mediaPlayer?.let {
-                if (it.isPlaying) it.stop()
-                it.release()
-                mediaPlayer = null
-            }
+            mediaSession?.close()
+            mediaSession = null
             
             videoView?.let {
                 if (it.isPlaying) it.stopPlayback()
@@ -1071,13 +1032,6 @@ class DigitalDetoxLockActivity : Activity() {
                 (it.parent as? android.view.ViewGroup)?.removeView(it)
                 mediaContainer = null
             }
-            
-            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
-                audioFocusRequest?.let { audioManager?.abandonAudioFocusRequest(it) }
-            } else {
-                @Suppress("DEPRECATION")
-                audioManager?.abandonAudioFocus(null)
-            }
         } catch (e: Exception) {
             Log.e(TAG, "Error stopping media", e)
         }
@@ -1085,14 +1039,14 @@ class DigitalDetoxLockActivity : Activity() {
     
     private fun pauseMediaPlayback() {
         try {
-            mediaPlayer?.let { if (it.isPlaying) it.pause() }
+            mediaSession?.pause()
             videoView?.let { if (it.isPlaying) it.pause() }
         } catch (e: Exception) { }
     }
     
     private fun resumeMediaPlayback() {
         try {
-            mediaPlayer?.let { if (!it.isPlaying) it.start() }
+            mediaSession?.resume()
             videoView?.let { if (!it.isPlaying) it.start() }
         } catch (e: Exception) { }
     }
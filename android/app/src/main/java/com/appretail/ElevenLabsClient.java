@@ -0,0 +1,261 @@
+package com.wingsfly;
+
+import android.util.Log;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Shared ElevenLabs text-to-speech transport used by the native TTS services.
+ * Requests go through NetworkResilience (retry with backoff, circuit breaker, metrics).
+ */
+public class ElevenLabsClient {
+
+    private static final String TAG = "ElevenLabsClient";
+
+    public static final String DEFAULT_VOICE_ID = "V79Doapn9P53cEABwysz";
+    public static final String DEFAULT_MODEL_ID = "eleven_multilingual_v2";
+    public static final String DEFAULT_OUTPUT_FORMAT = "mp3_44100_128";
+
+    private static final String API_KEY = BuildConfig.ELEVENLABS_API_KEY;
+    private static final String DEFAULT_BASE_URL = "https://api.elevenlabs.io";
+
+    private static volatile String baseUrl = DEFAULT_BASE_URL;
+    private static volatile String apiHost = hostOf(DEFAULT_BASE_URL);
+
+    private static final int CONNECT_TIMEOUT_MS = 10000;
+    private static final int READ_TIMEOUT_MS = 30000;
+
+    /**
+     * One synthesis request. Fields left unset are omitted from the payload.
+     */
+    public static class Request {
+        final String text;
+        String voiceId = DEFAULT_VOICE_ID;
+        String modelId = DEFAULT_MODEL_ID;
+        String outputFormat = DEFAULT_OUTPUT_FORMAT;
+        JSONObject voiceSettings;
+        String languageCode;
+        Integer optimizeStreamingLatency;
+
+        public Request(String text) {
+            this.text = text;
+        }
+
+        public Request voice(String voiceId) {
+            this.voiceId = voiceId;
+            return this;
+        }
+
+        public Request model(String modelId) {
+            this.modelId = modelId;
+            return this;
+        }
+
+        public Request outputFormat(String outputFormat) {
+            this.outputFormat = outputFormat;
+            return this;
+        }
+
+        public Request voiceSettings(JSONObject voiceSettings) {
+            this.voiceSettings = voiceSettings;
+            return this;
+        }
+
+        public Request language(String languageCode) {
+            this.languageCode = languageCode;
+            return this;
+        }
+
+        public Request optimizeStreamingLatency(int level) {
+            this.optimizeStreamingLatency = level;
+            return this;
+        }
+
+        JSONObject toJson() throws JSONException {
+            JSONObject payload = new JSONObject();
+            payload.put("text", text);
+            payload.put("model_id", modelId);
+            if (voiceSettings != null) {
+                payload.put("voice_settings", voiceSettings);
+            }
+            payload.put("output_format", outputFormat);
+            if (optimizeStreamingLatency != null) {
+                payload.put("optimize_streaming_latency", optimizeStreamingLatency);
+            }
+            if (languageCode != null) {
+                payload.put("language_code", languageCode);
+            }
+            return payload;
+        }
+    }
+
+    /**
+     * Point the client at another server, e.g. the local stand-in used by the load tests.
+     * Pass null to go back to the ElevenLabs API.
+     */
+    static void setBaseUrl(String url) {
+        String base = url != null ? url : DEFAULT_BASE_URL;
+        baseUrl = base.endsWith("/") ? base.substring(0, base.length() - 1) : base;
+        apiHost = hostOf(baseUrl);
+    }
+
+    /**
+     * Receives audio as a streaming synthesis downloads
+     */
+    public interface ChunkListener {
+        void onChunk(byte[] data, int count);
+    }
+
+    /**
+     * Synthesize speech into the target file. The file only appears once it is complete.
+     *
+     * @return size of the audio in bytes
+     */
+    public static long synthesizeToFile(final Request request, final File target) throws IOException {
+        final byte[] payload = payloadOf(request);
+
+        // Synthesis has no server-side effect, so it is safe to retry
+        return NetworkResilience.execute("elevenlabs tts", apiHost, true, new NetworkResilience.Call<Long>() {
+            @Override
+            public Long run() throws IOException {
+                HttpURLConnection connection = post("/v1/text-to-speech/" + request.voiceId, payload);
+                try {
+                    return copyToFile(connection, target, null);
+                } finally {
+                    connection.disconnect();
+                }
+            }
+        });
+    }
+
+    /**
+     * Synthesize through the streaming endpoint, handing each chunk to the listener as it
+     * arrives and writing the complete audio to the target file.
+     *
+     * Only opening the stream is retried: once audio has reached the listener, the player
+     * has consumed it and a failure is final.
+     *
+     * @return size of the audio in bytes
+     */
+    public static long streamToFile(final Request request, File target, ChunkListener listener) throws IOException {
+        final byte[] payload = payloadOf(request);
+
+        HttpURLConnection connection = NetworkResilience.execute("elevenlabs tts stream", apiHost, true,
+                new NetworkResilience.Call<HttpURLConnection>() {
+                    @Override
+                    public HttpURLConnection run() throws IOException {
+                        return post("/v1/text-to-speech/" + request.voiceId + "/stream", payload);
+                    }
+                });
+        try {
+            return copyToFile(connection, target, listener);
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private static byte[] payloadOf(Request request) throws IOException {
+        try {
+            return request.toJson().toString().getBytes(StandardCharsets.UTF_8);
+        } catch (JSONException e) {
+            throw new IOException("Could not build TTS payload", e);
+        }
+    }
+
+    /**
+     * POST the payload and return the connection once the response status is OK
+     */
+    private static HttpURLConnection post(String path, byte[] payload) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + path).openConnection();
+        boolean ok = false;
+        try {
+            connection.setRequestMethod("POST");
+            connection.setRequestProperty("Content-Type", "application/json");
+            connection.setRequestProperty("xi-api-key", API_KEY);
+            connection.setRequestProperty("Accept", "audio/mpeg");
+            connection.setRequestProperty("User-Agent", "WingsFly-App/1.0");
+            connection.setConnectTimeout(CONNECT_TIMEOUT_MS);
+            connection.setReadTimeout(READ_TIMEOUT_MS);
+            connection.setDoOutput(true);
+            connection.setFixedLengthStreamingMode(payload.length);
+
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(payload);
+            }
+
+            int responseCode = connection.getResponseCode();
+            if (responseCode != HttpURLConnection.HTTP_OK) {
+                String error = readError(connection);
+                Log.e(TAG, "❌ ElevenLabs API error " + responseCode + ": " + error);
+                throw new NetworkResilience.HttpStatusException(responseCode, error);
+            }
+            ok = true;
+            return connection;
+        } finally {
+            if (!ok) {
+                connection.disconnect();
+            }
+        }
+    }
+
+    private static long copyToFile(HttpURLConnection connection, File target, ChunkListener listener) throws IOException {
+        File partial = new File(target.getPath() + ".part");
+        try {
+            long totalBytes = 0;
+            try (InputStream in = connection.getInputStream();
+                 OutputStream out = new FileOutputStream(partial)) {
+                byte[] buffer = new byte[8192];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    out.write(buffer, 0, read);
+                    totalBytes += read;
+                    if (listener != null) {
+                        listener.onChunk(buffer, read);
+                    }
+                }
+            }
+            if (!partial.renameTo(target)) {
+                throw new IOException("Could not move " + partial + " into place");
+            }
+            return totalBytes;
+        } finally {
+            partial.delete();
+        }
+    }
+
+    private static String hostOf(String url) {
+        try {
+            return new URL(url).getHost();
+        } catch (IOException e) {
+            return url;
+        }
+    }
+
+    private static String readError(HttpURLConnection connection) {
+        try (InputStream err = connection.getErrorStream()) {
+            if (err == null) {
+                return "";
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[1024];
+            int read;
+            while (out.size() < 4096 && (read = err.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return out.toString("UTF-8");
+        } catch (IOException e) {
+            return "";
+        }
+    }
+}
@@ -1,34 +1,47 @@
 package com.wingsfly;
 
 import android.content.Context;
-import android.media.AudioManager;
-import android.media.MediaPlayer;
-import android.os.AsyncTask;
-import android.os.Handler;
+import android.os.SystemClock;
 import android.util.Log;
 
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.net.HttpURLConnection;
-import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Random;
 import java.util.regex.Pattern;
 
+import org.json.JSONException;
 import org.json.JSONObject;
 
 public class ElevenLabsNativeService {
     
     private static final String TAG = "ElevenLabsNative";
-    private static final String VOICE_ID = "V79Doapn9P53cEABwysz";
-    private static final String API_KEY = BuildConfig.ELEVENLABS_API_KEY;
-    private static final String ELEVENLABS_API_URL = "https://api.elevenlabs.io/v1/text-to-speech/" + VOICE_ID;
     
     private Context context;
-    private MediaPlayer mediaPlayer;
+    private volatile AudioEngine.Session session;
     private String userProfile = "there";
     
+    // Live speech asks the streaming endpoint for its lowest-latency mode
+    private static final int STREAMING_LATENCY = 3;
+    
+    private static final long QUOTE_PAUSE_MS = 1500;
+    
+    // Time-to-first-audio of the current speech and the tier serving it, recorded when its
+    // first clip starts. Set by the caller's thread, read and cleared by callbacks on the
+    // main thread.
+    private volatile String alarmId;
+    private volatile long speechRequestedAt;
+    private volatile String servingTier;
+    
+    // Synthesis started for the current speech, cancelled when the alarm is dismissed
+    private final TtsExecutor.Group segments = new TtsExecutor.Group();
+    private volatile StreamingAudioSource streamingSource;
+    
     // Pattern to detect Hindi (Devanagari) characters
     private static final Pattern HINDI_PATTERN = Pattern.compile("[\\u0900-\\u097F]");
     
@@ -55,11 +68,10 @@ public class ElevenLabsNativeService {
         return HINDI_PATTERN.matcher(text).find();
     }
     
-    private JSONObject getVoiceSettings(boolean isHindi) throws Exception {
+    private static JSONObject getVoiceSettings(boolean isHindi) throws JSONException {
         JSONObject voiceSettings = new JSONObject();
         
         if (isHindi) {
-            Log.d(TAG, "🐌 Using SLOW settings for Hindi text");
             voiceSettings.put("stability", 0.85);
             voiceSettings.put("similarity_boost", 0.9);
             voiceSettings.put("style", 0.2);
@@ -67,7 +79,6 @@ public class ElevenLabsNativeService {
             voiceSettings.put("speaking_rate", 0.6); // 60% speed for Hindi
             voiceSettings.put("pitch", 0.9);
         } else {
-            Log.d(TAG, "⚡ Using NORMAL settings for English text");
             voiceSettings.put("stability", 0.5);
             voiceSettings.put("similarity_boost", 0.5);
             voiceSettings.put("style", 0.5);
@@ -79,6 +90,63 @@ public class ElevenLabsNativeService {
         return voiceSettings;
     }
     
+    /**
+     * ElevenLabs request for one alarm clip. Pre-rendering uses the same request so the
+     * clip is found in TtsAudioCache at fire time.
+     */
+    static ElevenLabsClient.Request buildRequest(String text, boolean isHindi) throws JSONException {
+        ElevenLabsClient.Request request = new ElevenLabsClient.Request(text)
+                .voiceSettings(getVoiceSettings(isHindi))
+                .optimizeStreamingLatency(0);
+        if (isHindi) {
+            request.language("hi");
+        }
+        return request;
+    }
+    
+    /**
+     * Play the speech pre-rendered for this alarm if it is on disk, otherwise synthesize it now
+     */
+    public void playEnhancedAlarmSpeech(String alarmId, String taskTitle, String scheduleTime) {
+        this.alarmId = alarmId;
+        AlarmSpeechPrerenderer.TaskSpeech speech = AlarmSpeechPrerenderer.getTaskSpeech(context, alarmId);
+        if (speech == null) {
+            playEnhancedAlarmSpeech(taskTitle, scheduleTime);
+            return;
+        }
+        
+        try {
+            File english = TtsAudioCache.get(context, buildRequest(speech.englishMessage, false));
+            List<String> quote = cachedPhrases(speech.quotePhrases);
+            if (english != null && quote != null) {
+                Log.d(TAG, "⚡ Playing pre-rendered speech for alarm " + alarmId);
+                markSpeechRequested(SpeechTierLog.TIER_CACHED);
+                playTwoPartAudio(english.getAbsolutePath(), quote);
+                return;
+            }
+        } catch (JSONException e) {
+            Log.e(TAG, "❌ Error building request: " + e.getMessage());
+        }
+        
+        Log.d(TAG, "🔄 Speech for alarm " + alarmId + " not pre-rendered yet, synthesizing live");
+        streamTwoPartAudio(speech.englishMessage, speech.quotePhrases);
+    }
+    
+    /**
+     * Files of every phrase in order, or null if one of them is not cached
+     */
+    private List<String> cachedPhrases(List<PhraseSegmenter.Phrase> phrases) throws JSONException {
+        List<String> paths = new ArrayList<>();
+        for (PhraseSegmenter.Phrase phrase : phrases) {
+            File file = TtsAudioCache.get(context, buildRequest(phrase.text, true));
+            if (file == null) {
+                return null;
+            }
+            paths.add(file.getAbsolutePath());
+        }
+        return paths;
+    }
+    
     // UPDATED: Main method with new flow - English message first, then dynamic quote
     public void playEnhancedAlarmSpeech(String taskTitle, String scheduleTime) {
         Log.d(TAG, "🚨 === NEW FLOW: ENGLISH MESSAGE + DYNAMIC QUOTE ONLY ===");
@@ -88,310 +156,415 @@ public class ElevenLabsNativeService {
         String englishMessage = generateSimpleEnglishMessage(taskTitle, scheduleTime);
         
         // Generate dynamic motivational quote with placeholders
-        String dynamicQuote = generateDynamicQuote(taskTitle, scheduleTime);
+        List<PhraseSegmenter.Phrase> dynamicQuote = generateDynamicQuote(taskTitle, scheduleTime);
         
         Log.d(TAG, "📢 English Message: " + englishMessage);
         Log.d(TAG, "🎯 Dynamic Quote: " + dynamicQuote);
         
-        // Generate both audio files
-        new GenerateSpeechTask("two_part", englishMessage, dynamicQuote).execute();
+        streamTwoPartAudio(englishMessage, dynamicQuote);
+    }
+    
+    /**
+     * Live path: the English message plays while it downloads from the streaming endpoint,
+     * and the quote is synthesized concurrently. Both end up in TtsAudioCache. Falls back to
+     * buffered synthesis of the English message if nothing could be streamed; the quote
+     * already requested is kept.
+     */
+    private void streamTwoPartAudio(final String englishText, final List<PhraseSegmenter.Phrase> quote) {
+        final ElevenLabsClient.Request englishRequest;
+        try {
+            englishRequest = buildRequest(englishText, false).optimizeStreamingLatency(STREAMING_LATENCY);
+        } catch (JSONException e) {
+            Log.e(TAG, "❌ Error building request: " + e.getMessage());
+            return;
+        }
+        
+        markSpeechRequested(SpeechTierLog.TIER_STREAMING);
+        final StreamingAudioSource source = new StreamingAudioSource();
+        streamingSource = source;
+        
+        final TwoPartPlayback playback = new TwoPartPlayback(openSession());
+        submitQuote(quote, playback);
+        
+        segments.submit("english stream", () -> {
+            try {
+                File file = TtsAudioCache.getOrStream(context, englishRequest, source::append);
+                source.finish();
+                return file;
+            } catch (IOException e) {
+                Log.e(TAG, "❌ Streaming English audio failed: " + e.getMessage());
+                source.fail(e);
+                throw e;
+            }
+        }, null);
+        
+        final AudioEngine.Clip english = AudioEngine.Clip.stream(source, "English message (streaming)");
+        english.onFinished(() -> {
+            if (!english.hasStarted()) {
+                Log.d(TAG, "🔄 Nothing streamed, falling back to buffered synthesis");
+                switchTier(SpeechTierLog.TIER_BUFFERED);
+                synthesizeEnglish(englishText, quote, playback);
+            }
+        });
+        playback.playFirstPart(english);
+    }
+    
+    private void markSpeechRequested(String tier) {
+        speechRequestedAt = SystemClock.elapsedRealtime();
+        servingTier = tier;
+    }
+    
+    /**
+     * A fallback took over; the time to first audio keeps counting from the original request
+     */
+    private void switchTier(String tier) {
+        if (servingTier != null) {
+            servingTier = tier;
+        }
+    }
+    
+    private void recordTimeToFirstAudio() {
+        String tier = servingTier;
+        if (tier == null) {
+            return;
+        }
+        servingTier = null;
+        long ttfa = SystemClock.elapsedRealtime() - speechRequestedAt;
+        NetworkResilience.recordLatency("speech ttfa " + tier, ttfa);
+        SpeechTierLog.record(context, alarmId, tier, ttfa);
+        Log.d(TAG, "⏱️ Time to first audio (" + tier + "): " + ttfa + "ms");
+    }
+    
+    private void onAllTiersFailed(Exception error) {
+        Log.e(TAG, "❌ All speech generation methods failed: " + error.getMessage());
+        if (servingTier != null) {
+            SpeechTierLog.record(context, alarmId, SpeechTierLog.TIER_NONE, -1);
+            servingTier = null;
+        }
     }
     
     // NEW: Generate simple English message for task notification
     private String generateSimpleEnglishMessage(String taskTitle, String scheduleTime) {
-        String message = String.format("Hello %s, your task %s is scheduled at %s", 
-            userProfile, 
-            taskTitle != null ? taskTitle : "reminder", 
-            scheduleTime);
+        String message = buildEnglishMessage(userProfile, taskTitle, scheduleTime);
         
         Log.d(TAG, "Generated English message: " + message);
         return message;
     }
     
+    static String buildEnglishMessage(String userName, String taskTitle, String scheduleTime) {
+        return String.format("Hello %s, your task %s is scheduled at %s", 
+            userName, 
+            taskTitle != null ? taskTitle : "reminder", 
+            scheduleTime);
+    }
+    
     // UPDATED: Generate dynamic motivational quote with placeholders filled
-    private String generateDynamicQuote(String taskTitle, String scheduleTime) {
-        Random random = new Random();
-        String selectedQuote = MOTIVATIONAL_QUOTES[random.nextInt(MOTIVATIONAL_QUOTES.length)];
-        
-        // Replace placeholders with actual data
-        String personalizedQuote = selectedQuote
-            .replace("{name}", userProfile)
-            .replace("{time}", scheduleTime)
-            .replace("{task}", taskTitle != null ? taskTitle : "reminder");
-        
-        Log.d(TAG, "Selected quote template: " + selectedQuote);
+    private List<PhraseSegmenter.Phrase> generateDynamicQuote(String taskTitle, String scheduleTime) {
+        List<PhraseSegmenter.Phrase> personalizedQuote = buildRandomQuote(userProfile, taskTitle, scheduleTime);
         Log.d(TAG, "Generated dynamic quote: " + personalizedQuote);
-        
         return personalizedQuote;
     }
     
-    // UPDATED: AsyncTask for two-part speech generation
-    private class GenerateSpeechTask extends AsyncTask<Void, Void, SpeechResult> {
-        
-        private String phase;
-        private String englishText;
-        private String hindiText;
+    /**
+     * A random quote with its placeholders filled, split into the template's fixed phrases
+     * and the name, time and task
+     */
+    static List<PhraseSegmenter.Phrase> buildRandomQuote(String userName, String taskTitle, String scheduleTime) {
+        String selectedQuote = MOTIVATIONAL_QUOTES[new Random().nextInt(MOTIVATIONAL_QUOTES.length)];
         
-        public GenerateSpeechTask(String phase, String englishText, String hindiText) {
-            this.phase = phase;
-            this.englishText = englishText;
-            this.hindiText = hindiText;
+        // Replace placeholders with actual data
+        Map<String, String> values = new HashMap<>();
+        values.put("name", userName);
+        values.put("time", scheduleTime);
+        values.put("task", taskTitle != null ? taskTitle : "reminder");
+        return PhraseSegmenter.split(selectedQuote, values);
+    }
+    
+    /**
+     * Synthesize the quote phrase by phrase, all at once. The fixed phrases come from the
+     * pinned cache, so usually only the name, time and task are sent to the API, and the
+     * phrases are played back to back. If a phrase fails the whole quote is requested in
+     * one piece instead.
+     */
+    private void submitQuote(final List<PhraseSegmenter.Phrase> quote, final TwoPartPlayback playback) {
+        final String[] paths = new String[quote.size()];
+        final int[] remaining = {paths.length};
+        final boolean[] failed = {false};
+        for (int i = 0; i < paths.length; i++) {
+            final int index = i;
+            final PhraseSegmenter.Phrase phrase = quote.get(i);
+            final ElevenLabsClient.Request request;
+            try {
+                request = buildRequest(phrase.text, true);
+            } catch (JSONException e) {
+                Log.e(TAG, "❌ Error building request: " + e.getMessage());
+                playback.quoteCallback().onError(e);
+                return;
+            }
+            // Callbacks run on the main thread, so the counters need no locking
+            segments.submit("quote phrase", () -> TtsAudioCache.getOrSynthesize(context, request, !phrase.dynamic),
+                    new TtsExecutor.Callback<File>() {
+                        @Override
+                        public void onResult(File phraseFile) {
+                            if (failed[0]) {
+                                return;
+                            }
+                            paths[index] = phraseFile.getAbsolutePath();
+                            if (--remaining[0] == 0) {
+                                playback.onQuoteReady(Arrays.asList(paths));
+                            }
+                        }
+                        
+                        @Override
+                        public void onError(Exception error) {
+                            if (failed[0]) {
+                                return;
+                            }
+                            failed[0] = true;
+                            Log.e(TAG, "⚠️ Quote phrase failed, requesting the whole quote: " + error.getMessage());
+                            submitWholeQuote(PhraseSegmenter.join(quote), playback);
+                        }
+                    });
+        }
+    }
+    
+    private void submitWholeQuote(String quoteText, TwoPartPlayback playback) {
+        final ElevenLabsClient.Request quoteRequest;
+        try {
+            quoteRequest = buildRequest(quoteText, true);
+        } catch (JSONException e) {
+            playback.quoteCallback().onError(e);
+            return;
+        }
+        segments.submit("quote", () -> TtsAudioCache.getOrSynthesize(context, quoteRequest),
+                playback.quoteCallback());
+    }
+    
+    /**
+     * Buffered path for the English message of a playback whose quote is already requested:
+     * it plays as soon as it is on disk. Falls back to one combined clip if the message can't
+     * be made.
+     */
+    private void synthesizeEnglish(final String englishText, final List<PhraseSegmenter.Phrase> quote,
+                                   final TwoPartPlayback playback) {
+        final ElevenLabsClient.Request englishRequest;
+        try {
+            englishRequest = buildRequest(englishText, false);
+        } catch (JSONException e) {
+            Log.e(TAG, "❌ Error building request: " + e.getMessage());
+            playback.close();
+            return;
         }
         
-        @Override
-        protected SpeechResult doInBackground(Void... params) {
-            SpeechResult result = new SpeechResult();
-            
-            try {
-                if ("two_part".equals(phase)) {
-                    // Generate English audio with normal speed
-                    Log.d(TAG, "🎵 Generating ENGLISH audio with normal speed...");
-                    result.englishPath = generateAudioForText(englishText, false);
+        segments.submit("english", () -> TtsAudioCache.getOrSynthesize(context, englishRequest),
+                new TtsExecutor.Callback<File>() {
+                    @Override
+                    public void onResult(File englishFile) {
+                        playback.playFirstPart(AudioEngine.Clip.file(englishFile.getAbsolutePath(),
+                                "English message (normal speed)"));
+                    }
                     
-                    if (result.englishPath != null) {
-                        // Generate dynamic quote audio with Hindi settings (slow speed)
-                        Log.d(TAG, "🎵 Generating DYNAMIC QUOTE audio with slow speed...");
-                        result.hindiPath = generateAudioForText(hindiText, true);
+                    @Override
+                    public void onError(Exception error) {
+                        Log.e(TAG, "❌ Error generating English audio: " + error.getMessage());
+                        Log.d(TAG, "🔄 Trying combined fallback...");
+                        switchTier(SpeechTierLog.TIER_COMBINED);
+                        final String quoteText = PhraseSegmenter.join(quote);
+                        synthesizeAndPlay("combined", englishText + ". " + quoteText, "Combined message",
+                                () -> synthesizeOfflineTwoPart(englishText, quoteText));
                     }
-                } else if ("combined".equals(phase)) {
-                    // Fallback: combined message
-                    Log.d(TAG, "🔄 Generating combined message...");
-                    String combinedMessage = englishText + ". " + hindiText;
-                    result.combinedPath = generateAudioForText(combinedMessage, true);
-                }
-                
-            } catch (Exception e) {
-                Log.e(TAG, "❌ Error in GenerateSpeechTask: " + e.getMessage());
-                result.error = e.getMessage();
-            }
-            
-            return result;
+                });
+    }
+    
+    /**
+     * Synthesize a single clip with the quote voice settings and play it when ready, falling
+     * back to the device's own TTS engine
+     */
+    private void synthesizeAndPlay(String segment, final String text, final String description) {
+        synthesizeAndPlay(segment, text, description, () -> synthesizeOfflineAndPlay(text, description));
+    }
+    
+    private void synthesizeAndPlay(String segment, String text, final String description,
+                                   final Runnable offlineFallback) {
+        final ElevenLabsClient.Request request;
+        try {
+            request = buildRequest(text, true);
+        } catch (JSONException e) {
+            Log.e(TAG, "❌ Error building request: " + e.getMessage());
+            return;
         }
         
-        private String generateAudioForText(String text, boolean isHindi) {
-            try {
-                Log.d(TAG, String.format("🎤 Generating %s audio: %s", 
-                    isHindi ? "HINDI (SLOW)" : "ENGLISH (NORMAL)", text));
-                
-                JSONObject jsonPayload = new JSONObject();
-                jsonPayload.put("text", text);
-                jsonPayload.put("model_id", "eleven_multilingual_v2");
-                
-                JSONObject voiceSettings = getVoiceSettings(isHindi);
-                jsonPayload.put("voice_settings", voiceSettings);
-                
-                jsonPayload.put("output_format", "mp3_44100_128");
-                jsonPayload.put("optimize_streaming_latency", 0);
-                
-                if (isHindi) {
-                    jsonPayload.put("language_code", "hi");
-                }
-                
-                Log.d(TAG, "📝 Request payload: " + jsonPayload.toString());
-                
-                URL url = new URL(ELEVENLABS_API_URL);
-                HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-                connection.setRequestMethod("POST");
-                connection.setRequestProperty("Content-Type", "application/json");
-                connection.setRequestProperty("xi-api-key", API_KEY);
-                connection.setRequestProperty("Accept", "audio/mpeg");
-                connection.setRequestProperty("User-Agent", "WingsFly-App/1.0");
-                connection.setDoOutput(true);
-                
-                connection.getOutputStream().write(jsonPayload.toString().getBytes());
-                
-                int responseCode = connection.getResponseCode();
-                Log.d(TAG, "📡 ElevenLabs API response code: " + responseCode);
-                
-                if (responseCode == HttpURLConnection.HTTP_OK) {
-                    String fileName = String.format("elevenlabs_%s_%d.mp3", 
-                        isHindi ? "quote" : "english", System.currentTimeMillis());
-                    File audioFile = new File(context.getCacheDir(), fileName);
-                    
-                    InputStream inputStream = connection.getInputStream();
-                    FileOutputStream outputStream = new FileOutputStream(audioFile);
-                    
-                    byte[] buffer = new byte[4096];
-                    int bytesRead;
-                    int totalBytes = 0;
-                    while ((bytesRead = inputStream.read(buffer)) != -1) {
-                        outputStream.write(buffer, 0, bytesRead);
-                        totalBytes += bytesRead;
+        Log.d(TAG, "🎤 Generating " + description + ": " + text);
+        segments.submit(segment, () -> TtsAudioCache.getOrSynthesize(context, request),
+                new TtsExecutor.Callback<File>() {
+                    @Override
+                    public void onResult(File audioFile) {
+                        playAudioFile(audioFile.getAbsolutePath(), description);
                     }
                     
-                    outputStream.close();
-                    inputStream.close();
-                    connection.disconnect();
-                    
-                    Log.d(TAG, String.format("✅ %s audio saved: %s (Size: %dKB)", 
-                        isHindi ? "DYNAMIC QUOTE (SLOW)" : "ENGLISH (NORMAL)", 
-                        audioFile.getAbsolutePath(), totalBytes / 1024));
+                    @Override
+                    public void onError(Exception error) {
+                        Log.e(TAG, "❌ ElevenLabs unavailable, using on-device TTS: " + error.getMessage());
+                        offlineFallback.run();
+                    }
+                });
+    }
+    
+    /**
+     * Offline tier: both parts rendered by the device's TTS engine. The quote is skipped if
+     * the engine has no Hindi voice.
+     */
+    private void synthesizeOfflineTwoPart(final String englishText, final String quoteText) {
+        switchTier(SpeechTierLog.TIER_OFFLINE);
+        final TwoPartPlayback playback = new TwoPartPlayback(openSession());
+        segments.submit("offline quote", () -> OfflineSpeechSynthesizer.getOrSynthesize(context, quoteText),
+                playback.quoteCallback());
+        segments.submit("offline english", () -> OfflineSpeechSynthesizer.getOrSynthesize(context, englishText),
+                new TtsExecutor.Callback<File>() {
+                    @Override
+                    public void onResult(File englishFile) {
+                        playback.playFirstPart(AudioEngine.Clip.file(englishFile.getAbsolutePath(),
+                                "English message (offline)"));
+                    }
                     
-                    return audioFile.getAbsolutePath();
-                } else {
-                    InputStream errorStream = connection.getErrorStream();
-                    if (errorStream != null) {
-                        byte[] errorBuffer = new byte[1024];
-                        int errorBytes = errorStream.read(errorBuffer);
-                        String errorResponse = new String(errorBuffer, 0, errorBytes);
-                        Log.e(TAG, "❌ ElevenLabs API error response: " + errorResponse);
-                        errorStream.close();
+                    @Override
+                    public void onError(Exception error) {
+                        playback.close();
+                        onAllTiersFailed(error);
+                    }
+                });
+    }
+    
+    private void synthesizeOfflineAndPlay(String text, final String description) {
+        switchTier(SpeechTierLog.TIER_OFFLINE);
+        segments.submit("offline", () -> OfflineSpeechSynthesizer.getOrSynthesize(context, text),
+                new TtsExecutor.Callback<File>() {
+                    @Override
+                    public void onResult(File audioFile) {
+                        playAudioFile(audioFile.getAbsolutePath(), description + " (offline)");
                     }
                     
-                    Log.e(TAG, "❌ ElevenLabs API request failed with code: " + responseCode);
-                    connection.disconnect();
-                    return null;
-                }
-                
-            } catch (Exception e) {
-                Log.e(TAG, "❌ Error generating audio: " + e.getMessage());
-                return null;
-            }
-        }
-        
-        @Override
-        protected void onPostExecute(SpeechResult result) {
-            if (result.error != null) {
-                Log.e(TAG, "❌ Speech generation failed: " + result.error);
-                return;
-            }
-            
-            if ("two_part".equals(phase)) {
-                if (result.englishPath != null && result.hindiPath != null) {
-                    // Play English first, then dynamic quote after 1-2 seconds
-                    playTwoPartAudio(result.englishPath, result.hindiPath);
-                } else if (result.englishPath != null) {
-                    Log.d(TAG, "⚠️ Dynamic quote generation failed, playing English only");
-                    playAudioFile(result.englishPath, "English only");
-                } else {
-                    // Try combined fallback
-                    Log.d(TAG, "🔄 Trying combined fallback...");
-                    new GenerateSpeechTask("combined", englishText, hindiText).execute();
-                }
-            } else if ("combined".equals(phase)) {
-                if (result.combinedPath != null) {
-                    playAudioFile(result.combinedPath, "Combined message");
-                } else {
-                    Log.e(TAG, "❌ All speech generation methods failed");
-                }
-            }
-        }
+                    @Override
+                    public void onError(Exception error) {
+                        onAllTiersFailed(error);
+                    }
+                });
     }
     
     // NEW: Play two-part audio with proper timing
-    private void playTwoPartAudio(String englishPath, String quotePath) {
+    private void playTwoPartAudio(String englishPath, List<String> quotePaths) {
         Log.d(TAG, "🎵 Playing two-part audio: English message, then dynamic quote");
         
-        // Play English message first
-        playAudioFileWithCallback(englishPath, "English message (normal speed)", new Runnable() {
-            @Override
-            public void run() {
-                // Wait 1.5 seconds, then play dynamic quote
-                new Handler().postDelayed(new Runnable() {
-                    @Override
-                    public void run() {
-                        Log.d(TAG, "▶️ Now playing dynamic motivational quote at slow speed...");
-                        playAudioFile(quotePath, "Dynamic quote (slow speed - 60%)");
-                        
-                        // Clean up both files after quote finishes
-                        new Handler().postDelayed(new Runnable() {
-                            @Override
-                            public void run() {
-                                cleanupAudioFile(englishPath);
-                                cleanupAudioFile(quotePath);
-                            }
-                        }, 10000);
-                    }
-                }, 1500); // 1.5 second pause
-            }
-        });
+        TwoPartPlayback playback = new TwoPartPlayback(openSession());
+        playback.onQuoteReady(quotePaths);
+        playback.playFirstPart(AudioEngine.Clip.file(englishPath, "English message (normal speed)"));
     }
     
-    private void playAudioFileWithCallback(String audioFilePath, String description, Runnable callback) {
-        try {
-            Log.d(TAG, "🔊 Playing audio: " + description + " - " + audioFilePath);
-            
-            if (mediaPlayer != null) {
-                mediaPlayer.release();
-            }
-            
-            mediaPlayer = new MediaPlayer();
-            mediaPlayer.setDataSource(audioFilePath);
-            
-            AudioManager audioManager = (AudioManager) context.getSystemService(Context.AUDIO_SERVICE);
-            if (audioManager != null) {
-                mediaPlayer.setAudioStreamType(AudioManager.STREAM_ALARM);
-                int maxVolume = audioManager.getStreamMaxVolume(AudioManager.STREAM_ALARM);
-                audioManager.setStreamVolume(AudioManager.STREAM_ALARM, maxVolume, 0);
-            }
-            
-            mediaPlayer.setOnCompletionListener(mp -> {
-                Log.d(TAG, "✅ Audio playback completed: " + description);
-                mp.release();
-                mediaPlayer = null;
-                
-                if (callback != null) {
-                    callback.run();
+    /**
+     * Queues the quote behind the English message once the message has started and the
+     * quote is on disk, so the engine prepares it while the message plays and starts it
+     * 1.5 seconds after. The phrases of the quote follow each other without a gap. The
+     * session closes after the quote.
+     */
+    private class TwoPartPlayback {
+        
+        private final AudioEngine.Session session;
+        private boolean firstPartStarted;
+        private List<String> quotePaths;
+        private boolean quoteFailed;
+        
+        TwoPartPlayback(AudioEngine.Session session) {
+            this.session = session;
+        }
+        
+        void playFirstPart(AudioEngine.Clip clip) {
+            session.enqueue(clip.onStarted(this::onFirstPartStarted));
+        }
+        
+        synchronized void onQuoteReady(List<String> paths) {
+            quotePaths = paths;
+            queueQuoteIfReady();
+        }
+        
+        TtsExecutor.Callback<File> quoteCallback() {
+            return new TtsExecutor.Callback<File>() {
+                @Override
+                public void onResult(File quoteFile) {
+                    onQuoteReady(Collections.singletonList(quoteFile.getAbsolutePath()));
                 }
-            });
-            
-            mediaPlayer.setOnErrorListener((mp, what, extra) -> {
-                Log.e(TAG, "❌ MediaPlayer error: " + what + ", " + extra);
-                mp.release();
-                mediaPlayer = null;
                 
-                if (callback != null) {
-                    callback.run();
+                @Override
+                public void onError(Exception error) {
+                    Log.e(TAG, "⚠️ Dynamic quote generation failed, playing English only: " + error.getMessage());
+                    onQuoteFailed();
+                }
+            };
+        }
+        
+        void close() {
+            session.close();
+        }
+        
+        private synchronized void onFirstPartStarted() {
+            recordTimeToFirstAudio();
+            firstPartStarted = true;
+            queueQuoteIfReady();
+        }
+        
+        private synchronized void onQuoteFailed() {
+            quoteFailed = true;
+            queueQuoteIfReady();
+        }
+        
+        private void queueQuoteIfReady() {
+            if (!firstPartStarted) {
+                return;
+            }
+            if (quotePaths != null) {
+                // All files stay in TtsAudioCache for the next alarm
+                for (int i = 0; i < quotePaths.size(); i++) {
+                    session.enqueue(AudioEngine.Clip.file(quotePaths.get(i),
+                            "Dynamic quote " + (i + 1) + "/" + quotePaths.size() + " (slow speed - 60%)")
+                            .pauseBefore(i == 0 ? QUOTE_PAUSE_MS : 0));
                 }
-                return true;
-            });
-            
-            mediaPlayer.prepareAsync();
-            mediaPlayer.setOnPreparedListener(mp -> {
-                mp.start();
-                Log.d(TAG, "▶️ Audio playback started: " + description);
-            });
-            
-        } catch (Exception e) {
-            Log.e(TAG, "❌ Error playing audio: " + e.getMessage());
-            if (callback != null) {
-                callback.run();
+                quotePaths = null;
+                session.closeWhenDone();
+            } else if (quoteFailed) {
+                session.closeWhenDone();
             }
         }
     }
     
-    private void playAudioFile(String audioFilePath, String description) {
-        playAudioFileWithCallback(audioFilePath, description, null);
+    private AudioEngine.Session openSession() {
+        // Replaces this service's previous speech, and any other service's
+        session = AudioEngine.getInstance(context).openSession(TAG, AudioEngine.PRIORITY_ALARM);
+        return session;
     }
     
-    private void cleanupAudioFile(String filePath) {
-        try {
-            File file = new File(filePath);
-            if (file.exists() && file.delete()) {
-                Log.d(TAG, "🧹 Cleaned up audio file: " + filePath);
-            }
-        } catch (Exception e) {
-            Log.e(TAG, "❌ Error cleaning up audio file: " + e.getMessage());
-        }
+    private void playAudioFile(String audioFilePath, String description) {
+        Log.d(TAG, "🔊 Playing audio: " + description + " - " + audioFilePath);
+        AudioEngine.Session single = openSession();
+        single.enqueue(AudioEngine.Clip.file(audioFilePath, description).onStarted(this::recordTimeToFirstAudio));
+        single.closeWhenDone();
     }
     
     // UPDATED: Play only dynamic quote (for testing)
     public void playDynamicQuoteOnly(String taskTitle, String scheduleTime) {
-        String dynamicQuote = generateDynamicQuote(taskTitle, scheduleTime);
+        String dynamicQuote = PhraseSegmenter.join(generateDynamicQuote(taskTitle, scheduleTime));
         Log.d(TAG, "🎯 === PLAYING DYNAMIC QUOTE ONLY ===");
         Log.d(TAG, "📝 Dynamic quote: " + dynamicQuote);
         
-        new GenerateSpeechTask("combined", "", dynamicQuote).execute();
+        synthesizeAndPlay("quote", dynamicQuote, "Dynamic quote");
     }
     
     // LEGACY METHOD: For backward compatibility with existing manager classes
     public void playHindiQuoteOnly() {
         // Use a default dynamic quote for compatibility
-        String defaultQuote = generateDynamicQuote("your task", "now");
+        String defaultQuote = PhraseSegmenter.join(generateDynamicQuote("your task", "now"));
         Log.d(TAG, "🔄 === LEGACY HINDI QUOTE METHOD - USING DYNAMIC QUOTE ===");
         Log.d(TAG, "📝 Using dynamic quote: " + defaultQuote);
         
-        new GenerateSpeechTask("combined", "", defaultQuote).execute();
+        synthesizeAndPlay("quote", defaultQuote, "Dynamic quote");
     }
     
     // UPDATED: Play only English message (for testing)
@@ -400,53 +573,29 @@ public class ElevenLabsNativeService {
         Log.d(TAG, "📢 === PLAYING ENGLISH MESSAGE ONLY ===");
         Log.d(TAG, "📝 English message: " + englishMessage);
         
-        new GenerateSpeechTask("combined", englishMessage, "").execute();
+        synthesizeAndPlay("combined", englishMessage, "English message");
     }
     
     public void stopAudio() {
-        try {
-            if (mediaPlayer != null) {
-                if (mediaPlayer.isPlaying()) {
-                    mediaPlayer.stop();
-                }
-                mediaPlayer.release();
-                mediaPlayer = null;
-                Log.d(TAG, "🛑 ElevenLabs audio stopped");
-            }
-        } catch (Exception e) {
-            Log.e(TAG, "❌ Error stopping ElevenLabs audio: " + e.getMessage());
+        // Dismissed mid-generation: drop pending segments and the queued quote
+        segments.cancelAll();
+        if (streamingSource != null) {
+            streamingSource.close();
+            streamingSource = null;
+        }
+        
+        if (session != null) {
+            session.close();
+            session = null;
+            Log.d(TAG, "🛑 ElevenLabs audio stopped");
         }
     }
     
     public void cleanup() {
         stopAudio();
-        
-        try {
-            File cacheDir = context.getCacheDir();
-            File[] files = cacheDir.listFiles();
-            if (files != null) {
-                for (File file : files) {
-                    if (file.getName().startsWith("elevenlabs_") && file.getName().endsWith(".mp3")) {
-                        if (file.delete()) {
-                            Log.d(TAG, "🧹 Cleaned up cached audio: " + file.getName());
-                        }
-                    }
-                }
-            }
-        } catch (Exception e) {
-            Log.e(TAG, "❌ Error during cleanup: " + e.getMessage());
-        }
-        
         Log.d(TAG, "✅ ElevenLabs Native Service cleanup completed");
     }
     
-    private static class SpeechResult {
-        String englishPath;
-        String hindiPath;
-        String combinedPath;
-        String error;
-    }
-    
     public String getServiceInfo() {
         return String.format(
             "ElevenLabs Native Service - UPDATED FLOW\n" +
@@ -458,7 +607,7 @@ public class ElevenLabsNativeService {
             "User: %s\n" +
             "Dynamic Quotes Available: %d\n" +
             "Status: TWO-PART FLOW WITH DYNAMIC QUOTES",
-            VOICE_ID, userProfile, MOTIVATIONAL_QUOTES.length
+            ElevenLabsClient.DEFAULT_VOICE_ID, userProfile, MOTIVATIONAL_QUOTES.length
         );
     }
 }
\ No newline at end of file
@@ -160,7 +160,6 @@ public class FloatingButtonModule extends ReactContextBaseJavaModule {
         private static final int NOTIFICATION_ID = 12346;
         private static final String CHANNEL_ID = "floating_notes_channel";
         private static final String PREFS_NAME = "FloatingNotesPrefs";
-        private static final String KEY_NOTE_ID = "note_id";
         private static final String KEY_WINDOW_WIDTH = "window_width";
         private static final String KEY_WINDOW_HEIGHT = "window_height";
         private static final String KEY_WINDOW_X = "window_x";
@@ -218,10 +217,12 @@ public class FloatingButtonModule extends ReactContextBaseJavaModule {
         private int initialButtonX, initialButtonY;
         private float initialButtonTouchX, initialButtonTouchY;
         
-        // Supabase integration
+        // Notes storage: local SQLite store, synced to Supabase in the background
         private String userId;
-        private String currentNoteId;
-        private boolean isSaving = false;
+        private NotesLocalStore notesStore;
+        private NotesSyncManager notesSyncManager;
+        private boolean suppressAutoSave = false;
+        private boolean autoSavePending = false;
 
         @Override
         public void onCreate() {
@@ -245,9 +246,16 @@ public class FloatingButtonModule extends ReactContextBaseJavaModule {
                 userId = NotesDatabase.getUserIdFromPrefs(this);
                 Log.d(TAG, "User ID: " + userId);
                 
-                // Load saved note ID
-                currentNoteId = prefs.getString(KEY_NOTE_ID, null);
-                Log.d(TAG, "Current note ID: " + currentNoteId);
+                notesStore = NotesLocalStore.getInstance(this);
+                notesSyncManager = NotesSyncManager.getInstance(this);
+                notesSyncManager.setRemoteChangeListener(new NotesSyncManager.RemoteChangeListener() {
+                    @Override
+                    public void onRemoteNoteApplied(NotesDatabase.Note note) {
+                        showRemoteNote(note);
+                    }
+                });
+                // Flush anything left in the outbox by a previous session
+                notesSyncManager.requestSync();
                 
                 // Create foreground service
                 createNotificationChannel();
@@ -800,6 +808,9 @@ public class FloatingButtonModule extends ReactContextBaseJavaModule {
                 
                 @Override
                 public void afterTextChanged(Editable s) {
+                    if (suppressAutoSave) {
+                        return;
+                    }
                     if (autoSaveRunnable != null) {
                         autoSaveHandler.removeCallbacks(autoSaveRunnable);
                     }
@@ -807,10 +818,12 @@ public class FloatingButtonModule extends ReactContextBaseJavaModule {
                     autoSaveRunnable = new Runnable() {
                         @Override
                         public void run() {
+                            autoSavePending = false;
                             String content = s.toString();
                             saveNotesToDatabase(content, false);
                         }
                     };
+                    autoSavePending = true;
                     autoSaveHandler.postDelayed(autoSaveRunnable, AUTO_SAVE_DELAY);
                 }
             });
@@ -844,51 +857,18 @@ public class FloatingButtonModule extends ReactContextBaseJavaModule {
                     clearButton.setText("");
                     clearLoader.setVisibility(View.VISIBLE);
                     
-                    if (currentNoteId != null) {
-                        new Thread(new Runnable() {
-                            @Override
-                            public void run() {
-                                try {
-                                    NotesDatabase.Note clearedNote = NotesDatabase.clearNotes(currentNoteId);
-                                    if (clearedNote != null) {
-                                        runOnUiThread(new Runnable() {
-                                            @Override
-                                            public void run() {
-                                                notesEditText.setText("");
-                                                Toast.makeText(FloatingButtonService.this, "Notes cleared!", Toast.LENGTH_SHORT).show();
-                                                
-                                                // Hide loader, show button text
-                                                clearLoader.setVisibility(View.GONE);
-                                                clearButton.setText("Clear");
-                                                clearButton.setEnabled(true);
-                                            }
-                                        });
-                                    }
-                                } catch (Exception e) {
-                                    Log.e(TAG, "Error clearing notes from database", e);
-                                    runOnUiThread(new Runnable() {
-                                        @Override
-                                        public void run() {
-                                            Toast.makeText(FloatingButtonService.this, "Failed to clear notes", Toast.LENGTH_SHORT).show();
-                                            
-                                            // Hide loader, show button text
-                                            clearLoader.setVisibility(View.GONE);
-                                            clearButton.setText("Clear");
-                                            clearButton.setEnabled(true);
-                                        }
-                                    });
-                                }
-                            }
-                        }).start();
-                    } else {
-                        notesEditText.setText("");
-                        Toast.makeText(FloatingButtonService.this, "Notes cleared!", Toast.LENGTH_SHORT).show();
-                        
-                        // Hide loader, show button text
-                        clearLoader.setVisibility(View.GONE);
-                        clearButton.setText("Clear");
-                        clearButton.setEnabled(true);
+                    if (autoSaveRunnable != null) {
+                        autoSaveHandler.removeCallbacks(autoSaveRunnable);
+                        autoSavePending = false;
                     }
+                    setNotesTextWithoutAutoSave("");
+                    saveNotesToDatabase("", false);
+                    Toast.makeText(FloatingButtonService.this, "Notes cleared!", Toast.LENGTH_SHORT).show();
+                    
+                    // Hide loader, show button text
+                    clearLoader.setVisibility(View.GONE);
+                    clearButton.setText("Clear");
+                    clearButton.setEnabled(true);
                 }
             });
         }
@@ -899,62 +879,84 @@ public class FloatingButtonModule extends ReactContextBaseJavaModule {
                 return;
             }
             
+            NotesDatabase.Note note = null;
+            try {
+                // Local read is a single indexed row, fast enough for the UI thread
+                long start = System.currentTimeMillis();
+                note = notesStore.getNote(userId);
+                Log.d(TAG, "📥 Notes loaded locally in " + (System.currentTimeMillis() - start) + "ms");
+                
+                if (notesEditText != null) {
+                    setNotesTextWithoutAutoSave(note != null && note.content != null ? note.content : "");
+                    notesEditText.setHint("Write your notes here...");
+                }
+            } catch (Exception e) {
+                Log.e(TAG, "❌ Error loading local notes", e);
+                if (notesEditText != null) {
+                    notesEditText.setHint("Error loading notes");
+                }
+            }
+            
+            if (note != null) {
+                // Pick up edits made elsewhere; the listener updates the window if the server copy is newer
+                notesSyncManager.refreshFromRemote(userId);
+                return;
+            }
+            
+            // Nothing stored on this device yet (first open after install or upgrade). An edit made
+            // before the server copy arrives would be newer and replace that note on upload, so the
+            // window stays read-only until the first refresh has finished or failed
+            setNotesEditable(false);
             if (notesEditText != null) {
-                notesEditText.setEnabled(false);
                 notesEditText.setHint("Loading notes...");
             }
-            
-            new Thread(new Runnable() {
+            notesSyncManager.refreshFromRemote(userId, new NotesSyncManager.RefreshCallback() {
                 @Override
-                public void run() {
-                    try {
-                        Log.d(TAG, "📥 Loading notes from database...");
-                        NotesDatabase.Note note = NotesDatabase.getUserNotes(userId);
-                        
-                        if (note != null) {
-                            currentNoteId = note.id;
-                            prefs.edit().putString(KEY_NOTE_ID, currentNoteId).apply();
-                            
-                            final String content = note.content != null ? note.content : "";
-                            
-                            runOnUiThread(new Runnable() {
-                                @Override
-                                public void run() {
-                                    if (notesEditText != null) {
-                                        notesEditText.setText(content);
-                                        notesEditText.setEnabled(true);
-                                        notesEditText.setHint("Write your notes here...");
-                                        Log.d(TAG, "✅ Notes loaded successfully");
-                                    }
-                                }
-                            });
-                        } else {
-                            Log.d(TAG, "ℹ️ No notes found for user");
-                            runOnUiThread(new Runnable() {
-                                @Override
-                                public void run() {
-                                    if (notesEditText != null) {
-                                        notesEditText.setEnabled(true);
-                                        notesEditText.setHint("Write your notes here...");
-                                    }
-                                }
-                            });
-                        }
-                    } catch (Exception e) {
-                        Log.e(TAG, "❌ Error loading notes from database", e);
-                        runOnUiThread(new Runnable() {
-                            @Override
-                            public void run() {
-                                if (notesEditText != null) {
-                                    notesEditText.setEnabled(true);
-                                    notesEditText.setHint("Error loading notes");
-                                }
-                                Toast.makeText(FloatingButtonService.this, "Failed to load notes", Toast.LENGTH_SHORT).show();
-                            }
-                        });
+                public void onRefreshFinished() {
+                    setNotesEditable(true);
+                    if (notesEditText != null) {
+                        notesEditText.setHint("Write your notes here...");
                     }
                 }
-            }).start();
+            });
+        }
+        
+        private void setNotesEditable(boolean editable) {
+            if (notesEditText != null) {
+                notesEditText.setEnabled(editable);
+            }
+            if (saveButton != null) {
+                saveButton.setEnabled(editable);
+            }
+            if (clearButton != null) {
+                clearButton.setEnabled(editable);
+            }
+        }
+        
+        private void showRemoteNote(NotesDatabase.Note note) {
+            if (!isNotesWindowVisible || notesEditText == null || note == null) {
+                return;
+            }
+            if (userId == null || !userId.equals(note.userId)) {
+                return;
+            }
+            // Don't clobber text the user is typing right now; their next save will win on updated_at
+            if (autoSavePending) {
+                Log.d(TAG, "Remote note arrived while typing - keeping local edit");
+                return;
+            }
+            Log.d(TAG, "🔄 Showing newer note from server");
+            setNotesTextWithoutAutoSave(note.content != null ? note.content : "");
+        }
+        
+        private void setNotesTextWithoutAutoSave(String content) {
+            suppressAutoSave = true;
+            try {
+                notesEditText.setText(content);
+                notesEditText.setSelection(content.length());
+            } finally {
+                suppressAutoSave = false;
+            }
         }
         
         private void saveNotesToDatabase(String content, final boolean showToast) {
@@ -976,75 +978,33 @@ public class FloatingButtonModule extends ReactContextBaseJavaModule {
                 return;
             }
             
-            if (isSaving) {
-                Log.d(TAG, "Already saving - skipping");
-                return;
+            boolean saved;
+            try {
+                Log.d(TAG, "💾 Saving notes locally...");
+                notesStore.saveLocal(userId, content);
+                notesSyncManager.requestSync();
+                saved = true;
+                Log.d(TAG, "✅ Notes saved locally, upload queued");
+            } catch (Exception e) {
+                Log.e(TAG, "❌ Error saving notes locally", e);
+                saved = false;
             }
             
-            isSaving = true;
-            
-            new Thread(new Runnable() {
-                @Override
-                public void run() {
-                    try {
-                        Log.d(TAG, "💾 Saving notes to database...");
-                        NotesDatabase.Note savedNote = NotesDatabase.saveNotes(userId, content, currentNoteId);
+            if (showToast) {
+                final boolean success = saved;
+                runOnUiThread(new Runnable() {
+                    @Override
+                    public void run() {
+                        Toast.makeText(FloatingButtonService.this,
+                                success ? "Notes saved!" : "Error saving notes", Toast.LENGTH_SHORT).show();
                         
-                        if (savedNote != null) {
-                            currentNoteId = savedNote.id;
-                            prefs.edit().putString(KEY_NOTE_ID, currentNoteId).apply();
-                            
-                            Log.d(TAG, "✅ Notes saved successfully");
-                            
-                            if (showToast) {
-                                runOnUiThread(new Runnable() {
-                                    @Override
-                                    public void run() {
-                                        Toast.makeText(FloatingButtonService.this, "Notes saved!", Toast.LENGTH_SHORT).show();
-                                        
-                                        // Hide loader, show button text
-                                        saveLoader.setVisibility(View.GONE);
-                                        saveButton.setText("Save");
-                                        saveButton.setEnabled(true);
-                                    }
-                                });
-                            }
-                        } else {
-                            Log.e(TAG, "❌ Failed to save notes");
-                            if (showToast) {
-                                runOnUiThread(new Runnable() {
-                                    @Override
-                                    public void run() {
-                                        Toast.makeText(FloatingButtonService.this, "Failed to save notes", Toast.LENGTH_SHORT).show();
-                                        
-                                        // Hide loader, show button text
-                                        saveLoader.setVisibility(View.GONE);
-                                        saveButton.setText("Save");
-                                        saveButton.setEnabled(true);
-                                    }
-                                });
-                            }
-                        }
-                    } catch (Exception e) {
-                        Log.e(TAG, "❌ Error saving notes to database", e);
-                        if (showToast) {
-                            runOnUiThread(new Runnable() {
-                                @Override
-                                public void run() {
-                                    Toast.makeText(FloatingButtonService.this, "Error saving notes", Toast.LENGTH_SHORT).show();
-                                    
-                                    // Hide loader, show button text
-                                    saveLoader.setVisibility(View.GONE);
-                                    saveButton.setText("Save");
-                                    saveButton.setEnabled(true);
-                                }
-                            });
-                        }
-                    } finally {
-                        isSaving = false;
+                        // Hide loader, show button text
+                        saveLoader.setVisibility(View.GONE);
+                        saveButton.setText("Save");
+                        saveButton.setEnabled(true);
                     }
-                }
-            }).start();
+                });
+            }
         }
         
         private void runOnUiThread(Runnable action) {
@@ -1061,10 +1021,11 @@ public class FloatingButtonModule extends ReactContextBaseJavaModule {
                     autoSaveHandler.removeCallbacks(autoSaveRunnable);
                 }
                 
-                if (notesEditText != null && userId != null) {
+                if (notesEditText != null && userId != null && autoSavePending) {
                     String content = notesEditText.getText().toString();
                     saveNotesToDatabase(content, false);
                 }
+                autoSavePending = false;
                 
                 if (notesWindowView != null && windowManager != null) {
                     windowManager.removeView(notesWindowView);
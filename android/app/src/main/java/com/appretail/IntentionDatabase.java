@@ -1,23 +1,16 @@
 package com.wingsfly;
 
+import android.content.Context;
+import android.util.JsonReader;
 import android.util.Log;
 
-import org.json.JSONArray;
-import org.json.JSONObject;
-
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
-import java.net.HttpURLConnection;
-import java.net.URL;
+import java.io.IOException;
+import java.util.List;
 
 public class IntentionDatabase {
     
     private static final String TAG = "IntentionDB";
     
-    // ✅ Supabase credentials from BuildConfig (loaded from local.properties)
-    private static final String SUPABASE_URL = BuildConfig.SUPABASE_URL;
-    private static final String SUPABASE_API_KEY = BuildConfig.SUPABASE_ANON_KEY;
-    
     public static class IntentionData {
         public String id;
         public String intentionText;
@@ -53,6 +46,41 @@ public class IntentionDatabase {
         }
     }
     
+    private static final String TABLE = "intention_settings";
+    
+    static final SupabaseRestClient.RowMapper<IntentionData> INTENTION_MAPPER = IntentionDatabase::readIntention;
+    
+    /**
+     * Decode one intention_settings row straight from the response stream
+     */
+    static IntentionData readIntention(JsonReader reader) throws IOException {
+        String id = null;
+        String intentionText = null;
+        String audioFileUrl = null;
+        String audioFileName = null;
+        String type = null;
+        
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "id": id = SupabaseRestClient.nextStringOrNull(reader); break;
+                case "intention_text": intentionText = SupabaseRestClient.nextStringOrNull(reader); break;
+                case "audio_file_url": audioFileUrl = SupabaseRestClient.nextStringOrNull(reader); break;
+                case "audio_file_name": audioFileName = SupabaseRestClient.nextStringOrNull(reader); break;
+                case "type": type = SupabaseRestClient.nextStringOrNull(reader); break;
+                default: reader.skipValue();
+            }
+        }
+        reader.endObject();
+        
+        return new IntentionData(
+                SupabaseRestClient.requireField(id, "id"),
+                intentionText != null ? intentionText : "",
+                audioFileUrl != null ? audioFileUrl : "",
+                audioFileName != null ? audioFileName : "",
+                type != null ? type : "text");
+    }
+    
     /**
      * Fetch intention settings from Supabase
      * Returns the most recent intention configuration set by admin
@@ -64,85 +92,24 @@ public class IntentionDatabase {
             Log.d(TAG, "========================================");
             Log.d(TAG, "Fetching intention data from Supabase...");
             
-            // Build URL with query parameters - get most recent record
-            String urlString = SUPABASE_URL + "/rest/v1/intention_settings" +
-                    "?select=*" +
-                    "&order=created_at.desc" +
-                    "&limit=1";
+            // Get most recent record
+            intentionData = SupabaseRestClient.getInstance().selectFirst(latestQuery(), INTENTION_MAPPER);
             
-            URL url = new URL(urlString);
-            HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-            
-            // Set headers
-            connection.setRequestMethod("GET");
-            connection.setRequestProperty("apikey", SUPABASE_API_KEY);
-            connection.setRequestProperty("Authorization", "Bearer " + SUPABASE_API_KEY);
-            connection.setRequestProperty("Content-Type", "application/json");
-            connection.setConnectTimeout(10000);
-            connection.setReadTimeout(10000);
-            
-            int responseCode = connection.getResponseCode();
-            Log.d(TAG, "Response code: " + responseCode);
-            
-            if (responseCode == HttpURLConnection.HTTP_OK) {
-                BufferedReader reader = new BufferedReader(
-                        new InputStreamReader(connection.getInputStream()));
-                StringBuilder response = new StringBuilder();
-                String line;
-                
-                while ((line = reader.readLine()) != null) {
-                    response.append(line);
-                }
-                reader.close();
-                
-                // Parse JSON response
-                JSONArray jsonArray = new JSONArray(response.toString());
+            if (intentionData != null) {
+                Log.d(TAG, "✅ Intention data fetched:");
+                Log.d(TAG, "  ID: " + intentionData.id);
+                Log.d(TAG, "  Type: " + intentionData.type);
                 
-                if (jsonArray.length() > 0) {
-                    JSONObject intentionObj = jsonArray.getJSONObject(0);
-                    
-                    String id = intentionObj.getString("id");
-                    String intentionText = intentionObj.optString("intention_text", "");
-                    String audioFileUrl = intentionObj.optString("audio_file_url", "");
-                    String audioFileName = intentionObj.optString("audio_file_name", "");
-                    String type = intentionObj.optString("type", "text");
-                    
-                    intentionData = new IntentionData(
-                            id, intentionText, audioFileUrl, audioFileName, type
-                    );
-                    
-                    Log.d(TAG, "✅ Intention data fetched:");
-                    Log.d(TAG, "  ID: " + id);
-                    Log.d(TAG, "  Type: " + type);
-                    
-                    if ("audio".equalsIgnoreCase(type)) {
-                        Log.d(TAG, "  Audio File: " + audioFileName);
-                        Log.d(TAG, "  Audio URL: " + audioFileUrl);
-                    } else {
-                        Log.d(TAG, "  Text: " + intentionText);
-                    }
+                if (intentionData.isAudioType()) {
+                    Log.d(TAG, "  Audio File: " + intentionData.audioFileName);
+                    Log.d(TAG, "  Audio URL: " + intentionData.audioFileUrl);
                 } else {
-                    Log.w(TAG, "⚠️ No intention data found in database");
+                    Log.d(TAG, "  Text: " + intentionData.intentionText);
                 }
-                
             } else {
-                Log.e(TAG, "❌ Error response code: " + responseCode);
-                
-                BufferedReader errorReader = new BufferedReader(
-                        new InputStreamReader(connection.getErrorStream()));
-                StringBuilder errorResponse = new StringBuilder();
-                String line;
-                
-                while ((line = errorReader.readLine()) != null) {
-                    errorResponse.append(line);
-                }
-                errorReader.close();
-                
-                Log.e(TAG, "Error response: " + errorResponse.toString());
+                Log.w(TAG, "⚠️ No intention data found in database");
             }
             
-            connection.disconnect();
-            
         } catch (Exception e) {
             Log.e(TAG, "❌ Exception fetching intention data: " + e.getMessage(), e);
         }
@@ -151,6 +118,41 @@ public class IntentionDatabase {
         return intentionData;
     }
     
+    /**
+     * Cached variant for alarm-time callers: returns the stored copy immediately and
+     * revalidates in the background once it is older than the table TTL
+     */
+    public static IntentionData fetchIntentionData(Context context) {
+        return fetchIntentionData(context, false);
+    }
+    
+    /**
+     * @param forceRefresh revalidate with the server first (used by the alarm content prefetch)
+     */
+    public static IntentionData fetchIntentionData(Context context, boolean forceRefresh) {
+        try {
+            List<IntentionData> rows = SupabaseResponseCache.getRows(context, latestQuery(), INTENTION_MAPPER, forceRefresh);
+            if (rows.isEmpty()) {
+                return null;
+            }
+            IntentionData data = rows.get(0);
+            // A new admin recording is downloaded now so the activity plays it from disk;
+            // a URL already stored or queued starts nothing
+            AlarmContentPrefetcher.prefetchMedia(context, AlarmContentPrefetcher.MEDIA_INTENTION, getAudioFileUrl(data));
+            return data;
+        } catch (Exception e) {
+            Log.e(TAG, "❌ Exception fetching cached intention data: " + e.getMessage(), e);
+            return null;
+        }
+    }
+    
+    private static SupabaseRestClient.Query latestQuery() {
+        return new SupabaseRestClient.Query(TABLE)
+                .select("*")
+                .order("created_at", false)
+                .limit(1);
+    }
+    
     /**
      * Get intention text for TTS
      * Returns empty string if audio type or no data
@@ -204,27 +206,8 @@ public class IntentionDatabase {
      * Test connection to Supabase
      */
     public static boolean testConnection() {
-        try {
-            String urlString = SUPABASE_URL + "/rest/v1/";
-            URL url = new URL(urlString);
-            HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-            
-            connection.setRequestMethod("GET");
-            connection.setRequestProperty("apikey", SUPABASE_API_KEY);
-            connection.setConnectTimeout(5000);
-            connection.setReadTimeout(5000);
-            
-            int responseCode = connection.getResponseCode();
-            connection.disconnect();
-            
-            boolean isConnected = (responseCode == HttpURLConnection.HTTP_OK);
-            Log.d(TAG, "Connection test: " + (isConnected ? "✅ Success" : "❌ Failed"));
-            
-            return isConnected;
-            
-        } catch (Exception e) {
-            Log.e(TAG, "Connection test failed", e);
-            return false;
-        }
+        boolean isConnected = SupabaseRestClient.getInstance().ping();
+        Log.d(TAG, "Connection test: " + (isConnected ? "✅ Success" : "❌ Failed"));
+        return isConnected;
     }
-}
\ No newline at end of file
+}
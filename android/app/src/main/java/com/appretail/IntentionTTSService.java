@@ -1,29 +1,21 @@
 package com.wingsfly;
 
 import android.content.Context;
-import android.media.AudioManager;
-import android.media.MediaPlayer;
-import android.os.AsyncTask;
 import android.util.Log;
 
 import org.json.JSONObject;
 
 import java.io.File;
-import java.io.FileOutputStream;
-import java.io.InputStream;
-import java.net.HttpURLConnection;
-import java.net.URL;
+import java.io.IOException;
 
 public class IntentionTTSService {
     
     private static final String TAG = "IntentionTTS";
-    private static final String VOICE_ID = "V79Doapn9P53cEABwysz";
-    private static final String API_KEY = BuildConfig.ELEVENLABS_API_KEY;
-    private static final String ELEVENLABS_API_URL = "https://api.elevenlabs.io/v1/text-to-speech/" + VOICE_ID;
     
     private Context context;
-    private MediaPlayer mediaPlayer;
+    private volatile AudioEngine.Session session;
     private CompletionCallback completionCallback;
+    private final TtsExecutor.Group segments = new TtsExecutor.Group();
     
     public interface CompletionCallback {
         void onCompleted();
@@ -48,14 +40,14 @@ public class IntentionTTSService {
         // Check if we have an audio URL (from Supabase storage)
         if (audioUrl != null && !audioUrl.isEmpty()) {
             Log.d(TAG, "Downloading audio from Supabase: " + audioUrl);
-            new DownloadAudioTask(audioUrl).execute();
+            downloadAudio(audioUrl);
             return;
         }
         
         // Fallback to TTS if no audio URL
         if (intentionText != null && !intentionText.isEmpty()) {
             Log.d(TAG, "Generating TTS for: " + intentionText);
-            new GenerateIntentionSpeechTask(intentionText).execute();
+            generateIntentionSpeech(intentionText);
         } else {
             Log.e(TAG, "No intention text or audio URL available");
             if (completionCallback != null) {
@@ -65,165 +57,58 @@ public class IntentionTTSService {
     }
     
     /**
-     * AsyncTask to download audio from Supabase storage
+     * Download audio from Supabase storage on the shared TTS pool and play it
      */
-    private class DownloadAudioTask extends AsyncTask<Void, Void, String> {
-        
-        private String audioUrl;
-        
-        public DownloadAudioTask(String audioUrl) {
-            this.audioUrl = audioUrl;
-        }
-        
-        @Override
-        protected String doInBackground(Void... params) {
-            try {
-                Log.d(TAG, "Downloading audio from: " + audioUrl);
-                
-                URL url = new URL(audioUrl);
-                HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-                connection.setRequestMethod("GET");
-                connection.setConnectTimeout(15000);
-                connection.setReadTimeout(15000);
-                
-                int responseCode = connection.getResponseCode();
-                Log.d(TAG, "Download response code: " + responseCode);
-                
-                if (responseCode == HttpURLConnection.HTTP_OK) {
-                    // Save audio file
-                    String fileName = "intention_audio_" + System.currentTimeMillis() + ".mp3";
-                    File audioFile = new File(context.getCacheDir(), fileName);
-                    
-                    InputStream inputStream = connection.getInputStream();
-                    FileOutputStream outputStream = new FileOutputStream(audioFile);
-                    
-                    byte[] buffer = new byte[4096];
-                    int bytesRead;
-                    long totalBytes = 0;
-                    
-                    while ((bytesRead = inputStream.read(buffer)) != -1) {
-                        outputStream.write(buffer, 0, bytesRead);
-                        totalBytes += bytesRead;
-                    }
-                    
-                    outputStream.close();
-                    inputStream.close();
-                    connection.disconnect();
-                    
-                    Log.d(TAG, "Audio downloaded successfully: " + audioFile.getAbsolutePath() + 
-                              " (Size: " + totalBytes + " bytes)");
-                    return audioFile.getAbsolutePath();
-                } else {
-                    Log.e(TAG, "Download failed: " + responseCode);
-                    connection.disconnect();
-                    return null;
-                }
-                
-            } catch (Exception e) {
-                Log.e(TAG, "Error downloading audio", e);
-                return null;
-            }
-        }
-        
-        @Override
-        protected void onPostExecute(String audioFilePath) {
-            if (audioFilePath != null) {
-                playAudio(audioFilePath, true); // true = downloaded file, delete after
-            } else {
-                Log.e(TAG, "Failed to download audio");
-                if (completionCallback != null) {
-                    completionCallback.onCompleted();
+    private void downloadAudio(final String audioUrl) {
+        // Usually already on disk from the prefetch done when the alarm was scheduled
+        segments.submit("intention download", () -> AlarmContentPrefetcher.getOrDownloadMedia(
+                context, AlarmContentPrefetcher.MEDIA_INTENTION, audioUrl), new IntentionAudioCallback() {
+            @Override
+            public void onResult(File audioFile) {
+                if (audioFile == null) {
+                    onError(new IOException("No audio downloaded"));
+                    return;
                 }
+                Log.d(TAG, "Intention audio ready: " + audioFile.getAbsolutePath() +
+                          " (Size: " + audioFile.length() + " bytes)");
+                playAudio(audioFile.getAbsolutePath(), false); // stored intention audio, keep for next time
             }
-        }
+        });
     }
     
     /**
-     * AsyncTask to generate speech for intention using ElevenLabs TTS
+     * Generate speech for intention using ElevenLabs TTS on the shared TTS pool and play it
      */
-    private class GenerateIntentionSpeechTask extends AsyncTask<Void, Void, String> {
-        
-        private String intentionText;
-        
-        public GenerateIntentionSpeechTask(String intentionText) {
-            this.intentionText = intentionText;
-        }
-        
-        @Override
-        protected String doInBackground(Void... params) {
-            try {
-                Log.d(TAG, "Generating TTS audio for: " + intentionText);
-                
-                // Create JSON payload
-                JSONObject jsonPayload = new JSONObject();
-                jsonPayload.put("text", intentionText);
-                jsonPayload.put("model_id", "eleven_multilingual_v2");
-                
-                // Voice settings - calm, motivational tone
-                JSONObject voiceSettings = new JSONObject();
-                voiceSettings.put("stability", 0.6);
-                voiceSettings.put("similarity_boost", 0.8);
-                voiceSettings.put("style", 0.4);
-                voiceSettings.put("use_speaker_boost", true);
-                
-                jsonPayload.put("voice_settings", voiceSettings);
-                jsonPayload.put("output_format", "mp3_44100_128");
-                
-                // Make API request
-                URL url = new URL(ELEVENLABS_API_URL);
-                HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-                connection.setRequestMethod("POST");
-                connection.setRequestProperty("Content-Type", "application/json");
-                connection.setRequestProperty("xi-api-key", API_KEY);
-                connection.setRequestProperty("Accept", "audio/mpeg");
-                connection.setDoOutput(true);
-                
-                connection.getOutputStream().write(jsonPayload.toString().getBytes());
-                
-                int responseCode = connection.getResponseCode();
-                Log.d(TAG, "TTS API response code: " + responseCode);
-                
-                if (responseCode == HttpURLConnection.HTTP_OK) {
-                    // Save audio file
-                    String fileName = "intention_tts_" + System.currentTimeMillis() + ".mp3";
-                    File audioFile = new File(context.getCacheDir(), fileName);
-                    
-                    InputStream inputStream = connection.getInputStream();
-                    FileOutputStream outputStream = new FileOutputStream(audioFile);
-                    
-                    byte[] buffer = new byte[4096];
-                    int bytesRead;
-                    while ((bytesRead = inputStream.read(buffer)) != -1) {
-                        outputStream.write(buffer, 0, bytesRead);
-                    }
-                    
-                    outputStream.close();
-                    inputStream.close();
-                    connection.disconnect();
-                    
-                    Log.d(TAG, "TTS audio saved: " + audioFile.getAbsolutePath());
-                    return audioFile.getAbsolutePath();
-                } else {
-                    Log.e(TAG, "TTS API request failed: " + responseCode);
-                    connection.disconnect();
-                    return null;
-                }
-                
-            } catch (Exception e) {
-                Log.e(TAG, "Error generating TTS audio", e);
-                return null;
+    private void generateIntentionSpeech(final String intentionText) {
+        Log.d(TAG, "Generating TTS audio for: " + intentionText);
+        segments.submit("intention", () -> {
+            // Voice settings - calm, motivational tone
+            JSONObject voiceSettings = new JSONObject();
+            voiceSettings.put("stability", 0.6);
+            voiceSettings.put("similarity_boost", 0.8);
+            voiceSettings.put("style", 0.4);
+            voiceSettings.put("use_speaker_boost", true);
+            
+            return TtsAudioCache.getOrSynthesize(context,
+                    new ElevenLabsClient.Request(intentionText).voiceSettings(voiceSettings));
+        }, new IntentionAudioCallback() {
+            @Override
+            public void onResult(File audioFile) {
+                Log.d(TAG, "TTS audio ready: " + audioFile.getAbsolutePath());
+                playAudio(audioFile.getAbsolutePath(), false); // cached for the next alarm
             }
-        }
-        
+        });
+    }
+    
+    /**
+     * Reports completion when the intention audio could not be obtained
+     */
+    private abstract class IntentionAudioCallback implements TtsExecutor.Callback<File> {
         @Override
-        protected void onPostExecute(String audioFilePath) {
-            if (audioFilePath != null) {
-                playAudio(audioFilePath, true); // true = TTS file, delete after
-            } else {
-                Log.e(TAG, "Failed to generate TTS audio");
-                if (completionCallback != null) {
-                    completionCallback.onCompleted();
-                }
+        public void onError(Exception error) {
+            Log.e(TAG, "Failed to get intention audio", error);
+            if (completionCallback != null) {
+                completionCallback.onCompleted();
             }
         }
     }
@@ -233,69 +118,35 @@ public class IntentionTTSService {
      * @param audioFilePath Path to audio file
      * @param shouldDeleteAfter true if file should be deleted after playback
      */
-    private void playAudio(String audioFilePath, boolean shouldDeleteAfter) {
-        try {
-            Log.d(TAG, "Playing audio: " + audioFilePath);
-            
-            if (mediaPlayer != null) {
-                mediaPlayer.release();
+    private void playAudio(final String audioFilePath, final boolean shouldDeleteAfter) {
+        Log.d(TAG, "Playing audio: " + audioFilePath);
+        
+        AudioEngine.Session intention = AudioEngine.getInstance(context).openSession(TAG, AudioEngine.PRIORITY_ALARM);
+        session = intention;
+        intention.setListener(new AudioEngine.SessionListener() {
+            @Override
+            public void onInterrupted() {
+                // Another alarm took over the audio
+                notifyCompleted();
             }
+        });
+        intention.enqueue(AudioEngine.Clip.file(audioFilePath, "Intention").onFinished(() -> {
+            Log.d(TAG, "Audio playback completed");
             
-            mediaPlayer = new MediaPlayer();
-            mediaPlayer.setDataSource(audioFilePath);
-            
-            // Set to alarm volume
-            AudioManager audioManager = (AudioManager) context.getSystemService(Context.AUDIO_SERVICE);
-            if (audioManager != null) {
-                mediaPlayer.setAudioStreamType(AudioManager.STREAM_ALARM);
-                int maxVolume = audioManager.getStreamMaxVolume(AudioManager.STREAM_ALARM);
-                audioManager.setStreamVolume(AudioManager.STREAM_ALARM, maxVolume, 0);
+            // Clean up file if needed
+            if (shouldDeleteAfter) {
+                cleanupAudioFile(audioFilePath);
             }
             
-            final boolean deleteFile = shouldDeleteAfter;
-            
-            mediaPlayer.setOnCompletionListener(mp -> {
-                Log.d(TAG, "Audio playback completed");
-                mp.release();
-                mediaPlayer = null;
-                
-                // Clean up file if needed
-                if (deleteFile) {
-                    cleanupAudioFile(audioFilePath);
-                }
-                
-                // Notify completion
-                if (completionCallback != null) {
-                    completionCallback.onCompleted();
-                }
-            });
-            
-            mediaPlayer.setOnErrorListener((mp, what, extra) -> {
-                Log.e(TAG, "MediaPlayer error: " + what + ", " + extra);
-                mp.release();
-                mediaPlayer = null;
-                
-                if (deleteFile) {
-                    cleanupAudioFile(audioFilePath);
-                }
-                
-                if (completionCallback != null) {
-                    completionCallback.onCompleted();
-                }
-                return true;
-            });
-            
-            mediaPlayer.prepareAsync();
-            mediaPlayer.setOnPreparedListener(mp -> {
-                mp.start();
-                Log.d(TAG, "Audio playback started");
-            });
-            
-        } catch (Exception e) {
-            Log.e(TAG, "Error playing audio", e);
-            if (completionCallback != null) {
-                completionCallback.onCompleted();
-            }
+            // Notify completion
+            notifyCompleted();
+        }));
+        intention.closeWhenDone();
+    }
+    
+    private void notifyCompleted() {
+        if (completionCallback != null) {
+            completionCallback.onCompleted();
         }
     }
     
@@ -303,17 +154,11 @@ public class IntentionTTSService {
      * Stop audio playback
      */
     public void stopAudio() {
-        try {
-            if (mediaPlayer != null) {
-                if (mediaPlayer.isPlaying()) {
-                    mediaPlayer.stop();
-                }
-                mediaPlayer.release();
-                mediaPlayer = null;
-                Log.d(TAG, "Audio stopped");
-            }
-        } catch (Exception e) {
-            Log.e(TAG, "Error stopping audio", e);
+        segments.cancelAll();
+        if (session != null) {
+            session.close();
+            session = null;
+            Log.d(TAG, "Audio stopped");
         }
     }
     
@@ -337,23 +182,6 @@ public class IntentionTTSService {
     public void cleanup() {
         stopAudio();
         completionCallback = null;
-        
-        try {
-            // Clean up cached audio files
-            File cacheDir = context.getCacheDir();
-            File[] files = cacheDir.listFiles();
-            if (files != null) {
-                for (File file : files) {
-                    if ((file.getName().startsWith("intention_tts_") || 
-                         file.getName().startsWith("intention_audio_")) && 
-                        file.getName().endsWith(".mp3")) {
-                        file.delete();
-                    }
-                }
-            }
-            Log.d(TAG, "Cleanup completed");
-        } catch (Exception e) {
-            Log.e(TAG, "Error during cleanup", e);
-        }
+        Log.d(TAG, "Cleanup completed");
     }
 }
\ No newline at end of file
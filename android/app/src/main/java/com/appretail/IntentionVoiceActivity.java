@@ -139,14 +139,15 @@ public class IntentionVoiceActivity extends Activity {
     }
     
     /**
-     * Fetch intention data directly from Supabase database
+     * Load intention data from the local cache (prefetched when the confirmation alarm was
+     * scheduled), falling back to Supabase only if nothing is stored yet
      */
     private void loadIntentionDataFromDatabase() {
         Log.d(TAG, "Loading intention data from Supabase database...");
         
         // Fetch in background thread
         new Thread(() -> {
-            intentionData = IntentionDatabase.fetchIntentionData();
+            intentionData = IntentionDatabase.fetchIntentionData(IntentionVoiceActivity.this);
             
             if (intentionData != null) {
                 Log.d(TAG, "✅ Intention data loaded: " + intentionData.toString());
@@ -51,6 +51,8 @@ class MainApplication : Application(), ReactApplication {
               add(FloatingButtonPackage())
               add(FCMPackage())
               add(BlockTimeSchedulerPackage())
+              add(NetworkMetricsPackage())
+              add(SessionTrackingPackage())
             }
 
         override fun getJSMainModuleName(): String = "index"
@@ -81,6 +83,12 @@ class MainApplication : Application(), ReactApplication {
         Log.e("DateReminder", "Error scheduling date reminders: ${e.message}", e)
     }
     
+    try {
+        MediaCacheJanitor.onAppStart(this)
+    } catch (e: Exception) {
+        Log.e("MediaCacheJanitor", "Error starting media cache cleanup: ${e.message}", e)
+    }
+    
     // Start our app lock service with better error handling
     try {
       Log.d("AppLock", "MainApplication: Starting app lock service")
@@ -0,0 +1,340 @@
+package com.wingsfly;
+
+import android.app.ActivityManager;
+import android.app.Application;
+import android.app.job.JobInfo;
+import android.app.job.JobScheduler;
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Build;
+import android.os.Process;
+import android.util.Log;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Keeps the audio and media files written by the native layer within one byte budget.
+ *
+ * Covers the synthesized speech in TtsAudioCache and the media downloaded by
+ * AlarmContentPrefetcher. Readers call touch(), which bumps the file's mtime, so lastModified
+ * is the access time every process sees; when the total goes over the budget the least
+ * recently used files are evicted first. Runs on app start in the main process and once a
+ * day as a job. The first run after upgrading also removes the
+ * per-playback mp3 files the TTS services used to leave in the cache directory.
+ */
+public final class MediaCacheJanitor {
+
+    private static final String TAG = "MediaCacheJanitor";
+
+    private static final int JOB_ID = 47400;
+    private static final long RUN_INTERVAL_MS = 24 * 60 * 60 * 1000L;
+
+    public static final long DEFAULT_BUDGET_BYTES = 100L * 1024 * 1024;
+    public static final long MIN_BUDGET_BYTES = 10L * 1024 * 1024;
+
+    // Partial downloads are resumed by MediaDownloader for this long
+    private static final long PARTIAL_MAX_AGE_MS = 24 * 60 * 60 * 1000L;
+
+    private static final String[] MANAGED_DIRS = {TtsAudioCache.CACHE_DIR, AlarmContentPrefetcher.MEDIA_DIR};
+    private static final String[] TEMP_SUFFIXES = {".part", ".stream"};
+    private static final String[] LEGACY_PREFIXES = {
+            "elevenlabs_", "intention_tts_", "intention_audio_", "morning_tts_", "voice_command_tts_"
+    };
+
+    private static final String PREFS_NAME = "MediaCacheJanitor";
+    private static final String KEY_BUDGET = "budget_bytes";
+    private static final String KEY_LAST_RUN_AT = "last_run_at";
+    private static final String KEY_LAST_EVICTED_FILES = "last_evicted_files";
+    private static final String KEY_LAST_EVICTED_BYTES = "last_evicted_bytes";
+    private static final String KEY_LEGACY_SWEPT = "legacy_swept";
+
+    /**
+     * Outcome of one pass
+     */
+    public static final class Result {
+        public final long totalBytes;
+        public final int fileCount;
+        public final int evictedFiles;
+        public final long evictedBytes;
+        public final int orphansDeleted;
+
+        Result(long totalBytes, int fileCount, int evictedFiles, long evictedBytes, int orphansDeleted) {
+            this.totalBytes = totalBytes;
+            this.fileCount = fileCount;
+            this.evictedFiles = evictedFiles;
+            this.evictedBytes = evictedBytes;
+            this.orphansDeleted = orphansDeleted;
+        }
+    }
+
+    private static final class Entry {
+        final File file;
+        final long length;
+        final long lastAccess;
+
+        Entry(File file) {
+            this.file = file;
+            this.length = file.length();
+            this.lastAccess = file.lastModified();
+        }
+    }
+
+    private MediaCacheJanitor() {
+    }
+
+    /**
+     * Clean up in the background and make sure the daily pass is scheduled. Only the main
+     * process does this; the :alarm process also creates the Application.
+     */
+    public static void onAppStart(Context context) {
+        final Context appContext = context.getApplicationContext();
+        if (!isMainProcess(appContext)) {
+            return;
+        }
+        new Thread(new Runnable() {
+            @Override
+            public void run() {
+                MediaCacheJanitor.run(appContext);
+            }
+        }, "MediaCacheJanitor").start();
+        scheduleDaily(appContext);
+    }
+
+    /**
+     * Record that a managed file was just read
+     */
+    public static void touch(Context context, File file) {
+        file.setLastModified(System.currentTimeMillis());
+    }
+
+    /**
+     * Delete orphans and evict least recently used files until the budget is met. Blocking.
+     */
+    public static synchronized Result run(Context context) {
+        long start = System.currentTimeMillis();
+        int orphans = deleteOrphans(context, start);
+
+        List<Entry> entries = new ArrayList<>();
+        long total = 0;
+        for (String dirName : MANAGED_DIRS) {
+            File[] files = new File(context.getFilesDir(), dirName).listFiles();
+            if (files == null) {
+                continue;
+            }
+            for (File file : files) {
+                if (!file.isFile() || isTemp(file.getName())) {
+                    continue;
+                }
+                Entry entry = new Entry(file);
+                entries.add(entry);
+                total += entry.length;
+            }
+        }
+
+        long budget = getBudgetBytes(context);
+        int evictedFiles = 0;
+        long evictedBytes = 0;
+        if (total > budget) {
+            Collections.sort(entries, new Comparator<Entry>() {
+                @Override
+                public int compare(Entry a, Entry b) {
+                    return Long.compare(a.lastAccess, b.lastAccess);
+                }
+            });
+            for (Entry entry : entries) {
+                if (total <= budget) {
+                    break;
+                }
+                if (entry.file.delete()) {
+                    total -= entry.length;
+                    evictedFiles++;
+                    evictedBytes += entry.length;
+                    Log.d(TAG, "Evicted " + entry.file.getParentFile().getName() + "/" + entry.file.getName());
+                }
+            }
+        }
+
+        prefs(context).edit()
+                .putLong(KEY_LAST_RUN_AT, start)
+                .putInt(KEY_LAST_EVICTED_FILES, evictedFiles)
+                .putLong(KEY_LAST_EVICTED_BYTES, evictedBytes)
+                .apply();
+
+        Result result = new Result(total, entries.size() - evictedFiles, evictedFiles, evictedBytes, orphans);
+        Log.d(TAG, "🧹 " + (total / 1024) + "KB in " + result.fileCount + " files (budget "
+                + (budget / 1024) + "KB), evicted " + evictedFiles + " (" + (evictedBytes / 1024)
+                + "KB), " + orphans + " orphans removed in " + (System.currentTimeMillis() - start) + "ms");
+        return result;
+    }
+
+    /**
+     * Cheap check after writing a file: a full pass only runs once the budget is exceeded
+     */
+    public static void trimIfOverBudget(Context context) {
+        if (getSizeBytes(context) > getBudgetBytes(context)) {
+            run(context);
+        }
+    }
+
+    /**
+     * Current size of the managed files, without cleaning anything. Counts the same files a
+     * pass can evict, so partial downloads never trigger a pass on their own.
+     */
+    public static long getSizeBytes(Context context) {
+        long total = 0;
+        for (String dirName : MANAGED_DIRS) {
+            File[] files = new File(context.getFilesDir(), dirName).listFiles();
+            if (files == null) {
+                continue;
+            }
+            for (File file : files) {
+                if (file.isFile() && !isTemp(file.getName())) {
+                    total += file.length();
+                }
+            }
+        }
+        return total;
+    }
+
+    public static int getFileCount(Context context) {
+        int count = 0;
+        for (String dirName : MANAGED_DIRS) {
+            File[] files = new File(context.getFilesDir(), dirName).listFiles();
+            if (files == null) {
+                continue;
+            }
+            for (File file : files) {
+                if (file.isFile() && !isTemp(file.getName())) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    public static long getBudgetBytes(Context context) {
+        return prefs(context).getLong(KEY_BUDGET, DEFAULT_BUDGET_BYTES);
+    }
+
+    /**
+     * Change the budget; applied by the next pass
+     */
+    public static void setBudgetBytes(Context context, long bytes) {
+        prefs(context).edit().putLong(KEY_BUDGET, Math.max(bytes, MIN_BUDGET_BYTES)).apply();
+    }
+
+    public static long getLastRunAt(Context context) {
+        return prefs(context).getLong(KEY_LAST_RUN_AT, 0);
+    }
+
+    public static int getLastEvictedFiles(Context context) {
+        return prefs(context).getInt(KEY_LAST_EVICTED_FILES, 0);
+    }
+
+    public static long getLastEvictedBytes(Context context) {
+        return prefs(context).getLong(KEY_LAST_EVICTED_BYTES, 0);
+    }
+
+    /**
+     * Half-written downloads, plus the legacy per-playback files on the first run
+     */
+    private static int deleteOrphans(Context context, long now) {
+        int deleted = 0;
+        for (String dirName : MANAGED_DIRS) {
+            File[] files = new File(context.getFilesDir(), dirName).listFiles();
+            if (files == null) {
+                continue;
+            }
+            for (File file : files) {
+                if (isTemp(file.getName()) && now - file.lastModified() > PARTIAL_MAX_AGE_MS && file.delete()) {
+                    deleted++;
+                }
+            }
+        }
+
+        // Nothing writes these any more, so one sweep after the upgrade is enough
+        SharedPreferences prefs = prefs(context);
+        if (!prefs.getBoolean(KEY_LEGACY_SWEPT, false)) {
+            File[] cached = context.getCacheDir().listFiles();
+            if (cached != null) {
+                for (File file : cached) {
+                    String name = file.getName();
+                    if (isLegacy(name) && file.delete()) {
+                        Log.d(TAG, "Removed legacy audio: " + name);
+                        deleted++;
+                    }
+                }
+            }
+            prefs.edit().putBoolean(KEY_LEGACY_SWEPT, true).apply();
+        }
+        return deleted;
+    }
+
+    private static boolean isTemp(String name) {
+        for (String suffix : TEMP_SUFFIXES) {
+            if (name.endsWith(suffix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isLegacy(String name) {
+        if (!name.endsWith(".mp3")) {
+            return false;
+        }
+        for (String prefix : LEGACY_PREFIXES) {
+            if (name.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void scheduleDaily(Context context) {
+        try {
+            JobScheduler scheduler = (JobScheduler) context.getSystemService(Context.JOB_SCHEDULER_SERVICE);
+            if (scheduler == null || scheduler.getPendingJob(JOB_ID) != null) {
+                return;
+            }
+            JobInfo job = new JobInfo.Builder(JOB_ID, new ComponentName(context, MediaCacheJanitorJobService.class))
+                    .setPeriodic(RUN_INTERVAL_MS)
+                    .setRequiresDeviceIdle(true)
+                    .setPersisted(true)
+                    .build();
+            scheduler.schedule(job);
+            Log.d(TAG, "Daily media cache cleanup scheduled");
+        } catch (Exception e) {
+            Log.e(TAG, "Could not schedule media cache cleanup", e);
+        }
+    }
+
+    private static boolean isMainProcess(Context context) {
+        String name = null;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.P) {
+            name = Application.getProcessName();
+        } else {
+            ActivityManager am = (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
+            List<ActivityManager.RunningAppProcessInfo> processes = am != null ? am.getRunningAppProcesses() : null;
+            if (processes != null) {
+                for (ActivityManager.RunningAppProcessInfo process : processes) {
+                    if (process.pid == Process.myPid()) {
+                        name = process.processName;
+                        break;
+                    }
+                }
+            }
+        }
+        // Unknown counts as main so the cleanup is never skipped everywhere
+        return name == null || name.equals(context.getPackageName());
+    }
+
+    private static SharedPreferences prefs(Context context) {
+        return context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+}
@@ -0,0 +1,33 @@
+package com.wingsfly;
+
+import android.app.job.JobParameters;
+import android.app.job.JobService;
+import android.util.Log;
+
+/**
+ * Daily MediaCacheJanitor pass, run while the device is idle.
+ */
+public class MediaCacheJanitorJobService extends JobService {
+
+    private static final String TAG = "MediaCacheJanitorJob";
+
+    @Override
+    public boolean onStartJob(final JobParameters params) {
+        new Thread(() -> {
+            try {
+                MediaCacheJanitor.run(getApplicationContext());
+            } catch (Exception e) {
+                Log.e(TAG, "Media cache cleanup failed", e);
+            }
+            jobFinished(params, false);
+        }, "MediaCacheJanitor").start();
+        return true;
+    }
+
+    @Override
+    public boolean onStopJob(JobParameters params) {
+        // Whatever was evicted stays evicted; the next daily run finishes the job
+        Log.d(TAG, "Media cache cleanup stopped by the system");
+        return false;
+    }
+}
@@ -0,0 +1,207 @@
+package com.wingsfly;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+
+/**
+ * Downloads remote media into a file, resuming interrupted transfers and revalidating
+ * stored copies.
+ *
+ * An interrupted download keeps its partial file together with the validator (ETag, or
+ * Last-Modified when there is none) it was fetched under. The next attempt, including a
+ * NetworkResilience retry or a run after the process was killed, asks only for the missing
+ * bytes with Range + If-Range; if the file changed on the server the response is the full
+ * body and the download starts over. Completed files keep their validator so a refresh is a
+ * conditional GET that usually ends in a 304.
+ */
+final class MediaDownloader {
+
+    private static final String TAG = "MediaDownloader";
+
+    private static final int TIMEOUT_MS = 15000;
+    private static final int HTTP_RANGE_NOT_SATISFIABLE = 416;
+
+    private static final String PREFS_NAME = "MediaDownloader";
+    private static final String KEY_VALIDATOR = "validator_";
+    private static final String KEY_PARTIAL_VALIDATOR = "partial_validator_";
+
+    private MediaDownloader() {
+    }
+
+    /**
+     * Make sure target holds the current content of url. Blocking.
+     *
+     * @param revalidate target already exists; only replace it if the server has a newer
+     *                   version
+     * @return bytes received, 0 if the stored copy was still current
+     */
+    static long fetch(Context context, URL url, File target, boolean revalidate) throws IOException {
+        SharedPreferences prefs = prefs(context);
+        String name = target.getName();
+        File partial = new File(target.getPath() + ".part");
+
+        String storedValidator = prefs.getString(KEY_VALIDATOR + name, null);
+        if (revalidate && storedValidator == null) {
+            // Nothing to compare against; the URL keys the file, so keep what we have
+            return 0;
+        }
+        String partialValidator = prefs.getString(KEY_PARTIAL_VALIDATOR + name, null);
+        long offset = !revalidate && partialValidator != null && partial.exists() ? partial.length() : 0;
+
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        try {
+            connection.setRequestMethod("GET");
+            connection.setConnectTimeout(TIMEOUT_MS);
+            connection.setReadTimeout(TIMEOUT_MS);
+            // Byte offsets must refer to the stored representation
+            connection.setRequestProperty("Accept-Encoding", "identity");
+            if (revalidate) {
+                connection.setRequestProperty(isEtag(storedValidator) ? "If-None-Match" : "If-Modified-Since",
+                        storedValidator);
+            } else if (offset > 0) {
+                connection.setRequestProperty("Range", "bytes=" + offset + "-");
+                connection.setRequestProperty("If-Range", partialValidator);
+            }
+
+            int responseCode = connection.getResponseCode();
+            if (responseCode == HttpURLConnection.HTTP_NOT_MODIFIED && revalidate) {
+                Log.d(TAG, "Still current: " + name);
+                return 0;
+            }
+            if (responseCode == HTTP_RANGE_NOT_SATISFIABLE) {
+                // The partial no longer matches the remote file; the retry starts from zero
+                forgetPartial(prefs, name, partial);
+                throw new IOException("Stale partial download of " + name);
+            }
+
+            boolean append;
+            long expectedLength;
+            if (responseCode == HttpURLConnection.HTTP_PARTIAL && offset > 0) {
+                long[] range = parseContentRange(connection.getHeaderField("Content-Range"));
+                if (range == null || range[0] != offset) {
+                    forgetPartial(prefs, name, partial);
+                    throw new IOException("Unexpected range for " + name);
+                }
+                append = true;
+                expectedLength = range[1];
+            } else if (responseCode == HttpURLConnection.HTTP_OK) {
+                append = false;
+                offset = 0;
+                expectedLength = connection.getContentLengthLong();
+            } else {
+                throw new NetworkResilience.HttpStatusException(responseCode, null);
+            }
+
+            String validator = validatorOf(connection);
+            if (!append) {
+                // Recorded before any byte is written, so a partial always has its validator
+                SharedPreferences.Editor editor = prefs.edit();
+                if (validator != null) {
+                    editor.putString(KEY_PARTIAL_VALIDATOR + name, validator);
+                } else {
+                    editor.remove(KEY_PARTIAL_VALIDATOR + name);
+                }
+                editor.commit();
+            }
+
+            long received = 0;
+            try (InputStream in = connection.getInputStream();
+                 OutputStream out = new FileOutputStream(partial, append)) {
+                byte[] buffer = new byte[8192];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    out.write(buffer, 0, read);
+                    received += read;
+                }
+            }
+
+            long size = partial.length();
+            if (expectedLength >= 0 && size != expectedLength) {
+                // Kept for the retry to resume from
+                throw new IOException("Incomplete download of " + name + ": " + size + " of " + expectedLength);
+            }
+
+            // Readers only ever see complete files
+            if (!partial.renameTo(target)) {
+                throw new IOException("Could not move " + partial + " into place");
+            }
+            SharedPreferences.Editor editor = prefs.edit().remove(KEY_PARTIAL_VALIDATOR + name);
+            if (validator != null) {
+                editor.putString(KEY_VALIDATOR + name, validator);
+            } else {
+                editor.remove(KEY_VALIDATOR + name);
+            }
+            editor.apply();
+
+            if (offset > 0) {
+                Log.d(TAG, "Resumed " + name + " at " + offset + " bytes, received " + received);
+            }
+            return received;
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    /**
+     * Drop the stored validators of a file that is no longer kept
+     */
+    static void forget(Context context, String name) {
+        prefs(context).edit()
+                .remove(KEY_VALIDATOR + name)
+                .remove(KEY_PARTIAL_VALIDATOR + name)
+                .apply();
+    }
+
+    private static void forgetPartial(SharedPreferences prefs, String name, File partial) {
+        partial.delete();
+        prefs.edit().remove(KEY_PARTIAL_VALIDATOR + name).commit();
+    }
+
+    private static String validatorOf(HttpURLConnection connection) {
+        String etag = connection.getHeaderField("ETag");
+        if (etag != null && !etag.isEmpty()) {
+            return etag;
+        }
+        String lastModified = connection.getHeaderField("Last-Modified");
+        return lastModified != null && !lastModified.isEmpty() ? lastModified : null;
+    }
+
+    private static boolean isEtag(String validator) {
+        return validator.startsWith("\"") || validator.startsWith("W/");
+    }
+
+    /**
+     * "bytes 100-199/200" as {first byte, total length}; total is -1 when unknown
+     */
+    static long[] parseContentRange(String header) {
+        if (header == null || !header.startsWith("bytes ")) {
+            return null;
+        }
+        try {
+            String spec = header.substring("bytes ".length()).trim();
+            int dash = spec.indexOf('-');
+            int slash = spec.indexOf('/');
+            if (dash < 0 || slash < dash) {
+                return null;
+            }
+            long first = Long.parseLong(spec.substring(0, dash).trim());
+            String total = spec.substring(slash + 1).trim();
+            return new long[]{first, "*".equals(total) ? -1 : Long.parseLong(total)};
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static SharedPreferences prefs(Context context) {
+        return context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+}
@@ -64,7 +64,7 @@ public class MorningRoutineAlarmModule extends ReactContextBaseJavaModule {
             saveRoutineConfig(userId, name, time, isEnabled);
             Log.d(TAG, "✅ Routine config saved to SharedPreferences");
             
-            // Convert commands to JSON string (optional - we fetch from DB on trigger)
+            // Convert commands to JSON string (optional - commands are prefetched into the local cache)
             String commandsJson = "";
             if (routineData.hasKey("commands") && routineData.getArray("commands") != null) {
                 ReadableArray commandsArray = routineData.getArray("commands");
@@ -190,7 +190,9 @@ public class MorningRoutineAlarmModule extends ReactContextBaseJavaModule {
             alarmIntent.putExtra("alarmType", "MORNING_WAKEUP");
             alarmIntent.setAction("MORNING_WAKEUP_ALARM_" + userId);
             
-            int requestCode = Math.abs(("morning_wakeup_" + userId).hashCode());
+            int requestCode = AlarmRegistry.getInstance(context).register(AlarmRegistry.TYPE_MORNING_ROUTINE,
+                userId, triggerTime, AlarmRegistry.RECURRENCE_DAILY, userId, alarmIntent,
+                Math.abs(("morning_wakeup_" + userId).hashCode()));
             PendingIntent pendingIntent = PendingIntent.getBroadcast(
                 context, 
                 requestCode, 
@@ -215,10 +217,14 @@ public class MorningRoutineAlarmModule extends ReactContextBaseJavaModule {
                     Log.d(TAG, "✅ Alarm scheduled using set");
                 }
                 
+                // Store commands locally now so the alarm does not need the network when it fires
+                AlarmContentPrefetcher.onAlarmScheduled(context, AlarmContentPrefetcher.KIND_MORNING_ROUTINE, triggerTime);
+                
                 return true;
                 
             } catch (SecurityException e) {
                 Log.e(TAG, "Security exception scheduling alarm", e);
+                AlarmRegistry.getInstance(context).remove(AlarmRegistry.TYPE_MORNING_ROUTINE, userId, requestCode);
                 return false;
             }
             
@@ -244,7 +250,8 @@ public class MorningRoutineAlarmModule extends ReactContextBaseJavaModule {
             Intent alarmIntent = new Intent(reactContext, MorningRoutineWakeUpAlarmReceiver.class);
             alarmIntent.setAction("MORNING_WAKEUP_ALARM_" + userId);
             
-            int requestCode = Math.abs(("morning_wakeup_" + userId).hashCode());
+            int requestCode = AlarmRegistry.getInstance(reactContext).remove(AlarmRegistry.TYPE_MORNING_ROUTINE,
+                userId, Math.abs(("morning_wakeup_" + userId).hashCode()));
             PendingIntent pendingIntent = PendingIntent.getBroadcast(
                 reactContext, 
                 requestCode, 
@@ -1,15 +1,13 @@
 package com.wingsfly;
 
 import android.content.Context;
+import android.util.JsonReader;
 import android.util.Log;
 
 import org.json.JSONArray;
 import org.json.JSONObject;
 
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
-import java.net.HttpURLConnection;
-import java.net.URL;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -17,10 +15,6 @@ public class MorningRoutineDatabase {
     
     private static final String TAG = "MorningRoutineDB";
     
-   // ✅ Supabase credentials from BuildConfig (loaded from local.properties)
-    private static final String SUPABASE_URL = BuildConfig.SUPABASE_URL;
-    private static final String SUPABASE_API_KEY = BuildConfig.SUPABASE_ANON_KEY;
-    
     public static class VoiceCommand {
         public String id;
         public String text;
@@ -48,6 +42,41 @@ public class MorningRoutineDatabase {
         }
     }
     
+    private static final String TABLE = "morning_routine_voice_commands";
+    
+    static final SupabaseRestClient.RowMapper<VoiceCommand> COMMAND_MAPPER = MorningRoutineDatabase::readCommand;
+    
+    /**
+     * Decode one voice command row straight from the response stream
+     */
+    static VoiceCommand readCommand(JsonReader reader) throws IOException {
+        String id = null;
+        String text = null;
+        int lockDuration = 0; // seconds from DB
+        int gapTime = 0; // seconds from DB
+        int sequenceOrder = 0;
+        
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "id": id = SupabaseRestClient.nextStringOrNull(reader); break;
+                case "command_text": text = SupabaseRestClient.nextStringOrNull(reader); break;
+                case "lock_duration": lockDuration = SupabaseRestClient.nextIntOrDefault(reader, 0); break;
+                case "gap_time": gapTime = SupabaseRestClient.nextIntOrDefault(reader, 0); break;
+                case "sequence_order": sequenceOrder = SupabaseRestClient.nextIntOrDefault(reader, 0); break;
+                default: reader.skipValue();
+            }
+        }
+        reader.endObject();
+        
+        return new VoiceCommand(
+                SupabaseRestClient.requireField(id, "id"),
+                SupabaseRestClient.requireField(text, "command_text"),
+                lockDuration,
+                gapTime,
+                sequenceOrder);
+    }
+    
     /**
      * Fetch morning routine voice commands from Supabase
      * Returns list of commands ordered by sequence_order
@@ -59,79 +88,17 @@ public class MorningRoutineDatabase {
             Log.d(TAG, "========================================");
             Log.d(TAG, "Fetching voice commands from Supabase...");
             
-            // Build URL with query parameters
-            String urlString = SUPABASE_URL + "/rest/v1/morning_routine_voice_commands" +
-                    "?select=*" +
-                    "&order=sequence_order.asc";
+            commands = SupabaseRestClient.getInstance().select(commandsQuery(), COMMAND_MAPPER);
             
-            URL url = new URL(urlString);
-            HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-            
-            // Set headers
-            connection.setRequestMethod("GET");
-            connection.setRequestProperty("apikey", SUPABASE_API_KEY);
-            connection.setRequestProperty("Authorization", "Bearer " + SUPABASE_API_KEY);
-            connection.setRequestProperty("Content-Type", "application/json");
-            connection.setConnectTimeout(10000);
-            connection.setReadTimeout(10000);
-            
-            int responseCode = connection.getResponseCode();
-            Log.d(TAG, "Response code: " + responseCode);
-            
-            if (responseCode == HttpURLConnection.HTTP_OK) {
-                BufferedReader reader = new BufferedReader(
-                        new InputStreamReader(connection.getInputStream()));
-                StringBuilder response = new StringBuilder();
-                String line;
-                
-                while ((line = reader.readLine()) != null) {
-                    response.append(line);
-                }
-                reader.close();
-                
-                // Parse JSON response
-                JSONArray jsonArray = new JSONArray(response.toString());
-                
-                for (int i = 0; i < jsonArray.length(); i++) {
-                    JSONObject cmdObj = jsonArray.getJSONObject(i);
-                    
-                    String id = cmdObj.getString("id");
-                    String commandText = cmdObj.getString("command_text");
-                    int lockDuration = cmdObj.getInt("lock_duration"); // seconds from DB
-                    int gapTime = cmdObj.getInt("gap_time"); // seconds from DB
-                    int sequenceOrder = cmdObj.getInt("sequence_order");
-                    
-                    VoiceCommand command = new VoiceCommand(
-                            id, commandText, lockDuration, gapTime, sequenceOrder
-                    );
-                    
-                    commands.add(command);
-                    
-                    Log.d(TAG, "Command #" + (i+1) + ":");
-                    Log.d(TAG, "  Text: " + commandText);
-                    Log.d(TAG, "  Lock Duration: " + lockDuration + " seconds (" + formatSeconds(lockDuration) + ")");
-                    Log.d(TAG, "  Gap Time: " + gapTime + " seconds (" + formatSeconds(gapTime) + ")");
-                }
-                
-                Log.d(TAG, "✅ Successfully fetched " + commands.size() + " commands");
-                
-            } else {
-                Log.e(TAG, "❌ Error response code: " + responseCode);
-                
-                BufferedReader errorReader = new BufferedReader(
-                        new InputStreamReader(connection.getErrorStream()));
-                StringBuilder errorResponse = new StringBuilder();
-                String line;
-                
-                while ((line = errorReader.readLine()) != null) {
-                    errorResponse.append(line);
-                }
-                errorReader.close();
-                
-                Log.e(TAG, "Error response: " + errorResponse.toString());
+            for (int i = 0; i < commands.size(); i++) {
+                VoiceCommand command = commands.get(i);
+                Log.d(TAG, "Command #" + (i+1) + ":");
+                Log.d(TAG, "  Text: " + command.text);
+                Log.d(TAG, "  Lock Duration: " + command.lockDurationSeconds + " seconds (" + formatSeconds(command.lockDurationSeconds) + ")");
+                Log.d(TAG, "  Gap Time: " + command.gapTimeSeconds + " seconds (" + formatSeconds(command.gapTimeSeconds) + ")");
             }
             
-            connection.disconnect();
+            Log.d(TAG, "✅ Successfully fetched " + commands.size() + " commands");
             
         } catch (Exception e) {
             Log.e(TAG, "❌ Exception fetching commands: " + e.getMessage(), e);
@@ -141,6 +108,32 @@ public class MorningRoutineDatabase {
         return commands;
     }
     
+    /**
+     * Cached variant for alarm-time callers: returns the stored commands immediately and
+     * revalidates in the background once they are older than the table TTL
+     */
+    public static List<VoiceCommand> fetchVoiceCommands(Context context) {
+        return fetchVoiceCommands(context, false);
+    }
+    
+    /**
+     * @param forceRefresh revalidate with the server first (used by the alarm content prefetch)
+     */
+    public static List<VoiceCommand> fetchVoiceCommands(Context context, boolean forceRefresh) {
+        try {
+            return SupabaseResponseCache.getRows(context, commandsQuery(), COMMAND_MAPPER, forceRefresh);
+        } catch (Exception e) {
+            Log.e(TAG, "❌ Exception fetching cached commands: " + e.getMessage(), e);
+            return new ArrayList<>();
+        }
+    }
+    
+    private static SupabaseRestClient.Query commandsQuery() {
+        return new SupabaseRestClient.Query(TABLE)
+                .select("*")
+                .order("sequence_order", true);
+    }
+    
     /**
      * Convert database commands to JSON format for Android activity
      * CRITICAL: Lock duration and gap time are in SECONDS (as stored in database)
@@ -209,27 +202,8 @@ public class MorningRoutineDatabase {
      * Test connection to Supabase
      */
     public static boolean testConnection() {
-        try {
-            String urlString = SUPABASE_URL + "/rest/v1/";
-            URL url = new URL(urlString);
-            HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-            
-            connection.setRequestMethod("GET");
-            connection.setRequestProperty("apikey", SUPABASE_API_KEY);
-            connection.setConnectTimeout(5000);
-            connection.setReadTimeout(5000);
-            
-            int responseCode = connection.getResponseCode();
-            connection.disconnect();
-            
-            boolean isConnected = (responseCode == HttpURLConnection.HTTP_OK);
-            Log.d(TAG, "Connection test: " + (isConnected ? "✅ Success" : "❌ Failed"));
-            
-            return isConnected;
-            
-        } catch (Exception e) {
-            Log.e(TAG, "Connection test failed", e);
-            return false;
-        }
+        boolean isConnected = SupabaseRestClient.getInstance().ping();
+        Log.d(TAG, "Connection test: " + (isConnected ? "✅ Success" : "❌ Failed"));
+        return isConnected;
     }
-}
\ No newline at end of file
+}
@@ -10,9 +10,6 @@ import android.content.Context;
 import android.content.Intent;
 import android.content.IntentFilter;
 import android.graphics.PixelFormat;
-import android.media.AudioAttributes;
-import android.media.AudioManager;
-import android.media.MediaPlayer;
 import android.media.RingtoneManager;
 import android.net.Uri;
 import android.os.Build;
@@ -41,8 +38,7 @@ public class MorningRoutineWakeUpAlarmActivity extends Activity {
     private static final int SNOOZE_MINUTES = 5;
     
     private Vibrator vibrator;
-    private MediaPlayer mediaPlayer;
-    private AudioManager audioManager;
+    private AudioEngine.Session alarmSound;
     private Handler timeHandler;
     private Runnable timeRunnable;
     private PowerManager.WakeLock wakeLock;
@@ -497,41 +493,26 @@ public class MorningRoutineWakeUpAlarmActivity extends Activity {
     }
     
     private void startAlarmSound() {
-        try {
-            audioManager = (AudioManager) getSystemService(Context.AUDIO_SERVICE);
-            
-            if (audioManager != null) {
-                int maxVolume = audioManager.getStreamMaxVolume(AudioManager.STREAM_ALARM);
-                audioManager.setStreamVolume(AudioManager.STREAM_ALARM, maxVolume, 0);
-            }
-            
-            Uri alarmUri = RingtoneManager.getDefaultUri(RingtoneManager.TYPE_ALARM);
-            if (alarmUri == null) {
-                alarmUri = RingtoneManager.getDefaultUri(RingtoneManager.TYPE_NOTIFICATION);
-            }
-            
-            mediaPlayer = new MediaPlayer();
-            
-            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
-                AudioAttributes attributes = new AudioAttributes.Builder()
-                    .setUsage(AudioAttributes.USAGE_ALARM)
-                    .setContentType(AudioAttributes.CONTENT_TYPE_SONIFICATION)
-                    .build();
-                mediaPlayer.setAudioAttributes(attributes);
-            } else {
-                mediaPlayer.setAudioStreamType(AudioManager.STREAM_ALARM);
+        // The engine raises the alarm volume while the tone plays and restores it afterwards
+        AudioEngine.Clip tone = null;
+        int[] types = {RingtoneManager.TYPE_NOTIFICATION, RingtoneManager.TYPE_ALARM};
+        for (int type : types) {
+            Uri uri = RingtoneManager.getDefaultUri(type);
+            if (uri != null) {
+                tone = AudioEngine.Clip.uri(uri, "Wake-up tone")
+                    .looping(true)
+                    .onStarted(() -> Log.d(TAG, "Alarm sound started"))
+                    .fallback(tone);
             }
-            
-            mediaPlayer.setDataSource(this, alarmUri);
-            mediaPlayer.setLooping(true);
-            mediaPlayer.prepare();
-            mediaPlayer.start();
-            
-            Log.d(TAG, "Alarm sound started");
-            
-        } catch (Exception e) {
-            Log.e(TAG, "Error starting alarm sound", e);
         }
+        
+        if (tone == null) {
+            Log.e(TAG, "No alarm tone available");
+            return;
+        }
+        
+        alarmSound = AudioEngine.getInstance(this).openSession(TAG, AudioEngine.PRIORITY_ALARM);
+        alarmSound.enqueue(tone);
     }
     
     private void handleSnooze() {
@@ -630,16 +611,9 @@ public class MorningRoutineWakeUpAlarmActivity extends Activity {
             vibrator = null;
         }
         
-        if (mediaPlayer != null) {
-            try {
-                if (mediaPlayer.isPlaying()) {
-                    mediaPlayer.stop();
-                }
-                mediaPlayer.release();
-            } catch (Exception e) {
-                Log.e(TAG, "Error stopping media player", e);
-            }
-            mediaPlayer = null;
+        if (alarmSound != null) {
+            alarmSound.close();
+            alarmSound = null;
         }
         
         if (timeHandler != null && timeRunnable != null) {
@@ -55,8 +55,8 @@ public class MorningRoutineWakeUpAlarmReceiver extends BroadcastReceiver {
                 rescheduleForNextDay(context, userId, name, time);
             }
             
-            // ✅ FETCH COMMANDS FROM DATABASE when alarm triggers
-            Log.d(TAG, "📥 Fetching fresh commands from database...");
+            // ✅ LOAD COMMANDS - prefetched into the local cache when the alarm was scheduled
+            Log.d(TAG, "📥 Loading commands (local cache first)...");
             
             String commands = null;
             
@@ -65,7 +65,7 @@ public class MorningRoutineWakeUpAlarmReceiver extends BroadcastReceiver {
             final Thread fetchThread = new Thread(() -> {
                 try {
                     List<MorningRoutineDatabase.VoiceCommand> dbCommands = 
-                            MorningRoutineDatabase.fetchVoiceCommands();
+                            MorningRoutineDatabase.fetchVoiceCommands(context);
                     
                     if (dbCommands != null && !dbCommands.isEmpty()) {
                         commandsResult[0] = MorningRoutineDatabase.convertCommandsToJson(dbCommands);
@@ -196,7 +196,7 @@ public class MorningRoutineWakeUpAlarmReceiver extends BroadcastReceiver {
                 userId, 
                 name, 
                 time, 
-                "", // Commands will be fetched from DB when alarm fires
+                "", // Commands are prefetched into the local cache
                 nextAlarmTime
             );
             
@@ -0,0 +1,172 @@
+package com.wingsfly;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.Promise;
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.bridge.ReactContextBaseJavaModule;
+import com.facebook.react.bridge.ReactMethod;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.Map;
+
+/**
+ * Exposes native network health to JS: per-endpoint latency/error metrics, circuit
+ * breaker states and single-flight deduplication counts, plus the size of the native
+ * media cache and the tier that served each alarm speech.
+ */
+public class NetworkMetricsModule extends ReactContextBaseJavaModule {
+    
+    private static final String TAG = "NetworkMetricsModule";
+    
+    public NetworkMetricsModule(ReactApplicationContext reactContext) {
+        super(reactContext);
+    }
+    
+    @Override
+    public String getName() {
+        return "NetworkMetricsModule";
+    }
+    
+    @ReactMethod
+    public void getNetworkMetrics(Promise promise) {
+        try {
+            WritableArray endpoints = Arguments.createArray();
+            for (NetworkResilience.EndpointMetrics m : NetworkResilience.getMetrics()) {
+                WritableMap endpoint = Arguments.createMap();
+                endpoint.putString("endpoint", m.endpoint);
+                endpoint.putDouble("requests", m.requests);
+                endpoint.putDouble("errors", m.errors);
+                endpoint.putDouble("retries", m.retries);
+                endpoint.putDouble("shortCircuited", m.shortCircuited);
+                endpoint.putDouble("avgLatencyMs", m.averageLatencyMs());
+                endpoint.putDouble("p50LatencyMs", m.percentileLatencyMs(0.5));
+                endpoint.putDouble("p95LatencyMs", m.percentileLatencyMs(0.95));
+                endpoint.putDouble("maxLatencyMs", m.maxLatencyMs);
+                if (m.lastError != null) {
+                    endpoint.putString("lastError", m.lastError);
+                    endpoint.putDouble("lastErrorAt", m.lastErrorAt);
+                }
+                endpoints.pushMap(endpoint);
+            }
+            
+            WritableMap breakers = Arguments.createMap();
+            for (Map.Entry<String, String> entry : NetworkResilience.getBreakerStates().entrySet()) {
+                breakers.putString(entry.getKey(), entry.getValue());
+            }
+            
+            WritableMap dedupedByKey = Arguments.createMap();
+            for (Map.Entry<String, Long> entry : SingleFlight.getDedupedByKey().entrySet()) {
+                dedupedByKey.putDouble(entry.getKey(), entry.getValue());
+            }
+            WritableMap singleFlight = Arguments.createMap();
+            singleFlight.putDouble("executed", SingleFlight.getExecutedCount());
+            singleFlight.putDouble("deduplicated", SingleFlight.getDedupedCount());
+            singleFlight.putMap("deduplicatedByKey", dedupedByKey);
+            
+            WritableMap result = Arguments.createMap();
+            result.putArray("endpoints", endpoints);
+            result.putMap("circuitBreakers", breakers);
+            result.putMap("singleFlight", singleFlight);
+            promise.resolve(result);
+        } catch (Exception e) {
+            android.util.Log.e(TAG, "Error reading network metrics", e);
+            promise.reject("METRICS_ERROR", e.getMessage());
+        }
+    }
+    
+    @ReactMethod
+    public void resetNetworkMetrics(Promise promise) {
+        NetworkResilience.resetMetrics();
+        promise.resolve(true);
+    }
+    
+    /**
+     * Size of the native audio/media cache kept by MediaCacheJanitor
+     */
+    @ReactMethod
+    public void getMediaCacheStats(Promise promise) {
+        try {
+            ReactApplicationContext context = getReactApplicationContext();
+            WritableMap result = Arguments.createMap();
+            result.putDouble("sizeBytes", MediaCacheJanitor.getSizeBytes(context));
+            result.putInt("fileCount", MediaCacheJanitor.getFileCount(context));
+            result.putDouble("budgetBytes", MediaCacheJanitor.getBudgetBytes(context));
+            result.putDouble("lastCleanupAt", MediaCacheJanitor.getLastRunAt(context));
+            result.putInt("lastEvictedFiles", MediaCacheJanitor.getLastEvictedFiles(context));
+            result.putDouble("lastEvictedBytes", MediaCacheJanitor.getLastEvictedBytes(context));
+            result.putDouble("ttsCacheHits", TtsAudioCache.getHitCount());
+            result.putDouble("ttsCacheMisses", TtsAudioCache.getMissCount());
+            result.putDouble("ttsCharactersSynthesized", TtsAudioCache.getCharactersSynthesized());
+            result.putDouble("pinnedPhraseBytes", TtsAudioCache.getPinnedSizeBytes(context));
+            promise.resolve(result);
+        } catch (Exception e) {
+            android.util.Log.e(TAG, "Error reading media cache stats", e);
+            promise.reject("MEDIA_CACHE_ERROR", e.getMessage());
+        }
+    }
+    
+    /**
+     * Which speech tier served recent alarms, and how often each tier was used
+     */
+    @ReactMethod
+    public void getSpeechTiers(Promise promise) {
+        try {
+            ReactApplicationContext context = getReactApplicationContext();
+            WritableMap counts = Arguments.createMap();
+            for (Map.Entry<String, Long> entry : SpeechTierLog.getCounts(context).entrySet()) {
+                counts.putDouble(entry.getKey(), entry.getValue());
+            }
+            
+            WritableArray recent = Arguments.createArray();
+            JSONArray entries = SpeechTierLog.getRecent(context);
+            for (int i = 0; i < entries.length(); i++) {
+                JSONObject entry = entries.getJSONObject(i);
+                WritableMap alarm = Arguments.createMap();
+                if (entry.isNull("alarmId")) {
+                    alarm.putNull("alarmId");
+                } else {
+                    alarm.putString("alarmId", entry.getString("alarmId"));
+                }
+                alarm.putString("tier", entry.getString("tier"));
+                alarm.putDouble("ttfaMs", entry.getLong("ttfaMs"));
+                alarm.putDouble("at", entry.getLong("at"));
+                recent.pushMap(alarm);
+            }
+            
+            WritableMap result = Arguments.createMap();
+            result.putMap("counts", counts);
+            result.putArray("recent", recent);
+            promise.resolve(result);
+        } catch (Exception e) {
+            android.util.Log.e(TAG, "Error reading speech tiers", e);
+            promise.reject("SPEECH_TIER_ERROR", e.getMessage());
+        }
+    }
+    
+    /**
+     * Set the media cache budget in bytes and trim to it right away
+     */
+    @ReactMethod
+    public void setMediaCacheBudget(double bytes, final Promise promise) {
+        final ReactApplicationContext context = getReactApplicationContext();
+        MediaCacheJanitor.setBudgetBytes(context, (long) bytes);
+        new Thread(() -> {
+            try {
+                MediaCacheJanitor.Result trimmed = MediaCacheJanitor.run(context);
+                WritableMap result = Arguments.createMap();
+                result.putDouble("sizeBytes", trimmed.totalBytes);
+                result.putDouble("budgetBytes", MediaCacheJanitor.getBudgetBytes(context));
+                result.putInt("evictedFiles", trimmed.evictedFiles);
+                result.putDouble("evictedBytes", trimmed.evictedBytes);
+                promise.resolve(result);
+            } catch (Exception e) {
+                android.util.Log.e(TAG, "Error trimming media cache", e);
+                promise.reject("MEDIA_CACHE_ERROR", e.getMessage());
+            }
+        }, "MediaCacheJanitor").start();
+    }
+}
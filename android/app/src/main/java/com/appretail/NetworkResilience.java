@@ -0,0 +1,369 @@
+package com.wingsfly;
+
+import android.util.Log;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Shared resilience layer for native network calls (Supabase, ElevenLabs, media downloads).
+ *
+ * - Idempotent calls are retried on connection failures, timeouts, 408/429 and 5xx with
+ *   full-jitter exponential backoff.
+ * - A per-host circuit breaker opens after consecutive failures and fails fast until a
+ *   cool-down has passed, so a dead endpoint costs one timeout instead of one per alarm.
+ * - Latency and error counts are recorded per endpoint (see NetworkMetricsModule).
+ */
+public final class NetworkResilience {
+
+    private static final String TAG = "NetworkResilience";
+
+    private static final int MAX_ATTEMPTS = 3;
+    private static final long BASE_BACKOFF_MS = 300;
+    private static final long MAX_BACKOFF_MS = 3000;
+
+    private static final int FAILURE_THRESHOLD = 3;
+    private static final long OPEN_DURATION_MS = 30 * 1000L;
+
+    private static final int LATENCY_SAMPLES = 64;
+
+    private static final Random random = new Random();
+    private static final Map<String, Breaker> breakers = new LinkedHashMap<>();
+    private static final Map<String, EndpointMetrics> metrics = new LinkedHashMap<>();
+
+    public interface Call<T> {
+        T run() throws IOException;
+    }
+
+    /**
+     * Non-2xx HTTP status from a call that is not a Supabase request
+     */
+    public static class HttpStatusException extends IOException {
+        public final int statusCode;
+
+        public HttpStatusException(int statusCode, String message) {
+            super("HTTP " + statusCode + (message != null && !message.isEmpty() ? ": " + message : ""));
+            this.statusCode = statusCode;
+        }
+    }
+
+    /**
+     * The host answered, but its response could not be decoded. Asking again would return
+     * the same body, so it is not retried and does not count against the host's breaker.
+     */
+    public static class DecodeException extends IOException {
+        public DecodeException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+
+    /**
+     * Thrown without touching the network while a host's breaker is open
+     */
+    public static class CircuitOpenException extends IOException {
+        public CircuitOpenException(String host, long retryInMs) {
+            super("Circuit open for " + host + ", retry in " + retryInMs + "ms");
+        }
+    }
+
+    private enum BreakerState { CLOSED, OPEN, HALF_OPEN }
+
+    private static class Breaker {
+        BreakerState state = BreakerState.CLOSED;
+        int consecutiveFailures;
+        long openedAt;
+        boolean trialInFlight;
+    }
+
+    public static class EndpointMetrics {
+        public final String endpoint;
+        public long requests;
+        public long errors;
+        public long retries;
+        public long shortCircuited;
+        public long totalLatencyMs;
+        public long maxLatencyMs;
+        public String lastError;
+        public long lastErrorAt;
+        private final long[] samples = new long[LATENCY_SAMPLES];
+        private int sampleCount;
+
+        EndpointMetrics(String endpoint) {
+            this.endpoint = endpoint;
+        }
+
+        EndpointMetrics copy() {
+            EndpointMetrics copy = new EndpointMetrics(endpoint);
+            copy.requests = requests;
+            copy.errors = errors;
+            copy.retries = retries;
+            copy.shortCircuited = shortCircuited;
+            copy.totalLatencyMs = totalLatencyMs;
+            copy.maxLatencyMs = maxLatencyMs;
+            copy.lastError = lastError;
+            copy.lastErrorAt = lastErrorAt;
+            System.arraycopy(samples, 0, copy.samples, 0, samples.length);
+            copy.sampleCount = sampleCount;
+            return copy;
+        }
+
+        public long averageLatencyMs() {
+            return requests > 0 ? totalLatencyMs / requests : 0;
+        }
+
+        /**
+         * Latency percentile over the most recent requests
+         */
+        public long percentileLatencyMs(double percentile) {
+            int count = Math.min(sampleCount, LATENCY_SAMPLES);
+            if (count == 0) {
+                return 0;
+            }
+            long[] sorted = Arrays.copyOf(samples, count);
+            Arrays.sort(sorted);
+            int index = (int) Math.ceil(percentile * count) - 1;
+            return sorted[Math.max(0, Math.min(index, count - 1))];
+        }
+    }
+
+    private NetworkResilience() {
+    }
+
+    /**
+     * Run a network call through the breaker for its host, retrying if it is idempotent.
+     *
+     * @param endpoint   metrics key, e.g. "supabase GET intention_settings"
+     * @param host       breaker key
+     * @param idempotent whether the call may safely be repeated
+     */
+    public static <T> T execute(String endpoint, String host, boolean idempotent, Call<T> call) throws IOException {
+        int maxAttempts = idempotent ? MAX_ATTEMPTS : 1;
+        IOException lastError = null;
+
+        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+            long retryIn = acquire(host);
+            if (retryIn > 0) {
+                recordShortCircuit(endpoint);
+                throw lastError != null ? lastError : new CircuitOpenException(host, retryIn);
+            }
+
+            long start = System.currentTimeMillis();
+            boolean settled = false;
+            try {
+                T result = call.run();
+                long latency = System.currentTimeMillis() - start;
+                settled = true;
+                onSuccess(host);
+                record(endpoint, latency, null, attempt > 1);
+                return result;
+            } catch (IOException e) {
+                settled = true;
+                long latency = System.currentTimeMillis() - start;
+                boolean retryable = isRetryable(e);
+                // Client errors mean the host is up; only transport and server failures trip the breaker
+                onFailure(host, retryable);
+                record(endpoint, latency, e, attempt > 1);
+                lastError = e;
+
+                if (!retryable || attempt == maxAttempts) {
+                    throw e;
+                }
+                long delay = backoffDelay(attempt);
+                Log.w(TAG, endpoint + " failed (" + e.getMessage() + "), retry " + attempt + " in " + delay + "ms");
+                try {
+                    Thread.sleep(delay);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted during retry backoff");
+                }
+            } finally {
+                if (!settled) {
+                    // An unchecked exception escaped the call. Count it as a failure so a
+                    // half-open trial is released rather than blocking the host for good.
+                    onFailure(host, true);
+                    record(endpoint, System.currentTimeMillis() - start,
+                            new IOException("Unchecked exception in call"), attempt > 1);
+                }
+            }
+        }
+        throw lastError;
+    }
+
+    /**
+     * Whether a call to this host would currently be attempted
+     */
+    public static synchronized boolean isAvailable(String host) {
+        Breaker breaker = breakers.get(host);
+        return breaker == null || breaker.state != BreakerState.OPEN
+                || System.currentTimeMillis() - breaker.openedAt >= OPEN_DURATION_MS;
+    }
+
+    static boolean isRetryable(IOException e) {
+        if (e instanceof CircuitOpenException || e instanceof DecodeException) {
+            return false;
+        }
+        int status = statusOf(e);
+        if (status > 0) {
+            return status == 408 || status == 429 || status >= 500;
+        }
+        // Thread interruption is a cancellation, not a network failure
+        return !(e instanceof InterruptedIOException) || e instanceof SocketTimeoutException;
+    }
+
+    private static int statusOf(IOException e) {
+        if (e instanceof SupabaseRestClient.SupabaseException) {
+            return ((SupabaseRestClient.SupabaseException) e).statusCode;
+        }
+        if (e instanceof HttpStatusException) {
+            return ((HttpStatusException) e).statusCode;
+        }
+        return -1;
+    }
+
+    private static long backoffDelay(int attempt) {
+        long cap = Math.min(MAX_BACKOFF_MS, BASE_BACKOFF_MS << (attempt - 1));
+        synchronized (random) {
+            // Full jitter: alarms firing together should not retry in lockstep
+            return (long) (random.nextDouble() * cap);
+        }
+    }
+
+    // ==================== CIRCUIT BREAKER ====================
+
+    /**
+     * Returns 0 if the call may proceed, otherwise the time until the breaker allows a trial
+     */
+    private static synchronized long acquire(String host) {
+        Breaker breaker = breakers.get(host);
+        if (breaker == null || breaker.state == BreakerState.CLOSED) {
+            return 0;
+        }
+        long now = System.currentTimeMillis();
+        if (breaker.state == BreakerState.OPEN) {
+            long remaining = breaker.openedAt + OPEN_DURATION_MS - now;
+            if (remaining > 0) {
+                return remaining;
+            }
+            breaker.state = BreakerState.HALF_OPEN;
+            breaker.trialInFlight = false;
+        }
+        // HALF_OPEN: let a single trial request through
+        if (breaker.trialInFlight) {
+            return OPEN_DURATION_MS;
+        }
+        breaker.trialInFlight = true;
+        Log.d(TAG, "Circuit half-open for " + host + ", sending trial request");
+        return 0;
+    }
+
+    private static synchronized void onSuccess(String host) {
+        Breaker breaker = breakers.get(host);
+        if (breaker != null) {
+            if (breaker.state != BreakerState.CLOSED) {
+                Log.d(TAG, "✅ Circuit closed for " + host);
+            }
+            breaker.state = BreakerState.CLOSED;
+            breaker.consecutiveFailures = 0;
+            breaker.trialInFlight = false;
+        }
+    }
+
+    private static synchronized void onFailure(String host, boolean hostFailure) {
+        Breaker breaker = breakers.get(host);
+        if (breaker == null) {
+            breaker = new Breaker();
+            breakers.put(host, breaker);
+        }
+        if (!hostFailure) {
+            breaker.trialInFlight = false;
+            if (breaker.state == BreakerState.HALF_OPEN) {
+                breaker.state = BreakerState.CLOSED;
+                breaker.consecutiveFailures = 0;
+            }
+            return;
+        }
+        breaker.consecutiveFailures++;
+        if (breaker.state == BreakerState.HALF_OPEN || breaker.consecutiveFailures >= FAILURE_THRESHOLD) {
+            breaker.state = BreakerState.OPEN;
+            breaker.openedAt = System.currentTimeMillis();
+            breaker.trialInFlight = false;
+            Log.w(TAG, "⚠️ Circuit opened for " + host + " after " + breaker.consecutiveFailures + " failures");
+        }
+    }
+
+    /**
+     * Snapshot of breaker states: host -> CLOSED / OPEN / HALF_OPEN
+     */
+    public static synchronized Map<String, String> getBreakerStates() {
+        Map<String, String> states = new LinkedHashMap<>();
+        for (Map.Entry<String, Breaker> entry : breakers.entrySet()) {
+            states.put(entry.getKey(), entry.getValue().state.name());
+        }
+        return states;
+    }
+
+    /**
+     * Close all breakers. Used by the load tests between scenarios.
+     */
+    static synchronized void resetBreakers() {
+        breakers.clear();
+    }
+
+    // ==================== METRICS ====================
+
+    private static synchronized void record(String endpoint, long latencyMs, IOException error, boolean retry) {
+        EndpointMetrics m = metricsFor(endpoint);
+        m.requests++;
+        m.totalLatencyMs += latencyMs;
+        m.maxLatencyMs = Math.max(m.maxLatencyMs, latencyMs);
+        m.samples[m.sampleCount % LATENCY_SAMPLES] = latencyMs;
+        m.sampleCount++;
+        if (retry) {
+            m.retries++;
+        }
+        if (error != null) {
+            m.errors++;
+            m.lastError = error.getMessage();
+            m.lastErrorAt = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * Record a latency measured outside execute(), e.g. time to first audio
+     */
+    public static void recordLatency(String metric, long latencyMs) {
+        record(metric, latencyMs, null, false);
+    }
+
+    private static synchronized void recordShortCircuit(String endpoint) {
+        metricsFor(endpoint).shortCircuited++;
+    }
+
+    private static EndpointMetrics metricsFor(String endpoint) {
+        EndpointMetrics m = metrics.get(endpoint);
+        if (m == null) {
+            m = new EndpointMetrics(endpoint);
+            metrics.put(endpoint, m);
+        }
+        return m;
+    }
+
+    public static synchronized List<EndpointMetrics> getMetrics() {
+        List<EndpointMetrics> snapshot = new ArrayList<>();
+        for (EndpointMetrics m : metrics.values()) {
+            snapshot.add(m.copy());
+        }
+        return snapshot;
+    }
+
+    public static synchronized void resetMetrics() {
+        metrics.clear();
+    }
+}
@@ -365,9 +365,18 @@ class NightModeAlarmReceiver : BroadcastReceiver() {
             putExtra("trigger_minute", triggerMinute)
         }
 
+        val requestCode = AlarmRegistry.getInstance(context).register(
+            AlarmRegistry.TYPE_NIGHT_MODE,
+            NightModeSchedulerModule.ALARM_ID,
+            triggerTime,
+            AlarmRegistry.RECURRENCE_DAILY,
+            null,
+            intent,
+            NightModeSchedulerModule.ALARM_REQUEST_CODE
+        )
         val pendingIntent = PendingIntent.getBroadcast(
             context,
-            NightModeSchedulerModule.ALARM_REQUEST_CODE,
+            requestCode,
             intent,
             PendingIntent.FLAG_UPDATE_CURRENT or 
             if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
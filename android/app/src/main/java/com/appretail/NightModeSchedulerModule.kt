@@ -24,7 +24,10 @@ class NightModeSchedulerModule(reactContext: ReactApplicationContext) :
 
     companion object {
         private const val TAG = "NightModeScheduler"
+        // Code of the alarm before AlarmRegistry; the show intent still uses the next one
         const val ALARM_REQUEST_CODE = 9001
+        // There is only one night mode alarm
+        const val ALARM_ID = "bedtime"
         const val ACTION_NIGHT_MODE_ALARM = "com.wingsfly.NIGHT_MODE_ALARM"
         private const val PREFS_NAME = "NightModePrefs"
         private const val KEY_BED_HOUR = "bed_hour"
@@ -251,21 +254,6 @@ class NightModeSchedulerModule(reactContext: ReactApplicationContext) :
                 putExtra("trigger_minute", triggerMinute)
             }
 
-            val pendingIntent = PendingIntent.getBroadcast(
-                context,
-                ALARM_REQUEST_CODE,
-                intent,
-                PendingIntent.FLAG_UPDATE_CURRENT or 
-                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
-                    PendingIntent.FLAG_IMMUTABLE
-                } else {
-                    0
-                }
-            )
-
-            // Cancel any existing alarm
-            alarmManager.cancel(pendingIntent)
-
             // Calculate proper trigger time
             val now = System.currentTimeMillis()
             var triggerTime = triggerTimeMillis.toLong()
@@ -280,6 +268,30 @@ class NightModeSchedulerModule(reactContext: ReactApplicationContext) :
                 triggerTime = nextDay.timeInMillis
             }
 
+            val requestCode = AlarmRegistry.getInstance(context).register(
+                AlarmRegistry.TYPE_NIGHT_MODE,
+                ALARM_ID,
+                triggerTime,
+                AlarmRegistry.RECURRENCE_DAILY,
+                null,
+                intent,
+                ALARM_REQUEST_CODE
+            )
+            val pendingIntent = PendingIntent.getBroadcast(
+                context,
+                requestCode,
+                intent,
+                PendingIntent.FLAG_UPDATE_CURRENT or 
+                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+                    PendingIntent.FLAG_IMMUTABLE
+                } else {
+                    0
+                }
+            )
+
+            // Cancel any existing alarm
+            alarmManager.cancel(pendingIntent)
+
             // Use setAlarmClock for MAXIMUM reliability (works even when app is killed)
             val showIntent = Intent(context, MainActivity::class.java).apply {
                 flags = Intent.FLAG_ACTIVITY_NEW_TASK or Intent.FLAG_ACTIVITY_CLEAR_TOP
@@ -348,9 +360,12 @@ class NightModeSchedulerModule(reactContext: ReactApplicationContext) :
                 action = ACTION_NIGHT_MODE_ALARM
             }
 
+            val requestCode = AlarmRegistry.getInstance(context).remove(
+                AlarmRegistry.TYPE_NIGHT_MODE, ALARM_ID, ALARM_REQUEST_CODE
+            )
             val pendingIntent = PendingIntent.getBroadcast(
                 context,
-                ALARM_REQUEST_CODE,
+                requestCode,
                 intent,
                 PendingIntent.FLAG_UPDATE_CURRENT or 
                 if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
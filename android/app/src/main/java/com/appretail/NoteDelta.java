@@ -0,0 +1,111 @@
+package com.wingsfly;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Edit operations that turn one version of a note into the next, so an upload only has
+ * to carry what changed since the last revision the server acknowledged.
+ *
+ * An op replaces `d` characters at position `p` with the text `i`; ops are applied in
+ * order, each against the result of the previous one. Positions and lengths count Unicode
+ * code points, which is how the apply_note_delta() function (Postgres overlay()) counts
+ * them, so emoji and other surrogate pairs are never split.
+ */
+public final class NoteDelta {
+
+    public static class Op {
+        public final int position;
+        public final int deleteCount;
+        public final String insert;
+
+        public Op(int position, int deleteCount, String insert) {
+            this.position = position;
+            this.deleteCount = deleteCount;
+            this.insert = insert != null ? insert : "";
+        }
+    }
+
+    private NoteDelta() {
+    }
+
+    /**
+     * Ops turning base into target. Typing between two autosaves touches one region of the
+     * note, so the common prefix and suffix are trimmed and the middle becomes a single
+     * replace. Returns an empty list if the two are equal.
+     */
+    public static List<Op> diff(String base, String target) {
+        List<Op> ops = new ArrayList<>();
+        if (base.equals(target)) {
+            return ops;
+        }
+
+        int maxCommon = Math.min(base.length(), target.length());
+        int prefix = 0;
+        while (prefix < maxCommon && base.charAt(prefix) == target.charAt(prefix)) {
+            prefix++;
+        }
+        if (prefix > 0 && Character.isHighSurrogate(base.charAt(prefix - 1))) {
+            prefix--;
+        }
+
+        int suffix = 0;
+        int maxSuffix = maxCommon - prefix;
+        while (suffix < maxSuffix
+                && base.charAt(base.length() - 1 - suffix) == target.charAt(target.length() - 1 - suffix)) {
+            suffix++;
+        }
+        if (suffix > 0 && Character.isLowSurrogate(base.charAt(base.length() - suffix))) {
+            suffix--;
+        }
+
+        int position = base.codePointCount(0, prefix);
+        int deleteCount = base.codePointCount(prefix, base.length() - suffix);
+        ops.add(new Op(position, deleteCount, target.substring(prefix, target.length() - suffix)));
+        return ops;
+    }
+
+    /**
+     * Apply ops to base the way the server does. Throws IllegalArgumentException if an op
+     * does not fit the text, which means base is not the revision the ops were made from.
+     */
+    public static String apply(String base, List<Op> ops) {
+        String text = base;
+        for (Op op : ops) {
+            int length = text.codePointCount(0, text.length());
+            if (op.position < 0 || op.deleteCount < 0 || op.position + op.deleteCount > length) {
+                throw new IllegalArgumentException("Op out of range: p=" + op.position
+                        + " d=" + op.deleteCount + " length=" + length);
+            }
+            int start = text.offsetByCodePoints(0, op.position);
+            int end = text.offsetByCodePoints(start, op.deleteCount);
+            text = text.substring(0, start) + op.insert + text.substring(end);
+        }
+        return text;
+    }
+
+    public static JSONArray toJson(List<Op> ops) throws JSONException {
+        JSONArray array = new JSONArray();
+        for (Op op : ops) {
+            JSONObject json = new JSONObject();
+            json.put("p", op.position);
+            json.put("d", op.deleteCount);
+            json.put("i", op.insert);
+            array.put(json);
+        }
+        return array;
+    }
+
+    public static List<Op> fromJson(JSONArray array) throws JSONException {
+        List<Op> ops = new ArrayList<>();
+        for (int i = 0; i < array.length(); i++) {
+            JSONObject json = array.getJSONObject(i);
+            ops.add(new Op(json.getInt("p"), json.getInt("d"), json.optString("i", "")));
+        }
+        return ops;
+    }
+}
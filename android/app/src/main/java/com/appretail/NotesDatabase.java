@@ -2,39 +2,38 @@ package com.wingsfly;
 
 import android.content.Context;
 import android.content.SharedPreferences;
+import android.util.JsonReader;
 import android.util.Log;
 
 import org.json.JSONArray;
 import org.json.JSONObject;
 
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
-import java.io.OutputStream;
-import java.net.HttpURLConnection;
-import java.net.URL;
-import java.nio.charset.StandardCharsets;
+import java.io.IOException;
 
 public class NotesDatabase {
     
     private static final String TAG = "NotesDatabase";
     
-    // ✅ Supabase credentials from BuildConfig (loaded from local.properties)
-    private static final String SUPABASE_URL = BuildConfig.SUPABASE_URL;
-    private static final String SUPABASE_API_KEY = BuildConfig.SUPABASE_ANON_KEY;
-    
     public static class Note {
         public String id;
         public String userId;
         public String content;
         public String createdAt;
         public String updatedAt;
+        // Server revision, bumped on every update; -1 if the row has no revision column
+        public int revision;
         
         public Note(String id, String userId, String content, String createdAt, String updatedAt) {
+            this(id, userId, content, createdAt, updatedAt, -1);
+        }
+        
+        public Note(String id, String userId, String content, String createdAt, String updatedAt, int revision) {
             this.id = id;
             this.userId = userId;
             this.content = content;
             this.createdAt = createdAt;
             this.updatedAt = updatedAt;
+            this.revision = revision;
         }
         
         @Override
@@ -48,6 +47,47 @@ public class NotesDatabase {
         }
     }
     
+    private static final String TABLE = "notes";
+    
+    static final SupabaseRestClient.RowMapper<Note> NOTE_MAPPER = NotesDatabase::readNote;
+    
+    /**
+     * Decode one notes row straight from the response stream
+     */
+    static Note readNote(JsonReader reader) throws IOException {
+        String id = null;
+        String userId = null;
+        String content = "";
+        String createdAt = null;
+        String updatedAt = null;
+        int revision = -1;
+        
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "id": id = SupabaseRestClient.nextStringOrNull(reader); break;
+                case "user_id": userId = SupabaseRestClient.nextStringOrNull(reader); break;
+                case "content":
+                    String value = SupabaseRestClient.nextStringOrNull(reader);
+                    content = value != null ? value : "";
+                    break;
+                case "created_at": createdAt = SupabaseRestClient.nextStringOrNull(reader); break;
+                case "updated_at": updatedAt = SupabaseRestClient.nextStringOrNull(reader); break;
+                case "revision": revision = SupabaseRestClient.nextIntOrDefault(reader, -1); break;
+                default: reader.skipValue();
+            }
+        }
+        reader.endObject();
+        
+        return new Note(
+                SupabaseRestClient.requireField(id, "id"),
+                SupabaseRestClient.requireField(userId, "user_id"),
+                content,
+                SupabaseRestClient.requireField(createdAt, "created_at"),
+                SupabaseRestClient.requireField(updatedAt, "updated_at"),
+                revision);
+    }
+    
     /**
      * Fetch user's notes from Supabase
      * Returns the most recent note for the user
@@ -59,78 +99,23 @@ public class NotesDatabase {
             Log.d(TAG, "========================================");
             Log.d(TAG, "Fetching notes for user: " + userId);
             
-            // Build URL with query parameters
-            String urlString = SUPABASE_URL + "/rest/v1/notes" +
-                    "?user_id=eq." + userId +
-                    "&select=*" +
-                    "&order=updated_at.desc" +
-                    "&limit=1";
-            
-            URL url = new URL(urlString);
-            HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-            
-            // Set headers
-            connection.setRequestMethod("GET");
-            connection.setRequestProperty("apikey", SUPABASE_API_KEY);
-            connection.setRequestProperty("Authorization", "Bearer " + SUPABASE_API_KEY);
-            connection.setRequestProperty("Content-Type", "application/json");
-            connection.setConnectTimeout(10000);
-            connection.setReadTimeout(10000);
-            
-            int responseCode = connection.getResponseCode();
-            Log.d(TAG, "Response code: " + responseCode);
-            
-            if (responseCode == HttpURLConnection.HTTP_OK) {
-                BufferedReader reader = new BufferedReader(
-                        new InputStreamReader(connection.getInputStream()));
-                StringBuilder response = new StringBuilder();
-                String line;
-                
-                while ((line = reader.readLine()) != null) {
-                    response.append(line);
-                }
-                reader.close();
-                
-                // Parse JSON response
-                JSONArray jsonArray = new JSONArray(response.toString());
-                
-                if (jsonArray.length() > 0) {
-                    JSONObject noteObj = jsonArray.getJSONObject(0);
-                    
-                    String id = noteObj.getString("id");
-                    String user_id = noteObj.getString("user_id");
-                    String content = noteObj.optString("content", "");
-                    String createdAt = noteObj.getString("created_at");
-                    String updatedAt = noteObj.getString("updated_at");
-                    
-                    note = new Note(id, user_id, content, createdAt, updatedAt);
-                    
-                    Log.d(TAG, "✅ Found note:");
-                    Log.d(TAG, "  ID: " + id);
-                    Log.d(TAG, "  Content length: " + content.length() + " characters");
-                    Log.d(TAG, "  Last updated: " + updatedAt);
-                } else {
-                    Log.d(TAG, "ℹ️ No notes found for user");
-                }
-                
+            note = SupabaseRestClient.getInstance().selectFirst(
+                    new SupabaseRestClient.Query(TABLE)
+                            .eq("user_id", userId)
+                            .select("*")
+                            .order("updated_at", false)
+                            .limit(1),
+                    NOTE_MAPPER);
+            
+            if (note != null) {
+                Log.d(TAG, "✅ Found note:");
+                Log.d(TAG, "  ID: " + note.id);
+                Log.d(TAG, "  Content length: " + note.content.length() + " characters");
+                Log.d(TAG, "  Last updated: " + note.updatedAt);
             } else {
-                Log.e(TAG, "❌ Error response code: " + responseCode);
-                
-                BufferedReader errorReader = new BufferedReader(
-                        new InputStreamReader(connection.getErrorStream()));
-                StringBuilder errorResponse = new StringBuilder();
-                String line;
-                
-                while ((line = errorReader.readLine()) != null) {
-                    errorResponse.append(line);
-                }
-                errorReader.close();
-                
-                Log.e(TAG, "Error response: " + errorResponse.toString());
+                Log.d(TAG, "ℹ️ No notes found for user");
             }
             
-            connection.disconnect();
-            
         } catch (Exception e) {
             Log.e(TAG, "❌ Exception fetching notes: " + e.getMessage(), e);
         }
@@ -143,88 +128,33 @@ public class NotesDatabase {
      * Create new notes for user
      */
     public static Note createNotes(String userId, String content) {
+        return createNotes(userId, content, getCurrentTimestamp());
+    }
+    
+    /**
+     * Create new notes with an explicit updated_at (the time the edit was made locally)
+     */
+    public static Note createNotes(String userId, String content, String updatedAt) {
         Note note = null;
         
         try {
             Log.d(TAG, "========================================");
             Log.d(TAG, "Creating notes for user: " + userId);
             
-            String urlString = SUPABASE_URL + "/rest/v1/notes";
-            URL url = new URL(urlString);
-            HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-            
-            // Set headers
-            connection.setRequestMethod("POST");
-            connection.setRequestProperty("apikey", SUPABASE_API_KEY);
-            connection.setRequestProperty("Authorization", "Bearer " + SUPABASE_API_KEY);
-            connection.setRequestProperty("Content-Type", "application/json");
-            connection.setRequestProperty("Prefer", "return=representation");
-            connection.setDoOutput(true);
-            connection.setConnectTimeout(10000);
-            connection.setReadTimeout(10000);
-            
             // Create JSON body
             JSONObject jsonBody = new JSONObject();
             jsonBody.put("user_id", userId);
             jsonBody.put("content", content != null ? content : "");
-            jsonBody.put("created_at", getCurrentTimestamp());
-            jsonBody.put("updated_at", getCurrentTimestamp());
-            
-            // Send request
-            OutputStream os = connection.getOutputStream();
-            byte[] input = jsonBody.toString().getBytes(StandardCharsets.UTF_8);
-            os.write(input, 0, input.length);
-            os.close();
+            jsonBody.put("created_at", updatedAt);
+            jsonBody.put("updated_at", updatedAt);
             
-            int responseCode = connection.getResponseCode();
-            Log.d(TAG, "Response code: " + responseCode);
+            note = SupabaseRestClient.getInstance().insert(TABLE, jsonBody, NOTE_MAPPER);
             
-            if (responseCode == HttpURLConnection.HTTP_CREATED || responseCode == HttpURLConnection.HTTP_OK) {
-                BufferedReader reader = new BufferedReader(
-                        new InputStreamReader(connection.getInputStream()));
-                StringBuilder response = new StringBuilder();
-                String line;
-                
-                while ((line = reader.readLine()) != null) {
-                    response.append(line);
-                }
-                reader.close();
-                
-                // Parse response
-                JSONArray jsonArray = new JSONArray(response.toString());
-                if (jsonArray.length() > 0) {
-                    JSONObject noteObj = jsonArray.getJSONObject(0);
-                    
-                    String id = noteObj.getString("id");
-                    String user_id = noteObj.getString("user_id");
-                    String noteContent = noteObj.optString("content", "");
-                    String createdAt = noteObj.getString("created_at");
-                    String updatedAt = noteObj.getString("updated_at");
-                    
-                    note = new Note(id, user_id, noteContent, createdAt, updatedAt);
-                    
-                    Log.d(TAG, "✅ Note created successfully");
-                    Log.d(TAG, "  ID: " + id);
-                }
-                
-            } else {
-                Log.e(TAG, "❌ Error response code: " + responseCode);
-                
-                BufferedReader errorReader = new BufferedReader(
-                        new InputStreamReader(connection.getErrorStream()));
-                StringBuilder errorResponse = new StringBuilder();
-                String line;
-                
-                while ((line = errorReader.readLine()) != null) {
-                    errorResponse.append(line);
-                }
-                errorReader.close();
-                
-                Log.e(TAG, "Error response: " + errorResponse.toString());
+            if (note != null) {
+                Log.d(TAG, "✅ Note created successfully");
+                Log.d(TAG, "  ID: " + note.id);
             }
             
-            connection.disconnect();
-            
         } catch (Exception e) {
             Log.e(TAG, "❌ Exception creating notes: " + e.getMessage(), e);
         }
@@ -237,86 +167,32 @@ public class NotesDatabase {
      * Update existing notes
      */
     public static Note updateNotes(String noteId, String content) {
+        return updateNotes(noteId, content, getCurrentTimestamp());
+    }
+    
+    /**
+     * Update existing notes with an explicit updated_at (the time the edit was made locally)
+     */
+    public static Note updateNotes(String noteId, String content, String updatedAt) {
         Note note = null;
         
         try {
             Log.d(TAG, "========================================");
             Log.d(TAG, "Updating note: " + noteId);
             
-            String urlString = SUPABASE_URL + "/rest/v1/notes?id=eq." + noteId;
-            URL url = new URL(urlString);
-            HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-            
-            // Set headers
-            connection.setRequestMethod("PATCH");
-            connection.setRequestProperty("apikey", SUPABASE_API_KEY);
-            connection.setRequestProperty("Authorization", "Bearer " + SUPABASE_API_KEY);
-            connection.setRequestProperty("Content-Type", "application/json");
-            connection.setRequestProperty("Prefer", "return=representation");
-            connection.setDoOutput(true);
-            connection.setConnectTimeout(10000);
-            connection.setReadTimeout(10000);
-            
             // Create JSON body
             JSONObject jsonBody = new JSONObject();
             jsonBody.put("content", content != null ? content : "");
-            jsonBody.put("updated_at", getCurrentTimestamp());
-            
-            // Send request
-            OutputStream os = connection.getOutputStream();
-            byte[] input = jsonBody.toString().getBytes(StandardCharsets.UTF_8);
-            os.write(input, 0, input.length);
-            os.close();
+            jsonBody.put("updated_at", updatedAt);
             
-            int responseCode = connection.getResponseCode();
-            Log.d(TAG, "Response code: " + responseCode);
+            note = SupabaseRestClient.getInstance().update(
+                    new SupabaseRestClient.Query(TABLE).eq("id", noteId), jsonBody, NOTE_MAPPER);
             
-            if (responseCode == HttpURLConnection.HTTP_OK) {
-                BufferedReader reader = new BufferedReader(
-                        new InputStreamReader(connection.getInputStream()));
-                StringBuilder response = new StringBuilder();
-                String line;
-                
-                while ((line = reader.readLine()) != null) {
-                    response.append(line);
-                }
-                reader.close();
-                
-                // Parse response
-                JSONArray jsonArray = new JSONArray(response.toString());
-                if (jsonArray.length() > 0) {
-                    JSONObject noteObj = jsonArray.getJSONObject(0);
-                    
-                    String id = noteObj.getString("id");
-                    String user_id = noteObj.getString("user_id");
-                    String noteContent = noteObj.optString("content", "");
-                    String createdAt = noteObj.getString("created_at");
-                    String updatedAt = noteObj.getString("updated_at");
-                    
-                    note = new Note(id, user_id, noteContent, createdAt, updatedAt);
-                    
-                    Log.d(TAG, "✅ Note updated successfully");
-                    Log.d(TAG, "  Content length: " + noteContent.length() + " characters");
-                }
-                
-            } else {
-                Log.e(TAG, "❌ Error response code: " + responseCode);
-                
-                BufferedReader errorReader = new BufferedReader(
-                        new InputStreamReader(connection.getErrorStream()));
-                StringBuilder errorResponse = new StringBuilder();
-                String line;
-                
-                while ((line = errorReader.readLine()) != null) {
-                    errorResponse.append(line);
-                }
-                errorReader.close();
-                
-                Log.e(TAG, "Error response: " + errorResponse.toString());
+            if (note != null) {
+                Log.d(TAG, "✅ Note updated successfully");
+                Log.d(TAG, "  Content length: " + note.content.length() + " characters");
             }
             
-            connection.disconnect();
-            
         } catch (Exception e) {
             Log.e(TAG, "❌ Exception updating notes: " + e.getMessage(), e);
         }
@@ -325,6 +201,37 @@ public class NotesDatabase {
         return note;
     }
     
+    /**
+     * Apply edit operations to the note on the server (apply_note_delta() in
+     * notes_delta_sync.sql). The server rejects the call if its copy is no longer at
+     * baseRevision; returns null in that case or on any other failure, and the caller
+     * falls back to a full update.
+     */
+    public static Note applyNoteDelta(String noteId, int baseRevision, JSONArray ops, String updatedAt) {
+        Note note = null;
+        
+        try {
+            Log.d(TAG, "Applying " + ops.length() + " delta op(s) to note " + noteId + " at revision " + baseRevision);
+            
+            JSONObject args = new JSONObject();
+            args.put("p_note_id", noteId);
+            args.put("p_base_revision", baseRevision);
+            args.put("p_ops", ops);
+            args.put("p_updated_at", updatedAt);
+            
+            note = SupabaseRestClient.getInstance().rpc("apply_note_delta", args, NOTE_MAPPER);
+            
+            if (note != null) {
+                Log.d(TAG, "✅ Delta applied, note now at revision " + note.revision);
+            }
+            
+        } catch (Exception e) {
+            Log.w(TAG, "⚠️ Delta rejected: " + e.getMessage());
+        }
+        
+        return note;
+    }
+    
     /**
      * Save or update notes (smart save)
      */
@@ -372,30 +279,10 @@ public class NotesDatabase {
             Log.d(TAG, "========================================");
             Log.d(TAG, "Deleting note: " + noteId);
             
-            String urlString = SUPABASE_URL + "/rest/v1/notes?id=eq." + noteId;
-            URL url = new URL(urlString);
-            HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-            
-            // Set headers
-            connection.setRequestMethod("DELETE");
-            connection.setRequestProperty("apikey", SUPABASE_API_KEY);
-            connection.setRequestProperty("Authorization", "Bearer " + SUPABASE_API_KEY);
-            connection.setConnectTimeout(10000);
-            connection.setReadTimeout(10000);
-            
-            int responseCode = connection.getResponseCode();
-            Log.d(TAG, "Response code: " + responseCode);
-            
-            boolean success = (responseCode == HttpURLConnection.HTTP_OK || 
-                             responseCode == HttpURLConnection.HTTP_NO_CONTENT);
+            boolean success = SupabaseRestClient.getInstance().delete(
+                    new SupabaseRestClient.Query(TABLE).eq("id", noteId));
             
-            if (success) {
-                Log.d(TAG, "✅ Note deleted successfully");
-            } else {
-                Log.e(TAG, "❌ Failed to delete note");
-            }
-            
-            connection.disconnect();
+            Log.d(TAG, "✅ Note deleted successfully");
             Log.d(TAG, "========================================");
             
             return success;
@@ -407,11 +294,10 @@ public class NotesDatabase {
     }
     
     /**
-     * Get current timestamp in ISO format
+     * Get current timestamp in ISO format (UTC, so updated_at values compare correctly)
      */
     private static String getCurrentTimestamp() {
-        return new java.text.SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", java.util.Locale.US)
-                .format(new java.util.Date());
+        return NotesLocalStore.formatTimestamp(System.currentTimeMillis());
     }
     
     /**
@@ -434,27 +320,8 @@ public class NotesDatabase {
      * Test connection to Supabase
      */
     public static boolean testConnection() {
-        try {
-            String urlString = SUPABASE_URL + "/rest/v1/";
-            URL url = new URL(urlString);
-            HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-            
-            connection.setRequestMethod("GET");
-            connection.setRequestProperty("apikey", SUPABASE_API_KEY);
-            connection.setConnectTimeout(5000);
-            connection.setReadTimeout(5000);
-            
-            int responseCode = connection.getResponseCode();
-            connection.disconnect();
-            
-            boolean isConnected = (responseCode == HttpURLConnection.HTTP_OK);
-            Log.d(TAG, "Connection test: " + (isConnected ? "✅ Success" : "❌ Failed"));
-            
-            return isConnected;
-            
-        } catch (Exception e) {
-            Log.e(TAG, "Connection test failed", e);
-            return false;
-        }
+        boolean isConnected = SupabaseRestClient.getInstance().ping();
+        Log.d(TAG, "Connection test: " + (isConnected ? "✅ Success" : "❌ Failed"));
+        return isConnected;
     }
-}
\ No newline at end of file
+}
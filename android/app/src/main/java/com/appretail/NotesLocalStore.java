@@ -0,0 +1,368 @@
+package com.wingsfly;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.util.Log;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.TimeZone;
+
+/**
+ * Local SQLite copy of the user's notes. This is the source of truth for the floating
+ * notes overlay; NotesSyncManager drains the outbox table to Supabase in the background.
+ */
+public class NotesLocalStore extends SQLiteOpenHelper {
+
+    private static final String TAG = "NotesLocalStore";
+
+    private static final String DATABASE_NAME = "wingsfly_notes.db";
+    private static final int DATABASE_VERSION = 2;
+
+    private static final String TABLE_NOTES = "notes";
+    private static final String TABLE_OUTBOX = "notes_outbox";
+
+    private static NotesLocalStore instance;
+
+    /**
+     * A pending upload. One row per user: newer local writes replace older pending ones,
+     * since only the latest content needs to reach the server.
+     */
+    public static class OutboxEntry {
+        public final String userId;
+        public final String content;
+        public final String updatedAt;
+        public final long updatedAtMs;
+        public final int attempts;
+
+        OutboxEntry(String userId, String content, String updatedAt, long updatedAtMs, int attempts) {
+            this.userId = userId;
+            this.content = content;
+            this.updatedAt = updatedAt;
+            this.updatedAtMs = updatedAtMs;
+            this.attempts = attempts;
+        }
+    }
+
+    /**
+     * The content and revision the server last acknowledged, which delta uploads are
+     * computed against
+     */
+    public static class SyncedBase {
+        public final String remoteId;
+        public final String content;
+        public final int revision;
+
+        SyncedBase(String remoteId, String content, int revision) {
+            this.remoteId = remoteId;
+            this.content = content;
+            this.revision = revision;
+        }
+    }
+
+    public static synchronized NotesLocalStore getInstance(Context context) {
+        if (instance == null) {
+            instance = new NotesLocalStore(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private NotesLocalStore(Context context) {
+        super(context, DATABASE_NAME, null, DATABASE_VERSION);
+        // Lets the overlay read while the sync thread is writing
+        setWriteAheadLoggingEnabled(true);
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + TABLE_NOTES + " (" +
+                "user_id TEXT PRIMARY KEY, " +
+                "remote_id TEXT, " +
+                "content TEXT NOT NULL DEFAULT '', " +
+                "created_at TEXT, " +
+                "updated_at TEXT, " +
+                "updated_at_ms INTEGER NOT NULL DEFAULT 0, " +
+                "synced_content TEXT, " +
+                "synced_revision INTEGER NOT NULL DEFAULT -1)");
+        db.execSQL("CREATE TABLE " + TABLE_OUTBOX + " (" +
+                "user_id TEXT PRIMARY KEY, " +
+                "content TEXT NOT NULL, " +
+                "updated_at TEXT NOT NULL, " +
+                "updated_at_ms INTEGER NOT NULL, " +
+                "attempts INTEGER NOT NULL DEFAULT 0, " +
+                "next_attempt_at INTEGER NOT NULL DEFAULT 0, " +
+                "last_error TEXT)");
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        if (oldVersion < 2) {
+            // Acknowledged base for delta uploads; existing rows start with a full upload
+            db.execSQL("ALTER TABLE " + TABLE_NOTES + " ADD COLUMN synced_content TEXT");
+            db.execSQL("ALTER TABLE " + TABLE_NOTES + " ADD COLUMN synced_revision INTEGER NOT NULL DEFAULT -1");
+        }
+    }
+
+    // ==================== NOTES ====================
+
+    /**
+     * Read the user's note from disk. Returns null if nothing has been stored yet.
+     */
+    public NotesDatabase.Note getNote(String userId) {
+        try (Cursor cursor = getReadableDatabase().query(TABLE_NOTES,
+                new String[]{"remote_id", "content", "created_at", "updated_at"},
+                "user_id = ?", new String[]{userId}, null, null, null)) {
+            if (cursor.moveToFirst()) {
+                return new NotesDatabase.Note(
+                        cursor.getString(0),
+                        userId,
+                        cursor.getString(1),
+                        cursor.getString(2),
+                        cursor.getString(3));
+            }
+        }
+        return null;
+    }
+
+    public String getRemoteId(String userId) {
+        NotesDatabase.Note note = getNote(userId);
+        return note != null ? note.id : null;
+    }
+
+    /**
+     * Last acknowledged server state, or null if there is none to diff against
+     */
+    public SyncedBase getSyncedBase(String userId) {
+        try (Cursor cursor = getReadableDatabase().query(TABLE_NOTES,
+                new String[]{"remote_id", "synced_content", "synced_revision"},
+                "user_id = ?", new String[]{userId}, null, null, null)) {
+            if (cursor.moveToFirst() && !cursor.isNull(0) && !cursor.isNull(1) && cursor.getInt(2) >= 0) {
+                return new SyncedBase(cursor.getString(0), cursor.getString(1), cursor.getInt(2));
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Write the note locally and queue it for upload. Returns the stored note.
+     */
+    public NotesDatabase.Note saveLocal(String userId, String content) {
+        long nowMs = System.currentTimeMillis();
+        String now = formatTimestamp(nowMs);
+        String safeContent = content != null ? content : "";
+
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            NotesDatabase.Note existing = getNote(userId);
+
+            ContentValues note = new ContentValues();
+            note.put("user_id", userId);
+            note.put("content", safeContent);
+            note.put("updated_at", now);
+            note.put("updated_at_ms", nowMs);
+            if (existing == null) {
+                note.put("created_at", now);
+                db.insertOrThrow(TABLE_NOTES, null, note);
+            } else {
+                db.update(TABLE_NOTES, note, "user_id = ?", new String[]{userId});
+            }
+
+            ContentValues outbox = new ContentValues();
+            outbox.put("user_id", userId);
+            outbox.put("content", safeContent);
+            outbox.put("updated_at", now);
+            outbox.put("updated_at_ms", nowMs);
+            outbox.put("attempts", 0);
+            outbox.put("next_attempt_at", 0);
+            db.insertWithOnConflict(TABLE_OUTBOX, null, outbox, SQLiteDatabase.CONFLICT_REPLACE);
+
+            db.setTransactionSuccessful();
+            return new NotesDatabase.Note(existing != null ? existing.id : null, userId, safeContent,
+                    existing != null ? existing.createdAt : now, now);
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * Merge a note fetched from Supabase. The newer updated_at wins; a newer remote note
+     * also drops any older pending upload. Returns true if the local copy changed.
+     */
+    public boolean applyRemote(NotesDatabase.Note remote) {
+        if (remote == null || remote.userId == null) {
+            return false;
+        }
+        long remoteMs = parseTimestamp(remote.updatedAt);
+
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            long localMs = -1;
+            int syncedRevision = -1;
+            try (Cursor cursor = db.query(TABLE_NOTES, new String[]{"updated_at_ms", "synced_revision"},
+                    "user_id = ?", new String[]{remote.userId}, null, null, null)) {
+                if (cursor.moveToFirst()) {
+                    localMs = cursor.getLong(0);
+                    syncedRevision = cursor.getInt(1);
+                }
+            }
+
+            boolean changed = false;
+            ContentValues values = new ContentValues();
+            values.put("remote_id", remote.id);
+            if (localMs < 0 || remoteMs > localMs) {
+                values.put("user_id", remote.userId);
+                values.put("content", remote.content != null ? remote.content : "");
+                values.put("created_at", remote.createdAt);
+                values.put("updated_at", remote.updatedAt);
+                values.put("updated_at_ms", remoteMs);
+                values.put("synced_content", remote.content != null ? remote.content : "");
+                values.put("synced_revision", remote.revision);
+                db.insertWithOnConflict(TABLE_NOTES, null, values, SQLiteDatabase.CONFLICT_REPLACE);
+                db.delete(TABLE_OUTBOX, "user_id = ? AND updated_at_ms <= ?",
+                        new String[]{remote.userId, String.valueOf(remoteMs)});
+                changed = true;
+                Log.d(TAG, "Applied newer remote note for user " + remote.userId);
+            } else {
+                // Local copy is newer (or equal); only remember the server row ID. If the
+                // server moved past our acknowledged base, the next upload has to be a full one.
+                if (remote.revision != syncedRevision) {
+                    values.put("synced_revision", -1);
+                }
+                db.update(TABLE_NOTES, values, "user_id = ?", new String[]{remote.userId});
+            }
+
+            db.setTransactionSuccessful();
+            return changed;
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    // ==================== OUTBOX ====================
+
+    public List<OutboxEntry> getDueOutbox(long now) {
+        List<OutboxEntry> entries = new ArrayList<>();
+        try (Cursor cursor = getReadableDatabase().query(TABLE_OUTBOX,
+                new String[]{"user_id", "content", "updated_at", "updated_at_ms", "attempts"},
+                "next_attempt_at <= ?", new String[]{String.valueOf(now)}, null, null, "updated_at_ms ASC")) {
+            while (cursor.moveToNext()) {
+                entries.add(new OutboxEntry(
+                        cursor.getString(0),
+                        cursor.getString(1),
+                        cursor.getString(2),
+                        cursor.getLong(3),
+                        cursor.getInt(4)));
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Earliest scheduled retry, or -1 if the outbox is empty
+     */
+    public long getNextOutboxAttemptAt() {
+        try (Cursor cursor = getReadableDatabase().rawQuery(
+                "SELECT MIN(next_attempt_at), COUNT(*) FROM " + TABLE_OUTBOX, null)) {
+            if (cursor.moveToFirst() && cursor.getInt(1) > 0) {
+                return cursor.getLong(0);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Upload succeeded. The outbox row is only removed if no newer write replaced it meanwhile.
+     */
+    public void markSynced(OutboxEntry entry, NotesDatabase.Note saved) {
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            db.delete(TABLE_OUTBOX, "user_id = ? AND updated_at_ms = ?",
+                    new String[]{entry.userId, String.valueOf(entry.updatedAtMs)});
+            if (saved != null) {
+                ContentValues values = new ContentValues();
+                values.put("remote_id", saved.id);
+                if (saved.createdAt != null) {
+                    values.put("created_at", saved.createdAt);
+                }
+                values.put("synced_content", saved.content != null ? saved.content : entry.content);
+                values.put("synced_revision", saved.revision);
+                db.update(TABLE_NOTES, values, "user_id = ?", new String[]{entry.userId});
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    public void markFailed(OutboxEntry entry, String error, long nextAttemptAt) {
+        ContentValues values = new ContentValues();
+        values.put("attempts", entry.attempts + 1);
+        values.put("next_attempt_at", nextAttemptAt);
+        values.put("last_error", error);
+        getWritableDatabase().update(TABLE_OUTBOX, values, "user_id = ? AND updated_at_ms = ?",
+                new String[]{entry.userId, String.valueOf(entry.updatedAtMs)});
+    }
+
+    // ==================== TIMESTAMPS ====================
+
+    /**
+     * Format epoch millis as the ISO-8601 UTC string Supabase stores
+     */
+    public static String formatTimestamp(long epochMs) {
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", Locale.US);
+        format.setTimeZone(TimeZone.getTimeZone("UTC"));
+        return format.format(new Date(epochMs));
+    }
+
+    /**
+     * Parse timestamps as returned by PostgREST ("2024-05-01T10:00:00.123456+00:00")
+     * or written by this app ("2024-05-01T10:00:00.123Z"). Returns 0 if unparseable.
+     */
+    public static long parseTimestamp(String timestamp) {
+        if (timestamp == null || timestamp.length() < 19) {
+            return 0;
+        }
+        try {
+            String base = timestamp.substring(0, 19);
+            String rest = timestamp.substring(19);
+
+            String millis = "000";
+            if (rest.startsWith(".")) {
+                int end = 1;
+                while (end < rest.length() && Character.isDigit(rest.charAt(end))) {
+                    end++;
+                }
+                String fraction = rest.substring(1, end);
+                millis = (fraction + "000").substring(0, 3);
+                rest = rest.substring(end);
+            }
+
+            String zone;
+            if (rest.isEmpty() || rest.equals("Z")) {
+                zone = "+0000";
+            } else {
+                zone = rest.replace(":", "");
+                if (zone.length() == 3) {
+                    zone += "00"; // "+05" -> "+0500"
+                }
+            }
+
+            SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSZ", Locale.US);
+            Date date = format.parse(base.replace(' ', 'T') + "." + millis + zone);
+            return date != null ? date.getTime() : 0;
+        } catch (ParseException | IndexOutOfBoundsException e) {
+            Log.w(TAG, "Could not parse timestamp: " + timestamp);
+            return 0;
+        }
+    }
+}
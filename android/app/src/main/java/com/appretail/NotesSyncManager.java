@@ -0,0 +1,287 @@
+package com.wingsfly;
+
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.util.Log;
+
+import org.json.JSONArray;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Background sync between NotesLocalStore and Supabase.
+ *
+ * All network work runs on one HandlerThread, so uploads for the same user are never
+ * concurrent. Failed uploads stay in the outbox and are retried with exponential backoff,
+ * and immediately when the device regains connectivity.
+ *
+ * Once the server has acknowledged a revision, uploads send only the edits made since that
+ * revision (NoteDelta) instead of the whole note. Full uploads are used for the first save,
+ * when the delta would not be smaller, or when the server copy has moved on.
+ */
+public class NotesSyncManager {
+
+    private static final String TAG = "NotesSyncManager";
+
+    private static final long BASE_RETRY_DELAY_MS = 5000;
+    private static final long MAX_RETRY_DELAY_MS = 10 * 60 * 1000;
+
+    private static NotesSyncManager instance;
+
+    private final NotesLocalStore store;
+    private final Handler syncHandler;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private volatile RemoteChangeListener listener;
+
+    // Upload volume, for comparing delta uploads against sending the full note every time
+    private long uploadCount;
+    private long deltaUploadCount;
+    private long bytesSent;
+    private long fullBodyBytes;
+    private long firstUploadAt;
+
+    /**
+     * Notified on the main thread when a newer note from the server replaced the local copy
+     */
+    public interface RemoteChangeListener {
+        void onRemoteNoteApplied(NotesDatabase.Note note);
+    }
+
+    /**
+     * Notified on the main thread when refreshFromRemote has finished, successful or not
+     */
+    public interface RefreshCallback {
+        void onRefreshFinished();
+    }
+
+    private final Runnable drainRunnable = new Runnable() {
+        @Override
+        public void run() {
+            drainOutbox();
+        }
+    };
+
+    public static synchronized NotesSyncManager getInstance(Context context) {
+        if (instance == null) {
+            instance = new NotesSyncManager(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private NotesSyncManager(Context context) {
+        store = NotesLocalStore.getInstance(context);
+
+        HandlerThread thread = new HandlerThread("NotesSync");
+        thread.start();
+        syncHandler = new Handler(thread.getLooper());
+
+        registerConnectivityCallback(context);
+    }
+
+    public void setRemoteChangeListener(RemoteChangeListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Drain the outbox as soon as possible
+     */
+    public void requestSync() {
+        syncHandler.removeCallbacks(drainRunnable);
+        syncHandler.post(drainRunnable);
+    }
+
+    /**
+     * Pull the server copy in the background and merge it by updated_at
+     */
+    public void refreshFromRemote(final String userId) {
+        refreshFromRemote(userId, null);
+    }
+
+    /**
+     * Pull the server copy and merge it, then call back on the main thread. The callback
+     * runs after any RemoteChangeListener notification, also when the server was unreachable.
+     */
+    public void refreshFromRemote(final String userId, final RefreshCallback callback) {
+        syncHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    NotesDatabase.Note remote = NotesDatabase.getUserNotes(userId);
+                    if (remote != null && store.applyRemote(remote)) {
+                        notifyRemoteApplied(store.getNote(userId));
+                    }
+                } catch (Exception e) {
+                    Log.e(TAG, "❌ Error refreshing note from server", e);
+                } finally {
+                    if (callback != null) {
+                        mainHandler.post(new Runnable() {
+                            @Override
+                            public void run() {
+                                callback.onRefreshFinished();
+                            }
+                        });
+                    }
+                }
+                drainOutbox();
+            }
+        });
+    }
+
+    private void drainOutbox() {
+        long now = System.currentTimeMillis();
+        List<NotesLocalStore.OutboxEntry> entries;
+        try {
+            entries = store.getDueOutbox(now);
+        } catch (Exception e) {
+            Log.e(TAG, "❌ Error reading notes outbox", e);
+            return;
+        }
+
+        for (NotesLocalStore.OutboxEntry entry : entries) {
+            upload(entry);
+        }
+
+        long nextAttemptAt = store.getNextOutboxAttemptAt();
+        if (nextAttemptAt >= 0) {
+            long delay = Math.max(nextAttemptAt - System.currentTimeMillis(), 0);
+            syncHandler.removeCallbacks(drainRunnable);
+            syncHandler.postDelayed(drainRunnable, delay);
+            Log.d(TAG, "Outbox not empty, next attempt in " + delay + "ms");
+        }
+    }
+
+    private void upload(NotesLocalStore.OutboxEntry entry) {
+        try {
+            Log.d(TAG, "📤 Uploading note for user " + entry.userId + " (attempt " + (entry.attempts + 1) + ")");
+
+            if (uploadDelta(entry)) {
+                return;
+            }
+
+            // Conflict check: if the server has a newer edit (e.g. from another device) it wins
+            NotesDatabase.Note remote = NotesDatabase.getUserNotes(entry.userId);
+            if (remote != null && NotesLocalStore.parseTimestamp(remote.updatedAt) > entry.updatedAtMs) {
+                Log.d(TAG, "Server note is newer than pending upload, keeping server copy");
+                if (store.applyRemote(remote)) {
+                    notifyRemoteApplied(store.getNote(entry.userId));
+                }
+                return;
+            }
+
+            String remoteId = remote != null ? remote.id : store.getRemoteId(entry.userId);
+            NotesDatabase.Note saved = remoteId != null
+                    ? NotesDatabase.updateNotes(remoteId, entry.content, entry.updatedAt)
+                    : NotesDatabase.createNotes(entry.userId, entry.content, entry.updatedAt);
+
+            if (saved != null) {
+                store.markSynced(entry, saved);
+                int fullBytes = utf8Length(entry.content);
+                recordUpload(fullBytes, fullBytes, false);
+                Log.d(TAG, "✅ Note synced");
+            } else {
+                scheduleRetry(entry, "save returned no row");
+            }
+        } catch (Exception e) {
+            scheduleRetry(entry, e.getMessage());
+        }
+    }
+
+    /**
+     * Send only what changed since the last acknowledged revision. Returns false if a full
+     * upload is needed instead; the server copy is never modified in that case.
+     */
+    private boolean uploadDelta(NotesLocalStore.OutboxEntry entry) throws Exception {
+        NotesLocalStore.SyncedBase base = store.getSyncedBase(entry.userId);
+        if (base == null) {
+            return false;
+        }
+
+        List<NoteDelta.Op> ops = NoteDelta.diff(base.content, entry.content);
+        JSONArray encoded = NoteDelta.toJson(ops);
+        int deltaBytes = utf8Length(encoded.toString());
+        int fullBytes = utf8Length(entry.content);
+        if (deltaBytes >= fullBytes) {
+            return false;
+        }
+
+        // The server checks the revision, so an edit from another device since our base
+        // makes this fail and the full path below resolves it by updated_at
+        NotesDatabase.Note saved = NotesDatabase.applyNoteDelta(base.remoteId, base.revision, encoded, entry.updatedAt);
+        if (saved == null) {
+            return false;
+        }
+        if (!entry.content.equals(saved.content)) {
+            Log.w(TAG, "⚠️ Server applied delta to a different base, sending full note");
+            return false;
+        }
+
+        store.markSynced(entry, saved);
+        recordUpload(deltaBytes, fullBytes, true);
+        Log.d(TAG, "✅ Note synced as delta (" + deltaBytes + " of " + fullBytes + " bytes)");
+        return true;
+    }
+
+    private synchronized void recordUpload(int sent, int fullBytes, boolean delta) {
+        long now = System.currentTimeMillis();
+        if (uploadCount == 0) {
+            firstUploadAt = now;
+        }
+        uploadCount++;
+        if (delta) {
+            deltaUploadCount++;
+        }
+        bytesSent += sent;
+        fullBodyBytes += fullBytes;
+
+        double minutes = Math.max((now - firstUploadAt) / 60000.0, 1.0);
+        Log.d(TAG, "Upload volume: " + Math.round(bytesSent / minutes) + " B/min sent vs "
+                + Math.round(fullBodyBytes / minutes) + " B/min as full notes ("
+                + deltaUploadCount + "/" + uploadCount + " uploads as delta)");
+    }
+
+    private static int utf8Length(String value) {
+        return value.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    private void scheduleRetry(NotesLocalStore.OutboxEntry entry, String error) {
+        long delay = Math.min(BASE_RETRY_DELAY_MS << Math.min(entry.attempts, 10), MAX_RETRY_DELAY_MS);
+        Log.w(TAG, "⚠️ Note upload failed (" + error + "), retrying in " + delay + "ms");
+        store.markFailed(entry, error, System.currentTimeMillis() + delay);
+    }
+
+    private void notifyRemoteApplied(final NotesDatabase.Note note) {
+        final RemoteChangeListener current = listener;
+        if (current == null || note == null) {
+            return;
+        }
+        mainHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                current.onRemoteNoteApplied(note);
+            }
+        });
+    }
+
+    private void registerConnectivityCallback(Context context) {
+        try {
+            ConnectivityManager cm = (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
+            if (cm == null) {
+                return;
+            }
+            cm.registerDefaultNetworkCallback(new ConnectivityManager.NetworkCallback() {
+                @Override
+                public void onAvailable(Network network) {
+                    Log.d(TAG, "Network available, flushing notes outbox");
+                    requestSync();
+                }
+            });
+        } catch (Exception e) {
+            Log.e(TAG, "Could not register network callback", e);
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.wingsfly;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.speech.tts.TextToSpeech;
+import android.speech.tts.UtteranceProgressListener;
+import android.util.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Last tier of the alarm speech: renders text with the device's TextToSpeech engine when
+ * ElevenLabs can't be reached (no network, quota, server errors).
+ *
+ * The audio goes into TtsAudioCache keyed by text, engine and language, so an alarm that
+ * repeats the same message while still offline plays it straight from disk. The engine of
+ * the last synthesis is remembered to look the file up without binding to the engine.
+ */
+public final class OfflineSpeechSynthesizer {
+
+    private static final String TAG = "OfflineSpeech";
+
+    private static final long INIT_TIMEOUT_MS = 5000;
+    private static final long SYNTHESIS_TIMEOUT_MS = 20000;
+
+    private static final Locale ENGLISH = Locale.US;
+    private static final Locale HINDI = new Locale("hi", "IN");
+    private static final Pattern HINDI_PATTERN = Pattern.compile("[\\u0900-\\u097F]");
+
+    // Matches the slower delivery of the ElevenLabs quote voice
+    private static final float HINDI_SPEECH_RATE = 0.8f;
+
+    private static final String PREFS_NAME = "OfflineSpeech";
+    private static final String KEY_ENGINE = "engine";
+
+    private OfflineSpeechSynthesizer() {
+    }
+
+    /**
+     * On-device audio for the text, synthesizing it first if needed. Blocking; runs on a
+     * TtsExecutor worker. Throws if there is no engine or no voice for the text's language.
+     */
+    public static File getOrSynthesize(Context context, String text) throws IOException {
+        Locale locale = HINDI_PATTERN.matcher(text).find() ? HINDI : ENGLISH;
+
+        String lastEngine = prefs(context).getString(KEY_ENGINE, null);
+        if (lastEngine != null) {
+            File cached = TtsAudioCache.getOffline(context, text, lastEngine, locale);
+            if (cached != null) {
+                Log.d(TAG, "✅ Offline speech from cache: " + cached.getName());
+                return cached;
+            }
+        }
+
+        // One engine binding at a time; alarms rarely need more than two clips
+        synchronized (OfflineSpeechSynthesizer.class) {
+            return synthesize(context.getApplicationContext(), text, locale);
+        }
+    }
+
+    private static File synthesize(Context context, String text, Locale locale) throws IOException {
+        long start = System.currentTimeMillis();
+        final CountDownLatch ready = new CountDownLatch(1);
+        final int[] initStatus = {TextToSpeech.ERROR};
+        TextToSpeech tts = new TextToSpeech(context, new TextToSpeech.OnInitListener() {
+            @Override
+            public void onInit(int status) {
+                initStatus[0] = status;
+                ready.countDown();
+            }
+        });
+
+        File partial = null;
+        try {
+            if (!ready.await(INIT_TIMEOUT_MS, TimeUnit.MILLISECONDS) || initStatus[0] != TextToSpeech.SUCCESS) {
+                throw new IOException("TextToSpeech engine unavailable");
+            }
+
+            String engine = tts.getDefaultEngine();
+            prefs(context).edit().putString(KEY_ENGINE, engine).apply();
+            File cached = TtsAudioCache.getOffline(context, text, engine, locale);
+            if (cached != null) {
+                return cached;
+            }
+            TtsAudioCache.recordOfflineMiss();
+
+            if (tts.setLanguage(locale) < TextToSpeech.LANG_AVAILABLE) {
+                throw new IOException("No offline voice for " + locale.toLanguageTag() + " in " + engine);
+            }
+            if (locale == HINDI) {
+                tts.setSpeechRate(HINDI_SPEECH_RATE);
+            }
+
+            final CountDownLatch done = new CountDownLatch(1);
+            final boolean[] succeeded = {false};
+            tts.setOnUtteranceProgressListener(new UtteranceProgressListener() {
+                @Override
+                public void onStart(String utteranceId) {
+                }
+
+                @Override
+                public void onDone(String utteranceId) {
+                    succeeded[0] = true;
+                    done.countDown();
+                }
+
+                @Override
+                public void onError(String utteranceId) {
+                    done.countDown();
+                }
+            });
+
+            File target = TtsAudioCache.offlineFileFor(context, text, engine, locale);
+            partial = new File(target.getPath() + ".part");
+            String utteranceId = target.getName();
+            if (tts.synthesizeToFile(text, null, partial, utteranceId) != TextToSpeech.SUCCESS) {
+                throw new IOException("TextToSpeech rejected the text");
+            }
+            if (!done.await(SYNTHESIS_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                throw new IOException("TextToSpeech timed out");
+            }
+            if (!succeeded[0] || partial.length() == 0) {
+                throw new IOException("TextToSpeech could not synthesize the text");
+            }
+            if (!partial.renameTo(target)) {
+                throw new IOException("Could not move " + partial + " into place");
+            }
+
+            Log.d(TAG, "🗣️ Synthesized " + (target.length() / 1024) + "KB offline with " + engine
+                    + " in " + (System.currentTimeMillis() - start) + "ms");
+            MediaCacheJanitor.trimIfOverBudget(context);
+            return target;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Offline synthesis cancelled");
+        } finally {
+            if (partial != null) {
+                partial.delete();
+            }
+            tts.shutdown();
+        }
+    }
+
+    private static SharedPreferences prefs(Context context) {
+        return context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+}
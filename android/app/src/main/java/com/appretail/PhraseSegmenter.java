@@ -0,0 +1,127 @@
+package com.wingsfly;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Splits a message template like "{name}, याद रखो — ... {time} बजे ...: {task}।" into the
+ * phrases that are the same for every alarm and the phrases that carry the slot values.
+ *
+ * The static phrases are synthesized once and kept for good, so a new alarm only sends the
+ * name, time and task to the API, and an alarm whose values were heard before sends nothing.
+ * Punctuation between a slot and the next words stays with the slot, so no clip is just a
+ * comma and every static phrase starts on a word.
+ */
+final class PhraseSegmenter {
+
+    private static final Pattern SLOT = Pattern.compile("\\{(\\w+)\\}");
+
+    static final class Phrase {
+        final String text;
+        final boolean dynamic;
+
+        Phrase(String text, boolean dynamic) {
+            this.text = text;
+            this.dynamic = dynamic;
+        }
+
+        @Override
+        public String toString() {
+            return (dynamic ? "~" : "") + text;
+        }
+    }
+
+    private PhraseSegmenter() {
+    }
+
+    /**
+     * Phrases of the filled template in speaking order. Slots without a value are left as
+     * literal text.
+     */
+    static List<Phrase> split(String template, Map<String, String> values) {
+        List<Phrase> phrases = new ArrayList<>();
+        Matcher matcher = SLOT.matcher(template);
+        int position = 0;
+        while (matcher.find()) {
+            addStatic(phrases, template.substring(position, matcher.start()));
+            String value = values.get(matcher.group(1));
+            if (value != null) {
+                addPhrase(phrases, value, true);
+            } else {
+                addStatic(phrases, matcher.group());
+            }
+            position = matcher.end();
+        }
+        addStatic(phrases, template.substring(position));
+        return phrases;
+    }
+
+    /**
+     * The whole sentence, as a single request would have spoken it
+     */
+    static String join(List<Phrase> phrases) {
+        StringBuilder text = new StringBuilder();
+        for (Phrase phrase : phrases) {
+            if (text.length() > 0 && !startsWithPunctuation(phrase.text)) {
+                text.append(' ');
+            }
+            text.append(phrase.text);
+        }
+        return text.toString();
+    }
+
+    static JSONArray toJson(List<Phrase> phrases) throws JSONException {
+        JSONArray array = new JSONArray();
+        for (Phrase phrase : phrases) {
+            array.put(new JSONObject().put("text", phrase.text).put("dynamic", phrase.dynamic));
+        }
+        return array;
+    }
+
+    static List<Phrase> fromJson(JSONArray array) {
+        if (array == null) {
+            return Collections.emptyList();
+        }
+        List<Phrase> phrases = new ArrayList<>();
+        for (int i = 0; i < array.length(); i++) {
+            JSONObject phrase = array.optJSONObject(i);
+            if (phrase != null && !phrase.optString("text", "").isEmpty()) {
+                phrases.add(new Phrase(phrase.optString("text"), phrase.optBoolean("dynamic")));
+            }
+        }
+        return phrases;
+    }
+
+    private static void addStatic(List<Phrase> phrases, String piece) {
+        // Leading punctuation closes the previous phrase
+        int words = 0;
+        while (words < piece.length() && !Character.isLetterOrDigit(piece.charAt(words))) {
+            words++;
+        }
+        if (words > 0 && !phrases.isEmpty()) {
+            Phrase previous = phrases.remove(phrases.size() - 1);
+            phrases.add(new Phrase((previous.text + piece.substring(0, words)).trim(), previous.dynamic));
+            piece = piece.substring(words);
+        }
+        addPhrase(phrases, piece, false);
+    }
+
+    private static void addPhrase(List<Phrase> phrases, String text, boolean dynamic) {
+        text = text.trim();
+        if (!text.isEmpty()) {
+            phrases.add(new Phrase(text, dynamic));
+        }
+    }
+
+    private static boolean startsWithPunctuation(String text) {
+        return !text.isEmpty() && !Character.isLetterOrDigit(text.charAt(0));
+    }
+}
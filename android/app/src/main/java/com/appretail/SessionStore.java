@@ -0,0 +1,218 @@
+package com.wingsfly;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * On-device log of app usage sessions, drained to Supabase by SessionUploadJobService.
+ *
+ * Each completed session is one fixed-size row (user, start, end); device details are
+ * added at upload time, so adding a session never rewrites earlier ones. Every session gets
+ * a UUID when it is logged, so uploading it again after a failed job updates the same
+ * server row instead of adding a duplicate.
+ */
+public class SessionStore extends SQLiteOpenHelper {
+
+    private static final String TAG = "SessionStore";
+
+    private static final String DATABASE_NAME = "wingsfly_sessions.db";
+    private static final int DATABASE_VERSION = 2;
+
+    private static final String TABLE_ACTIVE = "active_session";
+    private static final String TABLE_SESSIONS = "sessions";
+
+    // Shorter sessions are noise (app switcher, accidental opens)
+    private static final long MIN_SESSION_MS = 5000;
+
+    private static SessionStore instance;
+
+    public static class Session {
+        public final long id;
+        public final String uuid;
+        public final String userId;
+        public final long startMs;
+        public final long endMs;
+
+        Session(long id, String uuid, String userId, long startMs, long endMs) {
+            this.id = id;
+            this.uuid = uuid;
+            this.userId = userId;
+            this.startMs = startMs;
+            this.endMs = endMs;
+        }
+
+        public long getDurationSeconds() {
+            return (endMs - startMs) / 1000;
+        }
+    }
+
+    public static synchronized SessionStore getInstance(Context context) {
+        if (instance == null) {
+            instance = new SessionStore(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private SessionStore(Context context) {
+        super(context, DATABASE_NAME, null, DATABASE_VERSION);
+        setWriteAheadLoggingEnabled(true);
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + TABLE_ACTIVE + " (" +
+                "id INTEGER PRIMARY KEY CHECK (id = 0), " +
+                "user_id TEXT NOT NULL, " +
+                "start_ms INTEGER NOT NULL)");
+        db.execSQL("CREATE TABLE " + TABLE_SESSIONS + " (" +
+                "id INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                "uuid TEXT NOT NULL, " +
+                "user_id TEXT NOT NULL, " +
+                "start_ms INTEGER NOT NULL, " +
+                "end_ms INTEGER NOT NULL)");
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        if (oldVersion < 2) {
+            // Upload key; sessions already waiting get one now
+            db.execSQL("ALTER TABLE " + TABLE_SESSIONS + " ADD COLUMN uuid TEXT NOT NULL DEFAULT ''");
+            try (Cursor cursor = db.query(TABLE_SESSIONS, new String[]{"id"}, null, null, null, null, null)) {
+                while (cursor.moveToNext()) {
+                    ContentValues values = new ContentValues();
+                    values.put("uuid", UUID.randomUUID().toString());
+                    db.update(TABLE_SESSIONS, values, "id = ?", new String[]{String.valueOf(cursor.getLong(0))});
+                }
+            }
+        }
+    }
+
+    // ==================== SESSIONS ====================
+
+    /**
+     * Start the active session, replacing any that was never ended (e.g. the app was killed)
+     */
+    public void startSession(String userId) {
+        ContentValues values = new ContentValues();
+        values.put("id", 0);
+        values.put("user_id", userId);
+        values.put("start_ms", System.currentTimeMillis());
+        getWritableDatabase().insertWithOnConflict(TABLE_ACTIVE, null, values, SQLiteDatabase.CONFLICT_REPLACE);
+    }
+
+    /**
+     * End the active session and append it to the log. Returns null if there was no active
+     * session or it was too short to keep.
+     */
+    public Session endSession() {
+        long now = System.currentTimeMillis();
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            String userId = null;
+            long startMs = 0;
+            try (Cursor cursor = db.query(TABLE_ACTIVE, new String[]{"user_id", "start_ms"},
+                    null, null, null, null, null)) {
+                if (cursor.moveToFirst()) {
+                    userId = cursor.getString(0);
+                    startMs = cursor.getLong(1);
+                }
+            }
+            if (userId == null) {
+                Log.d(TAG, "No active session to end");
+                return null;
+            }
+            db.delete(TABLE_ACTIVE, null, null);
+
+            Session session = null;
+            if (now - startMs >= MIN_SESSION_MS) {
+                String uuid = UUID.randomUUID().toString();
+                long id = insert(db, uuid, userId, startMs, now);
+                session = new Session(id, uuid, userId, startMs, now);
+            } else {
+                Log.d(TAG, "Session too short, not saving");
+            }
+            db.setTransactionSuccessful();
+            return session;
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * Append an already completed session, e.g. one handed over from the old JS store. A null
+     * uuid gets a new one.
+     */
+    public void addSession(String uuid, String userId, long startMs, long endMs) {
+        if (endMs - startMs >= MIN_SESSION_MS) {
+            insert(getWritableDatabase(), uuid != null ? uuid : UUID.randomUUID().toString(), userId, startMs, endMs);
+        }
+    }
+
+    private static long insert(SQLiteDatabase db, String uuid, String userId, long startMs, long endMs) {
+        ContentValues values = new ContentValues();
+        values.put("uuid", uuid);
+        values.put("user_id", userId);
+        values.put("start_ms", startMs);
+        values.put("end_ms", endMs);
+        return db.insertOrThrow(TABLE_SESSIONS, null, values);
+    }
+
+    public boolean hasActiveSession() {
+        try (Cursor cursor = getReadableDatabase().rawQuery("SELECT COUNT(*) FROM " + TABLE_ACTIVE, null)) {
+            return cursor.moveToFirst() && cursor.getInt(0) > 0;
+        }
+    }
+
+    // ==================== UPLOAD QUEUE ====================
+
+    /**
+     * Oldest completed sessions, up to limit
+     */
+    public List<Session> getPending(int limit) {
+        List<Session> sessions = new ArrayList<>();
+        try (Cursor cursor = getReadableDatabase().query(TABLE_SESSIONS,
+                new String[]{"id", "uuid", "user_id", "start_ms", "end_ms"},
+                null, null, null, null, "id ASC", String.valueOf(limit))) {
+            while (cursor.moveToNext()) {
+                sessions.add(new Session(cursor.getLong(0), cursor.getString(1), cursor.getString(2),
+                        cursor.getLong(3), cursor.getLong(4)));
+            }
+        }
+        return sessions;
+    }
+
+    /**
+     * Drop sessions up to and including maxId once they are uploaded
+     */
+    public void deleteUpTo(long maxId) {
+        getWritableDatabase().delete(TABLE_SESSIONS, "id <= ?", new String[]{String.valueOf(maxId)});
+    }
+
+    public int getPendingCount() {
+        try (Cursor cursor = getReadableDatabase().rawQuery("SELECT COUNT(*) FROM " + TABLE_SESSIONS, null)) {
+            return cursor.moveToFirst() ? cursor.getInt(0) : 0;
+        }
+    }
+
+    public long getPendingDurationSeconds() {
+        try (Cursor cursor = getReadableDatabase().rawQuery(
+                "SELECT COALESCE(SUM(end_ms - start_ms), 0) FROM " + TABLE_SESSIONS, null)) {
+            return cursor.moveToFirst() ? cursor.getLong(0) / 1000 : 0;
+        }
+    }
+
+    public void clearAll() {
+        SQLiteDatabase db = getWritableDatabase();
+        db.delete(TABLE_ACTIVE, null, null);
+        db.delete(TABLE_SESSIONS, null, null);
+    }
+}
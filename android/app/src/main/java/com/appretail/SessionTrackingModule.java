@@ -0,0 +1,157 @@
+package com.wingsfly;
+
+import android.util.Log;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.Promise;
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.bridge.ReactContextBaseJavaModule;
+import com.facebook.react.bridge.ReactMethod;
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.WritableMap;
+
+/**
+ * App usage session tracking. JS only marks session start and end; sessions are logged
+ * in SessionStore and uploaded in the background by SessionUploadJobService.
+ */
+public class SessionTrackingModule extends ReactContextBaseJavaModule {
+
+    private static final String TAG = "SessionTrackingModule";
+
+    public SessionTrackingModule(ReactApplicationContext reactContext) {
+        super(reactContext);
+    }
+
+    @Override
+    public String getName() {
+        return "SessionTrackingModule";
+    }
+
+    @ReactMethod
+    public void startSession(String userId, Promise promise) {
+        try {
+            SessionStore.getInstance(getReactApplicationContext()).startSession(userId);
+            // Pick up sessions left over from earlier runs
+            SessionUploadJobService.schedule(getReactApplicationContext(), false);
+            Log.d(TAG, "Session started for user " + userId);
+            promise.resolve(true);
+        } catch (Exception e) {
+            Log.e(TAG, "Error starting session", e);
+            promise.reject("SESSION_ERROR", e.getMessage());
+        }
+    }
+
+    @ReactMethod
+    public void endSession(Promise promise) {
+        try {
+            SessionStore.Session session = SessionStore.getInstance(getReactApplicationContext()).endSession();
+            if (session == null) {
+                promise.resolve(null);
+                return;
+            }
+            SessionUploadJobService.schedule(getReactApplicationContext(), false);
+
+            WritableMap result = Arguments.createMap();
+            result.putString("id", session.uuid);
+            result.putString("user_id", session.userId);
+            result.putString("session_start", SessionUploadJobService.toIstTimestamp(session.startMs));
+            result.putString("session_end", SessionUploadJobService.toIstTimestamp(session.endMs));
+            result.putDouble("duration", session.getDurationSeconds());
+            result.putString("duration_formatted", SessionUploadJobService.formatDuration(session.getDurationSeconds()));
+            Log.d(TAG, "Session ended: " + SessionUploadJobService.formatDuration(session.getDurationSeconds()));
+            promise.resolve(result);
+        } catch (Exception e) {
+            Log.e(TAG, "Error ending session", e);
+            promise.reject("SESSION_ERROR", e.getMessage());
+        }
+    }
+
+    /**
+     * Upload pending sessions as soon as there is a network, ignoring the daily cadence
+     */
+    @ReactMethod
+    public void uploadNow(Promise promise) {
+        try {
+            SessionUploadJobService.schedule(getReactApplicationContext(), true);
+            promise.resolve(SessionStore.getInstance(getReactApplicationContext()).getPendingCount());
+        } catch (Exception e) {
+            Log.e(TAG, "Error scheduling session upload", e);
+            promise.reject("SESSION_ERROR", e.getMessage());
+        }
+    }
+
+    @ReactMethod
+    public void getSessionStats(Promise promise) {
+        try {
+            SessionStore store = SessionStore.getInstance(getReactApplicationContext());
+            long totalDuration = store.getPendingDurationSeconds();
+            long lastUpload = SessionUploadJobService.getLastUploadAt(getReactApplicationContext());
+
+            WritableMap stats = Arguments.createMap();
+            stats.putInt("pendingSessionsCount", store.getPendingCount());
+            stats.putBoolean("hasActiveSession", store.hasActiveSession());
+            if (lastUpload > 0) {
+                stats.putDouble("lastBatchSent", lastUpload);
+            } else {
+                stats.putNull("lastBatchSent");
+            }
+            stats.putDouble("totalDuration", totalDuration);
+            stats.putString("totalDurationFormatted", SessionUploadJobService.formatDuration(totalDuration));
+            promise.resolve(stats);
+        } catch (Exception e) {
+            Log.e(TAG, "Error getting session stats", e);
+            promise.reject("SESSION_ERROR", e.getMessage());
+        }
+    }
+
+    /**
+     * Move sessions still queued by the old AsyncStorage-based tracker into the native log
+     */
+    @ReactMethod
+    public void importPendingSessions(ReadableArray sessions, Promise promise) {
+        try {
+            SessionStore store = SessionStore.getInstance(getReactApplicationContext());
+            int imported = 0;
+            for (int i = 0; i < sessions.size(); i++) {
+                ReadableMap session = sessions.getMap(i);
+                if (session == null || !session.hasKey("user_id") || !session.hasKey("session_start")
+                        || !session.hasKey("session_end")) {
+                    continue;
+                }
+                long startMs = SessionUploadJobService.fromIstTimestamp(session.getString("session_start"));
+                long endMs = SessionUploadJobService.fromIstTimestamp(session.getString("session_end"));
+                if (startMs > 0 && endMs > startMs) {
+                    // The old store already gave each session a UUID; keep it as the upload key
+                    String uuid = session.hasKey("id") ? session.getString("id") : null;
+                    store.addSession(uuid, session.getString("user_id"), startMs, endMs);
+                    imported++;
+                }
+            }
+            if (imported > 0) {
+                SessionUploadJobService.schedule(getReactApplicationContext(), false);
+            }
+            Log.d(TAG, "Imported " + imported + " pending session(s) from JS storage");
+            promise.resolve(imported);
+        } catch (Exception e) {
+            Log.e(TAG, "Error importing sessions", e);
+            promise.reject("SESSION_ERROR", e.getMessage());
+        }
+    }
+
+    @ReactMethod
+    public void clearAllSessionData(Promise promise) {
+        try {
+            SessionStore.getInstance(getReactApplicationContext()).clearAll();
+            promise.resolve(true);
+        } catch (Exception e) {
+            Log.e(TAG, "Error clearing session data", e);
+            promise.reject("SESSION_ERROR", e.getMessage());
+        }
+    }
+
+    @ReactMethod
+    public void testConnection(final Promise promise) {
+        new Thread(() -> promise.resolve(SupabaseRestClient.getInstance().ping()), "SessionConnectionTest").start();
+    }
+}
@@ -0,0 +1,216 @@
+package com.wingsfly;
+
+import android.app.job.JobInfo;
+import android.app.job.JobParameters;
+import android.app.job.JobScheduler;
+import android.app.job.JobService;
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.content.pm.PackageInfo;
+import android.os.Build;
+import android.os.PersistableBundle;
+import android.util.Log;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Uploads the sessions logged in SessionStore to the user_activity table in batches.
+ *
+ * The job is persisted and only runs with a network connection, so pending sessions reach
+ * the server even if the app is never opened again. Like the old JS uploader, a batch is
+ * sent once a day or as soon as 50 sessions are waiting. Rows are upserted on the session's
+ * UUID, so a batch the server stored before the job failed or was stopped is not duplicated
+ * when the retry sends it again.
+ */
+public class SessionUploadJobService extends JobService {
+
+    private static final String TAG = "SessionUploadJob";
+
+    private static final int JOB_ID = 47200;
+    private static final String EXTRA_RUN_AT = "runAt";
+
+    private static final String TABLE = "user_activity";
+    private static final int BATCH_SIZE = 100;
+    private static final int EAGER_UPLOAD_COUNT = 50;
+    private static final long UPLOAD_INTERVAL_MS = 24 * 60 * 60 * 1000L;
+    private static final long RETRY_BACKOFF_MS = 60 * 1000L;
+
+    // Existing user_activity rows store IST wall-clock time with a Z suffix
+    private static final long IST_OFFSET_MS = (5 * 60 + 30) * 60 * 1000L;
+
+    private static final String PREFS_NAME = "SessionUpload";
+    private static final String KEY_LAST_UPLOAD_AT = "last_upload_at";
+
+    private volatile boolean stopped;
+
+    /**
+     * Schedule the next upload if sessions are waiting. An earlier pending run is kept.
+     *
+     * @param immediate upload as soon as there is a network, regardless of the daily cadence
+     */
+    public static void schedule(Context context, boolean immediate) {
+        try {
+            SessionStore store = SessionStore.getInstance(context);
+            int pending = store.getPendingCount();
+            if (pending == 0) {
+                return;
+            }
+
+            long now = System.currentTimeMillis();
+            long lastUpload = getLastUploadAt(context);
+            long runAt = immediate || pending >= EAGER_UPLOAD_COUNT || lastUpload == 0
+                    ? now
+                    : Math.max(now, lastUpload + UPLOAD_INTERVAL_MS);
+
+            JobScheduler scheduler = (JobScheduler) context.getSystemService(Context.JOB_SCHEDULER_SERVICE);
+            if (scheduler == null) {
+                return;
+            }
+            JobInfo existing = scheduler.getPendingJob(JOB_ID);
+            if (existing != null && existing.getExtras().getLong(EXTRA_RUN_AT, Long.MAX_VALUE) <= runAt) {
+                return;
+            }
+
+            PersistableBundle extras = new PersistableBundle();
+            extras.putLong(EXTRA_RUN_AT, runAt);
+
+            JobInfo job = new JobInfo.Builder(JOB_ID, new ComponentName(context, SessionUploadJobService.class))
+                    .setRequiredNetworkType(JobInfo.NETWORK_TYPE_ANY)
+                    .setMinimumLatency(runAt - now)
+                    .setBackoffCriteria(RETRY_BACKOFF_MS, JobInfo.BACKOFF_POLICY_EXPONENTIAL)
+                    .setExtras(extras)
+                    .setPersisted(true)
+                    .build();
+            scheduler.schedule(job);
+            Log.d(TAG, pending + " session(s) pending, upload in " + (runAt - now) + "ms");
+        } catch (Exception e) {
+            Log.e(TAG, "Could not schedule session upload", e);
+        }
+    }
+
+    public static long getLastUploadAt(Context context) {
+        return getPrefs(context).getLong(KEY_LAST_UPLOAD_AT, 0);
+    }
+
+    @Override
+    public boolean onStartJob(final JobParameters params) {
+        stopped = false;
+        new Thread(() -> {
+            boolean retry = !uploadPending();
+            jobFinished(params, retry);
+            if (!retry) {
+                // Sessions that ended while we were uploading wait for the next cycle
+                schedule(getApplicationContext(), false);
+            }
+        }, "SessionUpload").start();
+        return true;
+    }
+
+    @Override
+    public boolean onStopJob(JobParameters params) {
+        // Uploaded batches are already removed; the rest goes out on the rescheduled run
+        stopped = true;
+        return true;
+    }
+
+    /**
+     * Upload everything pending. Returns false if a batch failed and the job should retry.
+     */
+    private boolean uploadPending() {
+        Context context = getApplicationContext();
+        SessionStore store = SessionStore.getInstance(context);
+        String deviceInfo = buildDeviceInfo(context);
+        int uploaded = 0;
+
+        try {
+            while (!stopped) {
+                List<SessionStore.Session> batch = store.getPending(BATCH_SIZE);
+                if (batch.isEmpty()) {
+                    break;
+                }
+
+                JSONArray rows = new JSONArray();
+                for (SessionStore.Session session : batch) {
+                    rows.put(toRow(session, deviceInfo));
+                }
+                SupabaseRestClient.getInstance().upsertAll(TABLE, rows, "id");
+                store.deleteUpTo(batch.get(batch.size() - 1).id);
+                uploaded += batch.size();
+                Log.d(TAG, "✅ Uploaded batch of " + batch.size() + " session(s)");
+            }
+        } catch (IOException | JSONException e) {
+            Log.e(TAG, "❌ Session upload failed after " + uploaded + " session(s): " + e.getMessage());
+            return false;
+        }
+
+        if (uploaded > 0) {
+            getPrefs(context).edit().putLong(KEY_LAST_UPLOAD_AT, System.currentTimeMillis()).apply();
+        }
+        return !stopped;
+    }
+
+    private static JSONObject toRow(SessionStore.Session session, String deviceInfo) throws JSONException {
+        JSONObject row = new JSONObject();
+        row.put("id", session.uuid);
+        row.put("user_id", session.userId);
+        row.put("session_start", toIstTimestamp(session.startMs));
+        row.put("session_end", toIstTimestamp(session.endMs));
+        row.put("duration", formatDuration(session.getDurationSeconds()));
+        row.put("device_info", deviceInfo);
+        return row;
+    }
+
+    static String toIstTimestamp(long epochMs) {
+        return NotesLocalStore.formatTimestamp(epochMs + IST_OFFSET_MS);
+    }
+
+    static long fromIstTimestamp(String timestamp) {
+        long parsed = NotesLocalStore.parseTimestamp(timestamp);
+        return parsed > 0 ? parsed - IST_OFFSET_MS : 0;
+    }
+
+    /**
+     * "2h 15m 30s", the text format the duration column holds
+     */
+    static String formatDuration(long totalSeconds) {
+        long hours = totalSeconds / 3600;
+        long minutes = (totalSeconds % 3600) / 60;
+        long seconds = totalSeconds % 60;
+        if (hours > 0) {
+            return hours + "h " + minutes + "m " + seconds + "s";
+        } else if (minutes > 0) {
+            return minutes + "m " + seconds + "s";
+        }
+        return seconds + "s";
+    }
+
+    private static String buildDeviceInfo(Context context) {
+        JSONObject info = new JSONObject();
+        try {
+            info.put("platform", "android");
+            info.put("brand", Build.BRAND);
+            info.put("model", Build.MODEL);
+            info.put("systemVersion", Build.VERSION.RELEASE);
+            try {
+                PackageInfo packageInfo = context.getPackageManager().getPackageInfo(context.getPackageName(), 0);
+                info.put("appVersion", packageInfo.versionName);
+            } catch (Exception e) {
+                Log.w(TAG, "Could not read app version");
+            }
+            info.put("timezone", "IST");
+        } catch (JSONException e) {
+            Log.e(TAG, "Error building device info", e);
+        }
+        return info.toString();
+    }
+
+    private static SharedPreferences getPrefs(Context context) {
+        return context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+}
@@ -0,0 +1,111 @@
+package com.wingsfly;
+
+import android.util.Log;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Coalesces concurrent identical remote fetches.
+ *
+ * When an alarm fires, the activity, receivers and TTS services can ask for the same
+ * Supabase row within a few milliseconds of each other. The first caller for a key runs
+ * the request; callers arriving while it is in flight block on it and share its result
+ * (or its exception) instead of opening their own connection.
+ */
+public final class SingleFlight {
+
+    private static final String TAG = "SingleFlight";
+
+    public interface Loader<T> {
+        T load() throws IOException;
+    }
+
+    private static final ConcurrentHashMap<String, FutureTask<Object>> inFlight = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<String, AtomicLong> dedupedByKey = new ConcurrentHashMap<>();
+    private static final AtomicLong executedCount = new AtomicLong();
+    private static final AtomicLong dedupedCount = new AtomicLong();
+
+    private SingleFlight() {
+    }
+
+    /**
+     * Run the loader, or join the identical request already in flight for this key
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T run(String key, final Loader<T> loader) throws IOException {
+        FutureTask<Object> task = new FutureTask<>(new Callable<Object>() {
+            @Override
+            public Object call() throws Exception {
+                return loader.load();
+            }
+        });
+
+        FutureTask<Object> existing = inFlight.putIfAbsent(key, task);
+        if (existing == null) {
+            executedCount.incrementAndGet();
+            try {
+                task.run();
+            } finally {
+                inFlight.remove(key, task);
+            }
+        } else {
+            dedupedCount.incrementAndGet();
+            counterFor(key).incrementAndGet();
+            Log.d(TAG, "Joined in-flight request: " + key);
+            task = existing;
+        }
+
+        try {
+            return (T) task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for " + key);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * Number of loaders actually run
+     */
+    public static long getExecutedCount() {
+        return executedCount.get();
+    }
+
+    /**
+     * Number of calls that shared another caller's request instead of making their own
+     */
+    public static long getDedupedCount() {
+        return dedupedCount.get();
+    }
+
+    public static Map<String, Long> getDedupedByKey() {
+        Map<String, Long> snapshot = new HashMap<>();
+        for (Map.Entry<String, AtomicLong> entry : dedupedByKey.entrySet()) {
+            snapshot.put(entry.getKey(), entry.getValue().get());
+        }
+        return snapshot;
+    }
+
+    private static AtomicLong counterFor(String key) {
+        return dedupedByKey.computeIfAbsent(key, k -> new AtomicLong());
+    }
+}
@@ -0,0 +1,94 @@
+package com.wingsfly;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Which tier of the alarm speech pipeline served each alarm: pre-rendered, streamed,
+ * buffered, combined, offline, or none when every tier failed. Keeps the most recent
+ * alarms and a running count per tier.
+ */
+public final class SpeechTierLog {
+
+    private static final String TAG = "SpeechTierLog";
+
+    public static final String TIER_CACHED = "cached";
+    public static final String TIER_STREAMING = "streaming";
+    public static final String TIER_BUFFERED = "buffered";
+    public static final String TIER_COMBINED = "combined";
+    public static final String TIER_OFFLINE = "offline";
+    public static final String TIER_NONE = "none";
+
+    private static final String[] TIERS = {
+            TIER_CACHED, TIER_STREAMING, TIER_BUFFERED, TIER_COMBINED, TIER_OFFLINE, TIER_NONE
+    };
+
+    private static final int MAX_RECENT = 50;
+
+    private static final String PREFS_NAME = "SpeechTierLog";
+    private static final String KEY_RECENT = "recent";
+    private static final String KEY_COUNT_PREFIX = "count_";
+
+    private SpeechTierLog() {
+    }
+
+    /**
+     * @param ttfaMs time to first audio, or -1 if nothing played
+     */
+    public static synchronized void record(Context context, String alarmId, String tier, long ttfaMs) {
+        SharedPreferences prefs = prefs(context);
+        try {
+            JSONArray recent = new JSONArray(prefs.getString(KEY_RECENT, "[]"));
+            JSONObject entry = new JSONObject();
+            entry.put("alarmId", alarmId != null ? alarmId : JSONObject.NULL);
+            entry.put("tier", tier);
+            entry.put("ttfaMs", ttfaMs);
+            entry.put("at", System.currentTimeMillis());
+
+            JSONArray trimmed = new JSONArray();
+            trimmed.put(entry);
+            for (int i = 0; i < recent.length() && trimmed.length() < MAX_RECENT; i++) {
+                trimmed.put(recent.get(i));
+            }
+            prefs.edit()
+                    .putString(KEY_RECENT, trimmed.toString())
+                    .putLong(KEY_COUNT_PREFIX + tier, prefs.getLong(KEY_COUNT_PREFIX + tier, 0) + 1)
+                    .apply();
+            Log.d(TAG, "Alarm " + alarmId + " served by tier " + tier);
+        } catch (JSONException e) {
+            Log.e(TAG, "Could not record speech tier", e);
+        }
+    }
+
+    /**
+     * Most recent alarms first
+     */
+    public static synchronized JSONArray getRecent(Context context) {
+        try {
+            return new JSONArray(prefs(context).getString(KEY_RECENT, "[]"));
+        } catch (JSONException e) {
+            return new JSONArray();
+        }
+    }
+
+    public static Map<String, Long> getCounts(Context context) {
+        SharedPreferences prefs = prefs(context);
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (String tier : TIERS) {
+            counts.put(tier, prefs.getLong(KEY_COUNT_PREFIX + tier, 0));
+        }
+        return counts;
+    }
+
+    private static SharedPreferences prefs(Context context) {
+        return context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+}
@@ -0,0 +1,96 @@
+package com.wingsfly;
+
+import android.media.MediaDataSource;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Arrays;
+
+/**
+ * MediaPlayer data source fed by a download in progress.
+ *
+ * The downloading thread appends chunks as they arrive; the player reads from memory and
+ * blocks only when it gets ahead of the download, so playback can start on the first
+ * frames. The size is reported as unknown until the download finishes.
+ */
+public class StreamingAudioSource extends MediaDataSource {
+
+    private static final int INITIAL_CAPACITY = 64 * 1024;
+
+    private byte[] data = new byte[INITIAL_CAPACITY];
+    private int length;
+    private boolean finished;
+    private boolean closed;
+    private IOException failure;
+
+    /**
+     * Append downloaded bytes. Called from the download thread.
+     */
+    public synchronized void append(byte[] chunk, int count) {
+        if (closed) {
+            return;
+        }
+        if (length + count > data.length) {
+            data = Arrays.copyOf(data, Math.max(data.length * 2, length + count));
+        }
+        System.arraycopy(chunk, 0, data, length, count);
+        length += count;
+        notifyAll();
+    }
+
+    /**
+     * Mark the download complete; reads past the end now return end of stream
+     */
+    public synchronized void finish() {
+        finished = true;
+        notifyAll();
+    }
+
+    /**
+     * Fail reads past the downloaded audio, which surfaces as a MediaPlayer error
+     */
+    public synchronized void fail(IOException error) {
+        failure = error;
+        notifyAll();
+    }
+
+    public synchronized int getBufferedBytes() {
+        return length;
+    }
+
+    @Override
+    public synchronized int readAt(long position, byte[] buffer, int offset, int size) throws IOException {
+        while (position >= length && !finished && failure == null && !closed) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted waiting for audio data");
+            }
+        }
+        if (closed) {
+            return -1;
+        }
+        if (position >= length) {
+            // Audio already downloaded still plays; the failure surfaces where it ran out
+            if (failure != null) {
+                throw failure;
+            }
+            return -1;
+        }
+        int count = (int) Math.min(size, length - position);
+        System.arraycopy(data, (int) position, buffer, offset, count);
+        return count;
+    }
+
+    @Override
+    public synchronized long getSize() {
+        return finished ? length : -1;
+    }
+
+    @Override
+    public synchronized void close() {
+        closed = true;
+        notifyAll();
+    }
+}
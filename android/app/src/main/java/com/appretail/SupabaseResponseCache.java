@@ -0,0 +1,181 @@
+package com.wingsfly;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.util.Log;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Persistent cache for admin-configured Supabase tables (intention settings, morning
+ * routine commands, date reminder settings).
+ *
+ * Reads are stale-while-revalidate: a cached body is returned immediately and, once it is
+ * older than the table's TTL, refreshed in the background with If-None-Match /
+ * If-Modified-Since. Only the very first read of a table waits on the network.
+ */
+public class SupabaseResponseCache {
+
+    private static final String TAG = "SupabaseResponseCache";
+    private static final String PREFS_NAME = "SupabaseResponseCache";
+
+    private static final String KEY_BODY = "body_";
+    private static final String KEY_ETAG = "etag_";
+    private static final String KEY_LAST_MODIFIED = "last_modified_";
+    private static final String KEY_FETCHED_AT = "fetched_at_";
+    private static final String KEY_TTL = "ttl_";
+
+    public static final long DEFAULT_TTL_MS = 6 * 60 * 60 * 1000L;
+
+    private static final Set<String> revalidating = Collections.synchronizedSet(new HashSet<String>());
+    private static Handler revalidateHandler;
+
+    /**
+     * Return rows for the query, from cache when available.
+     *
+     * @param forceRefresh go to the network first (falls back to the cached copy on failure)
+     */
+    public static <T> List<T> getRows(Context context, SupabaseRestClient.Query query,
+                                      SupabaseRestClient.RowMapper<T> mapper, boolean forceRefresh) throws IOException {
+        SharedPreferences prefs = getPrefs(context);
+        String key = query.path();
+        String cachedBody = prefs.getString(KEY_BODY + key, null);
+
+        if (cachedBody != null && !forceRefresh) {
+            long age = System.currentTimeMillis() - prefs.getLong(KEY_FETCHED_AT + key, 0);
+            if (age > getTtl(context, query.table)) {
+                Log.d(TAG, "Serving stale " + query.table + " (age " + age + "ms), revalidating in background");
+                revalidateAsync(context, query);
+            } else {
+                Log.d(TAG, "Serving fresh " + query.table + " from cache");
+            }
+            return SupabaseRestClient.parseRows(cachedBody, mapper);
+        }
+
+        try {
+            String body = revalidate(context, query);
+            return SupabaseRestClient.parseRows(body, mapper);
+        } catch (IOException e) {
+            if (cachedBody != null) {
+                Log.w(TAG, "Refresh of " + query.table + " failed, using cached copy: " + e.getMessage());
+                return SupabaseRestClient.parseRows(cachedBody, mapper);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * TTL for a table, defaults to DEFAULT_TTL_MS
+     */
+    public static long getTtl(Context context, String table) {
+        return getPrefs(context).getLong(KEY_TTL + table, DEFAULT_TTL_MS);
+    }
+
+    public static void setTtl(Context context, String table, long ttlMs) {
+        getPrefs(context).edit().putLong(KEY_TTL + table, ttlMs).apply();
+        Log.d(TAG, "TTL for " + table + " set to " + ttlMs + "ms");
+    }
+
+    /**
+     * Mark every cached response for the table as stale so the next read revalidates
+     */
+    public static void invalidate(Context context, String table) {
+        SharedPreferences prefs = getPrefs(context);
+        SharedPreferences.Editor editor = prefs.edit();
+        String prefix = KEY_FETCHED_AT + "/rest/v1/" + table;
+        for (String key : prefs.getAll().keySet()) {
+            if (key.equals(prefix) || key.startsWith(prefix + "?")) {
+                editor.putLong(key, 0);
+            }
+        }
+        editor.apply();
+    }
+
+    /**
+     * Conditional GET; stores the new body (or just bumps the timestamp on 304) and
+     * returns the current body.
+     */
+    private static String revalidate(final Context context, final SupabaseRestClient.Query query) throws IOException {
+        // Cold-start reads, forced refreshes and background revalidation of the same query
+        // share one conditional GET
+        return SingleFlight.run("revalidate " + query.path(), new SingleFlight.Loader<String>() {
+            @Override
+            public String load() throws IOException {
+                return revalidateNow(context, query);
+            }
+        });
+    }
+
+    private static String revalidateNow(Context context, SupabaseRestClient.Query query) throws IOException {
+        SharedPreferences prefs = getPrefs(context);
+        String key = query.path();
+        boolean haveBody = prefs.contains(KEY_BODY + key);
+        String etag = haveBody ? prefs.getString(KEY_ETAG + key, null) : null;
+        String lastModified = haveBody ? prefs.getString(KEY_LAST_MODIFIED + key, null) : null;
+
+        SupabaseRestClient.Response response =
+                SupabaseRestClient.getInstance().conditionalGet(query, etag, lastModified);
+
+        SharedPreferences.Editor editor = prefs.edit();
+        editor.putLong(KEY_FETCHED_AT + key, System.currentTimeMillis());
+        if (response.isNotModified() && haveBody) {
+            Log.d(TAG, "✅ " + query.table + " not modified");
+            editor.apply();
+            return prefs.getString(KEY_BODY + key, "");
+        }
+
+        editor.putString(KEY_BODY + key, response.body);
+        putOrRemove(editor, KEY_ETAG + key, response.etag);
+        putOrRemove(editor, KEY_LAST_MODIFIED + key, response.lastModified);
+        editor.apply();
+        Log.d(TAG, "✅ Cached " + query.table + " (" + response.body.length() + " chars)");
+        return response.body;
+    }
+
+    private static void revalidateAsync(Context context, final SupabaseRestClient.Query query) {
+        final Context appContext = context.getApplicationContext();
+        final String key = query.path();
+        if (!revalidating.add(key)) {
+            return;
+        }
+        getRevalidateHandler().post(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    revalidate(appContext, query);
+                } catch (Exception e) {
+                    Log.w(TAG, "Background revalidation of " + query.table + " failed: " + e.getMessage());
+                } finally {
+                    revalidating.remove(key);
+                }
+            }
+        });
+    }
+
+    private static synchronized Handler getRevalidateHandler() {
+        if (revalidateHandler == null) {
+            HandlerThread thread = new HandlerThread("SupabaseCacheRevalidate");
+            thread.start();
+            revalidateHandler = new Handler(thread.getLooper());
+        }
+        return revalidateHandler;
+    }
+
+    private static void putOrRemove(SharedPreferences.Editor editor, String key, String value) {
+        if (value != null) {
+            editor.putString(key, value);
+        } else {
+            editor.remove(key);
+        }
+    }
+
+    private static SharedPreferences getPrefs(Context context) {
+        return context.getApplicationContext().getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+}
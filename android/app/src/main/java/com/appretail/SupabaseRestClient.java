@@ -0,0 +1,569 @@
+package com.wingsfly;
+
+import android.util.JsonReader;
+import android.util.JsonToken;
+import android.util.Log;
+import android.util.MalformedJsonException;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Shared PostgREST client used by all native Supabase database classes.
+ *
+ * Connections are reused through HttpURLConnection keep-alive: response bodies are always
+ * fully drained and closed, and connections are never disconnect()ed, so the platform
+ * connection pool can hand the same socket to the next request for the same host.
+ */
+public class SupabaseRestClient {
+
+    private static final String TAG = "SupabaseRestClient";
+
+    public static final int DEFAULT_CONNECT_TIMEOUT_MS = 10000;
+    public static final int DEFAULT_READ_TIMEOUT_MS = 10000;
+
+    // Request bodies smaller than this are not worth compressing
+    private static final int GZIP_MIN_REQUEST_BYTES = 1024;
+    private static final int MAX_POOLED_CONNECTIONS = 5;
+
+    private static volatile SupabaseRestClient instance;
+
+    private final String baseUrl;
+    private final String apiKey;
+    private final String host;
+    private volatile boolean gzipRequests;
+
+    static {
+        System.setProperty("http.keepAlive", "true");
+        System.setProperty("http.maxConnections", String.valueOf(MAX_POOLED_CONNECTIONS));
+    }
+
+    /**
+     * Reads one row of a PostgREST response straight into a model object. The reader is
+     * positioned at the row's BEGIN_OBJECT and must consume the whole object.
+     */
+    public interface RowMapper<T> {
+        T read(JsonReader reader) throws IOException;
+    }
+
+    /**
+     * Error for non-2xx responses, keeps the status code and server message
+     */
+    public static class SupabaseException extends IOException {
+        public final int statusCode;
+        public final String responseBody;
+
+        public SupabaseException(int statusCode, String responseBody) {
+            super("HTTP " + statusCode + ": " + responseBody);
+            this.statusCode = statusCode;
+            this.responseBody = responseBody;
+        }
+    }
+
+    public static class Response {
+        public final int statusCode;
+        public final String body;
+        // Cache validators, null when the server does not send them
+        public final String etag;
+        public final String lastModified;
+
+        Response(int statusCode, String body, String etag, String lastModified) {
+            this.statusCode = statusCode;
+            this.body = body;
+            this.etag = etag;
+            this.lastModified = lastModified;
+        }
+
+        public boolean isSuccessful() {
+            return statusCode >= 200 && statusCode < 300;
+        }
+
+        public boolean isNotModified() {
+            return statusCode == HttpURLConnection.HTTP_NOT_MODIFIED;
+        }
+    }
+
+    /**
+     * PostgREST query for one table: filters, ordering, limit and per-request timeouts
+     */
+    public static class Query {
+        final String table;
+        final List<String> params = new ArrayList<>();
+        int connectTimeoutMs = DEFAULT_CONNECT_TIMEOUT_MS;
+        int readTimeoutMs = DEFAULT_READ_TIMEOUT_MS;
+
+        public Query(String table) {
+            this.table = table;
+        }
+
+        public Query select(String columns) {
+            params.add("select=" + encode(columns));
+            return this;
+        }
+
+        public Query eq(String column, String value) {
+            params.add(encode(column) + "=eq." + encode(value));
+            return this;
+        }
+
+        public Query order(String column, boolean ascending) {
+            params.add("order=" + encode(column) + (ascending ? ".asc" : ".desc"));
+            return this;
+        }
+
+        public Query limit(int limit) {
+            params.add("limit=" + limit);
+            return this;
+        }
+
+        public Query timeout(int connectTimeoutMs, int readTimeoutMs) {
+            this.connectTimeoutMs = connectTimeoutMs;
+            this.readTimeoutMs = readTimeoutMs;
+            return this;
+        }
+
+        String path() {
+            StringBuilder path = new StringBuilder("/rest/v1/").append(table);
+            for (int i = 0; i < params.size(); i++) {
+                path.append(i == 0 ? '?' : '&').append(params.get(i));
+            }
+            return path.toString();
+        }
+    }
+
+    public static SupabaseRestClient getInstance() {
+        if (instance == null) {
+            synchronized (SupabaseRestClient.class) {
+                if (instance == null) {
+                    instance = new SupabaseRestClient(BuildConfig.SUPABASE_URL, BuildConfig.SUPABASE_ANON_KEY);
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Point the shared client at another server, e.g. a local PostgREST stand-in
+     */
+    public static void setInstance(SupabaseRestClient client) {
+        synchronized (SupabaseRestClient.class) {
+            instance = client;
+        }
+    }
+
+    public SupabaseRestClient(String baseUrl, String apiKey) {
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        this.apiKey = apiKey;
+        this.host = hostOf(this.baseUrl);
+    }
+
+    /**
+     * Compress large request bodies with Content-Encoding: gzip. Off by default because
+     * stock PostgREST only accepts it when a gateway in front of it inflates the body.
+     */
+    public void setGzipRequests(boolean enabled) {
+        this.gzipRequests = enabled;
+    }
+
+    public String getBaseUrl() {
+        return baseUrl;
+    }
+
+    // ==================== TYPED API ====================
+
+    /**
+     * Concurrent identical selects share one request (see SingleFlight); each caller
+     * gets its own copy of the row list.
+     */
+    public <T> List<T> select(final Query query, final RowMapper<T> mapper) throws IOException {
+        final String path = query.path();
+        List<T> rows = SingleFlight.run("GET " + path + " " + mapper.getClass().getName(),
+                new SingleFlight.Loader<List<T>>() {
+                    @Override
+                    public List<T> load() throws IOException {
+                        return executeForRows("GET", path, null, null, query, mapper);
+                    }
+                });
+        return new ArrayList<>(rows);
+    }
+
+    /**
+     * GET with If-None-Match / If-Modified-Since. A 304 comes back as a Response with
+     * isNotModified() set and an empty body.
+     */
+    public Response conditionalGet(Query query, String etag, String lastModified) throws IOException {
+        Map<String, String> headers = new HashMap<>();
+        if (etag != null) {
+            headers.put("If-None-Match", etag);
+        }
+        if (lastModified != null) {
+            headers.put("If-Modified-Since", lastModified);
+        }
+        return execute("GET", query.path(), null, null, query, headers);
+    }
+
+    public <T> T selectFirst(Query query, RowMapper<T> mapper) throws IOException {
+        List<T> rows = select(query, mapper);
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    public <T> T insert(String table, JSONObject row, RowMapper<T> mapper) throws IOException {
+        Query query = new Query(table);
+        return first(executeForRows("POST", query.path(), row.toString(), "return=representation", query, mapper));
+    }
+
+    /**
+     * Insert or update several rows in one request, matched on onConflict. Safe to send again
+     * after a failure, so it is retried like any idempotent call.
+     */
+    public void upsertAll(String table, JSONArray rows, String onConflict) throws IOException {
+        Query query = new Query(table);
+        query.params.add("on_conflict=" + encode(onConflict));
+        execute("POST", query.path(), rows.toString(), "resolution=merge-duplicates,return=minimal", query);
+    }
+
+    public <T> T update(Query query, JSONObject patch, RowMapper<T> mapper) throws IOException {
+        return first(executeForRows("PATCH", query.path(), patch.toString(), "return=representation", query, mapper));
+    }
+
+    public <T> T upsert(String table, JSONObject row, String onConflict, RowMapper<T> mapper) throws IOException {
+        Query query = new Query(table);
+        if (onConflict != null) {
+            query.params.add("on_conflict=" + encode(onConflict));
+        }
+        return first(executeForRows("POST", query.path(), row.toString(),
+                "resolution=merge-duplicates,return=representation", query, mapper));
+    }
+
+    /**
+     * Call a Postgres function through PostgREST (POST /rest/v1/rpc/name). Treated as
+     * non-idempotent, so it is never retried automatically.
+     */
+    public <T> T rpc(String function, JSONObject args, RowMapper<T> mapper) throws IOException {
+        Query query = new Query("rpc/" + function);
+        return first(executeForRows("POST", query.path(), args.toString(), null, query, mapper));
+    }
+
+    public boolean delete(Query query) throws IOException {
+        execute("DELETE", query.path(), null, null, query);
+        return true;
+    }
+
+    public boolean ping() {
+        try {
+            Query query = new Query("").timeout(5000, 5000);
+            return execute("GET", "/rest/v1/", null, null, query).statusCode == HttpURLConnection.HTTP_OK;
+        } catch (IOException e) {
+            Log.e(TAG, "Connection test failed", e);
+            return false;
+        }
+    }
+
+    // ==================== TRANSPORT ====================
+
+    /**
+     * Execute a request and return the decoded body. Throws SupabaseException for non-2xx.
+     */
+    public Response execute(String method, String path, String body, String prefer, Query query) throws IOException {
+        return execute(method, path, body, prefer, query, Collections.<String, String>emptyMap());
+    }
+
+    public Response execute(final String method, final String path, final String body, final String prefer,
+                            final Query query, final Map<String, String> extraHeaders) throws IOException {
+        return NetworkResilience.execute(endpoint(method, query), host, isIdempotent(method, prefer),
+                new NetworkResilience.Call<Response>() {
+                    @Override
+                    public Response run() throws IOException {
+                        return executeOnce(method, path, body, prefer, query, extraHeaders);
+                    }
+                });
+    }
+
+    private Response executeOnce(String method, String path, String body, String prefer, Query query,
+                                 Map<String, String> extraHeaders) throws IOException {
+        long start = System.currentTimeMillis();
+        HttpURLConnection connection = send(method, path, body, prefer, query, extraHeaders);
+        try {
+            int statusCode = connection.getResponseCode();
+            boolean notModified = statusCode == HttpURLConnection.HTTP_NOT_MODIFIED;
+            String responseBody = notModified ? "" : readBody(connection, isSuccess(statusCode));
+
+            Log.d(TAG, method + " " + path + " -> " + statusCode + " in " + (System.currentTimeMillis() - start) + "ms");
+
+            if (!isSuccess(statusCode) && !notModified) {
+                throw new SupabaseException(statusCode, responseBody);
+            }
+            return new Response(statusCode, responseBody,
+                    connection.getHeaderField("ETag"), connection.getHeaderField("Last-Modified"));
+        } catch (IOException e) {
+            // A failed exchange may leave the socket in an unknown state, keep it out of the pool
+            connection.disconnect();
+            throw e;
+        }
+    }
+
+    /**
+     * Execute a request and decode the JSON array body row by row as it arrives,
+     * without buffering the body or building a JSON DOM.
+     */
+    private <T> List<T> executeForRows(final String method, final String path, final String body,
+                                       final String prefer, final Query query,
+                                       final RowMapper<T> mapper) throws IOException {
+        return NetworkResilience.execute(endpoint(method, query), host, isIdempotent(method, prefer),
+                new NetworkResilience.Call<List<T>>() {
+                    @Override
+                    public List<T> run() throws IOException {
+                        return executeForRowsOnce(method, path, body, prefer, query, mapper);
+                    }
+                });
+    }
+
+    private <T> List<T> executeForRowsOnce(String method, String path, String body, String prefer, Query query,
+                                           RowMapper<T> mapper) throws IOException {
+        long start = System.currentTimeMillis();
+        HttpURLConnection connection = send(method, path, body, prefer, query, Collections.<String, String>emptyMap());
+        try {
+            int statusCode = connection.getResponseCode();
+            if (!isSuccess(statusCode)) {
+                throw new SupabaseException(statusCode, readBody(connection, false));
+            }
+
+            List<T> rows;
+            if (statusCode == HttpURLConnection.HTTP_NO_CONTENT) {
+                rows = new ArrayList<>();
+            } else {
+                InputStream in = openBody(connection, true);
+                try {
+                    rows = parseRows(new InputStreamReader(in, StandardCharsets.UTF_8), mapper);
+                    // Drain anything after the array so the connection can be reused
+                    while (in.read() != -1) { }
+                } finally {
+                    in.close();
+                }
+            }
+
+            Log.d(TAG, method + " " + path + " -> " + statusCode + " (" + rows.size() + " rows) in "
+                    + (System.currentTimeMillis() - start) + "ms");
+            return rows;
+        } catch (IOException e) {
+            connection.disconnect();
+            throw e;
+        }
+    }
+
+    private HttpURLConnection send(String method, String path, String body, String prefer, Query query,
+                                   Map<String, String> extraHeaders) throws IOException {
+        HttpURLConnection connection = openConnection(method, path);
+        try {
+            applyHeaders(connection, prefer);
+            for (Map.Entry<String, String> header : extraHeaders.entrySet()) {
+                connection.setRequestProperty(header.getKey(), header.getValue());
+            }
+            connection.setConnectTimeout(query.connectTimeoutMs);
+            connection.setReadTimeout(query.readTimeoutMs);
+
+            if (body != null) {
+                writeBody(connection, body.getBytes(StandardCharsets.UTF_8));
+            }
+            return connection;
+        } catch (IOException e) {
+            connection.disconnect();
+            throw e;
+        }
+    }
+
+    /**
+     * Open the connection for one request; tests override this to reach a local stand-in
+     */
+    HttpURLConnection openConnection(String method, String path) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + path).openConnection();
+        connection.setRequestMethod(method);
+        return connection;
+    }
+
+    /**
+     * Plain inserts must not be repeated; upserts, updates, deletes and reads may be
+     */
+    private static boolean isIdempotent(String method, String prefer) {
+        if ("POST".equals(method)) {
+            return prefer != null && prefer.contains("resolution=merge-duplicates");
+        }
+        return true;
+    }
+
+    private static String endpoint(String method, Query query) {
+        return "supabase " + method + " " + (query.table.isEmpty() ? "/" : query.table);
+    }
+
+    private static String hostOf(String url) {
+        try {
+            return new URL(url).getHost();
+        } catch (IOException e) {
+            return url;
+        }
+    }
+
+    private static boolean isSuccess(int statusCode) {
+        return statusCode >= 200 && statusCode < 300;
+    }
+
+    private void applyHeaders(HttpURLConnection connection, String prefer) {
+        connection.setRequestProperty("apikey", apiKey);
+        connection.setRequestProperty("Authorization", "Bearer " + apiKey);
+        connection.setRequestProperty("Content-Type", "application/json");
+        connection.setRequestProperty("Accept", "application/json");
+        connection.setRequestProperty("Accept-Encoding", "gzip");
+        connection.setRequestProperty("Connection", "keep-alive");
+        if (prefer != null) {
+            connection.setRequestProperty("Prefer", prefer);
+        }
+    }
+
+    private void writeBody(HttpURLConnection connection, byte[] payload) throws IOException {
+        connection.setDoOutput(true);
+        byte[] encoded = payload;
+        if (gzipRequests && payload.length >= GZIP_MIN_REQUEST_BYTES) {
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(payload.length / 2);
+            try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+                gzip.write(payload);
+            }
+            encoded = compressed.toByteArray();
+            connection.setRequestProperty("Content-Encoding", "gzip");
+        }
+        connection.setFixedLengthStreamingMode(encoded.length);
+        try (OutputStream os = connection.getOutputStream()) {
+            os.write(encoded);
+        }
+    }
+
+    private InputStream openBody(HttpURLConnection connection, boolean success) throws IOException {
+        InputStream raw = success ? connection.getInputStream() : connection.getErrorStream();
+        if (raw == null) {
+            return null;
+        }
+        return "gzip".equalsIgnoreCase(connection.getContentEncoding()) ? new GZIPInputStream(raw) : raw;
+    }
+
+    private String readBody(HttpURLConnection connection, boolean success) throws IOException {
+        InputStream in = openBody(connection, success);
+        if (in == null) {
+            return "";
+        }
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return out.toString("UTF-8");
+        } finally {
+            // Closing a fully drained stream returns the connection to the keep-alive pool
+            in.close();
+        }
+    }
+
+    // ==================== DECODING ====================
+
+    /**
+     * Map a PostgREST JSON array body into model objects
+     */
+    public static <T> List<T> parseRows(String body, RowMapper<T> mapper) throws IOException {
+        if (body == null || body.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return parseRows(new StringReader(body), mapper);
+    }
+
+    /**
+     * Stream-decode a JSON array (or a single object, as returned with
+     * Accept: application/vnd.pgrst.object) into model objects
+     */
+    public static <T> List<T> parseRows(Reader source, RowMapper<T> mapper) throws IOException {
+        List<T> rows = new ArrayList<>();
+        JsonReader reader = new JsonReader(source);
+        try {
+            if (reader.peek() == JsonToken.BEGIN_OBJECT) {
+                rows.add(mapper.read(reader));
+                return rows;
+            }
+            reader.beginArray();
+            while (reader.hasNext()) {
+                rows.add(mapper.read(reader));
+            }
+            reader.endArray();
+        } catch (IllegalStateException | NumberFormatException | MalformedJsonException e) {
+            // JsonReader reports type mismatches as unchecked exceptions
+            throw new NetworkResilience.DecodeException("Invalid JSON response: " + e.getMessage(), e);
+        }
+        return rows;
+    }
+
+    /**
+     * Next value as a string, or null for JSON null. Numbers are returned in their textual form.
+     */
+    public static String nextStringOrNull(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return null;
+        }
+        return reader.nextString();
+    }
+
+    public static int nextIntOrDefault(JsonReader reader, int fallback) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return fallback;
+        }
+        return reader.nextInt();
+    }
+
+    public static boolean nextBooleanOrDefault(JsonReader reader, boolean fallback) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return fallback;
+        }
+        return reader.nextBoolean();
+    }
+
+    /**
+     * Fail the decode when a column the model cannot do without is missing
+     */
+    public static String requireField(String value, String column) throws IOException {
+        if (value == null) {
+            throw new NetworkResilience.DecodeException("Missing required column: " + column, null);
+        }
+        return value;
+    }
+
+    private static <T> T first(List<T> rows) {
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    static String encode(String value) {
+        try {
+            return URLEncoder.encode(value, "UTF-8").replace("+", "%20");
+        } catch (java.io.UnsupportedEncodingException e) {
+            return value;
+        }
+    }
+}
@@ -100,7 +100,8 @@ public void scheduleTaskConfirmationAlarm(ReadableMap taskData, Promise promise)
             alarmIntent.putExtra("alarmType", "TASK_CONFIRMATION");
             alarmIntent.setAction("TASK_CONFIRMATION_" + planId);
             
-            int requestCode = Math.abs(("task_confirm_" + planId).hashCode());
+            int requestCode = AlarmRegistry.getInstance(reactContext).register(AlarmRegistry.TYPE_TASK_CONFIRMATION,
+                planId, alarmTime, null, planId, alarmIntent, Math.abs(("task_confirm_" + planId).hashCode()));
             PendingIntent pendingIntent = PendingIntent.getBroadcast(
                 reactContext, 
                 requestCode, 
@@ -125,6 +126,9 @@ public void scheduleTaskConfirmationAlarm(ReadableMap taskData, Promise promise)
                     Log.d(TAG, "Confirmation alarm scheduled using set");
                 }
                 
+                // Intention text/audio shown after confirmation is stored locally ahead of time
+                AlarmContentPrefetcher.onAlarmScheduled(reactContext, AlarmContentPrefetcher.KIND_TASK_INTENTION, alarmTime);
+                
                 SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss", Locale.getDefault());
                 Log.d(TAG, "Task confirmation alarm scheduled for: " + sdf.format(new Date(alarmTime)));
                 
@@ -138,6 +142,7 @@ public void scheduleTaskConfirmationAlarm(ReadableMap taskData, Promise promise)
                 
             } catch (SecurityException e) {
                 Log.e(TAG, "Security exception scheduling alarm", e);
+                AlarmRegistry.getInstance(reactContext).remove(AlarmRegistry.TYPE_TASK_CONFIRMATION, planId, requestCode);
                 promise.reject("SECURITY_ERROR", "Permission required for exact alarms");
             }
             
@@ -165,7 +170,8 @@ public void scheduleTaskConfirmationAlarm(ReadableMap taskData, Promise promise)
             Intent alarmIntent = new Intent(reactContext, TaskConfirmationAlarmReceiver.class);
             alarmIntent.setAction("TASK_CONFIRMATION_" + planId);
             
-            int requestCode = Math.abs(("task_confirm_" + planId).hashCode());
+            int requestCode = AlarmRegistry.getInstance(reactContext).remove(AlarmRegistry.TYPE_TASK_CONFIRMATION,
+                planId, Math.abs(("task_confirm_" + planId).hashCode()));
             PendingIntent pendingIntent = PendingIntent.getBroadcast(
                 reactContext, 
                 requestCode, 
@@ -0,0 +1,236 @@
+package com.wingsfly;
+
+import android.content.Context;
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Disk cache of synthesized ElevenLabs speech, shared by all TTS services.
+ *
+ * Files are named by a hash of everything that affects the audio (text, voice, model,
+ * output format, voice settings, language), so the same phrase with the same settings is
+ * synthesized once and replayed from disk afterwards. MediaCacheJanitor keeps the cache
+ * within the media byte budget, evicting the least recently played files first. Speech
+ * made on the device by OfflineSpeechSynthesizer is kept here as well.
+ *
+ * The static phrases of the message templates (see PhraseSegmenter) are pinned: they live
+ * in their own directory outside the janitor's budget, since every alarm replays them and
+ * there are only a few dozen of them.
+ */
+public final class TtsAudioCache {
+
+    private static final String TAG = "TtsAudioCache";
+
+    static final String CACHE_DIR = "tts_cache";
+    static final String PHRASE_DIR = "tts_phrases";
+    private static final String EXTENSION = ".mp3";
+    // TextToSpeech.synthesizeToFile writes WAV
+    private static final String OFFLINE_EXTENSION = ".wav";
+
+    private static final AtomicLong hitCount = new AtomicLong();
+    private static final AtomicLong missCount = new AtomicLong();
+    // Text sent to the API, the unit ElevenLabs bills by
+    private static final AtomicLong charactersSynthesized = new AtomicLong();
+
+    private TtsAudioCache() {
+    }
+
+    /**
+     * Cached audio for the request, or null if it has not been synthesized yet
+     */
+    public static File get(Context context, ElevenLabsClient.Request request) {
+        String key = keyOf(request);
+        File file = fileFor(context, key);
+        if (file.exists() && file.length() > 0) {
+            MediaCacheJanitor.touch(context, file);
+            return file;
+        }
+        File pinned = pinnedFileFor(context, key);
+        return pinned.exists() && pinned.length() > 0 ? pinned : null;
+    }
+
+    /**
+     * Cached audio for the request, synthesizing it first if needed. Concurrent callers for
+     * the same phrase share one API call.
+     */
+    public static File getOrSynthesize(Context context, ElevenLabsClient.Request request) throws IOException {
+        return getOrSynthesize(context, request, false);
+    }
+
+    /**
+     * @param pinned keep the audio for good instead of under the media byte budget
+     */
+    public static File getOrSynthesize(final Context context, final ElevenLabsClient.Request request,
+                                       final boolean pinned) throws IOException {
+        File cached = get(context, request);
+        if (cached != null) {
+            hitCount.incrementAndGet();
+            Log.d(TAG, "✅ Cache hit: " + cached.getName());
+            return cached;
+        }
+
+        final String key = keyOf(request);
+        return SingleFlight.run("tts " + key, new SingleFlight.Loader<File>() {
+            @Override
+            public File load() throws IOException {
+                // Another caller may have finished while we were checking
+                File target = pinned ? pinnedFileFor(context, key) : fileFor(context, key);
+                if (target.exists() && target.length() > 0) {
+                    hitCount.incrementAndGet();
+                    return target;
+                }
+                missCount.incrementAndGet();
+                charactersSynthesized.addAndGet(request.text.length());
+                long bytes = ElevenLabsClient.synthesizeToFile(request, target);
+                Log.d(TAG, (pinned ? "Pinned " : "Cached ") + (bytes / 1024) + "KB: " + target.getName());
+                if (!pinned) {
+                    MediaCacheJanitor.trimIfOverBudget(context);
+                }
+                return target;
+            }
+        });
+    }
+
+    /**
+     * Cached audio for the request, or stream it from the API. The listener receives the
+     * whole audio in order either way, so a player fed by it starts on the first chunk.
+     * The streamed audio is kept in the cache once it is complete.
+     */
+    public static File getOrStream(Context context, ElevenLabsClient.Request request,
+                                   ElevenLabsClient.ChunkListener listener) throws IOException {
+        File cached = get(context, request);
+        if (cached != null) {
+            hitCount.incrementAndGet();
+            try (InputStream in = new FileInputStream(cached)) {
+                byte[] buffer = new byte[8192];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    listener.onChunk(buffer, read);
+                }
+            }
+            return cached;
+        }
+
+        missCount.incrementAndGet();
+        charactersSynthesized.addAndGet(request.text.length());
+        String key = keyOf(request);
+        File target = fileFor(context, key);
+        // Unique name so a concurrent synthesis of the same phrase can't interleave with ours
+        File streamed = new File(target.getParentFile(), key + "-" + System.nanoTime() + ".stream");
+        long bytes = ElevenLabsClient.streamToFile(request, streamed, listener);
+        if (!streamed.renameTo(target)) {
+            streamed.delete();
+        }
+        Log.d(TAG, "Cached streamed " + (bytes / 1024) + "KB: " + target.getName());
+        MediaCacheJanitor.trimIfOverBudget(context);
+        return target;
+    }
+
+    /**
+     * Audio synthesized on the device for the text, or null if it has not been made yet
+     */
+    public static File getOffline(Context context, String text, String engine, Locale locale) {
+        File file = offlineFileFor(context, text, engine, locale);
+        if (!file.exists() || file.length() == 0) {
+            return null;
+        }
+        hitCount.incrementAndGet();
+        MediaCacheJanitor.touch(context, file);
+        return file;
+    }
+
+    /**
+     * Where OfflineSpeechSynthesizer stores on-device speech. Keyed by text, engine and
+     * language since another engine or voice produces different audio.
+     */
+    static File offlineFileFor(Context context, String text, String engine, Locale locale) {
+        String key = sha256("offline\n" + engine + "\n" + locale.toLanguageTag() + "\n" + text);
+        return fileFor(context, key, OFFLINE_EXTENSION);
+    }
+
+    static void recordOfflineMiss() {
+        missCount.incrementAndGet();
+    }
+
+    public static long getHitCount() {
+        return hitCount.get();
+    }
+
+    public static long getMissCount() {
+        return missCount.get();
+    }
+
+    public static long getCharactersSynthesized() {
+        return charactersSynthesized.get();
+    }
+
+    /**
+     * Size of the pinned phrases, which the media budget doesn't count
+     */
+    public static long getPinnedSizeBytes(Context context) {
+        File[] files = new File(context.getFilesDir(), PHRASE_DIR).listFiles();
+        long total = 0;
+        if (files != null) {
+            for (File file : files) {
+                total += file.length();
+            }
+        }
+        return total;
+    }
+
+    private static File fileFor(Context context, String key) {
+        return fileFor(context, key, EXTENSION);
+    }
+
+    private static File fileFor(Context context, String key, String extension) {
+        return fileIn(context, CACHE_DIR, key + extension);
+    }
+
+    private static File pinnedFileFor(Context context, String key) {
+        return fileIn(context, PHRASE_DIR, key + EXTENSION);
+    }
+
+    private static File fileIn(Context context, String dirName, String name) {
+        File dir = new File(context.getFilesDir(), dirName);
+        if (!dir.exists()) {
+            dir.mkdirs();
+        }
+        return new File(dir, name);
+    }
+
+    /**
+     * Content key of a request. Latency hints are left out since they don't change the audio.
+     */
+    static String keyOf(ElevenLabsClient.Request request) {
+        StringBuilder key = new StringBuilder();
+        key.append(request.voiceId).append('\n')
+                .append(request.modelId).append('\n')
+                .append(request.outputFormat).append('\n')
+                .append(request.voiceSettings != null ? request.voiceSettings.toString() : "").append('\n')
+                .append(request.languageCode != null ? request.languageCode : "").append('\n')
+                .append(request.text);
+        return sha256(key.toString());
+    }
+
+    private static String sha256(String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            return Integer.toHexString(value.hashCode());
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.wingsfly;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded pool shared by the TTS services for synthesis and audio downloads.
+ *
+ * AsyncTask ran every task of the app one after another, so the segments of an alarm
+ * speech were generated back to back. Here each segment is its own future: they run
+ * concurrently, each result is delivered on the main thread as soon as it is ready, and
+ * the time each one took is recorded as "speech segment <name>" in NetworkResilience.
+ * Work is submitted through a Group so a dismissed alarm can drop everything it started.
+ */
+public final class TtsExecutor {
+
+    private static final String TAG = "TtsExecutor";
+
+    // Each task holds one HTTP connection; more than a couple of speeches never overlap
+    private static final int THREADS = 4;
+    private static final int QUEUE_CAPACITY = 16;
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    private static final ThreadPoolExecutor executor = new ThreadPoolExecutor(
+            THREADS, THREADS, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<Runnable>(QUEUE_CAPACITY),
+            new ThreadFactory() {
+                private final AtomicInteger count = new AtomicInteger();
+
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    return new Thread(runnable, "TtsWorker-" + count.incrementAndGet());
+                }
+            });
+
+    static {
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    private static final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    /**
+     * Result of a segment, called on the main thread unless its group was cancelled
+     */
+    public interface Callback<T> {
+        void onResult(T result);
+
+        void onError(Exception error);
+    }
+
+    private TtsExecutor() {
+    }
+
+    /**
+     * Tasks started on behalf of one service. Cancelling the group interrupts its running
+     * tasks and drops any result not delivered yet; tasks submitted afterwards run normally.
+     */
+    public static final class Group {
+
+        private final List<Future<?>> futures = new ArrayList<>();
+        private int generation;
+
+        /**
+         * Run a task on the pool. The callback may be null when only the side effects of
+         * the task matter.
+         */
+        public synchronized <T> Future<T> submit(final String segment, final Callable<T> task,
+                                                 final Callback<T> callback) {
+            final int submittedIn = generation;
+            final FutureTask<T> future = new FutureTask<T>(new Callable<T>() {
+                @Override
+                public T call() throws Exception {
+                    long start = SystemClock.elapsedRealtime();
+                    T result = task.call();
+                    long elapsed = SystemClock.elapsedRealtime() - start;
+                    NetworkResilience.recordLatency("speech segment " + segment, elapsed);
+                    Log.d(TAG, "Segment '" + segment + "' ready in " + elapsed + "ms");
+                    return result;
+                }
+            }) {
+                @Override
+                protected void done() {
+                    forget(this);
+                    if (!isCancelled()) {
+                        deliver(submittedIn, this, callback);
+                    }
+                }
+            };
+
+            futures.add(future);
+            try {
+                executor.execute(future);
+            } catch (RejectedExecutionException e) {
+                Log.e(TAG, "TTS pool saturated, rejected segment '" + segment + "'");
+                futures.remove(future);
+                future.cancel(false);
+                if (callback != null) {
+                    deliverError(submittedIn, callback, e);
+                }
+            }
+            return future;
+        }
+
+        /**
+         * Cancel everything submitted so far
+         */
+        public synchronized void cancelAll() {
+            generation++;
+            if (!futures.isEmpty()) {
+                Log.d(TAG, "Cancelling " + futures.size() + " pending segment(s)");
+            }
+            // Cancelling runs done(), which removes the future from the list
+            List<Future<?>> pending = new ArrayList<>(futures);
+            futures.clear();
+            for (Future<?> future : pending) {
+                future.cancel(true);
+            }
+        }
+
+        private synchronized void forget(Future<?> future) {
+            futures.remove(future);
+        }
+
+        private synchronized boolean isCurrent(int submittedIn) {
+            return submittedIn == generation;
+        }
+
+        private <T> void deliver(final int submittedIn, final Future<T> future, final Callback<T> callback) {
+            if (callback == null) {
+                return;
+            }
+            final T result;
+            try {
+                result = future.get();
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                deliverError(submittedIn, callback,
+                        cause instanceof Exception ? (Exception) cause : new RuntimeException(cause));
+                return;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            mainHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    if (isCurrent(submittedIn)) {
+                        callback.onResult(result);
+                    }
+                }
+            });
+        }
+
+        private <T> void deliverError(final int submittedIn, final Callback<T> callback, final Exception error) {
+            mainHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    if (isCurrent(submittedIn)) {
+                        callback.onError(error);
+                    }
+                }
+            });
+        }
+    }
+}
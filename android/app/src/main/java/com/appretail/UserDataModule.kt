@@ -19,6 +19,17 @@ class UserDataModule(reactContext: ReactApplicationContext) : ReactContextBaseJa
     
     companion object {
         private const val TAG = "UserDataModule"
+
+        /**
+         * Name saved by saveUserData, for native code that runs without JS
+         */
+        @JvmStatic
+        fun getStoredUserName(context: Context): String? {
+            val prefs = context.getSharedPreferences("AppLock", Context.MODE_PRIVATE)
+            return prefs.getString("display_name", null)
+                ?: prefs.getString("username", null)
+                ?: prefs.getString("user_name", null)
+        }
     }
 
     override fun getName(): String {
@@ -157,7 +157,9 @@ public class VoiceCommandAlarmModule extends ReactContextBaseJavaModule {
             alarmIntent.putExtra("alarmType", "VOICE_COMMAND_ALARM");
             alarmIntent.setAction("VOICE_COMMAND_ALARM_" + alarmId);
             
-            int requestCode = Math.abs(("voice_cmd_" + alarmId).hashCode());
+            int requestCode = AlarmRegistry.getInstance(reactContext).register(AlarmRegistry.TYPE_VOICE_COMMAND,
+                alarmId, nextAlarmTime, days.isEmpty() ? null : AlarmRegistry.RECURRENCE_WEEKLY_PREFIX + days,
+                null, alarmIntent, Math.abs(("voice_cmd_" + alarmId).hashCode()));
             PendingIntent pendingIntent = PendingIntent.getBroadcast(
                 reactContext, 
                 requestCode, 
@@ -185,6 +187,9 @@ public class VoiceCommandAlarmModule extends ReactContextBaseJavaModule {
                 SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss", Locale.getDefault());
                 Log.d(TAG, "Voice command alarm scheduled for: " + sdf.format(new Date(nextAlarmTime)));
                 
+                // Synthesize text commands now so they play instantly when the alarm fires
+                AlarmSpeechPrerenderer.onVoiceCommandAlarmScheduled(reactContext, alarmId, commandsJson, nextAlarmTime);
+                
                 WritableMap result = Arguments.createMap();
                 result.putString("alarmId", alarmId);
                 result.putDouble("nextTriggerTime", nextAlarmTime);
@@ -194,6 +199,7 @@ public class VoiceCommandAlarmModule extends ReactContextBaseJavaModule {
                 
             } catch (SecurityException e) {
                 Log.e(TAG, "Security exception scheduling alarm", e);
+                AlarmRegistry.getInstance(reactContext).remove(AlarmRegistry.TYPE_VOICE_COMMAND, alarmId, requestCode);
                 promise.reject("SECURITY_ERROR", "Permission required for exact alarms");
             }
             
@@ -218,7 +224,8 @@ public class VoiceCommandAlarmModule extends ReactContextBaseJavaModule {
             Intent alarmIntent = new Intent(reactContext, VoiceCommandAlarmReceiver.class);
             alarmIntent.setAction("VOICE_COMMAND_ALARM_" + alarmId);
             
-            int requestCode = Math.abs(("voice_cmd_" + alarmId).hashCode());
+            int requestCode = AlarmRegistry.getInstance(reactContext).remove(AlarmRegistry.TYPE_VOICE_COMMAND,
+                alarmId, Math.abs(("voice_cmd_" + alarmId).hashCode()));
             PendingIntent pendingIntent = PendingIntent.getBroadcast(
                 reactContext, 
                 requestCode, 
@@ -229,6 +236,8 @@ public class VoiceCommandAlarmModule extends ReactContextBaseJavaModule {
             alarmManager.cancel(pendingIntent);
             pendingIntent.cancel();
             
+            AlarmSpeechPrerenderer.remove(reactContext, alarmId);
+            
             Log.d(TAG, "Voice command alarm cancelled: " + alarmId);
             promise.resolve(true);
             
@@ -150,7 +150,9 @@ public class VoiceCommandAlarmReceiver extends BroadcastReceiver {
                     nextAlarmIntent.putExtra("alarmType", "VOICE_COMMAND_ALARM");
                     nextAlarmIntent.setAction("VOICE_COMMAND_ALARM_" + alarmId);
                     
-                    int requestCode = Math.abs(("voice_cmd_" + alarmId).hashCode());
+                    int requestCode = AlarmRegistry.getInstance(context).register(AlarmRegistry.TYPE_VOICE_COMMAND,
+                        alarmId, nextAlarmTime, AlarmRegistry.RECURRENCE_WEEKLY_PREFIX + days, null,
+                        nextAlarmIntent, Math.abs(("voice_cmd_" + alarmId).hashCode()));
                     android.app.PendingIntent pendingIntent = android.app.PendingIntent.getBroadcast(
                         context,
                         requestCode,
@@ -109,6 +109,13 @@ private val allowedSystemApps = setOf(
 class InstalledAppsModule(reactContext: ReactApplicationContext) : ReactContextBaseJavaModule(reactContext) {
     companion object {
         private const val TAG = "InstalledAppsModule"
+        private const val SEARCH_INDEX_TTL_MS = 5 * 60 * 1000L
+        private const val SEARCH_USAGE_WINDOW_MS = 7 * 24 * 3600_000L
+
+        @Volatile
+        private var searchIndex: AppSearchIndex? = null
+        @Volatile
+        private var searchIndexBuiltAt = 0L
     }
     
     override fun getName() = "InstalledApps"
@@ -123,12 +130,14 @@ class InstalledAppsModule(reactContext: ReactApplicationContext) : ReactContextB
             // Get the set of locked apps
             val prefs = reactApplicationContext.getSharedPreferences("AppLock", Context.MODE_PRIVATE)
             val lockedApps = prefs.getStringSet("locked_apps", setOf()) ?: setOf()
+            val searchApps = ArrayList<AppSearchIndex.App>(apps.size)
 
             for (applicationInfo in apps) {
                 if (pm.getLaunchIntentForPackage(applicationInfo.packageName) != null) {
                     val appMap = WritableNativeMap()
+                    val label = pm.getApplicationLabel(applicationInfo).toString()
                     appMap.putString("packageName", applicationInfo.packageName)
-                    appMap.putString("name", pm.getApplicationLabel(applicationInfo).toString())
+                    appMap.putString("name", label)
                     appMap.putBoolean("isSystemApp", 
                         (applicationInfo.flags and ApplicationInfo.FLAG_SYSTEM) != 0)
                     
@@ -141,14 +150,93 @@ class InstalledAppsModule(reactContext: ReactApplicationContext) : ReactContextB
                     appMap.putString("icon", base64Icon)
 
                     appsList.pushMap(appMap)
+                    searchApps.add(AppSearchIndex.App(applicationInfo.packageName, label))
                 }
             }
+            rebuildSearchIndex(searchApps)
             promise.resolve(appsList)
         } catch (e: Exception) {
             promise.reject("ERROR", e.message)
         }
     }
 
+    @ReactMethod
+    fun searchApps(query: String, limit: Int, promise: Promise) {
+        try {
+            val index = getSearchIndex()
+            val start = System.nanoTime()
+            val results = index.search(query, limit)
+            if (BuildConfig.DEBUG) {
+                // Called on every keystroke, and the query is what the user typed
+                val elapsedUs = (System.nanoTime() - start) / 1000
+                Log.d(TAG, "searchApps('$query') -> ${results.size} of ${index.size} apps in ${elapsedUs}us")
+            }
+
+            val resultArray = WritableNativeArray()
+            for (result in results) {
+                val map = WritableNativeMap()
+                map.putString("packageName", result.packageName)
+                map.putString("name", result.label)
+                resultArray.pushMap(map)
+            }
+            promise.resolve(resultArray)
+        } catch (e: Exception) {
+            Log.e(TAG, "Error searching apps: ${e.message}", e)
+            promise.reject("ERROR", "Failed to search apps: ${e.message}")
+        }
+    }
+
+    private fun getSearchIndex(): AppSearchIndex {
+        val current = searchIndex
+        if (current != null && System.currentTimeMillis() - searchIndexBuiltAt < SEARCH_INDEX_TTL_MS) {
+            return current
+        }
+        synchronized(InstalledAppsModule::class.java) {
+            val rechecked = searchIndex
+            if (rechecked != null && System.currentTimeMillis() - searchIndexBuiltAt < SEARCH_INDEX_TTL_MS) {
+                return rechecked
+            }
+            val pm = reactApplicationContext.packageManager
+            val apps = pm.getInstalledApplications(PackageManager.GET_META_DATA)
+                .filter { pm.getLaunchIntentForPackage(it.packageName) != null }
+                .map { AppSearchIndex.App(it.packageName, pm.getApplicationLabel(it).toString()) }
+            return rebuildSearchIndex(apps)
+        }
+    }
+
+    // Labels are cheap to keep around; usage minutes weight the ranking towards apps the user actually opens
+    private fun rebuildSearchIndex(apps: List<AppSearchIndex.App>): AppSearchIndex {
+        val usage = getRecentUsageMinutes()
+        val index = AppSearchIndex(apps.map { it.copy(usageMinutes = usage[it.packageName] ?: 0L) })
+        searchIndex = index
+        searchIndexBuiltAt = System.currentTimeMillis()
+        Log.d(TAG, "Search index built with ${index.size} apps")
+        return index
+    }
+
+    private fun getRecentUsageMinutes(): Map<String, Long> {
+        if (!hasUsageStatsPermission()) return emptyMap()
+        return try {
+            val usageStatsManager = reactApplicationContext.getSystemService(Context.USAGE_STATS_SERVICE) as UsageStatsManager
+            val endTime = System.currentTimeMillis()
+            val usageStats = usageStatsManager.queryUsageStats(
+                UsageStatsManager.INTERVAL_BEST,
+                endTime - SEARCH_USAGE_WINDOW_MS,
+                endTime
+            )
+            val totals = HashMap<String, Long>()
+            usageStats?.forEach { stat ->
+                if (stat.totalTimeInForeground > 0) {
+                    totals.merge(stat.packageName, stat.totalTimeInForeground / 60000) { a, b -> a + b }
+                }
+            }
+            totals
+        } catch (e: Exception) {
+            Log.e(TAG, "Error reading usage for search ranking: ${e.message}", e)
+            emptyMap()
+        }
+    }
+
     private fun drawableToBase64(drawable: Drawable): String {
         val bitmap = Bitmap.createBitmap(
             drawable.intrinsicWidth,
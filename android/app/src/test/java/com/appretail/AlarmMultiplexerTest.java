@@ -0,0 +1,160 @@
+package com.wingsfly;
+
+import android.app.AlarmManager;
+import android.app.Application;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.os.Looper;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+/**
+ * Checks that AlarmMultiplexer keeps one OS alarm for any number of queued alarms, broadcasts
+ * everything due on one wakeup and re-arms for the next.
+ *
+ *   ./gradlew :app:testDebugUnitTest --tests com.wingsfly.AlarmMultiplexerTest -i
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 33)
+public class AlarmMultiplexerTest {
+
+    private static final long HOUR_MS = 60 * 60 * 1000L;
+
+    @Rule
+    public final AlarmRegistryRule registryRule = new AlarmRegistryRule();
+
+    private Application context;
+    private AlarmManager alarmManager;
+    private AlarmRegistry registry;
+    private long now;
+
+    @Before
+    public void setUp() throws Exception {
+        context = RuntimeEnvironment.getApplication();
+        alarmManager = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
+        registry = registryRule.get();
+        now = System.currentTimeMillis();
+    }
+
+    @Test
+    public void manyAlarmsShareOneOsAlarm() {
+        for (int i = 0; i < 50; i++) {
+            schedule(AlarmRegistry.TYPE_BLOCK_TIME, "block-" + i, now + (i + 2) * HOUR_MS, null);
+        }
+        schedule(AlarmRegistry.TYPE_CHALLENGE, "challenge_slot1", now + HOUR_MS, null);
+
+        assertEquals(1, shadowOf(alarmManager).getScheduledAlarms().size());
+        AlarmMultiplexer.Stats stats = AlarmMultiplexer.getStats(context);
+        assertEquals(1, stats.osAlarms);
+        assertEquals(51, stats.queuedAlarms);
+        assertEquals(now + HOUR_MS, stats.nextWakeupAt);
+    }
+
+    @Test
+    public void wakeupDispatchesEverythingDueAndRearms() {
+        schedule(AlarmRegistry.TYPE_BLOCK_TIME, "due-1", now - 2000, null);
+        schedule(AlarmRegistry.TYPE_CHALLENGE, "due-2", now - 1000, null);
+        schedule(AlarmRegistry.TYPE_DATE_REMINDER, "morning", now - 1000, AlarmRegistry.RECURRENCE_DAILY);
+        schedule(AlarmRegistry.TYPE_BLOCK_TIME, "later", now + 2 * HOUR_MS, null);
+
+        assertEquals(3, AlarmMultiplexer.dispatchDue(context));
+
+        List<Intent> sent = shadowOf(context).getBroadcastIntents();
+        assertEquals(3, sent.size());
+        assertEquals("block_time_due-1", sent.get(0).getAction());
+        assertEquals("due-1", sent.get(0).getStringExtra("alarmId"));
+
+        // One-shot alarms leave the queue, the daily one moves to tomorrow
+        assertNull(registry.get(AlarmRegistry.TYPE_BLOCK_TIME, "due-1"));
+        assertEquals(now - 1000 + 24 * HOUR_MS,
+                registry.get(AlarmRegistry.TYPE_DATE_REMINDER, "morning").nextFireAt, HOUR_MS);
+
+        AlarmMultiplexer.Stats stats = AlarmMultiplexer.getStats(context);
+        assertEquals(1, stats.osAlarms);
+        assertEquals(now + 2 * HOUR_MS, stats.nextWakeupAt);
+        assertEquals(3, stats.coalesced);
+    }
+
+    @Test
+    public void receiverReschedulingTheSameIdKeepsItsNewTime() {
+        schedule(AlarmRegistry.TYPE_CHALLENGE, "challenge_slot1", now - 1000, null);
+        schedule(AlarmRegistry.TYPE_DATE_REMINDER, "morning", now - 1000, AlarmRegistry.RECURRENCE_DAILY);
+        // Like the challenge and date reminder receivers: set the next occurrence on receipt
+        final long nextSlot = now + 3 * HOUR_MS;
+        final long movedReminder = now + 5 * HOUR_MS;
+        IntentFilter filter = new IntentFilter();
+        filter.addAction(AlarmRegistry.TYPE_CHALLENGE + "_challenge_slot1");
+        filter.addAction(AlarmRegistry.TYPE_DATE_REMINDER + "_morning");
+        context.registerReceiver(new BroadcastReceiver() {
+            @Override
+            public void onReceive(Context receiverContext, Intent intent) {
+                if (intent.getAction().startsWith(AlarmRegistry.TYPE_CHALLENGE)) {
+                    schedule(AlarmRegistry.TYPE_CHALLENGE, "challenge_slot1", nextSlot, null);
+                } else {
+                    schedule(AlarmRegistry.TYPE_DATE_REMINDER, "morning", movedReminder, AlarmRegistry.RECURRENCE_DAILY);
+                }
+            }
+        }, filter);
+
+        assertEquals(2, AlarmMultiplexer.dispatchDue(context));
+        shadowOf(Looper.getMainLooper()).idle();
+
+        assertEquals(nextSlot, registry.get(AlarmRegistry.TYPE_CHALLENGE, "challenge_slot1").nextFireAt);
+        assertEquals(movedReminder, registry.get(AlarmRegistry.TYPE_DATE_REMINDER, "morning").nextFireAt);
+        assertEquals(nextSlot, AlarmMultiplexer.getStats(context).nextWakeupAt);
+    }
+
+    @Test
+    public void registeringAgainBeforeAdvanceWins() {
+        schedule(AlarmRegistry.TYPE_CHALLENGE, "challenge_slot1", now - 1000, null);
+        schedule(AlarmRegistry.TYPE_DATE_REMINDER, "morning", now - 1000, AlarmRegistry.RECURRENCE_DAILY);
+        AlarmRegistry.Entry slot = registry.get(AlarmRegistry.TYPE_CHALLENGE, "challenge_slot1");
+        AlarmRegistry.Entry reminder = registry.get(AlarmRegistry.TYPE_DATE_REMINDER, "morning");
+
+        // Both registered again between the wakeup reading the queue and advancing it
+        schedule(AlarmRegistry.TYPE_CHALLENGE, "challenge_slot1", now + 3 * HOUR_MS, null);
+        schedule(AlarmRegistry.TYPE_DATE_REMINDER, "morning", now + 5 * HOUR_MS, AlarmRegistry.RECURRENCE_DAILY);
+
+        assertFalse(registry.removeFired(slot));
+        assertFalse(registry.rescheduleFired(reminder, now + 24 * HOUR_MS));
+        AlarmRegistry.Entry kept = registry.get(AlarmRegistry.TYPE_CHALLENGE, "challenge_slot1");
+        assertEquals(now + 3 * HOUR_MS, kept.nextFireAt);
+        assertEquals(slot.requestCode, kept.requestCode);
+        assertEquals(now + 5 * HOUR_MS, registry.get(AlarmRegistry.TYPE_DATE_REMINDER, "morning").nextFireAt);
+        assertTrue(registry.listDue(AlarmMultiplexer.MULTIPLEXED_TYPES, now).isEmpty());
+    }
+
+    @Test
+    public void cancellingTheLastAlarmClearsTheWakeup() {
+        schedule(AlarmRegistry.TYPE_CHALLENGE, "only", now + HOUR_MS, null);
+        assertEquals(1, shadowOf(alarmManager).getScheduledAlarms().size());
+
+        AlarmMultiplexer.cancel(context, AlarmRegistry.TYPE_CHALLENGE, "only", 0);
+
+        assertEquals(0, shadowOf(alarmManager).getScheduledAlarms().size());
+        assertEquals(0, AlarmMultiplexer.getStats(context).osAlarms);
+    }
+
+    private void schedule(String type, String id, long fireAt, String recurrence) {
+        Intent intent = new Intent(context, AlarmReceiver.class);
+        intent.setAction(type + "_" + id);
+        intent.putExtra("alarmId", id);
+        AlarmMultiplexer.schedule(context, type, id, fireAt, recurrence, null, intent, Math.abs(id.hashCode()));
+    }
+}
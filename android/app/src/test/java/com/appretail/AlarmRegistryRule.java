@@ -0,0 +1,32 @@
+package com.wingsfly;
+
+import org.junit.rules.ExternalResource;
+import org.robolectric.RuntimeEnvironment;
+
+import java.lang.reflect.Field;
+
+/**
+ * A fresh AlarmRegistry for each test. The singleton would otherwise outlive the
+ * application of the previous test; its database is closed afterwards so it is not leaked.
+ */
+public class AlarmRegistryRule extends ExternalResource {
+
+    private AlarmRegistry registry;
+
+    @Override
+    protected void before() throws Throwable {
+        Field instance = AlarmRegistry.class.getDeclaredField("instance");
+        instance.setAccessible(true);
+        instance.set(null, null);
+        registry = AlarmRegistry.getInstance(RuntimeEnvironment.getApplication());
+    }
+
+    @Override
+    protected void after() {
+        registry.close();
+    }
+
+    public AlarmRegistry get() {
+        return registry;
+    }
+}
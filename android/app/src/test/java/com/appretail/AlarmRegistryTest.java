@@ -0,0 +1,161 @@
+package com.wingsfly;
+
+import android.app.AlarmManager;
+import android.app.PendingIntent;
+import android.content.Context;
+import android.content.Intent;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+/**
+ * Checks that AlarmRegistry hands out request codes that never collide, keeps an alarm's
+ * code across reschedules, and cancels the PendingIntents of a whole subsystem.
+ *
+ *   ./gradlew :app:testDebugUnitTest --tests com.wingsfly.AlarmRegistryTest -i
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 33)
+public class AlarmRegistryTest {
+
+    private static final long HOUR_MS = 60 * 60 * 1000L;
+
+    @Rule
+    public final AlarmRegistryRule registryRule = new AlarmRegistryRule();
+
+    private Context context;
+    private AlarmManager alarmManager;
+    private AlarmRegistry registry;
+    private long now;
+
+    @Before
+    public void setUp() throws Exception {
+        context = RuntimeEnvironment.getApplication();
+        alarmManager = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
+        registry = registryRule.get();
+        now = System.currentTimeMillis();
+    }
+
+    @Test
+    public void idsWithTheSameHashGetDistinctCodes() {
+        // "Aa" and "BB" share a hashCode, so the old scheme gave them one PendingIntent
+        assertEquals("Aa".hashCode(), "BB".hashCode());
+        int first = schedule(AlarmRegistry.TYPE_BLOCK_TIME, "Aa", now + HOUR_MS);
+        int second = schedule(AlarmRegistry.TYPE_BLOCK_TIME, "BB", now + HOUR_MS);
+        assertNotEquals(first, second);
+
+        Set<Integer> codes = new HashSet<>();
+        codes.add(first);
+        codes.add(second);
+        for (int i = 0; i < 500; i++) {
+            assertTrue("duplicate request code", codes.add(
+                    schedule(AlarmRegistry.TYPE_BLOCK_TIME, "task-" + i + "-2026-10-19", now + HOUR_MS)));
+        }
+    }
+
+    @Test
+    public void reschedulingKeepsTheCode() {
+        int code = schedule(AlarmRegistry.TYPE_CUSTOM, "alarm-1", now + HOUR_MS);
+        int again = schedule(AlarmRegistry.TYPE_CUSTOM, "alarm-1", now + 25 * HOUR_MS);
+        assertEquals(code, again);
+
+        AlarmRegistry.Entry entry = registry.get(AlarmRegistry.TYPE_CUSTOM, "alarm-1");
+        assertNotNull(entry);
+        assertEquals(now + 25 * HOUR_MS, entry.nextFireAt);
+        assertEquals("CUSTOM_ALARM_alarm-1", entry.getIntent().getAction());
+        assertEquals(code, registry.remove(AlarmRegistry.TYPE_CUSTOM, "alarm-1", 42));
+        // Never registered: the caller's legacy code comes back
+        assertEquals(42, registry.remove(AlarmRegistry.TYPE_CUSTOM, "alarm-1", 42));
+    }
+
+    @Test
+    public void listsAlarmsInATimeRangeSoonestFirst() {
+        schedule(AlarmRegistry.TYPE_TASK, "late", now + 5 * HOUR_MS);
+        schedule(AlarmRegistry.TYPE_TASK, "soon", now + HOUR_MS);
+        schedule(AlarmRegistry.TYPE_CHALLENGE, "middle", now + 2 * HOUR_MS);
+        schedule(AlarmRegistry.TYPE_TASK, "tomorrow", now + 30 * HOUR_MS);
+
+        List<AlarmRegistry.Entry> due = registry.listBetween(now, now + 6 * HOUR_MS);
+        assertEquals(3, due.size());
+        assertEquals("soon", due.get(0).id);
+        assertEquals("middle", due.get(1).id);
+        assertEquals("late", due.get(2).id);
+        assertEquals(4, registry.list().size());
+    }
+
+    @Test
+    public void cancelByTypeCancelsOnlyThatSubsystem() {
+        for (int i = 0; i < 10; i++) {
+            schedule(AlarmRegistry.TYPE_BLOCK_TIME, "block-" + i, now + (i + 1) * HOUR_MS);
+        }
+        int nightCode = schedule(AlarmRegistry.TYPE_NIGHT_MODE, "bedtime", now + 3 * HOUR_MS);
+        assertEquals(11, shadowOf(alarmManager).getScheduledAlarms().size());
+
+        assertEquals(10, registry.cancelByType(AlarmRegistry.TYPE_BLOCK_TIME));
+        assertEquals(1, shadowOf(alarmManager).getScheduledAlarms().size());
+        assertTrue(registry.listByType(AlarmRegistry.TYPE_BLOCK_TIME).isEmpty());
+        assertNotNull(find(intentFor(AlarmRegistry.TYPE_NIGHT_MODE, "bedtime"), nightCode));
+    }
+
+    @Test
+    public void registeringCancelsTheAlarmSetUnderTheLegacyCode() {
+        Intent intent = intentFor(AlarmRegistry.TYPE_TASK, "upgraded");
+        int legacyCode = Math.abs("upgraded".hashCode());
+        set(intent, legacyCode, now + HOUR_MS);
+
+        int code = registry.register(AlarmRegistry.TYPE_TASK, "upgraded", now + HOUR_MS, null, null,
+                intent, legacyCode);
+        set(intent, code, now + HOUR_MS);
+
+        assertNull(find(intent, legacyCode));
+        assertEquals(1, shadowOf(alarmManager).getScheduledAlarms().size());
+    }
+
+    private int schedule(String type, String id, long fireAt) {
+        Intent intent = intentFor(type, id);
+        int code = registry.register(type, id, fireAt, null, null, intent, Math.abs(id.hashCode()));
+        set(intent, code, fireAt);
+        return code;
+    }
+
+    private Intent intentFor(String type, String id) {
+        // Block time alarms share one action, like in BlockTimeSchedulerModule
+        Intent intent = new Intent(context, AlarmReceiver.class);
+        if (AlarmRegistry.TYPE_BLOCK_TIME.equals(type)) {
+            intent.setAction("com.wingsfly.BLOCK_TIME_ALARM");
+        } else if (AlarmRegistry.TYPE_CUSTOM.equals(type)) {
+            intent.setAction("CUSTOM_ALARM_" + id);
+        } else {
+            intent.setAction(type + "_" + id);
+        }
+        intent.putExtra("alarmId", id);
+        return intent;
+    }
+
+    private void set(Intent intent, int code, long fireAt) {
+        PendingIntent pendingIntent = PendingIntent.getBroadcast(context, code, intent,
+                PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE);
+        alarmManager.setExact(AlarmManager.RTC_WAKEUP, fireAt, pendingIntent);
+    }
+
+    private PendingIntent find(Intent intent, int code) {
+        return PendingIntent.getBroadcast(context, code, intent,
+                PendingIntent.FLAG_NO_CREATE | PendingIntent.FLAG_IMMUTABLE);
+    }
+}
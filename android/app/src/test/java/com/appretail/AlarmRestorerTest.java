@@ -0,0 +1,96 @@
+package com.wingsfly;
+
+import android.app.AlarmManager;
+import android.content.Context;
+import android.content.Intent;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.Calendar;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+/**
+ * Checks that AlarmRestorer re-arms the registry after a reboot: future alarms as they were,
+ * recurring ones missed while the device was off at their next occurrence, and queued ones
+ * behind the multiplexer's single wakeup.
+ *
+ *   ./gradlew :app:testDebugUnitTest --tests com.wingsfly.AlarmRestorerTest -i
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 33)
+public class AlarmRestorerTest {
+
+    private static final long HOUR_MS = 60 * 60 * 1000L;
+
+    @Rule
+    public final AlarmRegistryRule registryRule = new AlarmRegistryRule();
+
+    private Context context;
+    private AlarmManager alarmManager;
+    private AlarmRegistry registry;
+    private long now;
+
+    @Before
+    public void setUp() throws Exception {
+        context = RuntimeEnvironment.getApplication();
+        alarmManager = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
+        registry = registryRule.get();
+        now = System.currentTimeMillis();
+    }
+
+    @Test
+    public void restoresEveryAlarmInOnePass() {
+        // Only rows, as after a reboot: AlarmManager has nothing
+        register(AlarmRegistry.TYPE_CUSTOM, "future", now + HOUR_MS, null);
+        register(AlarmRegistry.TYPE_MORNING_ROUTINE, "user-1", now - 3 * HOUR_MS, AlarmRegistry.RECURRENCE_DAILY);
+        register(AlarmRegistry.TYPE_TASK, "missed", now - 3 * HOUR_MS, null);
+        for (int i = 0; i < 20; i++) {
+            register(AlarmRegistry.TYPE_BLOCK_TIME, "block-" + i, now + (i + 2) * HOUR_MS, null);
+        }
+
+        AlarmRestorer.Result result = AlarmRestorer.restoreAll(context);
+
+        assertEquals(22, result.restored);
+        assertEquals(1, result.expired);
+        assertEquals(0, result.failed);
+        assertNull(registry.get(AlarmRegistry.TYPE_TASK, "missed"));
+        assertEquals(now - 3 * HOUR_MS + 24 * HOUR_MS,
+                registry.get(AlarmRegistry.TYPE_MORNING_ROUTINE, "user-1").nextFireAt, HOUR_MS);
+        // Two alarm clocks plus the one wakeup for all block time alarms
+        assertEquals(3, shadowOf(alarmManager).getScheduledAlarms().size());
+    }
+
+    @Test
+    public void weeklyAlarmsMoveToTheirNextDay() {
+        Calendar monday = Calendar.getInstance();
+        monday.set(2026, Calendar.OCTOBER, 19, 7, 30, 0);
+        monday.set(Calendar.MILLISECOND, 0);
+        long fireAt = monday.getTimeInMillis();
+
+        long next = AlarmRestorer.nextOccurrence(AlarmRegistry.RECURRENCE_WEEKLY_PREFIX + "Mon,Thu",
+                fireAt, fireAt + HOUR_MS);
+
+        Calendar thursday = Calendar.getInstance();
+        thursday.setTimeInMillis(next);
+        assertEquals(Calendar.THURSDAY, thursday.get(Calendar.DAY_OF_WEEK));
+        assertEquals(7, thursday.get(Calendar.HOUR_OF_DAY));
+        assertEquals(30, thursday.get(Calendar.MINUTE));
+        assertTrue(AlarmRestorer.nextOccurrence("hourly", fireAt, fireAt + HOUR_MS) < 0);
+    }
+
+    private void register(String type, String id, long fireAt, String recurrence) {
+        Intent intent = new Intent(context, AlarmReceiver.class);
+        intent.setAction(type + "_" + id);
+        registry.register(type, id, fireAt, recurrence, null, intent, Math.abs(id.hashCode()));
+    }
+}
@@ -0,0 +1,198 @@
+package com.wingsfly;
+
+import android.content.Context;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Hammers AlarmSpeechController from many threads at once, the way the activity, the
+ * foreground service and the receiver race for an alarm, and checks that no two playbacks
+ * ever overlap and that every playback started is stopped exactly once.
+ *
+ *   ./gradlew :app:testDebugUnitTest --tests com.wingsfly.AlarmSpeechControllerStressTest -i
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 33)
+public class AlarmSpeechControllerStressTest {
+
+    private static final int THREADS = 12;
+    private static final int OPERATIONS_PER_THREAD = 5000;
+    private static final String[] ALARMS = {"alarm-1", "alarm-2", "alarm-3", "alarm-4"};
+
+    private Context context;
+    private CountingFactory factory;
+
+    @Before
+    public void setUp() {
+        context = RuntimeEnvironment.getApplication();
+        factory = new CountingFactory();
+    }
+
+    @Test
+    public void concurrentStartsAndStopsNeverOverlap() throws Exception {
+        final AlarmSpeechController controller = new AlarmSpeechController(factory, 0);
+        final CountDownLatch go = new CountDownLatch(1);
+        final AtomicInteger granted = new AtomicInteger();
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            final long seed = t;
+            futures.add(pool.submit(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    Random random = new Random(seed);
+                    AlarmSpeechController.Token held = null;
+                    go.await();
+                    for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                        String alarmId = ALARMS[random.nextInt(ALARMS.length)];
+                        switch (random.nextInt(6)) {
+                            case 0:
+                            case 1:
+                                AlarmSpeechController.Token token = controller.requestPlayback(
+                                        alarmId, "Task", "07:00", "Tester", context, "THREAD_" + seed);
+                                if (token != null) {
+                                    granted.incrementAndGet();
+                                    held = token;
+                                }
+                                break;
+                            case 2:
+                                if (controller.requestRepeat(alarmId, context, "THREAD_" + seed) != null) {
+                                    granted.incrementAndGet();
+                                }
+                                break;
+                            case 3:
+                                controller.stop(alarmId, "THREAD_" + seed);
+                                break;
+                            case 4:
+                                // Often stale by now; must never stop a newer owner
+                                if (held != null) {
+                                    controller.stop(held, "THREAD_" + seed);
+                                }
+                                break;
+                            default:
+                                controller.forceStopAll("THREAD_" + seed);
+                                break;
+                        }
+                    }
+                    return null;
+                }
+            }));
+        }
+
+        go.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        controller.forceStopAll("TEST_END");
+
+        System.out.println(String.format("%d operations, %d playbacks granted, %d started, max concurrent %d",
+                THREADS * OPERATIONS_PER_THREAD, granted.get(), factory.started.get(), factory.maxActive.get()));
+
+        assertTrue("no playback was ever granted", granted.get() > 0);
+        assertEquals("more than one playback at once", 1, factory.maxActive.get());
+        assertEquals("playbacks left running", 0, factory.active.get());
+        assertEquals("started and stopped counts differ", factory.started.get(), factory.stopped.get());
+        assertEquals("a playback was stopped twice", 0, factory.doubleStops.get());
+        assertEquals(AlarmSpeechController.State.IDLE, controller.getState());
+        assertNull(controller.getCurrentAlarmId());
+    }
+
+    @Test
+    public void staleTokenCannotStopNextAlarm() {
+        AlarmSpeechController controller = new AlarmSpeechController(factory, 0);
+
+        AlarmSpeechController.Token first = controller.requestPlayback(
+                "alarm-1", "Task", "07:00", "Tester", context, "ACTIVITY");
+        assertNotNull(first);
+        assertTrue(controller.stop(first, "DISMISS"));
+
+        AlarmSpeechController.Token second = controller.requestPlayback(
+                "alarm-2", "Task", "07:05", "Tester", context, "SERVICE_BACKUP");
+        assertNotNull(second);
+
+        assertFalse(controller.stop(first, "LATE_DISMISS"));
+        assertFalse(controller.stop("alarm-1", "LATE_DISMISS"));
+        assertEquals(AlarmSpeechController.State.PLAYING, controller.getState());
+        assertEquals("alarm-2", controller.getCurrentAlarmId());
+    }
+
+    @Test
+    public void duplicateStartsAreRefusedWithoutBlocking() {
+        AlarmSpeechController controller = new AlarmSpeechController(factory, 3000);
+
+        assertNotNull(controller.requestPlayback("alarm-1", "Task", "07:00", "Tester", context, "ACTIVITY"));
+        assertNull(controller.requestPlayback("alarm-1", "Task", "07:00", "Tester", context, "SERVICE_BACKUP"));
+
+        // Stopped, but still inside the start interval
+        assertTrue(controller.stop("alarm-1", "DISMISS"));
+        assertNull(controller.requestPlayback("alarm-1", "Task", "07:00", "Tester", context, "RECEIVER"));
+
+        // A manual repeat is not throttled
+        assertNotNull(controller.requestRepeat("alarm-1", context, "MANUAL_REPEAT"));
+        assertEquals(1, factory.active.get());
+    }
+
+    /**
+     * Stands in for ElevenLabs playback and counts how many are running at once
+     */
+    private static final class CountingFactory implements AlarmSpeechController.PlaybackFactory {
+        final AtomicInteger active = new AtomicInteger();
+        final AtomicInteger maxActive = new AtomicInteger();
+        final AtomicInteger started = new AtomicInteger();
+        final AtomicInteger stopped = new AtomicInteger();
+        final AtomicInteger doubleStops = new AtomicInteger();
+
+        @Override
+        public AlarmSpeechController.Playback start(AlarmSpeechController.Request request) {
+            started.incrementAndGet();
+            int now = active.incrementAndGet();
+            int max;
+            while (now > (max = maxActive.get())) {
+                if (maxActive.compareAndSet(max, now)) {
+                    break;
+                }
+            }
+            // Widen the window in which a stop can land mid-start
+            Thread.yield();
+
+            final AtomicBoolean done = new AtomicBoolean();
+            return new AlarmSpeechController.Playback() {
+                @Override
+                public void stop() {
+                    if (!done.compareAndSet(false, true)) {
+                        doubleStops.incrementAndGet();
+                        return;
+                    }
+                    active.decrementAndGet();
+                    stopped.incrementAndGet();
+                }
+            };
+        }
+    }
+}
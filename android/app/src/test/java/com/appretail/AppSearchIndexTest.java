@@ -0,0 +1,123 @@
+package com.wingsfly;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks AppSearchIndex ranking on a 500-app catalog (prefix, typo and usage cases) and that
+ * a query answers within the 2 ms budget the app picker searches on every keystroke.
+ *
+ *   ./gradlew :app:testDebugUnitTest --tests com.wingsfly.AppSearchIndexTest -i
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 33)
+public class AppSearchIndexTest {
+
+    private static final int APPS = 500;
+    private static final int LIMIT = 50;
+    private static final double BUDGET_MS = 2.0;
+
+    private static final String[] WORDS = {
+            "photo", "music", "cloud", "fit", "bank", "maps", "chat", "note", "weather", "scan",
+            "video", "mail", "shop", "game", "news", "radio", "clock", "drive", "book", "pay"
+    };
+
+    private AppSearchIndex index;
+
+    @Before
+    public void setUp() {
+        List<AppSearchIndex.App> apps = new ArrayList<>(Arrays.asList(
+                new AppSearchIndex.App("com.google.android.youtube", "YouTube", 420),
+                new AppSearchIndex.App("com.google.android.apps.youtube.music", "YouTube Music", 15),
+                new AppSearchIndex.App("com.instagram.android", "Instagram", 180),
+                new AppSearchIndex.App("com.whatsapp", "WhatsApp", 240),
+                new AppSearchIndex.App("com.example.notes.pro", "Notes Pro", 2),
+                new AppSearchIndex.App("com.example.notes.lite", "Notes Lite", 600),
+                new AppSearchIndex.App("fr.example.meteo", "Météo France", 5)));
+        Random random = new Random(26);
+        while (apps.size() < APPS) {
+            String label = capitalize(WORDS[random.nextInt(WORDS.length)]) + " "
+                    + capitalize(WORDS[random.nextInt(WORDS.length)]) + " " + apps.size();
+            apps.add(new AppSearchIndex.App("com.vendor" + apps.size() + "." + label.toLowerCase(Locale.US).replace(' ', '.'),
+                    label, random.nextInt(120)));
+        }
+        index = new AppSearchIndex(apps);
+        assertEquals(APPS, index.getSize());
+    }
+
+    @Test
+    public void prefixMatchesComeFirst() {
+        List<AppSearchIndex.Result> results = index.search("you", LIMIT);
+
+        assertEquals("com.google.android.youtube", results.get(0).getPackageName());
+        assertEquals("com.google.android.apps.youtube.music", results.get(1).getPackageName());
+        // Multi-token prefix, and the package name is indexed too
+        assertEquals("com.google.android.apps.youtube.music", index.search("you mus", LIMIT).get(0).getPackageName());
+        assertEquals("com.whatsapp", index.search("com.whatsapp", LIMIT).get(0).getPackageName());
+        // Accents are folded
+        assertEquals("fr.example.meteo", index.search("meteo", LIMIT).get(0).getPackageName());
+    }
+
+    @Test
+    public void trigramsCatchTypos() {
+        assertEquals("com.instagram.android", index.search("instagarm", LIMIT).get(0).getPackageName());
+        assertEquals("com.whatsapp", index.search("whatsap", LIMIT).get(0).getPackageName());
+        assertTrue(index.search("qqqzzz", LIMIT).isEmpty());
+    }
+
+    @Test
+    public void usageBreaksTiesBetweenEqualMatches() {
+        List<AppSearchIndex.Result> results = index.search("notes", LIMIT);
+
+        // Both labels start with the query; the one used every day ranks first
+        assertEquals("com.example.notes.lite", results.get(0).getPackageName());
+        assertEquals("com.example.notes.pro", results.get(1).getPackageName());
+        assertTrue(results.get(0).getScore() > results.get(1).getScore());
+        // An empty query lists the most used apps
+        assertEquals("com.example.notes.lite", index.search("", LIMIT).get(0).getPackageName());
+    }
+
+    @Test
+    public void answersWithinTwoMillisecondsForFiveHundredApps() {
+        String[] queries = {"y", "yo", "you", "youtube", "instagarm", "photo m", "cloud dr", "whatsap", "bank", "zz"};
+        // Warm up the JIT outside the measurement
+        for (int i = 0; i < 2000; i++) {
+            index.search(queries[i % queries.length], LIMIT);
+        }
+
+        int runs = 5000;
+        long[] samples = new long[runs];
+        for (int i = 0; i < runs; i++) {
+            long startedAt = System.nanoTime();
+            List<AppSearchIndex.Result> results = index.search(queries[i % queries.length], LIMIT);
+            samples[i] = System.nanoTime() - startedAt;
+            assertFalse(results.size() > LIMIT);
+        }
+        Arrays.sort(samples);
+        double p50 = samples[runs / 2] / 1e6;
+        double p95 = samples[runs * 95 / 100] / 1e6;
+        double p99 = samples[runs * 99 / 100] / 1e6;
+
+        System.out.println(String.format(Locale.US, "search over %d apps: p50=%.3f ms p95=%.3f ms p99=%.3f ms",
+                APPS, p50, p95, p99));
+        // p95 rather than the max, so one GC pause on a busy CI machine does not fail the build
+        assertTrue("p95 " + p95 + " ms", p95 < BUDGET_MS);
+    }
+
+    private static String capitalize(String word) {
+        return Character.toUpperCase(word.charAt(0)) + word.substring(1);
+    }
+}
@@ -0,0 +1,216 @@
+package com.wingsfly;
+
+import android.app.AlarmManager;
+import android.content.Context;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import kotlin.Pair;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+/**
+ * Benchmark for scheduling a day's plan of block time alarms: one scheduleBlockTimeAlarms call
+ * against one scheduleBlockTimeAlarm call per task. Both sides cross a stand-in for the React
+ * Native bridge (JSON arguments, a hop to the native modules thread, a JSON result back), so
+ * the per-task side pays that round trip for every task. Prints both timings so runs can be
+ * compared before and after a change:
+ *
+ *   ./gradlew :app:testDebugUnitTest --tests com.wingsfly.BlockTimeBatchBenchmarkTest -i
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 33)
+public class BlockTimeBatchBenchmarkTest {
+
+    private static final int TASKS = 200;
+
+    @Rule
+    public final AlarmRegistryRule registryRule = new AlarmRegistryRule();
+
+    private Context context;
+    private AlarmManager alarmManager;
+    private String tomorrow;
+    private ExecutorService nativeModulesThread;
+
+    @Before
+    public void setUp() throws Exception {
+        context = RuntimeEnvironment.getApplication();
+        alarmManager = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
+
+        Calendar calendar = Calendar.getInstance();
+        calendar.add(Calendar.DAY_OF_YEAR, 1);
+        tomorrow = String.format(Locale.US, "%04d-%02d-%02d", calendar.get(Calendar.YEAR),
+                calendar.get(Calendar.MONTH) + 1, calendar.get(Calendar.DAY_OF_MONTH));
+        nativeModulesThread = Executors.newSingleThreadExecutor();
+    }
+
+    @After
+    public void tearDown() {
+        nativeModulesThread.shutdownNow();
+    }
+
+    @Test
+    public void schedulesTwoHundredTasksInOneBatch() throws Exception {
+        final List<BlockTimeSchedulerModule.BatchItem> plan = plan("batch");
+
+        // Warm up the database, class loading and the bridge thread outside the measurement
+        scheduleOverBridge(plan.subList(0, 1));
+        scheduleOneOverBridge(plan("warmup").get(0));
+
+        long sequentialMs = time(() -> {
+            for (BlockTimeSchedulerModule.BatchItem item : plan("single")) {
+                assertTrue(scheduleOneOverBridge(item).getBoolean("success"));
+            }
+        });
+        long batchMs = time(() -> {
+            JSONObject batch = scheduleOverBridge(plan);
+            assertEquals(TASKS, batch.getInt("scheduled"));
+            assertEquals(TASKS, batch.getJSONArray("results").length());
+        });
+
+        System.out.println(String.format(Locale.US, "%d block time alarms over the bridge: one by one %d ms, batch %d ms",
+                TASKS, sequentialMs, batchMs));
+        // Both plans plus the warm-up task
+        assertEquals(2 * TASKS + 1, AlarmRegistry.getInstance(context).listByType(AlarmRegistry.TYPE_BLOCK_TIME).size());
+        assertEquals(1, shadowOf(alarmManager).getScheduledAlarms().size());
+    }
+
+    @Test
+    public void reportsEveryItemAndCancelsInOneBatch() {
+        List<BlockTimeSchedulerModule.BatchItem> plan = new ArrayList<>(plan("task"));
+        plan.add(new BlockTimeSchedulerModule.BatchItem("late", "Late", "", "timer", "10:00",
+                "", "tasks", "{}", "2020-01-01"));
+        plan.add(new BlockTimeSchedulerModule.BatchItem("broken", "Broken", "", "timer", "not a time",
+                "", "tasks", "{}", tomorrow));
+        plan.add(new BlockTimeSchedulerModule.BatchItem("overflow-time", "Overflow", "", "timer", "25:99",
+                "", "tasks", "{}", tomorrow));
+        plan.add(new BlockTimeSchedulerModule.BatchItem("overflow-date", "Overflow", "", "timer", "10:00",
+                "", "tasks", "{}", "2026-13-45"));
+
+        List<BlockTimeSchedulerModule.BatchResult> results = BlockTimeSchedulerModule.scheduleBatch(context, plan);
+
+        assertEquals("TIME_IN_PAST", results.get(TASKS).getError());
+        assertEquals("INVALID_TIME", results.get(TASKS + 1).getError());
+        // Out of range fields are rejected rather than rolled over into a later day
+        assertEquals("INVALID_TIME", results.get(TASKS + 2).getError());
+        assertEquals("INVALID_TIME", results.get(TASKS + 3).getError());
+
+        List<Pair<String, String>> alarms = new ArrayList<>();
+        for (BlockTimeSchedulerModule.BatchItem item : plan) {
+            alarms.add(new Pair<>(item.getTaskId(), item.getDateString()));
+        }
+        List<BlockTimeSchedulerModule.BatchResult> cancelled = BlockTimeSchedulerModule.cancelBatch(context, alarms);
+
+        assertTrue(cancelled.get(0).getSuccess());
+        assertFalse(cancelled.get(TASKS).getSuccess());
+        assertTrue(AlarmRegistry.getInstance(context).listByType(AlarmRegistry.TYPE_BLOCK_TIME).isEmpty());
+        assertEquals(0, shadowOf(alarmManager).getScheduledAlarms().size());
+    }
+
+    /**
+     * scheduleBlockTimeAlarm for one task: nine string arguments in, a result map out
+     */
+    private JSONObject scheduleOneOverBridge(BlockTimeSchedulerModule.BatchItem item) throws Exception {
+        JSONArray args = new JSONArray()
+                .put(item.getTaskId()).put(item.getTaskTitle()).put(item.getTaskDescription())
+                .put(item.getEvaluationType()).put(item.getStartTime()).put(item.getCategory())
+                .put(item.getSource()).put(item.getTaskDataJson()).put(item.getDateString());
+        return overBridge(args, received -> {
+            BlockTimeSchedulerModule.BatchItem arrived = new BlockTimeSchedulerModule.BatchItem(
+                    received.getString(0), received.getString(1), received.getString(2), received.getString(3),
+                    received.getString(4), received.getString(5), received.getString(6), received.getString(7),
+                    received.getString(8));
+            BlockTimeSchedulerModule.BatchResult result = BlockTimeSchedulerModule.scheduleOne(context, arrived);
+            return new JSONObject().put("success", result.getSuccess()).put("requestCode", result.getRequestCode());
+        });
+    }
+
+    /**
+     * scheduleBlockTimeAlarms: the whole plan as one array argument, one result map out
+     */
+    private JSONObject scheduleOverBridge(List<BlockTimeSchedulerModule.BatchItem> items) throws Exception {
+        JSONArray alarms = new JSONArray();
+        for (BlockTimeSchedulerModule.BatchItem item : items) {
+            alarms.put(new JSONObject()
+                    .put("taskId", item.getTaskId()).put("taskTitle", item.getTaskTitle())
+                    .put("taskDescription", item.getTaskDescription()).put("evaluationType", item.getEvaluationType())
+                    .put("startTime", item.getStartTime()).put("category", item.getCategory())
+                    .put("source", item.getSource()).put("taskDataJson", item.getTaskDataJson())
+                    .put("dateString", item.getDateString()));
+        }
+        return overBridge(new JSONArray().put(alarms), received -> {
+            JSONArray array = received.getJSONArray(0);
+            List<BlockTimeSchedulerModule.BatchItem> arrived = new ArrayList<>(array.length());
+            for (int i = 0; i < array.length(); i++) {
+                JSONObject alarm = array.getJSONObject(i);
+                arrived.add(new BlockTimeSchedulerModule.BatchItem(alarm.getString("taskId"),
+                        alarm.getString("taskTitle"), alarm.getString("taskDescription"),
+                        alarm.getString("evaluationType"), alarm.getString("startTime"), alarm.getString("category"),
+                        alarm.getString("source"), alarm.getString("taskDataJson"), alarm.getString("dateString")));
+            }
+            JSONArray results = new JSONArray();
+            int scheduled = 0;
+            for (BlockTimeSchedulerModule.BatchResult result : BlockTimeSchedulerModule.scheduleBatch(context, arrived)) {
+                results.put(new JSONObject().put("success", result.getSuccess()).put("taskId", result.getTaskId()));
+                scheduled += result.getSuccess() ? 1 : 0;
+            }
+            return new JSONObject().put("scheduled", scheduled).put("results", results);
+        });
+    }
+
+    private interface NativeCall {
+        JSONObject invoke(JSONArray args) throws Exception;
+    }
+
+    /**
+     * One bridge round trip as the JS side awaits it: arguments serialized, parsed on the
+     * native modules thread, the promise result serialized back and parsed by the caller
+     */
+    private JSONObject overBridge(JSONArray args, NativeCall nativeCall) throws Exception {
+        String message = args.toString();
+        String reply = nativeModulesThread.submit(() -> nativeCall.invoke(new JSONArray(message)).toString()).get();
+        return new JSONObject(reply);
+    }
+
+    private List<BlockTimeSchedulerModule.BatchItem> plan(String prefix) {
+        List<BlockTimeSchedulerModule.BatchItem> plan = new ArrayList<>();
+        for (int i = 0; i < TASKS; i++) {
+            // Spread over the day, seven minutes apart
+            int minuteOfDay = i * 7 % (24 * 60);
+            String startTime = String.format(Locale.US, "%02d:%02d", minuteOfDay / 60, minuteOfDay % 60);
+            String taskData = "{\"id\":\"" + prefix + i + "\",\"focus_duration\":25,\"short_break_duration\":5}";
+            plan.add(new BlockTimeSchedulerModule.BatchItem(prefix + "-" + i, "Task " + i, "", "timer",
+                    startTime, "Work", "tasks", taskData, tomorrow));
+        }
+        return plan;
+    }
+
+    private interface Work {
+        void run() throws Exception;
+    }
+
+    private static long time(Work work) throws Exception {
+        long startedAt = System.nanoTime();
+        work.run();
+        return (System.nanoTime() - startedAt) / 1_000_000;
+    }
+}
@@ -0,0 +1,835 @@
+package com.wingsfly;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * In-process stand-in for the Supabase PostgREST endpoints and the ElevenLabs TTS endpoint
+ * the native clients talk to, so their network paths can be load-tested without touching
+ * production.
+ *
+ * Supports the subset of PostgREST the app uses: eq filters, order, limit, insert, update,
+ * upsert, delete, ETag / If-None-Match and the apply_note_delta() RPC. Media files honour
+ * Range / If-Range and If-None-Match, and a transfer can be cut off midway. Latency, injected
+ * errors and payload sizes are configurable per route, where a route is a table name,
+ * "rpc/<function>", "tts" or "media".
+ *
+ * The desktop JDK's HttpURLConnection refuses to send PATCH, so clients from newClient()
+ * send updates as POST with X-HTTP-Method-Override, which only this stand-in honours.
+ */
+public class LocalSupabaseServer {
+
+    public static final String ROUTE_TTS = "tts";
+    public static final String ROUTE_MEDIA = "media";
+
+    private static final int GZIP_MIN_RESPONSE_BYTES = 1024;
+    private static final String METHOD_OVERRIDE = "X-HTTP-Method-Override";
+
+    /**
+     * How a route responds: fixed latency plus uniform jitter, and a share of requests
+     * failing with errorStatus before any work is done.
+     */
+    public static class Behavior {
+        long latencyMs;
+        long jitterMs;
+        double errorRate;
+        int errorStatus = 503;
+
+        public Behavior latency(long latencyMs, long jitterMs) {
+            this.latencyMs = latencyMs;
+            this.jitterMs = jitterMs;
+            return this;
+        }
+
+        public Behavior errors(double errorRate, int errorStatus) {
+            this.errorRate = errorRate;
+            this.errorStatus = errorStatus;
+            return this;
+        }
+    }
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Random random = new Random(42);
+
+    private final Map<String, List<JSONObject>> tables = new HashMap<>();
+    private final Map<String, Behavior> behaviors = new ConcurrentHashMap<>();
+    private volatile Behavior defaultBehavior = new Behavior();
+    private volatile int audioBytes = 64 * 1024;
+    private volatile long audioChunkDelayMs;
+    private volatile int mediaVersion = 1;
+    private final AtomicInteger mediaCutoffBytes = new AtomicInteger(-1);
+
+    private final Map<String, AtomicLong> requestCounts = new ConcurrentHashMap<>();
+    private final AtomicLong notModifiedCount = new AtomicLong();
+    private final AtomicLong injectedErrorCount = new AtomicLong();
+    private final AtomicLong bytesSent = new AtomicLong();
+    private final AtomicLong bytesReceived = new AtomicLong();
+    private final AtomicLong rangeRequestCount = new AtomicLong();
+
+    private LocalSupabaseServer(int threads) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        executor = Executors.newFixedThreadPool(threads);
+        server.setExecutor(executor);
+        server.createContext("/rest/v1/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                handleRest(exchange);
+            }
+        });
+        server.createContext("/v1/text-to-speech/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                handleTts(exchange);
+            }
+        });
+        server.createContext("/media/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                handleMedia(exchange);
+            }
+        });
+    }
+
+    public static LocalSupabaseServer start() throws IOException {
+        return start(16);
+    }
+
+    public static LocalSupabaseServer start(int threads) throws IOException {
+        LocalSupabaseServer instance = new LocalSupabaseServer(threads);
+        instance.server.start();
+        return instance;
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    public String getBaseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    /**
+     * A SupabaseRestClient for this server that can send updates from the JDK
+     */
+    public SupabaseRestClient newClient() {
+        return new SupabaseRestClient(getBaseUrl(), "local-anon-key") {
+            @Override
+            HttpURLConnection openConnection(String method, String path) throws IOException {
+                if (!"PATCH".equals(method)) {
+                    return super.openConnection(method, path);
+                }
+                HttpURLConnection connection = super.openConnection("POST", path);
+                connection.setRequestProperty(METHOD_OVERRIDE, method);
+                return connection;
+            }
+        };
+    }
+
+    // ==================== CONFIGURATION ====================
+
+    public void setDefaultBehavior(Behavior behavior) {
+        defaultBehavior = behavior;
+    }
+
+    public void setBehavior(String route, Behavior behavior) {
+        if (behavior == null) {
+            behaviors.remove(route);
+        } else {
+            behaviors.put(route, behavior);
+        }
+    }
+
+    /**
+     * Size of each synthesized clip and media file
+     */
+    public void setAudioBytes(int bytes) {
+        audioBytes = bytes;
+    }
+
+    /**
+     * Replace the media files on the server; their ETag changes
+     */
+    public void setMediaVersion(int version) {
+        mediaVersion = version;
+    }
+
+    /**
+     * Drop the connection of the next media transfer after this many bytes
+     */
+    public void cutNextMediaTransferAfter(int bytes) {
+        mediaCutoffBytes.set(bytes);
+    }
+
+    /**
+     * Pause between audio chunks, standing in for the TTS engine generating as it sends
+     */
+    public void setAudioChunkDelay(long delayMs) {
+        audioChunkDelayMs = delayMs;
+    }
+
+    public synchronized void setRows(String table, List<JSONObject> rows) {
+        tables.put(table, new ArrayList<>(rows));
+    }
+
+    public synchronized List<JSONObject> getRows(String table) {
+        List<JSONObject> rows = tables.get(table);
+        return rows != null ? new ArrayList<>(rows) : new ArrayList<JSONObject>();
+    }
+
+    public synchronized JSONObject insertRow(String table, JSONObject row) throws JSONException {
+        JSONObject stored = withDefaults(table, new JSONObject(row.toString()));
+        rowsOf(table).add(stored);
+        return stored;
+    }
+
+    // ==================== SEED DATA ====================
+
+    public void seedVoiceCommands(int count, int textLength) throws JSONException {
+        List<JSONObject> rows = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            JSONObject row = new JSONObject();
+            row.put("id", UUID.randomUUID().toString());
+            row.put("command_text", filler(textLength, i));
+            row.put("lock_duration", 30);
+            row.put("gap_time", 5);
+            row.put("sequence_order", i);
+            row.put("created_at", now());
+            rows.add(row);
+        }
+        setRows("morning_routine_voice_commands", rows);
+    }
+
+    public void seedIntention(int textLength, boolean withAudio) throws JSONException {
+        JSONObject row = new JSONObject();
+        row.put("id", UUID.randomUUID().toString());
+        row.put("intention_text", filler(textLength, 0));
+        row.put("type", withAudio ? "audio" : "text");
+        row.put("audio_file_url", withAudio ? getBaseUrl() + "/media/intention.mp3" : JSONObject.NULL);
+        row.put("audio_file_name", withAudio ? "intention.mp3" : JSONObject.NULL);
+        row.put("created_at", now());
+        setRows("intention_settings", Collections.singletonList(row));
+    }
+
+    public void seedDateReminder() throws JSONException {
+        JSONObject row = new JSONObject();
+        row.put("id", UUID.randomUUID().toString());
+        row.put("auto_close_after_30s", true);
+        row.put("morning_time", "07:30:00");
+        row.put("evening_time", "21:00:00");
+        row.put("morning_image_url", getBaseUrl() + "/media/morning.jpg");
+        row.put("evening_image_url", getBaseUrl() + "/media/evening.jpg");
+        row.put("created_at", now());
+        setRows("date_reminder_settings", Collections.singletonList(row));
+    }
+
+    public JSONObject seedNote(String userId, int contentLength) throws JSONException {
+        JSONObject row = new JSONObject();
+        row.put("user_id", userId);
+        row.put("content", filler(contentLength, 0));
+        return insertRow("notes", row);
+    }
+
+    // ==================== COUNTERS ====================
+
+    public long getRequestCount(String route) {
+        AtomicLong count = requestCounts.get(route);
+        return count != null ? count.get() : 0;
+    }
+
+    public long getTotalRequestCount() {
+        long total = 0;
+        for (AtomicLong count : requestCounts.values()) {
+            total += count.get();
+        }
+        return total;
+    }
+
+    public long getNotModifiedCount() {
+        return notModifiedCount.get();
+    }
+
+    public long getInjectedErrorCount() {
+        return injectedErrorCount.get();
+    }
+
+    public long getBytesSent() {
+        return bytesSent.get();
+    }
+
+    /**
+     * Request body bytes as they arrived on the wire, before any gzip inflation
+     */
+    public long getBytesReceived() {
+        return bytesReceived.get();
+    }
+
+    public long getRangeRequestCount() {
+        return rangeRequestCount.get();
+    }
+
+    public void resetCounters() {
+        requestCounts.clear();
+        notModifiedCount.set(0);
+        injectedErrorCount.set(0);
+        bytesSent.set(0);
+        bytesReceived.set(0);
+        rangeRequestCount.set(0);
+    }
+
+    // ==================== POSTGREST ====================
+
+    private void handleRest(HttpExchange exchange) throws IOException {
+        try {
+            String resource = exchange.getRequestURI().getRawPath().substring("/rest/v1/".length());
+            if (resource.isEmpty()) {
+                // ping()
+                send(exchange, 200, "{}".getBytes(StandardCharsets.UTF_8), "application/json");
+                return;
+            }
+            if (!simulate(exchange, resource)) {
+                return;
+            }
+
+            String method = exchange.getRequestMethod();
+            // Clients from newClient() tunnel PATCH through POST
+            String override = exchange.getRequestHeaders().getFirst(METHOD_OVERRIDE);
+            if (override != null && method.equals("POST")) {
+                method = override;
+            }
+            Map<String, String> filters = new LinkedHashMap<>();
+            String order = null;
+            int limit = -1;
+            String rawQuery = exchange.getRequestURI().getRawQuery();
+            if (rawQuery != null) {
+                for (String param : rawQuery.split("&")) {
+                    int eq = param.indexOf('=');
+                    String name = decode(eq >= 0 ? param.substring(0, eq) : param);
+                    String value = eq >= 0 ? decode(param.substring(eq + 1)) : "";
+                    if (name.equals("order")) {
+                        order = value;
+                    } else if (name.equals("limit")) {
+                        limit = Integer.parseInt(value);
+                    } else if (value.startsWith("eq.")) {
+                        filters.put(name, value.substring(3));
+                    }
+                    // select and on_conflict are accepted and ignored
+                }
+            }
+
+            if (resource.startsWith("rpc/")) {
+                handleRpc(exchange, resource.substring(4));
+            } else if (method.equals("GET")) {
+                sendRows(exchange, 200, select(resource, filters, order, limit), true);
+            } else if (method.equals("POST")) {
+                String prefer = exchange.getRequestHeaders().getFirst("Prefer");
+                boolean merge = prefer != null && prefer.contains("resolution=merge-duplicates");
+                List<JSONObject> saved = insert(resource, readBody(exchange), merge);
+                sendRepresentation(exchange, 201, saved);
+            } else if (method.equals("PATCH")) {
+                sendRepresentation(exchange, 200, update(resource, filters, new JSONObject(readBody(exchange))));
+            } else if (method.equals("DELETE")) {
+                delete(resource, filters);
+                send(exchange, 204, null, null);
+            } else {
+                sendError(exchange, 405, "Method not allowed");
+            }
+        } catch (JSONException e) {
+            sendError(exchange, 400, e.getMessage());
+        } catch (RuntimeException e) {
+            sendError(exchange, 400, e.getMessage());
+        }
+    }
+
+    private synchronized List<JSONObject> select(String table, Map<String, String> filters,
+                                                 String order, int limit) throws JSONException {
+        List<JSONObject> matches = new ArrayList<>();
+        for (JSONObject row : rowsOf(table)) {
+            if (matches(row, filters)) {
+                matches.add(new JSONObject(row.toString()));
+            }
+        }
+        if (order != null) {
+            int dot = order.lastIndexOf('.');
+            final String column = dot > 0 ? order.substring(0, dot) : order;
+            final boolean descending = order.endsWith(".desc");
+            Collections.sort(matches, new Comparator<JSONObject>() {
+                @Override
+                public int compare(JSONObject a, JSONObject b) {
+                    int result = compareValues(a.opt(column), b.opt(column));
+                    return descending ? -result : result;
+                }
+            });
+        }
+        if (limit >= 0 && matches.size() > limit) {
+            matches = new ArrayList<>(matches.subList(0, limit));
+        }
+        return matches;
+    }
+
+    private synchronized List<JSONObject> insert(String table, String body, boolean merge) throws JSONException {
+        List<JSONObject> incoming = new ArrayList<>();
+        if (body.trim().startsWith("[")) {
+            JSONArray array = new JSONArray(body);
+            for (int i = 0; i < array.length(); i++) {
+                incoming.add(array.getJSONObject(i));
+            }
+        } else {
+            incoming.add(new JSONObject(body));
+        }
+
+        List<JSONObject> saved = new ArrayList<>();
+        List<JSONObject> rows = rowsOf(table);
+        for (JSONObject row : incoming) {
+            JSONObject existing = merge && row.has("id") ? findById(rows, row.getString("id")) : null;
+            if (existing != null) {
+                copyInto(row, existing);
+                bumpRevision(existing);
+                saved.add(existing);
+            } else {
+                JSONObject stored = withDefaults(table, row);
+                rows.add(stored);
+                saved.add(stored);
+            }
+        }
+        return saved;
+    }
+
+    private synchronized List<JSONObject> update(String table, Map<String, String> filters, JSONObject patch)
+            throws JSONException {
+        List<JSONObject> updated = new ArrayList<>();
+        for (JSONObject row : rowsOf(table)) {
+            if (matches(row, filters)) {
+                copyInto(patch, row);
+                bumpRevision(row);
+                updated.add(row);
+            }
+        }
+        return updated;
+    }
+
+    private synchronized void delete(String table, Map<String, String> filters) {
+        List<JSONObject> rows = rowsOf(table);
+        for (int i = rows.size() - 1; i >= 0; i--) {
+            if (matches(rows.get(i), filters)) {
+                rows.remove(i);
+            }
+        }
+    }
+
+    /**
+     * Local implementation of the functions in notes_delta_sync.sql
+     */
+    private void handleRpc(HttpExchange exchange, String function) throws IOException, JSONException {
+        if (!function.equals("apply_note_delta")) {
+            sendError(exchange, 404, "Could not find the function " + function);
+            return;
+        }
+        JSONObject args = new JSONObject(readBody(exchange));
+        String noteId = args.getString("p_note_id");
+        int baseRevision = args.getInt("p_base_revision");
+
+        JSONObject saved;
+        synchronized (this) {
+            JSONObject note = findById(rowsOf("notes"), noteId);
+            if (note == null) {
+                sendError(exchange, 404, "Note " + noteId + " not found");
+                return;
+            }
+            if (note.optInt("revision", 0) != baseRevision) {
+                sendError(exchange, 409, "Note " + noteId + " is at revision " + note.optInt("revision", 0)
+                        + ", delta was made against " + baseRevision);
+                return;
+            }
+            String content;
+            try {
+                content = NoteDelta.apply(note.optString("content", ""),
+                        NoteDelta.fromJson(args.getJSONArray("p_ops")));
+            } catch (IllegalArgumentException e) {
+                sendError(exchange, 400, e.getMessage());
+                return;
+            }
+            note.put("content", content);
+            note.put("updated_at", args.getString("p_updated_at"));
+            bumpRevision(note);
+            saved = new JSONObject(note.toString());
+        }
+        sendRows(exchange, 200, Collections.singletonList(saved), false);
+    }
+
+    private List<JSONObject> rowsOf(String table) {
+        List<JSONObject> rows = tables.get(table);
+        if (rows == null) {
+            rows = new ArrayList<>();
+            tables.put(table, rows);
+        }
+        return rows;
+    }
+
+    private static JSONObject withDefaults(String table, JSONObject row) throws JSONException {
+        if (!row.has("id")) {
+            row.put("id", UUID.randomUUID().toString());
+        }
+        if (!row.has("created_at")) {
+            row.put("created_at", now());
+        }
+        if (!row.has("updated_at")) {
+            row.put("updated_at", row.getString("created_at"));
+        }
+        if (table.equals("notes") && !row.has("revision")) {
+            row.put("revision", 0);
+        }
+        return row;
+    }
+
+    // Mirrors the bump_notes_revision trigger
+    private static void bumpRevision(JSONObject row) throws JSONException {
+        if (row.has("revision")) {
+            row.put("revision", row.getInt("revision") + 1);
+        }
+    }
+
+    private static void copyInto(JSONObject source, JSONObject target) throws JSONException {
+        JSONArray names = source.names();
+        if (names == null) {
+            return;
+        }
+        for (int i = 0; i < names.length(); i++) {
+            String name = names.getString(i);
+            if (!name.equals("revision")) {
+                target.put(name, source.get(name));
+            }
+        }
+    }
+
+    private static JSONObject findById(List<JSONObject> rows, String id) {
+        for (JSONObject row : rows) {
+            if (id.equals(row.optString("id", null))) {
+                return row;
+            }
+        }
+        return null;
+    }
+
+    private static boolean matches(JSONObject row, Map<String, String> filters) {
+        for (Map.Entry<String, String> filter : filters.entrySet()) {
+            Object value = row.opt(filter.getKey());
+            if (value == null || value == JSONObject.NULL || !String.valueOf(value).equals(filter.getValue())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int compareValues(Object a, Object b) {
+        if (a instanceof Number && b instanceof Number) {
+            return Double.compare(((Number) a).doubleValue(), ((Number) b).doubleValue());
+        }
+        return String.valueOf(a).compareTo(String.valueOf(b));
+    }
+
+    // ==================== ELEVENLABS / MEDIA ====================
+
+    private void handleTts(HttpExchange exchange) throws IOException {
+        if (!simulate(exchange, ROUTE_TTS)) {
+            return;
+        }
+        try {
+            JSONObject request = new JSONObject(readBody(exchange));
+            if (request.optString("text", "").isEmpty()) {
+                sendError(exchange, 422, "text is required");
+                return;
+            }
+        } catch (JSONException e) {
+            sendError(exchange, 400, e.getMessage());
+            return;
+        }
+        streamAudio(exchange, "audio/mpeg");
+    }
+
+    private void handleMedia(HttpExchange exchange) throws IOException {
+        if (!simulate(exchange, ROUTE_MEDIA)) {
+            return;
+        }
+        int size = audioBytes;
+        String etag = "\"media-v" + mediaVersion + "-" + size + "\"";
+        Headers headers = exchange.getResponseHeaders();
+        headers.set("Content-Type", "application/octet-stream");
+        headers.set("ETag", etag);
+        headers.set("Accept-Ranges", "bytes");
+
+        if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+            notModifiedCount.incrementAndGet();
+            exchange.sendResponseHeaders(304, -1);
+            exchange.close();
+            return;
+        }
+
+        int from = 0;
+        String range = exchange.getRequestHeaders().getFirst("Range");
+        String ifRange = exchange.getRequestHeaders().getFirst("If-Range");
+        if (range != null && range.startsWith("bytes=") && range.endsWith("-")
+                && (ifRange == null || ifRange.equals(etag))) {
+            from = Integer.parseInt(range.substring("bytes=".length(), range.length() - 1));
+            if (from >= size) {
+                headers.set("Content-Range", "bytes */" + size);
+                exchange.sendResponseHeaders(416, -1);
+                exchange.close();
+                return;
+            }
+            rangeRequestCount.incrementAndGet();
+            headers.set("Content-Range", "bytes " + from + "-" + (size - 1) + "/" + size);
+            exchange.sendResponseHeaders(206, size - from);
+        } else {
+            exchange.sendResponseHeaders(200, size);
+        }
+
+        // Position-dependent content, so a badly stitched resume is detectable
+        int cutoff = mediaCutoffBytes.getAndSet(-1);
+        OutputStream out = exchange.getResponseBody();
+        byte[] chunk = new byte[8192];
+        int position = from;
+        while (position < size) {
+            int n = Math.min(chunk.length, size - position);
+            if (cutoff >= 0) {
+                n = Math.min(n, from + cutoff - position);
+            }
+            for (int i = 0; i < n; i++) {
+                chunk[i] = mediaByte(position + i);
+            }
+            out.write(chunk, 0, n);
+            bytesSent.addAndGet(n);
+            position += n;
+            if (cutoff >= 0 && position >= from + cutoff) {
+                out.flush();
+                // Abandon the exchange mid-body; the server drops the connection
+                throw new IOException("Media transfer cut off at " + position + " bytes");
+            }
+        }
+        out.close();
+    }
+
+    public static byte mediaByte(int position) {
+        return (byte) (position % 251);
+    }
+
+    /**
+     * Send audioBytes of fake audio in chunks, the way the TTS endpoint streams its output
+     */
+    private void streamAudio(HttpExchange exchange, String contentType) throws IOException {
+        int size = audioBytes;
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(200, 0);
+        byte[] chunk = new byte[8192];
+        chunk[0] = 'I';
+        chunk[1] = 'D';
+        chunk[2] = '3';
+        try (OutputStream out = exchange.getResponseBody()) {
+            int remaining = size;
+            while (remaining > 0) {
+                int n = Math.min(chunk.length, remaining);
+                out.write(chunk, 0, n);
+                remaining -= n;
+                if (audioChunkDelayMs > 0 && remaining > 0) {
+                    out.flush();
+                    try {
+                        Thread.sleep(audioChunkDelayMs);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }
+        }
+        bytesSent.addAndGet(size);
+    }
+
+    // ==================== TRANSPORT ====================
+
+    /**
+     * Count the request, apply latency and maybe inject an error. Returns false if an error
+     * response was already sent.
+     */
+    private boolean simulate(HttpExchange exchange, String route) throws IOException {
+        requestCounts.computeIfAbsent(route, k -> new AtomicLong()).incrementAndGet();
+        Behavior behavior = behaviors.get(route);
+        if (behavior == null) {
+            behavior = defaultBehavior;
+        }
+
+        long delay;
+        boolean fail;
+        synchronized (random) {
+            delay = behavior.latencyMs + (behavior.jitterMs > 0 ? (long) (random.nextDouble() * behavior.jitterMs) : 0);
+            fail = behavior.errorRate > 0 && random.nextDouble() < behavior.errorRate;
+        }
+        if (delay > 0) {
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (fail) {
+            injectedErrorCount.incrementAndGet();
+            sendError(exchange, behavior.errorStatus, "Injected failure");
+            return false;
+        }
+        return true;
+    }
+
+    private void sendRows(HttpExchange exchange, int status, List<JSONObject> rows, boolean conditional)
+            throws IOException {
+        JSONArray array = new JSONArray();
+        for (JSONObject row : rows) {
+            array.put(row);
+        }
+        byte[] body = array.toString().getBytes(StandardCharsets.UTF_8);
+
+        if (conditional) {
+            String etag = "\"" + sha1(body) + "\"";
+            exchange.getResponseHeaders().set("ETag", etag);
+            if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                notModifiedCount.incrementAndGet();
+                exchange.sendResponseHeaders(304, -1);
+                exchange.close();
+                return;
+            }
+        }
+        send(exchange, status, body, "application/json");
+    }
+
+    private void sendRepresentation(HttpExchange exchange, int status, List<JSONObject> rows) throws IOException {
+        String prefer = exchange.getRequestHeaders().getFirst("Prefer");
+        if (prefer != null && prefer.contains("return=representation")) {
+            sendRows(exchange, status, rows, false);
+        } else {
+            send(exchange, status == 200 ? 204 : status, null, null);
+        }
+    }
+
+    private void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        JSONObject error = new JSONObject();
+        try {
+            error.put("message", message);
+        } catch (JSONException ignored) {
+        }
+        send(exchange, status, error.toString().getBytes(StandardCharsets.UTF_8), "application/json");
+    }
+
+    private void send(HttpExchange exchange, int status, byte[] body, String contentType) throws IOException {
+        Headers headers = exchange.getResponseHeaders();
+        if (body == null || status == 204) {
+            exchange.sendResponseHeaders(status, -1);
+            exchange.close();
+            return;
+        }
+
+        byte[] encoded = body;
+        String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+        if (acceptEncoding != null && acceptEncoding.contains("gzip") && body.length >= GZIP_MIN_RESPONSE_BYTES) {
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(body.length / 2);
+            try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+                gzip.write(body);
+            }
+            encoded = compressed.toByteArray();
+            headers.set("Content-Encoding", "gzip");
+        }
+        headers.set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, encoded.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(encoded);
+        }
+        bytesSent.addAndGet(encoded.length);
+    }
+
+    private String readBody(HttpExchange exchange) throws IOException {
+        ByteArrayOutputStream raw = new ByteArrayOutputStream();
+        InputStream body = exchange.getRequestBody();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = body.read(buffer)) != -1) {
+            raw.write(buffer, 0, read);
+        }
+        bytesReceived.addAndGet(raw.size());
+
+        InputStream in = new ByteArrayInputStream(raw.toByteArray());
+        if ("gzip".equalsIgnoreCase(exchange.getRequestHeaders().getFirst("Content-Encoding"))) {
+            in = new GZIPInputStream(in);
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return out.toString("UTF-8");
+    }
+
+    private static String decode(String value) {
+        try {
+            return URLDecoder.decode(value, "UTF-8");
+        } catch (IOException e) {
+            return value;
+        }
+    }
+
+    private static String sha1(byte[] value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(value);
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            return Integer.toHexString(java.util.Arrays.hashCode(value));
+        }
+    }
+
+    private static String filler(int length, int seed) {
+        StringBuilder text = new StringBuilder(length);
+        String words = "wake up and take one small step toward the day you planned ";
+        for (int i = 0; text.length() < length; i++) {
+            text.append(words.charAt((i + seed) % words.length()));
+        }
+        return text.toString();
+    }
+
+    private static String now() {
+        return NotesLocalStore.formatTimestamp(System.currentTimeMillis());
+    }
+}
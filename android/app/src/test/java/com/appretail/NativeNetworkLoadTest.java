@@ -0,0 +1,466 @@
+package com.wingsfly;
+
+import android.content.Context;
+
+import org.json.JSONArray;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Load tests for the native network clients against LocalSupabaseServer.
+ *
+ * Each scenario prints throughput, tail latency and cache figures so runs can be compared
+ * before and after a change:
+ *
+ *   ./gradlew :app:testDebugUnitTest --tests com.wingsfly.NativeNetworkLoadTest -i
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 33)
+public class NativeNetworkLoadTest {
+
+    private static final int THREADS = 8;
+
+    private LocalSupabaseServer server;
+    private Context context;
+
+    @Before
+    public void setUp() throws Exception {
+        context = RuntimeEnvironment.getApplication();
+        server = LocalSupabaseServer.start();
+        server.seedVoiceCommands(12, 120);
+        server.seedIntention(200, true);
+        server.seedDateReminder();
+
+        SupabaseRestClient.setInstance(server.newClient());
+        ElevenLabsClient.setBaseUrl(server.getBaseUrl());
+        NetworkResilience.resetMetrics();
+        NetworkResilience.resetBreakers();
+    }
+
+    @After
+    public void tearDown() {
+        SupabaseRestClient.setInstance(null);
+        ElevenLabsClient.setBaseUrl(null);
+        server.stop();
+    }
+
+    @Test
+    public void selectThroughput() throws Exception {
+        server.setDefaultBehavior(new LocalSupabaseServer.Behavior().latency(20, 30));
+
+        LoadResult result = run("select voice commands", THREADS, 400, new Callable<Boolean>() {
+            @Override
+            public Boolean call() {
+                return MorningRoutineDatabase.fetchVoiceCommands().size() == 12;
+            }
+        });
+
+        assertEquals(0, result.failures);
+        report(result);
+    }
+
+    @Test
+    public void cachedReadsHitRate() throws Exception {
+        server.setDefaultBehavior(new LocalSupabaseServer.Behavior().latency(20, 30));
+        final int reads = 300;
+
+        // Fresh cache: only the cold read should reach the server
+        LoadResult fresh = run("cached intention (fresh)", THREADS, reads, new Callable<Boolean>() {
+            @Override
+            public Boolean call() {
+                return IntentionDatabase.fetchIntentionData(context) != null;
+            }
+        });
+        long freshRequests = server.getRequestCount("intention_settings");
+        report(fresh);
+        printHitRate("fresh", reads, freshRequests, server.getNotModifiedCount());
+
+        // TTL 0: every read revalidates, unchanged rows come back as 304
+        server.resetCounters();
+        SupabaseResponseCache.setTtl(context, "intention_settings", 0);
+        LoadResult revalidating = run("cached intention (forced revalidate)", THREADS, reads, new Callable<Boolean>() {
+            @Override
+            public Boolean call() {
+                return IntentionDatabase.fetchIntentionData(context, true) != null;
+            }
+        });
+        report(revalidating);
+        printHitRate("revalidate", reads, server.getRequestCount("intention_settings"), server.getNotModifiedCount());
+
+        assertEquals(0, fresh.failures);
+        assertTrue("Fresh cache should absorb nearly all reads", freshRequests <= THREADS);
+    }
+
+    @Test
+    public void selectUnderInjectedErrors() throws Exception {
+        server.setBehavior("morning_routine_voice_commands",
+                new LocalSupabaseServer.Behavior().latency(10, 20).errors(0.2, 503));
+
+        LoadResult result = run("select voice commands (20% 503)", THREADS, 400, new Callable<Boolean>() {
+            @Override
+            public Boolean call() {
+                return !MorningRoutineDatabase.fetchVoiceCommands().isEmpty();
+            }
+        });
+
+        // Three host failures in a row open the breaker, after which calls fail fast
+        // without reaching the server; both show up in the report
+        report(result);
+        System.out.println(String.format(Locale.US, "  injected errors: %d, success rate %.1f%%, breakers: %s",
+                server.getInjectedErrorCount(), 100 * result.successRate(), NetworkResilience.getBreakerStates()));
+        assertTrue(result.successRate() > 0);
+        assertTrue(server.getRequestCount("morning_routine_voice_commands") <= result.latenciesMs.length * 3);
+    }
+
+    @Test
+    public void ttsThroughput() throws Exception {
+        server.setBehavior(LocalSupabaseServer.ROUTE_TTS, new LocalSupabaseServer.Behavior().latency(150, 250));
+        server.setAudioBytes(256 * 1024);
+        final File dir = new File(context.getCacheDir(), "load_tts");
+        dir.mkdirs();
+        final AtomicInteger sequence = new AtomicInteger();
+
+        LoadResult result = run("elevenlabs tts (256 KB)", 4, 60, new Callable<Boolean>() {
+            @Override
+            public Boolean call() throws IOException {
+                File target = new File(dir, "clip_" + sequence.incrementAndGet() + ".mp3");
+                long bytes = ElevenLabsClient.synthesizeToFile(
+                        new ElevenLabsClient.Request("Good morning, it is time to wake up"), target);
+                return bytes == 256 * 1024 && target.length() == bytes;
+            }
+        });
+
+        assertEquals(0, result.failures);
+        report(result);
+    }
+
+    /**
+     * Time until the first audio bytes are available to the player: the whole clip for the
+     * buffered path, the first chunk for the streaming path.
+     */
+    @Test
+    public void ttsTimeToFirstAudio() throws Exception {
+        server.setBehavior(LocalSupabaseServer.ROUTE_TTS, new LocalSupabaseServer.Behavior().latency(150, 100));
+        server.setAudioBytes(160 * 1024);
+        server.setAudioChunkDelay(40);
+        final File dir = new File(context.getCacheDir(), "load_tts_ttfa");
+        dir.mkdirs();
+        final AtomicInteger sequence = new AtomicInteger();
+
+        LoadResult buffered = run("tts time to first audio, buffered", 2, 20, new Callable<Boolean>() {
+            @Override
+            public Boolean call() throws IOException {
+                File target = new File(dir, "buffered_" + sequence.incrementAndGet() + ".mp3");
+                return ElevenLabsClient.synthesizeToFile(
+                        new ElevenLabsClient.Request("Hello there, your task is scheduled at 7:30"), target) > 0;
+            }
+        });
+
+        final long[] firstChunkMs = new long[20];
+        final AtomicInteger streamed = new AtomicInteger();
+        LoadResult streaming = run("tts streaming, full download", 2, 20, new Callable<Boolean>() {
+            @Override
+            public Boolean call() throws IOException {
+                final int index = streamed.getAndIncrement();
+                final long start = System.nanoTime();
+                File target = new File(dir, "streamed_" + index + ".mp3");
+                long bytes = ElevenLabsClient.streamToFile(
+                        new ElevenLabsClient.Request("Hello there, your task is scheduled at 7:30")
+                                .optimizeStreamingLatency(3),
+                        target, new ElevenLabsClient.ChunkListener() {
+                            @Override
+                            public void onChunk(byte[] data, int count) {
+                                if (firstChunkMs[index] == 0) {
+                                    firstChunkMs[index] = (System.nanoTime() - start) / 1000000;
+                                }
+                            }
+                        });
+                return bytes == target.length();
+            }
+        });
+
+        assertEquals(0, buffered.failures);
+        assertEquals(0, streaming.failures);
+        LoadResult firstAudio = new LoadResult("tts time to first audio, streaming", firstChunkMs, 0, streaming.elapsedMs);
+        report(buffered);
+        report(firstAudio);
+        assertTrue(firstAudio.percentile(0.50) < buffered.percentile(0.50));
+    }
+
+    /**
+     * An intention recording cut off midway is finished with a Range request instead of
+     * being downloaded again, and a refresh of the stored copy costs a 304.
+     */
+    @Test
+    public void intentionAudioResumesAndRevalidates() throws Exception {
+        final int size = 512 * 1024;
+        server.setAudioBytes(size);
+        server.cutNextMediaTransferAfter(200 * 1024);
+        String url = server.getBaseUrl() + "/media/intention.mp3";
+
+        long start = System.nanoTime();
+        File audio = AlarmContentPrefetcher.getOrDownloadMedia(context, AlarmContentPrefetcher.MEDIA_INTENTION, url);
+        long downloadMs = (System.nanoTime() - start) / 1000000;
+
+        assertNotNull(audio);
+        assertEquals(size, audio.length());
+        assertMediaContent(audio);
+        assertEquals("the retry should resume with a Range request", 1, server.getRangeRequestCount());
+        assertEquals("resumed bytes should not be sent twice", size, server.getBytesSent());
+
+        // Unchanged on the server: revalidation transfers nothing
+        server.resetCounters();
+        assertEquals(audio, AlarmContentPrefetcher.refreshMedia(context, AlarmContentPrefetcher.MEDIA_INTENTION, url));
+        assertEquals(1, server.getNotModifiedCount());
+        assertEquals(0, server.getBytesSent());
+
+        // Replaced on the server under the same URL: the new version is downloaded
+        server.resetCounters();
+        server.setMediaVersion(2);
+        AlarmContentPrefetcher.refreshMedia(context, AlarmContentPrefetcher.MEDIA_INTENTION, url);
+        assertEquals(size, server.getBytesSent());
+
+        System.out.println(String.format(Locale.US,
+                "%-45s %6d ms for %d KB with one resume, revalidation 304",
+                "intention audio download", downloadMs, size / 1024));
+    }
+
+    private static void assertMediaContent(File file) throws IOException {
+        byte[] data = Files.readAllBytes(file.toPath());
+        for (int i = 0; i < data.length; i++) {
+            if (data[i] != LocalSupabaseServer.mediaByte(i)) {
+                throw new AssertionError("Media content differs at byte " + i);
+            }
+        }
+    }
+
+    @Test
+    public void noteDeltaUploads() throws Exception {
+        server.setDefaultBehavior(new LocalSupabaseServer.Behavior().latency(20, 30));
+        NotesDatabase.Note note = NotesDatabase.getUserNotes("load-user");
+        if (note == null) {
+            server.seedNote("load-user", 5000);
+            note = NotesDatabase.getUserNotes("load-user");
+        }
+        assertNotNull(note);
+
+        String content = note.content;
+        int revision = note.revision;
+        long deltaBytes = 0;
+        long fullBytes = 0;
+        for (int i = 0; i < 20; i++) {
+            String next = content.substring(0, 2500) + "typed " + i + " " + content.substring(2500);
+            JSONArray ops = NoteDelta.toJson(NoteDelta.diff(content, next));
+            NotesDatabase.Note saved = NotesDatabase.applyNoteDelta(note.id, revision, ops,
+                    NotesLocalStore.formatTimestamp(System.currentTimeMillis()));
+            assertNotNull(saved);
+            assertEquals(next, saved.content);
+            deltaBytes += ops.toString().length();
+            fullBytes += next.length();
+            content = next;
+            revision = saved.revision;
+        }
+
+        // A delta against a stale revision is rejected
+        assertEquals(null, NotesDatabase.applyNoteDelta(note.id, revision - 1,
+                NoteDelta.toJson(NoteDelta.diff(content, content + "!")), NotesLocalStore.formatTimestamp(0)));
+
+        System.out.println(String.format(Locale.US, "[notes delta] 20 saves: %d bytes as deltas vs %d as full notes",
+                deltaBytes, fullBytes));
+    }
+
+    @Test
+    public void noteUploadBytesPerTypingMinute() throws Exception {
+        // A typing minute: the overlay autosaves after each 2 s pause, so about 20 saves of a
+        // growing 5000 character note. Only request bodies are counted, as the server received them
+        final String userId = "traffic-user";
+        final int saves = 20;
+        NotesDatabase.Note seeded = NotesDatabase.getUserNotes(userId);
+        if (seeded == null) {
+            server.seedNote(userId, 5000);
+            seeded = NotesDatabase.getUserNotes(userId);
+        }
+        assertNotNull(seeded);
+        // Prose-like text; the server's filler repeats one sentence and would flatter gzip
+        String[] words = {"call", "the", "bank", "about", "rent", "and", "book", "dentist", "before", "friday",
+                "remember", "to", "send", "notes", "from", "meeting", "with", "priya", "on", "budget"};
+        Random random = new Random(34);
+        StringBuilder note = new StringBuilder();
+        while (note.length() < 5000) {
+            note.append(words[random.nextInt(words.length)]).append(random.nextInt(8) == 0 ? ".\n" : " ");
+        }
+        assertNotNull(NotesDatabase.saveNotes(userId, note.toString(), seeded.id));
+        List<String> edits = new ArrayList<>();
+        String content = note.toString();
+        for (int i = 0; i < saves; i++) {
+            content = content.substring(0, 2500) + "typed " + i + " " + content.substring(2500);
+            edits.add(content);
+        }
+
+        // Before: every autosave sent the whole note with NotesDatabase.saveNotes
+        server.resetCounters();
+        for (String edit : edits) {
+            assertNotNull(NotesDatabase.saveNotes(userId, edit, seeded.id));
+        }
+        long fullBytes = server.getBytesReceived();
+
+        SupabaseRestClient.getInstance().setGzipRequests(true);
+        server.resetCounters();
+        for (String edit : edits) {
+            assertNotNull(NotesDatabase.saveNotes(userId, edit, seeded.id));
+        }
+        long gzipBytes = server.getBytesReceived();
+        SupabaseRestClient.getInstance().setGzipRequests(false);
+
+        // After: the overlay writes locally and NotesSyncManager uploads deltas against the
+        // last acknowledged revision
+        resetSingleton(NotesLocalStore.class);
+        resetSingleton(NotesSyncManager.class);
+        NotesLocalStore store = NotesLocalStore.getInstance(context);
+        NotesSyncManager sync = NotesSyncManager.getInstance(context);
+        assertTrue(store.applyRemote(NotesDatabase.getUserNotes(userId)));
+        String base = edits.get(saves - 1);
+        server.resetCounters();
+        for (int i = 0; i < saves; i++) {
+            base = base.substring(0, 2500) + "again " + i + " " + base.substring(2500);
+            store.saveLocal(userId, base);
+            sync.requestSync();
+            awaitEmptyOutbox(store);
+        }
+        long deltaBytes = server.getBytesReceived();
+        assertEquals(base, NotesDatabase.getUserNotes(userId).content);
+
+        System.out.println(String.format(Locale.US,
+                "[notes upload] %d saves in a typing minute: full %d B/min, full gzip %d B/min, delta %d B/min",
+                saves, fullBytes, gzipBytes, deltaBytes));
+        assertTrue("Deltas should send a fraction of the full notes", deltaBytes * 10 < fullBytes);
+    }
+
+    private static void awaitEmptyOutbox(NotesLocalStore store) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (store.getNextOutboxAttemptAt() >= 0) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new AssertionError("Notes outbox did not drain");
+            }
+            Thread.sleep(5);
+        }
+    }
+
+    private static void resetSingleton(Class<?> type) throws Exception {
+        // The singletons would outlive the application of the previous test
+        Field instance = type.getDeclaredField("instance");
+        instance.setAccessible(true);
+        instance.set(null, null);
+    }
+
+    // ==================== HARNESS ====================
+
+    static class LoadResult {
+        final String name;
+        final long[] latenciesMs;
+        final int failures;
+        final long elapsedMs;
+
+        LoadResult(String name, long[] latenciesMs, int failures, long elapsedMs) {
+            this.name = name;
+            this.latenciesMs = latenciesMs;
+            this.failures = failures;
+            this.elapsedMs = elapsedMs;
+        }
+
+        double successRate() {
+            return latenciesMs.length == 0 ? 0 : 1.0 - (double) failures / latenciesMs.length;
+        }
+
+        long percentile(double p) {
+            long[] sorted = Arrays.copyOf(latenciesMs, latenciesMs.length);
+            Arrays.sort(sorted);
+            int index = (int) Math.ceil(p * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+        }
+    }
+
+    /**
+     * Run the call `total` times spread over `threads` workers and collect per-call latency
+     */
+    private static LoadResult run(String name, int threads, int total, final Callable<Boolean> call)
+            throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        final long[] latencies = new long[total];
+        final AtomicInteger failures = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+
+        long start = System.nanoTime();
+        for (int i = 0; i < total; i++) {
+            final int index = i;
+            futures.add(pool.submit(new Runnable() {
+                @Override
+                public void run() {
+                    long callStart = System.nanoTime();
+                    boolean ok;
+                    try {
+                        ok = call.call();
+                    } catch (Exception e) {
+                        ok = false;
+                    }
+                    latencies[index] = (System.nanoTime() - callStart) / 1000000;
+                    if (!ok) {
+                        failures.incrementAndGet();
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        long elapsedMs = (System.nanoTime() - start) / 1000000;
+        pool.shutdown();
+        return new LoadResult(name, latencies, failures.get(), elapsedMs);
+    }
+
+    private static void report(LoadResult result) {
+        System.out.println(String.format(Locale.US,
+                "[%s] %d calls in %d ms: %.1f req/s, p50=%d ms p95=%d ms p99=%d ms max=%d ms, failures=%d",
+                result.name, result.latenciesMs.length, result.elapsedMs,
+                result.latenciesMs.length * 1000.0 / Math.max(result.elapsedMs, 1),
+                result.percentile(0.50), result.percentile(0.95), result.percentile(0.99),
+                result.percentile(1.0), result.failures));
+        for (NetworkResilience.EndpointMetrics m : NetworkResilience.getMetrics()) {
+            System.out.println(String.format(Locale.US,
+                    "  %s: requests=%d errors=%d retries=%d shortCircuited=%d p95=%d ms",
+                    m.endpoint, m.requests, m.errors, m.retries, m.shortCircuited, m.percentileLatencyMs(0.95)));
+        }
+        System.out.println(String.format(Locale.US, "  single-flight: executed=%d deduplicated=%d",
+                SingleFlight.getExecutedCount(), SingleFlight.getDedupedCount()));
+    }
+
+    private static void printHitRate(String label, int reads, long serverRequests, long notModified) {
+        System.out.println(String.format(Locale.US,
+                "  cache (%s): %d reads, %d server requests (%d not modified), hit rate %.1f%%",
+                label, reads, serverRequests, notModified, 100.0 * (reads - serverRequests) / reads));
+    }
+}
@@ -0,0 +1,163 @@
+package com.wingsfly;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Benchmark for decoding a 1000-row PostgREST response: the streaming JsonReader + RowMapper
+ * path SupabaseRestClient uses, against the readLine/StringBuilder + JSONArray parse the
+ * database classes did before. Prints time and allocation per decode for both:
+ *
+ *   ./gradlew :app:testDebugUnitTest --tests com.wingsfly.SupabaseDecodeBenchmarkTest -i
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 33)
+public class SupabaseDecodeBenchmarkTest {
+
+    private static final int ROWS = 1000;
+    private static final int WARMUP = 200;
+    private static final int RUNS = 200;
+
+    private byte[] payload;
+
+    @Before
+    public void setUp() throws Exception {
+        // Same row shape LocalSupabaseServer serves for morning_routine_voice_commands
+        LocalSupabaseServer server = LocalSupabaseServer.start();
+        try {
+            server.seedVoiceCommands(ROWS, 120);
+            payload = new JSONArray(server.getRows("morning_routine_voice_commands")).toString()
+                    .getBytes(StandardCharsets.UTF_8);
+        } finally {
+            server.stop();
+        }
+    }
+
+    @Test
+    public void streamingDecodeAgainstJsonArray() throws Exception {
+        for (int i = 0; i < WARMUP; i++) {
+            decodeWithJsonArray();
+            decodeStreaming();
+        }
+
+        Measurement dom = measure(new Decoder() {
+            @Override
+            public List<MorningRoutineDatabase.VoiceCommand> decode() throws Exception {
+                return decodeWithJsonArray();
+            }
+        });
+        Measurement streaming = measure(new Decoder() {
+            @Override
+            public List<MorningRoutineDatabase.VoiceCommand> decode() throws Exception {
+                return decodeStreaming();
+            }
+        });
+
+        System.out.println(String.format(Locale.US, "%d rows, %d KB payload", ROWS, payload.length / 1024));
+        System.out.println("  JSONArray          " + dom);
+        System.out.println("  JsonReader mapper  " + streaming);
+
+        List<MorningRoutineDatabase.VoiceCommand> expected = decodeWithJsonArray();
+        List<MorningRoutineDatabase.VoiceCommand> actual = decodeStreaming();
+        assertEquals(ROWS, actual.size());
+        for (int i = 0; i < ROWS; i++) {
+            assertEquals(expected.get(i).toString(), actual.get(i).toString());
+        }
+        // Times vary from run to run; the DOM's extra allocation does not
+        if (streaming.bytesPerDecode >= 0) {
+            assertTrue("Streaming should allocate well under the DOM path",
+                    streaming.bytesPerDecode * 2 < dom.bytesPerDecode);
+        }
+    }
+
+    /**
+     * The pre-streaming path: whole body into a String, then a JSONArray DOM, then the POJOs
+     */
+    private List<MorningRoutineDatabase.VoiceCommand> decodeWithJsonArray() throws Exception {
+        BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new ByteArrayInputStream(payload), StandardCharsets.UTF_8));
+        StringBuilder response = new StringBuilder();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            response.append(line);
+        }
+        reader.close();
+
+        JSONArray jsonArray = new JSONArray(response.toString());
+        List<MorningRoutineDatabase.VoiceCommand> commands = new ArrayList<>(jsonArray.length());
+        for (int i = 0; i < jsonArray.length(); i++) {
+            JSONObject row = jsonArray.getJSONObject(i);
+            commands.add(new MorningRoutineDatabase.VoiceCommand(
+                    row.getString("id"),
+                    row.getString("command_text"),
+                    row.getInt("lock_duration"),
+                    row.getInt("gap_time"),
+                    row.getInt("sequence_order")));
+        }
+        return commands;
+    }
+
+    private List<MorningRoutineDatabase.VoiceCommand> decodeStreaming() throws Exception {
+        return SupabaseRestClient.parseRows(
+                new InputStreamReader(new ByteArrayInputStream(payload), StandardCharsets.UTF_8),
+                MorningRoutineDatabase.COMMAND_MAPPER);
+    }
+
+    private interface Decoder {
+        List<MorningRoutineDatabase.VoiceCommand> decode() throws Exception;
+    }
+
+    private static Measurement measure(Decoder decoder) throws Exception {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        com.sun.management.ThreadMXBean allocations = threads instanceof com.sun.management.ThreadMXBean
+                ? (com.sun.management.ThreadMXBean) threads : null;
+        long threadId = Thread.currentThread().getId();
+
+        long[] samples = new long[RUNS];
+        long allocatedBefore = allocations != null ? allocations.getThreadAllocatedBytes(threadId) : 0;
+        for (int i = 0; i < RUNS; i++) {
+            long startedAt = System.nanoTime();
+            decoder.decode();
+            samples[i] = System.nanoTime() - startedAt;
+        }
+        long allocated = allocations != null ? allocations.getThreadAllocatedBytes(threadId) - allocatedBefore : -1;
+
+        Arrays.sort(samples);
+        return new Measurement(samples[RUNS / 2] / 1e6, allocated < 0 ? -1 : allocated / RUNS);
+    }
+
+    private static class Measurement {
+        final double medianMs;
+        final long bytesPerDecode;
+
+        Measurement(double medianMs, long bytesPerDecode) {
+            this.medianMs = medianMs;
+            this.bytesPerDecode = bytesPerDecode;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "median %.2f ms, %s per decode", medianMs,
+                    bytesPerDecode < 0 ? "allocation n/a" : (bytesPerDecode / 1024) + " KB allocated");
+        }
+    }
+}
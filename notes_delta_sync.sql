@@ -0,0 +1,65 @@
+-- Delta sync for the floating notes overlay (NotesSyncManager / NoteDelta)
+--
+-- Every update to a note bumps its revision. Clients that know the server's current
+-- revision send only their edits through apply_note_delta() instead of the whole note.
+
+-- Revision counter, bumped on every update
+ALTER TABLE notes ADD COLUMN IF NOT EXISTS revision INTEGER NOT NULL DEFAULT 0;
+
+CREATE OR REPLACE FUNCTION bump_note_revision()
+RETURNS TRIGGER AS $$
+BEGIN
+    NEW.revision = OLD.revision + 1;
+    RETURN NEW;
+END;
+$$ language 'plpgsql';
+
+DROP TRIGGER IF EXISTS bump_notes_revision ON notes;
+CREATE TRIGGER bump_notes_revision
+  BEFORE UPDATE ON notes
+  FOR EACH ROW
+  EXECUTE FUNCTION bump_note_revision();
+
+-- Apply edit operations to a note.
+-- p_ops is an array of {p: position, d: delete count, i: inserted text}, applied in order.
+-- Positions count characters (code points). Fails with 40001 if the note is no longer at
+-- p_base_revision; the client then falls back to a full update.
+CREATE OR REPLACE FUNCTION apply_note_delta(
+  p_note_id UUID,
+  p_base_revision INTEGER,
+  p_ops JSONB,
+  p_updated_at TIMESTAMPTZ
+)
+RETURNS SETOF notes AS $$
+DECLARE
+  current_note notes%ROWTYPE;
+  new_content TEXT;
+  op JSONB;
+BEGIN
+  SELECT * INTO current_note FROM notes WHERE id = p_note_id FOR UPDATE;
+  IF NOT FOUND THEN
+    RAISE EXCEPTION 'Note % not found', p_note_id USING ERRCODE = 'P0002';
+  END IF;
+
+  IF current_note.revision <> p_base_revision THEN
+    RAISE EXCEPTION 'Note % is at revision %, delta was made against %',
+      p_note_id, current_note.revision, p_base_revision USING ERRCODE = '40001';
+  END IF;
+
+  new_content := COALESCE(current_note.content, '');
+  FOR op IN SELECT * FROM jsonb_array_elements(p_ops) LOOP
+    IF (op->>'p')::INTEGER < 0 OR (op->>'d')::INTEGER < 0
+       OR (op->>'p')::INTEGER + (op->>'d')::INTEGER > char_length(new_content) THEN
+      RAISE EXCEPTION 'Delta op out of range for note %', p_note_id USING ERRCODE = '22023';
+    END IF;
+    new_content := overlay(new_content PLACING COALESCE(op->>'i', '')
+                           FROM (op->>'p')::INTEGER + 1 FOR (op->>'d')::INTEGER);
+  END LOOP;
+
+  RETURN QUERY
+    UPDATE notes
+    SET content = new_content, updated_at = p_updated_at
+    WHERE id = p_note_id
+    RETURNING *;
+END;
+$$ LANGUAGE plpgsql SECURITY INVOKER;